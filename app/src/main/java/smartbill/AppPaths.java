@@ -0,0 +1,21 @@
+package smartbill;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Where SmartBill keeps its data: {@code ~/.smartbill} unless overridden with {@code -Dsmartbill.home}.
+ */
+public final class AppPaths {
+
+    private AppPaths() {}
+
+    public static Path home() {
+        String home = System.getProperty("smartbill.home");
+        return home != null ? Paths.get(home) : Paths.get(System.getProperty("user.home"), ".smartbill");
+    }
+
+    public static Path resolve(String name) {
+        return home().resolve(name);
+    }
+}
@@ -0,0 +1,172 @@
+package smartbill;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.awt.event.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * As-you-type suggestion popup for a {@link JTextField}.
+ * The source is asked for matches once per typed change (coalesced to one
+ * lookup per event-queue pass); Up/Down pick a match, Enter or a click
+ * accepts it and Escape closes the list.
+ */
+public class AutoComplete<T> {
+
+    /** Supplies up to {@code limit} matches for a prefix. */
+    public interface Source<T> {
+        void suggest(String prefix, int limit, List<T> out);
+    }
+
+    private static final int MAX_SUGGESTIONS = 10;
+
+    private final JTextField field;
+    private final Source<T> source;
+    private final Function<T, String> label;
+    private final Consumer<T> onAccept;
+    private final DefaultListModel<T> model = new DefaultListModel<>();
+    private final JList<T> list = new JList<>(model);
+    private final List<T> scratch = new ArrayList<>(MAX_SUGGESTIONS);
+    private JWindow popup;            // Created on first use, once the field has a window
+    private boolean refreshQueued, adjusting;
+
+    public AutoComplete(JTextField field, Source<T> source, Function<T, String> label, Consumer<T> onAccept) {
+        this.field = field;
+        this.source = source;
+        this.label = label;
+        this.onAccept = onAccept;
+
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.setFont(field.getFont());
+        list.setFocusable(false);
+        list.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Component getListCellRendererComponent(JList<?> l, Object value, int index, boolean sel, boolean focus) {
+                return super.getListCellRendererComponent(l, label.apply((T) value), index, sel, focus);
+            }
+        });
+        list.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int i = list.locationToIndex(e.getPoint());
+                if (i >= 0) accept(model.get(i));
+            }
+        });
+
+        field.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) { queueRefresh(); }
+            public void removeUpdate(DocumentEvent e) { queueRefresh(); }
+            public void changedUpdate(DocumentEvent e) {}
+        });
+        field.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) { handleKey(e); }
+        });
+        field.addFocusListener(new FocusAdapter() {
+            @Override
+            public void focusLost(FocusEvent e) { hide(); }
+        });
+    }
+
+    /** Sets the field text without popping up suggestions for it. */
+    public void setTextQuietly(String text) {
+        adjusting = true;
+        try {
+            field.setText(text);
+        } finally {
+            adjusting = false;
+        }
+        hide();
+    }
+
+    public boolean isShowing() {
+        return popup != null && popup.isVisible();
+    }
+
+    // --- INTERNALS ---
+
+    private void queueRefresh() {
+        if (adjusting || refreshQueued) return;
+        refreshQueued = true;
+        SwingUtilities.invokeLater(() -> {
+            refreshQueued = false;
+            refresh();
+        });
+    }
+
+    private void refresh() {
+        String prefix = field.getText().trim();
+        scratch.clear();
+        if (!prefix.isEmpty() && field.isShowing()) source.suggest(prefix, MAX_SUGGESTIONS, scratch);
+        if (scratch.isEmpty()) {
+            hide();
+            return;
+        }
+        model.clear();
+        for (T t : scratch) model.addElement(t);
+        list.setSelectedIndex(0);
+        show();
+    }
+
+    private void handleKey(KeyEvent e) {
+        if (!isShowing()) return;
+        int i = list.getSelectedIndex();
+        switch (e.getKeyCode()) {
+            case KeyEvent.VK_DOWN:
+                list.setSelectedIndex(Math.min(i + 1, model.size() - 1));
+                list.ensureIndexIsVisible(list.getSelectedIndex());
+                e.consume();
+                break;
+            case KeyEvent.VK_UP:
+                list.setSelectedIndex(Math.max(i - 1, 0));
+                list.ensureIndexIsVisible(list.getSelectedIndex());
+                e.consume();
+                break;
+            case KeyEvent.VK_ENTER:
+                if (i >= 0) {
+                    e.consume(); // Keep the field's own Enter action from firing
+                    accept(model.get(i));
+                }
+                break;
+            case KeyEvent.VK_ESCAPE:
+                hide();
+                e.consume();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void accept(T value) {
+        hide();
+        onAccept.accept(value);
+    }
+
+    private void show() {
+        if (popup == null) {
+            Window owner = SwingUtilities.getWindowAncestor(field);
+            if (owner == null) return;
+            popup = new JWindow(owner);
+            popup.setFocusableWindowState(false); // Typing stays in the field
+            JScrollPane scroll = new JScrollPane(list);
+            scroll.setBorder(BorderFactory.createLineBorder(new Color(200, 200, 200)));
+            popup.add(scroll);
+        }
+        list.setVisibleRowCount(Math.min(model.size(), MAX_SUGGESTIONS));
+        Point p = field.getLocationOnScreen();
+        popup.pack();
+        popup.setSize(Math.max(field.getWidth(), popup.getWidth()), popup.getHeight());
+        popup.setLocation(p.x, p.y + field.getHeight());
+        popup.setVisible(true);
+    }
+
+    private void hide() {
+        if (popup != null) popup.setVisible(false);
+    }
+}
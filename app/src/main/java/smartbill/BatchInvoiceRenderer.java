@@ -0,0 +1,306 @@
+package smartbill;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Headless end-of-day re-issuing: renders invoice PDFs for every bill in a
+ * CSV or JSONL file, in parallel on a work-stealing pool, with the same
+ * layout as the GUI export ({@link InvoicePdfRenderer}).
+ *
+ * <pre>
+ * java -cp smartbill.jar smartbill.BatchInvoiceRenderer &lt;bills.csv|bills.jsonl&gt; &lt;outDir&gt; [--threads N]
+ *
+ * CSV  : invoice,customer,date,item,price,qty[,discount_pct,tax_pct,line_total,gst]   (one row per
+ *        line item, rows of one invoice are consecutive, first row may be a header)
+ * JSONL: {"invoice":"INV-1","customer":"..","date":"yyyy-MM-dd HH:mm:ss","discount":5,"tax":18,
+ *         "items":[{"name":"..","price":"12.50","qty":2}]}
+ * </pre>
+ *
+ * Bills are taxed at their {@code discount}/{@code tax} rates. A JSONL bill
+ * taxed per GST slab (as {@link BillExporters} writes it, with
+ * {@code "slabs"}) is re-issued from its stored line totals, amounts and
+ * slabs instead, so it prints exactly as it was sold. CSV does not carry the
+ * slabs: rows marked {@code gst} are rejected with a pointer to the JSONL export.
+ *
+ * Each PDF is named after its invoice id; ids that come out the same once
+ * made safe for a file name (e.g. {@code A/1} and {@code A_1}, or a repeated
+ * id) get a {@code -2}, {@code -3}... suffix instead of overwriting each other.
+ */
+public class BatchInvoiceRenderer {
+
+    private static final int PAGE_BITS = 12; // Latency samples are kept in pages of 4096
+
+    private final Path outDir;
+    private final ForkJoinPool pool;
+    private final Semaphore inFlight;       // Bounds parsed-but-unrendered bills held in memory
+
+    // --- Stats ---
+    private final AtomicInteger rendered = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final LongAdder bytesWritten = new LongAdder();
+    private long[][] latencyPages = new long[16][];
+    private int submitted = 0;
+    private final Set<String> fileNames = new HashSet<>(); // Lower case: some file systems ignore case
+
+    public BatchInvoiceRenderer(Path outDir, int threads) {
+        this.outDir = outDir;
+        this.pool = new ForkJoinPool(threads);
+        this.inFlight = new Semaphore(threads * 4);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: java -cp smartbill.jar smartbill.BatchInvoiceRenderer <bills.csv|bills.jsonl> <outDir> [--threads N]");
+            System.exit(2);
+        }
+        Path input = Paths.get(args[0]);
+        Path outDir = Paths.get(args[1]);
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 2; i < args.length; i++) {
+            if ("--threads".equals(args[i]) && i + 1 < args.length) threads = Integer.parseInt(args[++i]);
+        }
+        Files.createDirectories(outDir);
+
+        BatchInvoiceRenderer batch = new BatchInvoiceRenderer(outDir, threads);
+        long start = System.nanoTime();
+        String name = input.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".jsonl") || name.endsWith(".json")) batch.readJsonl(input);
+        else batch.readCsv(input);
+        batch.awaitCompletion();
+        batch.printReport(System.nanoTime() - start, threads);
+        System.exit(batch.failed.get() == 0 ? 0 : 1);
+    }
+
+    // --- INPUT ---
+
+    private void readCsv(Path input) throws IOException {
+        List<String> fields = new ArrayList<>(8);
+        try (BufferedReader in = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+            String line, currentId = null, customer = null;
+            long timestamp = 0;
+            int discountBps = 0, taxBps = 0, lineNo = 0;
+            BillLedger ledger = null; // null while the current invoice is broken
+            while ((line = in.readLine()) != null) {
+                lineNo++;
+                if (line.trim().isEmpty()) continue;
+                Csv.split(line, fields);
+                if (lineNo == 1 && "invoice".equalsIgnoreCase(fields.get(0).trim())) continue; // Header
+                String id = fields.get(0).trim();
+                boolean first = !id.equals(currentId);
+                if (first) {
+                    if (ledger != null) submit(currentId, ledger, discountBps, taxBps, customer, timestamp);
+                    currentId = id;
+                } else if (ledger == null) {
+                    continue; // Rest of an invoice that already failed
+                }
+                try {
+                    if (fields.size() < 6) throw new IllegalArgumentException("expected at least 6 columns");
+                    if (fields.size() > 9 && !fields.get(9).trim().isEmpty()) {
+                        throw new IllegalArgumentException("taxed per GST slab; re-issue it from the JSONL export");
+                    }
+                    if (first) {
+                        customer = fields.get(1);
+                        timestamp = parseDate(fields.get(2));
+                        discountBps = fields.size() > 6 ? rate(fields.get(6)) : 0;
+                        taxBps = fields.size() > 7 ? rate(fields.get(7)) : 0;
+                        ledger = new BillLedger();
+                    }
+                    ledger.add(fields.get(3), Money.parse(fields.get(4)), Integer.parseInt(fields.get(5).trim()));
+                } catch (RuntimeException e) {
+                    ledger = null;
+                    failed.incrementAndGet();
+                    System.err.println("Line " + lineNo + " (invoice " + id + " skipped): " + e.getMessage());
+                }
+            }
+            if (ledger != null) submit(currentId, ledger, discountBps, taxBps, customer, timestamp);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readJsonl(Path input) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNo = 0;
+            while ((line = in.readLine()) != null) {
+                lineNo++;
+                if (line.trim().isEmpty()) continue;
+                try {
+                    Map<String, Object> bill = (Map<String, Object>) Json.parse(line);
+                    if (bill.get("slabs") != null) {
+                        submit(Json.string(bill, "invoice", "INV-" + lineNo), storedGstBill(bill));
+                        continue;
+                    }
+                    BillLedger ledger = new BillLedger();
+                    for (Object o : (List<Object>) bill.get("items")) {
+                        Map<String, Object> item = (Map<String, Object>) o;
+                        ledger.add(Json.string(item, "name", ""), Money.parse(Json.string(item, "price", null)),
+                            ((BigDecimal) item.get("qty")).intValueExact());
+                    }
+                    submit(Json.string(bill, "invoice", "INV-" + lineNo), ledger,
+                        rate(Json.string(bill, "discount", "0")), rate(Json.string(bill, "tax", "0")),
+                        Json.string(bill, "customer", ""), parseDate(Json.string(bill, "date", "")));
+                } catch (RuntimeException e) {
+                    failed.incrementAndGet();
+                    System.err.println("Line " + lineNo + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /** A GST bill exactly as exported: stored line totals, amounts and slabs, nothing re-derived. */
+    @SuppressWarnings("unchecked")
+    private static BillSnapshot storedGstBill(Map<String, Object> bill) {
+        List<Object> items = (List<Object>) bill.get("items");
+        int n = items.size();
+        String[] names = new String[n];
+        long[] prices = new long[n], totals = new long[n];
+        int[] quantities = new int[n];
+        long subtotal = 0;
+        for (int i = 0; i < n; i++) {
+            Map<String, Object> item = (Map<String, Object>) items.get(i);
+            names[i] = Json.string(item, "name", "");
+            prices[i] = Money.parse(Json.string(item, "price", null));
+            quantities[i] = ((BigDecimal) item.get("qty")).intValueExact();
+            totals[i] = Money.parse(Json.string(item, "total", null));
+            subtotal += totals[i];
+        }
+        List<Object> stored = (List<Object>) bill.get("slabs");
+        BillSnapshot.Slab[] slabs = new BillSnapshot.Slab[stored.size()];
+        for (int i = 0; i < slabs.length; i++) {
+            Map<String, Object> slab = (Map<String, Object>) stored.get(i);
+            slabs[i] = new BillSnapshot.Slab(rate(Json.string(slab, "rate", "0")),
+                Money.parse(Json.string(slab, "taxable", null)), Money.parse(Json.string(slab, "tax", null)));
+        }
+        BillSnapshot snapshot = new BillSnapshot(Json.string(bill, "customer", ""), parseDate(Json.string(bill, "date", "")),
+            names, prices, quantities, totals, subtotal,
+            rate(Json.string(bill, "discount", "0")), Money.parse(Json.string(bill, "discountAmount", null)),
+            rate(Json.string(bill, "tax", "0")), Money.parse(Json.string(bill, "taxAmount", null)),
+            Boolean.parseBoolean(Json.string(bill, "interState", "false")), slabs);
+        String grand = Json.string(bill, "grandTotal", null);
+        if (grand != null && Money.parse(grand) != snapshot.grandTotal) {
+            throw new IllegalArgumentException("stored amounts do not add up to the grand total " + grand);
+        }
+        return snapshot;
+    }
+
+    private static int rate(String text) {
+        return text.trim().isEmpty() ? 0 : Money.parseRate(text);
+    }
+
+    private static long parseDate(String text) {
+        if (text == null || text.trim().isEmpty()) return System.currentTimeMillis();
+        try {
+            return LocalDateTime.parse(text.trim(), Timestamps.DATE_TIME).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("bad date '" + text + "' (expected yyyy-MM-dd HH:mm:ss)");
+        }
+    }
+
+    // --- RENDERING ---
+
+    private void submit(String id, BillLedger ledger, int discountBps, int taxBps, String customer, long timestamp) {
+        ledger.setRates(discountBps, taxBps);
+        submit(id, BillSnapshot.of(ledger, customer, timestamp));
+    }
+
+    private void submit(String id, BillSnapshot bill) {
+        Path target = outDir.resolve(uniqueFileName(id) + ".pdf");
+        int seq = submitted++;
+        ensureLatencySlot(seq);
+        long[] page = latencyPages[seq >>> PAGE_BITS];
+        int slot = seq & ((1 << PAGE_BITS) - 1);
+
+        inFlight.acquireUninterruptibly();
+        pool.execute(() -> {
+            long t0 = System.nanoTime();
+            try {
+                bytesWritten.add(InvoicePdfRenderer.writeFile(bill, target, pct -> {}));
+                rendered.incrementAndGet();
+            } catch (Exception e) {
+                failed.incrementAndGet();
+                System.err.println(id + ": " + e);
+            } finally {
+                page[slot] = System.nanoTime() - t0;
+                inFlight.release();
+            }
+        });
+    }
+
+    private void ensureLatencySlot(int seq) {
+        int pageIndex = seq >>> PAGE_BITS;
+        if (pageIndex >= latencyPages.length) latencyPages = Arrays.copyOf(latencyPages, latencyPages.length * 2);
+        if (latencyPages[pageIndex] == null) latencyPages[pageIndex] = new long[1 << PAGE_BITS];
+    }
+
+    private void awaitCompletion() {
+        pool.shutdown();
+        try {
+            while (!pool.awaitTermination(1, TimeUnit.SECONDS)) { /* keep waiting */ }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** A file name no other invoice of this run has; reader thread only. */
+    private String uniqueFileName(String id) {
+        String base = safeFileName(id), name = base;
+        for (int n = 2; !fileNames.add(name.toLowerCase(Locale.ROOT)); n++) name = base + "-" + n;
+        if (!name.equals(base)) System.err.println("Invoice " + id + ": " + base + ".pdf already used, writing " + name + ".pdf");
+        return name;
+    }
+
+    private static String safeFileName(String id) {
+        StringBuilder sb = new StringBuilder(id.length());
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            sb.append(Character.isLetterOrDigit(c) || c == '-' || c == '_' || c == '.' ? c : '_');
+        }
+        return sb.length() == 0 ? "invoice" : sb.toString();
+    }
+
+    // --- REPORT ---
+
+    private void printReport(long elapsedNanos, int threads) {
+        int n = submitted;
+        long[] lat = new long[n];
+        for (int i = 0; i < n; i++) lat[i] = latencyPages[i >>> PAGE_BITS][i & ((1 << PAGE_BITS) - 1)];
+        Arrays.sort(lat);
+
+        double secs = elapsedNanos / 1e9;
+        double mb = bytesWritten.sum() / (1024.0 * 1024.0);
+        System.out.printf(Locale.ROOT, "Rendered %d invoices (%d failed) on %d threads in %.2f s%n",
+            rendered.get(), failed.get(), threads, secs);
+        System.out.printf(Locale.ROOT, "Throughput: %.1f invoices/s, %.2f MB/s (%.2f MB total)%n",
+            rendered.get() / secs, mb / secs, mb);
+        if (n > 0) {
+            System.out.printf(Locale.ROOT, "Latency per invoice: p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                percentile(lat, 0.50) / 1e6, percentile(lat, 0.99) / 1e6, lat[n - 1] / 1e6);
+        }
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int idx = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, idx))];
+    }
+}
@@ -0,0 +1,34 @@
+package smartbill;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A file format bills can be exported in.
+ *
+ * <p>Exports stream: {@link #open} starts a file on a channel and the returned
+ * {@link Sink} takes one bill at a time, so exporting a day of bills never
+ * holds more than the bill being written. The built-in formats are listed by
+ * {@link BillExporters}; others are plugged in by putting a jar with a
+ * {@code META-INF/services/smartbill.BillExporter} entry on the class path.
+ */
+public interface BillExporter {
+
+    /** Short name for the command line, e.g. {@code csv}. */
+    String name();
+
+    /** For file choosers, e.g. {@code CSV line items (*.csv)}. */
+    String description();
+
+    /** File extension, without the dot. */
+    String extension();
+
+    /** Starts a file; writes any header to {@code out}. */
+    Sink open(WritableByteChannel out) throws IOException;
+
+    /** The bills of one export. {@link #close} writes any trailer and flushes, but leaves the channel open. */
+    interface Sink extends Closeable {
+        void write(long billId, BillSnapshot bill) throws IOException;
+    }
+}
@@ -0,0 +1,288 @@
+package smartbill;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * The export formats: plain-text receipts, CSV line items, JSON lines and
+ * the {@link BinaryBills} archive, plus any {@link BillExporter} found with
+ * {@link ServiceLoader}. Every format streams through one bounded
+ * {@link ExportChannel}, so exporting the whole journal takes the same memory
+ * as exporting one bill.
+ *
+ * <pre>
+ * java -cp smartbill.jar smartbill.BillExporters &lt;journalDir&gt; &lt;out.txt|csv|jsonl|sbx&gt; [--format NAME] [--from yyyy-MM-dd] [--to yyyy-MM-dd]
+ * </pre>
+ *
+ * The CSV and JSONL output is in the layout {@link BatchInvoiceRenderer} reads.
+ * JSONL carries a GST bill's stored amounts and slabs, so it re-issues exactly
+ * as sold. CSV rows only mark such bills in the {@code gst} column, and the
+ * renderer rejects them.
+ */
+public final class BillExporters {
+
+    private static final int TEXT_CHUNK = 8 * 1024; // Chars gathered before they are encoded
+    private static final List<BillExporter> ALL = load();
+
+    private BillExporters() {}
+
+    /** The bills of an export, written one at a time. */
+    public interface Bills {
+        void writeTo(BillExporter.Sink sink) throws IOException;
+    }
+
+    // --- REGISTRY ---
+
+    private static List<BillExporter> load() {
+        List<BillExporter> all = new ArrayList<>();
+        all.add(new TextExporter());
+        all.add(new CsvExporter());
+        all.add(new JsonLinesExporter());
+        all.add(new BinaryBills());
+        for (BillExporter e : ServiceLoader.load(BillExporter.class)) all.add(e);
+        return Collections.unmodifiableList(all);
+    }
+
+    /** Built-in formats first (plain text is the default), then plug-ins. */
+    public static List<BillExporter> all() {
+        return ALL;
+    }
+
+    /** The format with this name or extension, or null. */
+    public static BillExporter forName(String name) {
+        for (BillExporter e : ALL) {
+            if (e.name().equalsIgnoreCase(name) || e.extension().equalsIgnoreCase(name)) return e;
+        }
+        return null;
+    }
+
+    /** The format for a file's extension, or null. */
+    public static BillExporter forFile(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? null : forName(name.substring(dot + 1));
+    }
+
+    // --- WRITING ---
+
+    /**
+     * Exports to {@code target}, via a ".part" file that replaces it only once
+     * complete (like {@link InvoicePdfRenderer#writeFile}).
+     * @return the size of the file
+     */
+    public static long writeFile(BillExporter format, Path target, Bills bills) throws IOException {
+        Path part = target.resolveSibling(target.getFileName() + ".part");
+        boolean ok = false;
+        try {
+            long size;
+            try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                try (BillExporter.Sink sink = format.open(channel)) {
+                    bills.writeTo(sink);
+                }
+                size = channel.size();
+            }
+            Files.move(part, target, StandardCopyOption.REPLACE_EXISTING);
+            ok = true;
+            return size;
+        } finally {
+            if (!ok) Files.deleteIfExists(part);
+        }
+    }
+
+    /** Writes one bill, e.g. the one on screen. */
+    public static long writeFile(BillExporter format, Path target, long billId, BillSnapshot bill) throws IOException {
+        return writeFile(format, target, sink -> sink.write(billId, bill));
+    }
+
+    /** A text sink: lines gathered in one reused builder and encoded in chunks. */
+    private abstract static class TextSink implements BillExporter.Sink {
+        final ExportChannel out;
+        final StringBuilder sb = new StringBuilder(TEXT_CHUNK + 256);
+
+        TextSink(WritableByteChannel channel) {
+            out = new ExportChannel(channel);
+        }
+
+        /** Encodes what is gathered once there is a chunk of it. */
+        final void spill() throws IOException {
+            if (sb.length() >= TEXT_CHUNK) {
+                out.text(sb);
+                sb.setLength(0);
+            }
+        }
+
+        public void close() throws IOException {
+            out.text(sb);
+            sb.setLength(0);
+            out.flush();
+        }
+    }
+
+    // --- TEXT ---
+
+    /** Receipts as the preview shows them, one after another. */
+    private static final class TextExporter implements BillExporter {
+        public String name() { return "txt"; }
+        public String description() { return "Text receipts (*.txt)"; }
+        public String extension() { return "txt"; }
+
+        public Sink open(WritableByteChannel channel) {
+            return new TextSink(channel) {
+                private boolean first = true;
+
+                public void write(long billId, BillSnapshot bill) throws IOException {
+                    if (!first) sb.append('\n');
+                    first = false;
+                    ReceiptPreview.appendHeader(sb, bill);
+                    for (int row = 0; row < bill.size(); row++) {
+                        ReceiptPreview.appendItemLine(sb, bill, row);
+                        spill();
+                    }
+                    ReceiptPreview.appendTotals(sb, bill);
+                    spill();
+                }
+            };
+        }
+    }
+
+    // --- CSV ---
+
+    /** One row per line item, with the bill's rates repeated on each row; {@code gst} is "slab" for bills taxed per GST slab. */
+    private static final class CsvExporter implements BillExporter {
+        public String name() { return "csv"; }
+        public String description() { return "CSV line items (*.csv)"; }
+        public String extension() { return "csv"; }
+
+        public Sink open(WritableByteChannel channel) {
+            TextSink sink = new TextSink(channel) {
+                public void write(long billId, BillSnapshot bill) throws IOException {
+                    String date = Timestamps.dateTime(bill.timestamp);
+                    String discount = Money.formatRatePlain(bill.discountBps), tax = Money.formatRatePlain(bill.taxBps);
+                    String gst = bill.hasSlabs() ? "slab" : "";
+                    for (int row = 0; row < bill.size(); row++) {
+                        sb.append(billId).append(',');
+                        Csv.appendField(sb, bill.customer).append(',').append(date).append(',');
+                        Csv.appendField(sb, bill.name(row)).append(',');
+                        Money.appendPlain(sb, bill.price(row)).append(',').append(bill.quantity(row)).append(',');
+                        sb.append(discount).append(',').append(tax).append(',');
+                        Money.appendPlain(sb, bill.total(row)).append(',').append(gst).append('\n');
+                        spill();
+                    }
+                }
+            };
+            sink.sb.append("invoice,customer,date,item,price,qty,discount_pct,tax_pct,line_total,gst\n");
+            return sink;
+        }
+    }
+
+    // --- JSON LINES ---
+
+    /** One JSON object per bill; GST slabs only for bills taxed per slab. */
+    private static final class JsonLinesExporter implements BillExporter {
+        public String name() { return "jsonl"; }
+        public String description() { return "JSON lines (*.jsonl)"; }
+        public String extension() { return "jsonl"; }
+
+        public Sink open(WritableByteChannel channel) {
+            return new TextSink(channel) {
+                public void write(long billId, BillSnapshot bill) throws IOException {
+                    sb.append("{\"invoice\":\"").append(billId).append("\",\"customer\":");
+                    Json.quote(sb, bill.customer).append(",\"date\":\"").append(Timestamps.dateTime(bill.timestamp));
+                    sb.append("\",\"discount\":").append(Money.formatRatePlain(bill.discountBps));
+                    sb.append(",\"tax\":").append(Money.formatRatePlain(bill.taxBps)).append(",\"items\":[");
+                    for (int row = 0; row < bill.size(); row++) {
+                        sb.append(row == 0 ? "{\"name\":" : ",{\"name\":");
+                        Json.quote(sb, bill.name(row)).append(",\"price\":\"");
+                        Money.appendPlain(sb, bill.price(row)).append("\",\"qty\":").append(bill.quantity(row));
+                        Money.appendPlain(sb.append(",\"total\":\""), bill.total(row)).append("\"}");
+                        spill();
+                    }
+                    Money.appendPlain(sb.append("],\"subtotal\":\""), bill.subtotal);
+                    Money.appendPlain(sb.append("\",\"discountAmount\":\""), bill.discountAmount);
+                    Money.appendPlain(sb.append("\",\"taxAmount\":\""), bill.taxAmount);
+                    Money.appendPlain(sb.append("\",\"grandTotal\":\""), bill.grandTotal).append('"');
+                    if (bill.hasSlabs()) {
+                        sb.append(",\"interState\":").append(bill.interState).append(",\"slabs\":[");
+                        for (int i = 0; i < bill.slabCount(); i++) {
+                            BillSnapshot.Slab s = bill.slab(i);
+                            sb.append(i == 0 ? "{\"rate\":" : ",{\"rate\":").append(Money.formatRatePlain(s.rateBps));
+                            Money.appendPlain(sb.append(",\"taxable\":\""), s.taxable);
+                            Money.appendPlain(sb.append("\",\"tax\":\""), s.tax).append("\"}");
+                        }
+                        sb.append(']');
+                    }
+                    sb.append("}\n");
+                    spill();
+                }
+            };
+        }
+    }
+
+    // --- COMMAND LINE ---
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: java -cp smartbill.jar smartbill.BillExporters <journalDir> <out.txt|csv|jsonl|sbx>"
+                + " [--format NAME] [--from yyyy-MM-dd] [--to yyyy-MM-dd]");
+            System.exit(2);
+        }
+        Path journal = Paths.get(args[0]), target = Paths.get(args[1]);
+        BillExporter format = forFile(target);
+        long from = Long.MIN_VALUE, to = Long.MAX_VALUE;
+        for (int i = 2; i + 1 < args.length; i++) {
+            if ("--format".equals(args[i])) format = forName(args[++i]);
+            else if ("--from".equals(args[i])) from = startOfDay(LocalDate.parse(args[++i]));
+            else if ("--to".equals(args[i])) to = startOfDay(LocalDate.parse(args[++i]).plusDays(1)) - 1;
+        }
+        if (format == null) {
+            StringBuilder names = new StringBuilder();
+            for (BillExporter e : ALL) names.append(names.length() == 0 ? "" : ", ").append(e.name());
+            System.err.println("Unknown format; one of: " + names);
+            System.exit(2);
+        }
+
+        long t0 = System.nanoTime(), first = from, last = to;
+        int[] count = {0};
+        long size;
+        try {
+            size = writeFile(format, target, sink -> InvoiceJournal.scan(journal, (type, billId, written, payload) -> {
+                if (type != InvoiceJournal.BILL_COMMITTED) return;
+                BillSnapshot bill = InvoiceJournal.readCommittedBill(payload);
+                if (bill.timestamp < first || bill.timestamp > last) return;
+                try {
+                    sink.write(billId, bill);
+                    count[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        System.out.printf("Exported %d bills as %s to %s (%,d bytes) in %d ms%n", count[0], format.name(), target,
+            size, (System.nanoTime() - t0) / 1_000_000);
+        if (format instanceof BinaryBills) {
+            long[] total = {0};
+            int read = BinaryBills.read(target, r -> total[0] += r.grandTotal());
+            System.out.printf("Read back %d bills, %s in all%n", read, Money.format(total[0]));
+        }
+    }
+
+    private static long startOfDay(LocalDate day) {
+        return day.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
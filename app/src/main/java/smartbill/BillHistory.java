@@ -0,0 +1,126 @@
+package smartbill;
+
+import java.util.Arrays;
+
+/**
+ * The undo/redo log of one bill: every change to a line, kept as the line's
+ * values before and after, and grouped into steps (one per user action, e.g.
+ * a whole import). Undoing a step puts back the "before" values of just the
+ * lines it touched, so a step costs the same on a bill of ten lines or ten
+ * thousand, and nothing is ever copied whole.
+ *
+ * <p>Lines are addressed by their {@link BillLedger} line number. Removing
+ * the last line hands its number out again, so an added or removed line keeps
+ * its values too, and putting it back restores them whatever reused the slot.
+ * Recording after an undo drops the steps that could have been redone.
+ * Guarded by the bill's monitor, like its ledger.
+ */
+final class BillHistory {
+
+    // --- Change Kinds ---
+    static final byte ADDED = 1;   // The line was added (undo removes it)
+    static final byte REMOVED = 2; // The line was removed (undo restores it)
+    static final byte CHANGED = 3; // Item, price or quantity changed
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    // --- Changes (column per field) ---
+    private byte[] kinds = new byte[INITIAL_CAPACITY];
+    private int[] lines = new int[INITIAL_CAPACITY];
+    private int[] oldItems = new int[INITIAL_CAPACITY], newItems = new int[INITIAL_CAPACITY];
+    private long[] oldPrices = new long[INITIAL_CAPACITY], newPrices = new long[INITIAL_CAPACITY];
+    private int[] oldQtys = new int[INITIAL_CAPACITY], newQtys = new int[INITIAL_CAPACITY];
+    private int changes;
+
+    // --- Steps (each ends at a change index) ---
+    private int[] stepEnds = new int[INITIAL_CAPACITY];
+    private int steps;   // Steps recorded, undone ones included
+    private int applied; // Steps in effect; the rest can be redone
+
+    // --- RECORDING ---
+
+    void added(int line, int item, long price, int qty) {
+        record(ADDED, line, 0, 0, 0, item, price, qty);
+    }
+
+    void removed(int line, int item, long price, int qty) {
+        record(REMOVED, line, item, price, qty, 0, 0, 0);
+    }
+
+    /** A line went from one item/price/quantity to another ({@code itemId}s are the ledger's). */
+    void changed(int line, int oldItem, long oldPrice, int oldQty, int newItem, long newPrice, int newQty) {
+        record(CHANGED, line, oldItem, oldPrice, oldQty, newItem, newPrice, newQty);
+    }
+
+    /** Closes the step the changes since the last one belong to; a step with no changes is not kept. */
+    void endStep() {
+        if (applied < steps || changes == openFrom()) return; // Nothing recorded since the last undo or step
+        if (steps == stepEnds.length) stepEnds = Arrays.copyOf(stepEnds, steps * 2);
+        stepEnds[steps++] = changes;
+        applied = steps;
+    }
+
+    /** Forgets the changes of the open step (they were taken back, e.g. a failed import). */
+    void dropStep() {
+        if (applied == steps) changes = openFrom();
+    }
+
+    private void record(byte kind, int line, int oldItem, long oldPrice, int oldQty,
+                        int newItem, long newPrice, int newQty) {
+        if (applied < steps) { // A new edit: the undone steps cannot be redone any more
+            changes = applied == 0 ? 0 : stepEnds[applied - 1];
+            steps = applied;
+        }
+        if (changes == kinds.length) grow();
+        kinds[changes] = kind;
+        lines[changes] = line;
+        oldItems[changes] = oldItem;
+        oldPrices[changes] = oldPrice;
+        oldQtys[changes] = oldQty;
+        newItems[changes] = newItem;
+        newPrices[changes] = newPrice;
+        newQtys[changes++] = newQty;
+    }
+
+    /** Where the open step's changes start. */
+    private int openFrom() {
+        return applied == 0 ? 0 : stepEnds[applied - 1];
+    }
+
+    private void grow() {
+        int cap = changes * 2;
+        kinds = Arrays.copyOf(kinds, cap);
+        lines = Arrays.copyOf(lines, cap);
+        oldItems = Arrays.copyOf(oldItems, cap);
+        newItems = Arrays.copyOf(newItems, cap);
+        oldPrices = Arrays.copyOf(oldPrices, cap);
+        newPrices = Arrays.copyOf(newPrices, cap);
+        oldQtys = Arrays.copyOf(oldQtys, cap);
+        newQtys = Arrays.copyOf(newQtys, cap);
+    }
+
+    // --- UNDO / REDO ---
+
+    boolean canUndo() { return applied > 0; }
+    boolean canRedo() { return applied < steps; }
+
+    /** First change of the step {@link #undone} would take back; undo runs from its end down to here. */
+    int undoStart() { return applied == 1 ? 0 : stepEnds[applied - 2]; }
+    int undoEnd() { return stepEnds[applied - 1]; }
+    void undone() { applied--; }
+
+    /** Changes of the step {@link #redone} would put back, in the order they were made. */
+    int redoStart() { return applied == 0 ? 0 : stepEnds[applied - 1]; }
+    int redoEnd() { return stepEnds[applied]; }
+    void redone() { applied++; }
+
+    // --- Accessors ---
+    byte kind(int i) { return kinds[i]; }
+    int line(int i) { return lines[i]; }
+    int oldItem(int i) { return oldItems[i]; }
+    long oldPrice(int i) { return oldPrices[i]; }
+    int oldQty(int i) { return oldQtys[i]; }
+    int newItem(int i) { return newItems[i]; }
+    long newPrice(int i) { return newPrices[i]; }
+    int newQty(int i) { return newQtys[i]; }
+}
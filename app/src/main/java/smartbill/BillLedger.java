@@ -0,0 +1,557 @@
+package smartbill;
+
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Typed line-item store behind the bill table.
+ * Item id, price, quantity and line total live in parallel primitive arrays
+ * (names are interned once per bill and referenced by id) and the
+ * running subtotal, discount and tax are kept current on every add/remove,
+ * so the totals never have to be read back out of the JTable.
+ * An identity index (item id + unit price) finds an existing line in O(1) so
+ * repeats can be merged, and an add log lets the last addition be undone
+ * quantity by quantity.
+ * Any line can be removed, changed or (for undo) restored. A removed line
+ * keeps its slot, so every line has a fixed <em>line number</em> (its place
+ * in the order lines were added) while rows are the lines still on the bill;
+ * once a line in the middle has been removed, a Fenwick tree over the live
+ * lines maps between the two in O(log n), and before that a row is its line
+ * number. Removing the last line just gives its number back (the next add
+ * reuses it), so taking back recent adds never builds the tree.
+ * With {@link TaxRules} installed the bill is taxed per GST slab instead: each
+ * distinct item's rule is resolved once, and every add/remove only moves the
+ * line's amount in and out of its slab's running sums, re-deriving that one
+ * slab's discount and tax (CGST + SGST, or IGST for an inter-state supply).
+ * All amounts are paise and all rates basis points (see {@link Money}).
+ */
+public class BillLedger {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    // --- Line Storage (column per field, indexed by line number) ---
+    private int[] itemIds = new int[INITIAL_CAPACITY];
+    private long[] prices = new long[INITIAL_CAPACITY];
+    private int[] quantities = new int[INITIAL_CAPACITY];
+    private long[] totals = new long[INITIAL_CAPACITY];
+    private boolean[] removed = new boolean[INITIAL_CAPACITY];
+    private int lines = 0;  // Line numbers handed out, removed lines included
+    private int size = 0;   // Lines on the bill (rows)
+
+    // --- Row Numbering (Fenwick tree over the live lines) ---
+    private int[] liveCounts = new int[0];
+    private boolean counted; // liveCounts is current; false until a line in the middle is removed (row == line)
+
+    // --- Running Totals ---
+    private long subtotal = 0, discountAmount = 0, taxAmount = 0;
+    private int discountBps = 0, taxBps = 0;
+    private RoundingMode rounding = Money.DEFAULT_ROUNDING;
+
+    // --- GST Slabs (only with tax rules) ---
+    private TaxRules rules;                              // null: the bill rates apply to the whole subtotal
+    private boolean interState;
+    private int[] itemRules = new int[INITIAL_CAPACITY]; // item id -> rule
+    private long[] lineDiscounts = new long[INITIAL_CAPACITY]; // Item/category discount of each line
+    private long[] slabGross = new long[0];              // Line totals per slab
+    private long[] slabBillBase = new long[0];           // ... of lines that take the bill discount
+    private long[] slabOwnDiscount = new long[0];        // Sum of their own discounts, for the rest
+    private long[] slabDiscount = new long[0], slabTax = new long[0]; // Derived, folded into the totals
+
+    // --- Item Names (interned: id -> name, name -> id) ---
+    private final List<String> itemNames = new ArrayList<>();
+    private final Map<String, Integer> itemIdsByName = new HashMap<>();
+
+    // --- Line Identity Index & Add Log ---
+    private final LongIntHashMap lineIndex = new LongIntHashMap(INITIAL_CAPACITY); // identity -> a live line
+    private int[] addLines = new int[INITIAL_CAPACITY];
+    private int[] addQtys = new int[INITIAL_CAPACITY];   // Negative: the add created the line
+    private int[] addResults = new int[INITIAL_CAPACITY]; // Quantity right after the add; stale once it differs
+    private int adds = 0;
+    private int[] firstAdds = new int[INITIAL_CAPACITY]; // Per line: log index of the add that created it, older entries are stale
+
+    /**
+     * Appends a line and folds its total into the running subtotal.
+     * @return the row index of the new line
+     */
+    public int add(String name, long price, int qty) {
+        ensureCapacity(lines + 1);
+        long total = Money.times(price, qty);
+        long newSubtotal = Money.add(subtotal, total); // Fail before touching state on overflow
+        int id = intern(name);
+        int line = lines++;
+        itemIds[line] = id;
+        prices[line] = price;
+        quantities[line] = qty;
+        totals[line] = total;
+        removed[line] = false;
+        if (counted) count(line, 1);
+        subtotal = newSubtotal;
+        if (rules != null) {
+            lineDiscounts[line] = ownDiscount(id, total);
+            foldLine(line, 1);
+        } else {
+            refreshAdjustments();
+        }
+        index(line);
+        firstAdds[line] = adds;
+        logAdd(line, -qty);
+        return size++; // Every earlier line comes before it
+    }
+
+    /**
+     * Adds {@code qty} more of an existing line (recorded in the add log).
+     */
+    public void addQuantity(int row, int qty) {
+        int line = lineOf(row);
+        replace(line, itemIds[line], prices[line], Math.addExact(quantities[line], qty));
+        logAdd(line, qty);
+    }
+
+    /**
+     * Finds a line with the same name and unit price.
+     * @return its row, or -1 if there is none
+     */
+    public int findLine(String name, long price) {
+        Integer id = itemIdsByName.get(name);
+        if (id == null) return -1;
+        int line = lineIndex.get(identity(id, price));
+        // Keys are mixed, so confirm the hit against the line itself
+        return (line >= 0 && !removed[line] && itemIds[line] == id && prices[line] == price) ? rowOf(line) : -1;
+    }
+
+    /**
+     * Takes back the most recent {@link #add} or {@link #addQuantity} still in
+     * effect: a merged quantity is subtracted again and a created line is
+     * removed. Additions since removed or edited are passed over; with none
+     * left (e.g. restored lines) the last line is removed.
+     * @return the row that changed or was removed
+     */
+    public int undoAdd() {
+        int line = lastAddedLine();
+        if (line < 0) throw new IllegalStateException("Ledger is empty");
+        int row = rowOf(line);
+        if (adds == 0 || addQtys[--adds] < 0) removeLine(line);
+        else replace(line, itemIds[line], prices[line], quantities[line] - addQtys[adds]);
+        return row;
+    }
+
+    /** The line the next {@link #undoAdd} changes or removes, or -1 if the bill is empty. */
+    public int lastAddedLine() {
+        while (adds > 0 && staleAdd(adds - 1)) adds--;
+        if (adds > 0) return addLines[adds - 1];
+        return size == 0 ? -1 : lineOf(size - 1);
+    }
+
+    /** An add log entry whose line has since been removed, edited or handed out again. */
+    private boolean staleAdd(int i) {
+        int line = addLines[i];
+        return line >= lines || removed[line] || quantities[line] != addResults[i] || i < firstAdds[line];
+    }
+
+    /**
+     * Drops the last line and takes its total back out of the subtotal.
+     */
+    public void removeLast() {
+        if (size == 0) throw new IllegalStateException("Ledger is empty");
+        removeLine(lineOf(size - 1));
+    }
+
+    /**
+     * Changes the quantity of an existing line, adjusting the subtotal by the difference.
+     */
+    public void setQuantity(int row, int qty) {
+        if (row < 0 || row >= size) throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        int line = lineOf(row);
+        replace(line, itemIds[line], prices[line], qty);
+    }
+
+    // --- Lines by Number (edits, removal and undo) ---
+
+    /**
+     * Takes a line off the bill. It keeps its number and content, and
+     * {@link #restoreLine} puts it back in the same place. The last line gives
+     * its number back instead, in O(1), until it is restored or reused.
+     */
+    public void removeLine(int line) {
+        removeLine(line, line == lines - 1);
+    }
+
+    private void removeLine(int line, boolean truncate) {
+        checkLine(line, false);
+        if (truncate) lines--;
+        else if (!counted) recount(); // First removal in the middle
+        removed[line] = true;
+        count(line, -1);
+        size--;
+        subtotal -= totals[line];
+        long key = identity(itemIds[line], prices[line]);
+        if (lineIndex.get(key) == line) lineIndex.remove(key);
+        if (rules != null) foldLine(line, -1);
+        else refreshAdjustments();
+    }
+
+    /** Puts a removed line back at its place among the others. */
+    public void restoreLine(int line) {
+        boolean extend = line == lines && canRestore(line);
+        if (!extend) checkLine(line, true);
+        long newSubtotal = Money.add(subtotal, totals[line]);
+        if (extend) {
+            lines++;
+            firstAdds[line] = adds; // Its adds may belong to a line that reused the number
+        }
+        removed[line] = false;
+        count(line, 1);
+        size++;
+        subtotal = newSubtotal;
+        index(line);
+        if (rules != null) {
+            lineDiscounts[line] = ownDiscount(itemIds[line], totals[line]); // Rules may have changed meanwhile
+            foldLine(line, 1);
+        } else {
+            refreshAdjustments();
+        }
+    }
+
+    /** Rewrites a line on the bill: its item, unit price and quantity. */
+    public void setLine(int line, String name, long price, int qty) {
+        checkLine(line, false);
+        replace(line, intern(name), price, qty);
+    }
+
+    /**
+     * Whether {@link #restoreLine} can put this line back: a removed line, or
+     * the last one removed if its number was not handed out again.
+     */
+    public boolean canRestore(int line) {
+        return line >= 0 && line <= lines && line < removed.length && removed[line];
+    }
+
+    /**
+     * The row of a line on the bill; for a removed line, the row it would have
+     * if it were put back.
+     */
+    public int rowOf(int line) {
+        return counted && size < lines ? liveBefore(line) : line;
+    }
+
+    /** The line number shown at {@code row}. */
+    public int lineOf(int row) {
+        return counted && size < lines ? select(row) : row;
+    }
+
+    /**
+     * Appends every line of {@code from}, removed ones included (and left
+     * removed), so line numbers carry over (e.g. to a bill restored from the journal).
+     */
+    public void addAll(BillLedger from) {
+        for (int line = 0; line < from.lines; line++) {
+            add(from.itemNames.get(from.itemIds[line]), from.prices[line], from.quantities[line]);
+            if (from.removed[line]) removeLine(lines - 1, false); // Keep the number
+        }
+    }
+
+    public void clear() {
+        itemNames.clear();
+        itemIdsByName.clear();
+        size = 0;
+        lines = 0;
+        Arrays.fill(removed, false); // Nothing left to restore
+        counted = false;
+        subtotal = 0;
+        lineIndex.clear();
+        adds = 0;
+        clearSlabs();
+        refreshAdjustments();
+    }
+
+    /** Moves a live line to new values, adjusting the subtotal (and its slab) by the difference. */
+    private void replace(int line, int itemId, long price, int qty) {
+        long total = Money.times(price, qty);
+        long newSubtotal = Money.add(Money.subtract(subtotal, totals[line]), total);
+        if (rules != null) foldLine(line, -1);
+        long key = identity(itemIds[line], prices[line]);
+        if (lineIndex.get(key) == line) lineIndex.remove(key);
+        itemIds[line] = itemId;
+        prices[line] = price;
+        quantities[line] = qty;
+        totals[line] = total;
+        subtotal = newSubtotal;
+        index(line);
+        if (rules != null) {
+            lineDiscounts[line] = ownDiscount(itemId, total);
+            foldLine(line, 1);
+        } else {
+            refreshAdjustments();
+        }
+    }
+
+    /** Makes a line findable by {@link #findLine}, unless another line already is. */
+    private void index(int line) {
+        long key = identity(itemIds[line], prices[line]);
+        if (lineIndex.get(key) == LongIntHashMap.MISSING) lineIndex.put(key, line);
+    }
+
+    private void checkLine(int line, boolean wantRemoved) {
+        if (line < 0 || line >= lines) throw new IndexOutOfBoundsException("Line " + line + " of " + lines);
+        if (removed[line] != wantRemoved) {
+            throw new IllegalStateException("Line " + line + (wantRemoved ? " is on the bill" : " was removed"));
+        }
+    }
+
+    // --- Fenwick Tree (live lines per range of line numbers) ---
+
+    /** Builds the tree from the removed flags in O(n). */
+    private void recount() {
+        liveCounts = new int[itemIds.length + 1];
+        for (int i = 1; i < liveCounts.length; i++) {
+            if (i <= lines && !removed[i - 1]) liveCounts[i]++;
+            int parent = i + (i & -i);
+            if (parent <= itemIds.length) liveCounts[parent] += liveCounts[i];
+        }
+        counted = true;
+    }
+
+    private void count(int line, int delta) {
+        if (!counted) return;
+        for (int i = line + 1; i < liveCounts.length; i += i & -i) liveCounts[i] += delta;
+    }
+
+    /** Live lines numbered below {@code line}. */
+    private int liveBefore(int line) {
+        int n = 0;
+        for (int i = line; i > 0; i -= i & -i) n += liveCounts[i];
+        return n;
+    }
+
+    /** The line of the {@code row}-th live line (0-based), by descending the tree. */
+    private int select(int row) {
+        int pos = 0, rest = row + 1;
+        for (int step = Integer.highestOneBit(liveCounts.length - 1); step > 0; step >>= 1) {
+            int next = pos + step;
+            if (next < liveCounts.length && liveCounts[next] < rest) {
+                pos = next;
+                rest -= liveCounts[next];
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * Applies new discount/tax rates in basis points; only the rate-dependent amounts change.
+     */
+    public void setRates(int discountBps, int taxBps) {
+        this.discountBps = discountBps;
+        this.taxBps = taxBps;
+        refreshAdjustments();
+    }
+
+    public void setRounding(RoundingMode rounding) {
+        this.rounding = rounding;
+        if (rules != null) setTaxRules(rules); // Line discounts were rounded the old way
+        else refreshAdjustments();
+    }
+
+    /**
+     * Installs GST rules (null restores the bill-wide rates). Existing lines are
+     * re-resolved and re-slabbed once; from then on every change is incremental.
+     */
+    public void setTaxRules(TaxRules rules) {
+        this.rules = rules;
+        if (rules != null) {
+            for (int id = 0; id < itemNames.size(); id++) itemRules[id] = rules.ruleOf(itemNames.get(id));
+        }
+        int slabs = rules != null ? rules.slabCount() : 0;
+        slabGross = new long[slabs];
+        slabBillBase = new long[slabs];
+        slabOwnDiscount = new long[slabs];
+        slabDiscount = new long[slabs];
+        slabTax = new long[slabs];
+        discountAmount = taxAmount = 0;
+        if (rules == null) {
+            refreshAdjustments();
+            return;
+        }
+        for (int line = 0; line < lines; line++) {
+            if (removed[line]) continue;
+            lineDiscounts[line] = ownDiscount(itemIds[line], totals[line]);
+            foldLine(line, 1);
+        }
+    }
+
+    /** Inter-state supply: GST goes out as IGST rather than equal CGST and SGST. */
+    public void setInterState(boolean interState) {
+        this.interState = interState;
+        refreshAdjustments();
+    }
+
+    private void refreshAdjustments() {
+        if (rules != null) {
+            for (int s = 0; s < slabTax.length; s++) refreshSlab(s);
+            return;
+        }
+        discountAmount = Money.percent(subtotal, discountBps, rounding);
+        taxAmount = Money.percent(subtotal, taxBps, rounding);
+    }
+
+    // --- GST Slabs ---
+
+    /** The line's item/category discount, or 0 when it takes the bill's Discount % instead. */
+    private long ownDiscount(int itemId, long total) {
+        int bps = rules.discountBps(itemRules[itemId]);
+        return bps == TaxRules.BILL_DISCOUNT ? 0 : Money.percent(total, bps, rounding);
+    }
+
+    /** Adds ({@code sign} 1) or takes back (-1) a line's amounts in its slab. */
+    private void foldLine(int line, int sign) {
+        int rule = itemRules[itemIds[line]];
+        int s = rules.slab(rule);
+        long total = sign * totals[line];
+        slabGross[s] += total;
+        if (rules.discountBps(rule) == TaxRules.BILL_DISCOUNT) slabBillBase[s] += total;
+        else slabOwnDiscount[s] += sign * lineDiscounts[line];
+        refreshSlab(s);
+    }
+
+    /** Re-derives one slab's discount and tax and moves the bill totals by the difference. */
+    private void refreshSlab(int s) {
+        long discount = slabOwnDiscount[s] + Money.percent(slabBillBase[s], discountBps, rounding);
+        long taxable = slabGross[s] - discount;
+        int bps = slabRateBps(s);
+        long tax = interState ? Money.percent(taxable, bps, rounding)
+            : 2 * Money.divide(Math.multiplyExact(taxable, (long) bps), 2L * Money.BPS_WHOLE, rounding); // CGST = SGST
+        discountAmount += discount - slabDiscount[s];
+        taxAmount += tax - slabTax[s];
+        slabDiscount[s] = discount;
+        slabTax[s] = tax;
+    }
+
+    private void clearSlabs() {
+        Arrays.fill(slabGross, 0);
+        Arrays.fill(slabBillBase, 0);
+        Arrays.fill(slabOwnDiscount, 0);
+        Arrays.fill(slabDiscount, 0);
+        Arrays.fill(slabTax, 0);
+        discountAmount = taxAmount = 0;
+    }
+
+    /** The bill's slabs merged by rate (slab 0 may share its rate with a rule's), lowest rate first; empty ones are left out. */
+    BillSnapshot.Slab[] copySlabs() {
+        int[] rates = new int[slabTax.length];
+        long[] taxable = new long[slabTax.length], tax = new long[slabTax.length];
+        int n = 0;
+        for (int s = 0; s < slabTax.length; s++) {
+            if (slabGross[s] == 0) continue;
+            int bps = slabRateBps(s), i = 0;
+            while (i < n && rates[i] < bps) i++;
+            if (i == n || rates[i] != bps) {
+                System.arraycopy(rates, i, rates, i + 1, n - i);
+                System.arraycopy(taxable, i, taxable, i + 1, n - i);
+                System.arraycopy(tax, i, tax, i + 1, n - i);
+                rates[i] = bps;
+                taxable[i] = tax[i] = 0;
+                n++;
+            }
+            taxable[i] += slabGross[s] - slabDiscount[s];
+            tax[i] += slabTax[s];
+        }
+        BillSnapshot.Slab[] out = new BillSnapshot.Slab[n];
+        for (int i = 0; i < n; i++) out[i] = new BillSnapshot.Slab(rates[i], taxable[i], tax[i]);
+        return out;
+    }
+
+    private void logAdd(int line, int qty) {
+        if (adds == addLines.length) {
+            addLines = Arrays.copyOf(addLines, adds * 2);
+            addQtys = Arrays.copyOf(addQtys, adds * 2);
+            addResults = Arrays.copyOf(addResults, adds * 2);
+        }
+        addLines[adds] = line;
+        addQtys[adds] = qty;
+        addResults[adds++] = quantities[line];
+    }
+
+    private int intern(String name) {
+        Integer id = itemIdsByName.get(name);
+        if (id == null) {
+            id = itemNames.size();
+            itemNames.add(name);
+            itemIdsByName.put(name, id);
+            if (id == itemRules.length) itemRules = Arrays.copyOf(itemRules, id * 2);
+            if (rules != null) itemRules[id] = rules.ruleOf(name); // Once per distinct item
+        }
+        return id;
+    }
+
+    /** Identity key of a line: item id mixed with the unit price. */
+    private static long identity(int itemId, long price) {
+        return itemId * 0x9e3779b97f4a7c15L + price;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= itemIds.length) return;
+        int cap = Math.max(needed, itemIds.length * 2);
+        itemIds = Arrays.copyOf(itemIds, cap);
+        prices = Arrays.copyOf(prices, cap);
+        quantities = Arrays.copyOf(quantities, cap);
+        totals = Arrays.copyOf(totals, cap);
+        removed = Arrays.copyOf(removed, cap);
+        firstAdds = Arrays.copyOf(firstAdds, cap);
+        lineDiscounts = Arrays.copyOf(lineDiscounts, cap);
+        if (counted) recount(); // Sized to the capacity
+    }
+
+    /** Bulk-copies the first {@code names.length} lines into the given columns. */
+    public void copyLines(String[] names, long[] prices, int[] quantities, long[] totals) {
+        int n = names.length;
+        if (size == lines) { // No removed lines in between
+            for (int i = 0; i < n; i++) names[i] = itemNames.get(itemIds[i]);
+            System.arraycopy(this.prices, 0, prices, 0, n);
+            System.arraycopy(this.quantities, 0, quantities, 0, n);
+            System.arraycopy(this.totals, 0, totals, 0, n);
+            return;
+        }
+        for (int line = 0, row = 0; row < n; line++) {
+            if (removed[line]) continue;
+            names[row] = itemNames.get(itemIds[line]);
+            prices[row] = this.prices[line];
+            quantities[row] = this.quantities[line];
+            totals[row++] = this.totals[line];
+        }
+    }
+
+    // --- Accessors ---
+    public int size() { return size; }
+    public String name(int row) { return itemNames.get(itemIds[lineOf(row)]); }
+    public int itemId(int row) { return itemIds[lineOf(row)]; }
+    public long price(int row) { return prices[lineOf(row)]; }
+    public int quantity(int row) { return quantities[lineOf(row)]; }
+    public long total(int row) { return totals[lineOf(row)]; }
+
+    /** Line numbers handed out so far, removed lines included. */
+    public int lineCount() { return lines; }
+    public boolean isRemoved(int line) { return removed[line]; }
+    public int lineItemId(int line) { return itemIds[line]; }
+    public long linePrice(int line) { return prices[line]; }
+    public int lineQuantity(int line) { return quantities[line]; }
+    public String itemName(int itemId) { return itemNames.get(itemId); }
+
+    public long subtotal() { return subtotal; }
+    public int discountBps() { return discountBps; }
+    public int taxBps() { return taxBps; }
+    public RoundingMode rounding() { return rounding; }
+    public long discountAmount() { return discountAmount; }
+    public long taxAmount() { return taxAmount; }
+
+    public TaxRules taxRules() { return rules; }
+    public boolean interState() { return interState; }
+    public int slabCount() { return slabTax.length; }
+    /** A slab's GST rate; slab 0 follows the bill's Tax %. */
+    public int slabRateBps(int slab) { return slab == TaxRules.BILL_RATE ? taxBps : rules.slabBps(slab); }
+    public long slabTaxable(int slab) { return slabGross[slab] - slabDiscount[slab]; }
+    public long slabTax(int slab) { return slabTax[slab]; }
+    public long grandTotal() { return subtotal - discountAmount + taxAmount; }
+}
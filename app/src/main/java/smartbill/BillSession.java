@@ -0,0 +1,30 @@
+package smartbill;
+
+/**
+ * One bill in progress at the terminal.
+ * A session owns its ledger together with the table model and preview
+ * document that display it, so switching between open and parked bills swaps
+ * these instances into the window instead of copying rows. The bill state
+ * itself (lines, id, customer) is a {@link BillingEngine.Bill}; open sessions
+ * are the journal's open bills, which is how parked bills survive a restart.
+ */
+public class BillSession extends BillingEngine.Bill {
+
+    private static int nextNumber = 1; // EDT only
+
+    public final int number;
+    public final LedgerTableModel tableModel = new LedgerTableModel(ledger);
+    public final ReceiptPreview preview;
+
+    public BillSession() {
+        number = nextNumber++;
+        preview = new ReceiptPreview(ledger, () -> customer);
+    }
+
+    /** Label for the open-bills list, e.g. "#3 Ravi - 12 items, ₹1,250.00". */
+    @Override
+    public String toString() {
+        String who = customer.trim().isEmpty() ? "Walk-in" : customer.trim();
+        return "#" + number + " " + who + " - " + ledger.size() + " items, ₹" + Money.format(ledger.grandTotal());
+    }
+}
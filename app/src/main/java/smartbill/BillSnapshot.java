@@ -0,0 +1,97 @@
+package smartbill;
+
+/**
+ * Immutable copy of a bill at one instant.
+ * Background work (PDF export, printing, batch rendering) reads from a
+ * snapshot so the cashier can keep editing the live ledger meanwhile.
+ */
+public final class BillSnapshot {
+
+    public final String customer;      // Already defaulted to "Walk-in Customer" when blank
+    public final long timestamp;       // Epoch millis the bill was captured
+    private final String[] names;
+    private final long[] prices;
+    private final int[] quantities;
+    private final long[] totals;
+    public final long subtotal, discountAmount, taxAmount, grandTotal;
+    public final int discountBps, taxBps;
+    public final boolean interState;   // IGST instead of CGST + SGST
+    private final Slab[] slabs;        // GST breakdown by rate; empty unless tax rules applied
+
+    /** Taxable value and GST of one rate on the bill. */
+    public static final class Slab {
+        public final int rateBps;
+        public final long taxable, tax;
+
+        public Slab(int rateBps, long taxable, long tax) {
+            this.rateBps = rateBps;
+            this.taxable = taxable;
+            this.tax = tax;
+        }
+
+        /** CGST and SGST are each half of an intra-state slab's tax (the ledger keeps it even). */
+        public long half() { return tax / 2; }
+    }
+
+    private static final Slab[] NO_SLABS = new Slab[0];
+
+    public BillSnapshot(String customer, long timestamp,
+                        String[] names, long[] prices, int[] quantities, long[] totals,
+                        long subtotal, int discountBps, long discountAmount, int taxBps, long taxAmount) {
+        this(customer, timestamp, names, prices, quantities, totals,
+            subtotal, discountBps, discountAmount, taxBps, taxAmount, false, NO_SLABS);
+    }
+
+    public BillSnapshot(String customer, long timestamp,
+                        String[] names, long[] prices, int[] quantities, long[] totals,
+                        long subtotal, int discountBps, long discountAmount, int taxBps, long taxAmount,
+                        boolean interState, Slab[] slabs) {
+        this.customer = displayCustomer(customer);
+        this.timestamp = timestamp;
+        this.names = names;
+        this.prices = prices;
+        this.quantities = quantities;
+        this.totals = totals;
+        this.subtotal = subtotal;
+        this.discountBps = discountBps;
+        this.discountAmount = discountAmount;
+        this.taxBps = taxBps;
+        this.taxAmount = taxAmount;
+        this.grandTotal = subtotal - discountAmount + taxAmount;
+        this.interState = interState;
+        this.slabs = slabs;
+    }
+
+    /** Copies the ledger's live columns (one arraycopy per column). */
+    public static BillSnapshot of(BillLedger ledger, String customer, long timestamp) {
+        int n = ledger.size();
+        String[] names = new String[n];
+        long[] prices = new long[n];
+        int[] quantities = new int[n];
+        long[] totals = new long[n];
+        ledger.copyLines(names, prices, quantities, totals);
+        return new BillSnapshot(customer, timestamp, names, prices, quantities, totals,
+            ledger.subtotal(), ledger.discountBps(), ledger.discountAmount(), ledger.taxBps(), ledger.taxAmount(),
+            ledger.interState(), ledger.taxRules() != null ? ledger.copySlabs() : NO_SLABS);
+    }
+
+    public static String displayCustomer(String customer) {
+        return (customer == null || customer.trim().isEmpty()) ? "Walk-in Customer" : customer;
+    }
+
+    // --- Accessors ---
+    public int size() { return names.length; }
+    public String name(int row) { return names[row]; }
+    public long price(int row) { return prices[row]; }
+    public int quantity(int row) { return quantities[row]; }
+    public long total(int row) { return totals[row]; }
+    /** Whether the bill was taxed per GST slab (see {@link TaxRules}). */
+    public boolean hasSlabs() { return slabs.length > 0; }
+    public int slabCount() { return slabs.length; }
+    public Slab slab(int i) { return slabs[i]; }
+
+    @Override
+    public String toString() {
+        return "BillSnapshot[" + customer + ", " + names.length + " lines, " + Money.format(grandTotal) + "]";
+    }
+}
@@ -0,0 +1,507 @@
+package smartbill;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * The billing rules without any UI: opening bills, adding lines (merging
+ * repeats), barcode lookups, editing and removing lines, undo/redo, rates and
+ * closing a bill, each written to the sales journal in the same order as it
+ * is applied.
+ *
+ * <p>Used by the Swing till ({@link BillSession} is a {@link Bill}) and by the
+ * {@link BillingServer} behind the HTTP service. Every operation locks only the
+ * bill it works on, so different terminals never wait on each other; the
+ * journal serialises just its own appends. Journal write failures go to the
+ * listener given at construction and never stop a sale.
+ */
+public class BillingEngine {
+
+    /** State of one bill; guarded by its own monitor. */
+    public static class Bill {
+        public final BillLedger ledger = new BillLedger();
+        final BillHistory history = new BillHistory();
+        public long billId;
+        public String customer = "";
+        String journaledCustomer = "";
+        boolean closed;
+    }
+
+    private final ConcurrentHashMap<Long, Bill> bills = new ConcurrentHashMap<>();
+    private final AtomicLong localIds = new AtomicLong(); // Bill ids while no journal is attached
+    private final Consumer<IOException> journalFailure;
+    private volatile InvoiceJournal journal;   // null when no journal is attached
+    private volatile ProductCatalog catalog;   // null when no catalog is installed
+    private volatile TaxRules taxRules;        // null: bills use their Tax % / Discount % only
+
+    /**
+     * Told which rows an {@link #undo} or {@link #redo} touched, in order, so a
+     * view can follow along row by row instead of redrawing the bill.
+     */
+    public interface RowListener {
+        void rowInserted(int row);
+        void rowRemoved(int row);
+        void rowUpdated(int row);
+    }
+
+    /** A journal append; may fail with an I/O error. */
+    private interface JournalWrite {
+        void run(InvoiceJournal journal) throws IOException;
+    }
+
+    public BillingEngine(Consumer<IOException> journalFailure) {
+        this.journalFailure = journalFailure;
+    }
+
+    public void attachJournal(InvoiceJournal journal) { this.journal = journal; }
+    public void attachCatalog(ProductCatalog catalog) { this.catalog = catalog; }
+    /** GST rules for bills opened or restored from now on. */
+    public void attachTaxRules(TaxRules rules) { this.taxRules = rules; }
+    public InvoiceJournal journal() { return journal; }
+    public ProductCatalog catalog() { return catalog; }
+    public TaxRules taxRules() { return taxRules; }
+
+    // --- BILLS ---
+
+    /** Gives {@code bill} a fresh id, records it as opened and makes it findable by id. */
+    public <B extends Bill> B open(B bill) {
+        synchronized (bill) {
+            InvoiceJournal j = journal;
+            bill.billId = j != null ? j.newBillId() : localIds.incrementAndGet();
+            bill.journaledCustomer = "";
+            bill.closed = false;
+            bill.ledger.setTaxRules(taxRules);
+            journal(w -> w.billOpened(bill.billId));
+            bills.put(bill.billId, bill);
+        }
+        return bill;
+    }
+
+    /** Loads a bill recovered from the journal into {@code bill} (which must be empty). */
+    public <B extends Bill> B restore(InvoiceJournal.OpenBill from, B bill) {
+        synchronized (bill) {
+            bill.billId = from.billId;
+            bill.ledger.setTaxRules(taxRules);
+            bill.ledger.setInterState(from.ledger.interState());
+            bill.ledger.addAll(from.ledger); // Removed lines too, so journaled line numbers still match
+            bill.ledger.setRates(from.ledger.discountBps(), from.ledger.taxBps());
+            bill.customer = from.customer;
+            bill.journaledCustomer = from.customer;
+            bills.put(bill.billId, bill);
+        }
+        return bill;
+    }
+
+    /** The open bill with this id, or null. */
+    public Bill find(long billId) {
+        return bills.get(billId);
+    }
+
+    public Collection<Bill> openBills() {
+        return new ArrayList<>(bills.values());
+    }
+
+    // --- LINES ---
+
+    /**
+     * Adds an item. With {@code merge}, an existing line with the same name and
+     * price takes the quantity; otherwise a line is appended (compare
+     * {@code ledger.size()} before and after to tell which).
+     *
+     * @return the row that changed
+     * @throws IllegalArgumentException for an empty name or a non-positive price/quantity
+     * @throws ArithmeticException if the bill total would overflow
+     */
+    public int addLine(Bill bill, String name, long price, int qty, boolean merge) {
+        if (name == null || name.trim().isEmpty()) throw new IllegalArgumentException("Item Name cannot be empty.");
+        if (price <= 0 || qty <= 0) throw new IllegalArgumentException("Price and Quantity must be positive numbers.");
+        String item = name.trim();
+        synchronized (bill) {
+            checkOpen(bill);
+            int existing = merge ? bill.ledger.findLine(item, price) : -1;
+            int row = existing >= 0 ? bumpQuantity(bill, existing, qty) : appendLine(bill, item, price, qty);
+            bill.history.endStep();
+            Metrics.count(Metrics.ITEMS_ADDED, qty);
+            return row;
+        }
+    }
+
+    /**
+     * Adds a batch of checked lines (an import) under one lock, merging repeats
+     * like {@link #addLine}. All or nothing: if the bill total would overflow,
+     * the lines already added are taken back off and the bill is as before.
+     *
+     * @return the first row that changed; rows from the old {@code ledger.size()} on are new
+     * @throws ArithmeticException if the bill total would overflow
+     */
+    public int addLines(Bill bill, LineItemImport lines, boolean merge) {
+        int n = lines.size();
+        for (int i = 0; i < n; i++) {
+            if (lines.name(i).trim().isEmpty()) throw new IllegalArgumentException("Item Name cannot be empty.");
+            if (lines.price(i) <= 0 || lines.quantity(i) <= 0) {
+                throw new IllegalArgumentException("Price and Quantity must be positive numbers.");
+            }
+        }
+        synchronized (bill) {
+            checkOpen(bill);
+            BillLedger ledger = bill.ledger;
+            int first = ledger.size();
+            long units = 0;
+            int applied = 0;
+            try {
+                for (; applied < n; applied++) {
+                    String item = lines.name(applied).trim();
+                    long price = lines.price(applied);
+                    int qty = lines.quantity(applied);
+                    int existing = merge ? ledger.findLine(item, price) : -1;
+                    int row = existing >= 0 ? bumpQuantity(bill, existing, qty) : appendLine(bill, item, price, qty);
+                    first = Math.min(first, row);
+                    units += qty;
+                }
+            } catch (ArithmeticException e) {
+                while (applied-- > 0) takeBackLastAdd(bill);
+                bill.history.dropStep(); // Nothing left to undo
+                throw e;
+            }
+            bill.history.endStep(); // The whole import is one undo step
+            Metrics.count(Metrics.ITEMS_ADDED, units);
+            return first;
+        }
+    }
+
+    /**
+     * Adds {@code qty} of a catalog product by SKU, the way a scanner does: a
+     * repeat bumps the existing line (with {@code merge}) or the last line
+     * (without), anything else becomes a new line.
+     *
+     * @return the row that changed
+     * @throws IllegalArgumentException if the SKU is not in the catalog
+     */
+    public int addSku(Bill bill, long sku, int qty, boolean merge) {
+        if (qty <= 0) throw new IllegalArgumentException("Quantity must be positive.");
+        ProductCatalog c = catalog;
+        int entry = c != null ? c.findSku(sku) : -1;
+        if (entry < 0) throw new IllegalArgumentException("Unknown barcode: " + sku);
+        String name = c.name(entry);
+        long price = c.price(entry);
+        synchronized (bill) {
+            checkOpen(bill);
+            BillLedger ledger = bill.ledger;
+            int last = ledger.size() - 1;
+            int row = merge ? ledger.findLine(name, price)
+                : (last >= 0 && ledger.price(last) == price && ledger.name(last).equals(name)) ? last : -1;
+            row = row >= 0 ? bumpQuantity(bill, row, qty) : appendLine(bill, name, price, qty);
+            bill.history.endStep();
+            Metrics.count(Metrics.ITEMS_SCANNED, qty);
+            return row;
+        }
+    }
+
+    /**
+     * Undoes the most recent addition: a merged quantity is taken back off its
+     * line, a newly added line is removed (compare {@code ledger.size()}).
+     *
+     * @return the row that changed or was removed, or -1 if the bill is empty
+     */
+    public int undoAdd(Bill bill) {
+        synchronized (bill) {
+            checkOpen(bill);
+            if (bill.ledger.size() == 0) return -1;
+            int row = takeBackLastAdd(bill);
+            bill.history.endStep();
+            Metrics.count(Metrics.ITEMS_REMOVED);
+            return row;
+        }
+    }
+
+    /**
+     * Takes any line off the bill; {@link #undo} puts it back in place.
+     * @throws IndexOutOfBoundsException if there is no such row
+     */
+    public void removeLine(Bill bill, int row) {
+        synchronized (bill) {
+            checkOpen(bill);
+            BillLedger ledger = bill.ledger;
+            if (row < 0 || row >= ledger.size()) throw new IndexOutOfBoundsException("Row " + row + " of " + ledger.size());
+            int line = ledger.lineOf(row);
+            takeOut(bill, line, null);
+            bill.history.removed(line, ledger.lineItemId(line), ledger.linePrice(line), ledger.lineQuantity(line));
+            bill.history.endStep();
+            Metrics.count(Metrics.ITEMS_REMOVED);
+        }
+    }
+
+    /**
+     * Rewrites a line in place (e.g. a corrected price or quantity), checked
+     * like {@link #addLine}; lines are never merged by an edit.
+     *
+     * @return false if nothing changed
+     * @throws ArithmeticException if the bill total would overflow
+     */
+    public boolean editLine(Bill bill, int row, String name, long price, int qty) {
+        if (name == null || name.trim().isEmpty()) throw new IllegalArgumentException("Item Name cannot be empty.");
+        if (price <= 0 || qty <= 0) throw new IllegalArgumentException("Price and Quantity must be positive numbers.");
+        String item = name.trim();
+        synchronized (bill) {
+            checkOpen(bill);
+            BillLedger ledger = bill.ledger;
+            if (row < 0 || row >= ledger.size()) throw new IndexOutOfBoundsException("Row " + row + " of " + ledger.size());
+            int line = ledger.lineOf(row), oldItem = ledger.lineItemId(line), oldQty = ledger.lineQuantity(line);
+            long oldPrice = ledger.linePrice(line);
+            if (oldPrice == price && oldQty == qty && ledger.itemName(oldItem).equals(item)) return false;
+            rewrite(bill, line, item, price, qty, null);
+            bill.history.changed(line, oldItem, oldPrice, oldQty, ledger.lineItemId(line), price, qty);
+            bill.history.endStep();
+            return true;
+        }
+    }
+
+    // --- UNDO / REDO ---
+
+    /**
+     * Takes back the last step (an add, scan, import, edit or removal), line
+     * by line, telling {@code rows} (if not null) each row it touches.
+     * @return false if there was nothing to undo
+     */
+    public boolean undo(Bill bill, RowListener rows) {
+        synchronized (bill) {
+            checkOpen(bill);
+            BillHistory h = bill.history;
+            if (!h.canUndo()) return false;
+            for (int i = h.undoEnd() - 1; i >= h.undoStart(); i--) {
+                int line = h.line(i);
+                switch (h.kind(i)) {
+                    case BillHistory.ADDED: takeOut(bill, line, rows); break;
+                    case BillHistory.REMOVED: putBack(bill, line, h.oldItem(i), h.oldPrice(i), h.oldQty(i), rows); break;
+                    default: rewrite(bill, line, bill.ledger.itemName(h.oldItem(i)), h.oldPrice(i), h.oldQty(i), rows);
+                }
+            }
+            h.undone();
+            return true;
+        }
+    }
+
+    /**
+     * Makes an undone step again, as {@link #undo} in reverse.
+     * @return false if there was nothing to redo
+     */
+    public boolean redo(Bill bill, RowListener rows) {
+        synchronized (bill) {
+            checkOpen(bill);
+            BillHistory h = bill.history;
+            if (!h.canRedo()) return false;
+            for (int i = h.redoStart(); i < h.redoEnd(); i++) {
+                int line = h.line(i);
+                switch (h.kind(i)) {
+                    case BillHistory.ADDED: putBack(bill, line, h.newItem(i), h.newPrice(i), h.newQty(i), rows); break;
+                    case BillHistory.REMOVED: takeOut(bill, line, rows); break;
+                    default: rewrite(bill, line, bill.ledger.itemName(h.newItem(i)), h.newPrice(i), h.newQty(i), rows);
+                }
+            }
+            h.redone();
+            return true;
+        }
+    }
+
+    public boolean canUndo(Bill bill) {
+        synchronized (bill) {
+            return bill.history.canUndo();
+        }
+    }
+
+    public boolean canRedo(Bill bill) {
+        synchronized (bill) {
+            return bill.history.canRedo();
+        }
+    }
+
+    /**
+     * Applies discount/tax rates (basis points); journals them only if they changed.
+     * @throws IllegalArgumentException if a rate is outside 0-100%
+     */
+    public void setRates(Bill bill, int discountBps, int taxBps) {
+        if (discountBps < 0 || discountBps > Money.BPS_WHOLE) throw new IllegalArgumentException("Discount % must be between 0 and 100.");
+        if (taxBps < 0 || taxBps > Money.BPS_WHOLE) throw new IllegalArgumentException("Tax % must be between 0 and 100.");
+        synchronized (bill) {
+            checkOpen(bill);
+            if (discountBps != bill.ledger.discountBps() || taxBps != bill.ledger.taxBps()) {
+                journal(j -> j.ratesChanged(bill.billId, discountBps, taxBps));
+            }
+            bill.ledger.setRates(discountBps, taxBps);
+        }
+    }
+
+    /** Switches between an intra-state (CGST + SGST) and inter-state (IGST) supply. */
+    public void setInterState(Bill bill, boolean interState) {
+        synchronized (bill) {
+            checkOpen(bill);
+            if (interState == bill.ledger.interState()) return;
+            journal(j -> j.supplyChanged(bill.billId, interState));
+            bill.ledger.setInterState(interState);
+        }
+    }
+
+    /**
+     * Sets the customer name (e.g. as it is typed); it reaches the journal with
+     * the next line, {@link #saveCustomer} or when the bill closes.
+     */
+    public void setCustomer(Bill bill, String customer) {
+        synchronized (bill) {
+            checkOpen(bill);
+            bill.customer = customer == null ? "" : customer;
+        }
+    }
+
+    /**
+     * Journals a customer name set since the last line, so it survives a
+     * restart (call when the name is done: the bill is left, parked, etc.).
+     * Does nothing for a bill that is no longer open.
+     */
+    public void saveCustomer(Bill bill) {
+        synchronized (bill) {
+            if (!bill.closed) journalCustomer(bill);
+        }
+    }
+
+    /** A consistent copy of the bill, safe to use outside the lock (rendering, export, JSON). */
+    public BillSnapshot snapshot(Bill bill, long timestamp) {
+        synchronized (bill) {
+            return BillSnapshot.of(bill.ledger, bill.customer, timestamp);
+        }
+    }
+
+    // --- CLOSING ---
+
+    /**
+     * Finishes a bill: with lines it is committed to the sales journal, an
+     * empty one is voided. Either way it is no longer open.
+     *
+     * @return the committed bill, or null if it was empty
+     */
+    public BillSnapshot close(Bill bill, long timestamp) {
+        synchronized (bill) {
+            checkOpen(bill);
+            BillSnapshot snapshot = null;
+            if (bill.ledger.size() > 0) {
+                snapshot = BillSnapshot.of(bill.ledger, bill.customer, timestamp);
+                BillSnapshot committed = snapshot;
+                journal(j -> j.billCommitted(bill.billId, committed));
+                Metrics.count(Metrics.BILLS_COMMITTED);
+            } else {
+                journal(j -> j.billVoided(bill.billId));
+            }
+            finish(bill);
+            return snapshot;
+        }
+    }
+
+    /** Abandons a bill whatever it holds. */
+    public void voidBill(Bill bill) {
+        synchronized (bill) {
+            checkOpen(bill);
+            journal(j -> j.billVoided(bill.billId));
+            finish(bill);
+        }
+    }
+
+    // --- Internals (caller holds the bill's monitor) ---
+
+    // Each change is recorded in the bill's history; the public operation ends the step.
+
+    private int appendLine(Bill bill, String name, long price, int qty) {
+        BillLedger ledger = bill.ledger;
+        int row = ledger.add(name, price, qty), line = ledger.lineCount() - 1;
+        bill.history.added(line, ledger.lineItemId(line), price, qty);
+        journalCustomer(bill);
+        journal(j -> j.lineAdded(bill.billId, name, price, qty));
+        return row;
+    }
+
+    private int bumpQuantity(Bill bill, int row, int delta) {
+        BillLedger ledger = bill.ledger;
+        int line = ledger.lineOf(row), before = ledger.lineQuantity(line);
+        ledger.addQuantity(row, delta);
+        int qty = ledger.lineQuantity(line), item = ledger.lineItemId(line);
+        long price = ledger.linePrice(line);
+        bill.history.changed(line, item, price, before, item, price, qty);
+        journal(j -> j.quantityChanged(bill.billId, row, qty));
+        return row;
+    }
+
+    private int takeBackLastAdd(Bill bill) {
+        BillLedger ledger = bill.ledger;
+        int line = ledger.lastAddedLine(), before = ledger.lineQuantity(line);
+        int row = ledger.undoAdd();
+        if (ledger.isRemoved(line)) {
+            bill.history.removed(line, ledger.lineItemId(line), ledger.linePrice(line), before);
+            journal(j -> j.lineRemoved(bill.billId, line));
+        } else {
+            int qty = ledger.lineQuantity(line), item = ledger.lineItemId(line);
+            long price = ledger.linePrice(line);
+            bill.history.changed(line, item, price, before, item, price, qty);
+            journal(j -> j.quantityChanged(bill.billId, row, qty));
+        }
+        return row;
+    }
+
+    // Line moves shared with undo/redo: applied and journaled (and reported to rows), not recorded
+
+    private void takeOut(Bill bill, int line, RowListener rows) {
+        int row = bill.ledger.rowOf(line);
+        bill.ledger.removeLine(line);
+        journal(j -> j.lineRemoved(bill.billId, line));
+        if (rows != null) rows.rowRemoved(row);
+    }
+
+    /** Restores a line with the values it had; a later line may have reused its number meanwhile. */
+    private void putBack(Bill bill, int line, int item, long price, int qty, RowListener rows) {
+        BillLedger ledger = bill.ledger;
+        ledger.restoreLine(line);
+        journal(j -> j.lineRestored(bill.billId, line));
+        if (ledger.lineItemId(line) != item || ledger.linePrice(line) != price || ledger.lineQuantity(line) != qty) {
+            String name = ledger.itemName(item);
+            ledger.setLine(line, name, price, qty);
+            journal(j -> j.lineChanged(bill.billId, line, name, price, qty));
+        }
+        if (rows != null) rows.rowInserted(ledger.rowOf(line));
+    }
+
+    private void rewrite(Bill bill, int line, String name, long price, int qty, RowListener rows) {
+        bill.ledger.setLine(line, name, price, qty);
+        journal(j -> j.lineChanged(bill.billId, line, name, price, qty));
+        if (rows != null) rows.rowUpdated(bill.ledger.rowOf(line));
+    }
+
+    /** Journals the customer name if it changed since it was last recorded. */
+    private void journalCustomer(Bill bill) {
+        String customer = bill.customer;
+        if (!customer.equals(bill.journaledCustomer)) {
+            bill.journaledCustomer = customer;
+            journal(j -> j.customerChanged(bill.billId, customer));
+        }
+    }
+
+    private void finish(Bill bill) {
+        bill.closed = true;
+        bills.remove(bill.billId, bill);
+    }
+
+    private static void checkOpen(Bill bill) {
+        if (bill.closed) throw new IllegalStateException("Bill " + bill.billId + " is already closed.");
+    }
+
+    /** Runs a journal write; a failing journal is reported but never blocks billing. */
+    private void journal(JournalWrite write) {
+        InvoiceJournal j = journal;
+        if (j == null) return;
+        try {
+            write.run(j);
+        } catch (IOException e) {
+            journalFailure.accept(e);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package smartbill;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load generator for the {@link BillingServer}: N simulated counters each open
+ * a bill, add lines one request at a time, commit, and start over.
+ *
+ * <pre>
+ * java -cp smartbill.jar smartbill.BillingLoadGenerator [--url http://127.0.0.1:8085 | --embedded]
+ *      [--clients 32] [--seconds 20] [--lines 50]
+ * </pre>
+ *
+ * {@code --embedded} starts a server in-process on a free port with a
+ * throw-away journal, so the whole stack can be measured with one command.
+ * Prints line adds/s, bills/s and add latency percentiles.
+ */
+public class BillingLoadGenerator {
+
+    private final String base;
+    private final int linesPerBill;
+    private final long deadline;
+    private final LatencyHistogram addLatency = Metrics.timer("load.addLine");
+    private final AtomicLong adds = new AtomicLong(), bills = new AtomicLong(), errors = new AtomicLong();
+
+    private BillingLoadGenerator(String base, int linesPerBill, long deadline) {
+        this.base = base;
+        this.linesPerBill = linesPerBill;
+        this.deadline = deadline;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = "http://127.0.0.1:" + BillingServer.DEFAULT_PORT;
+        boolean embedded = false;
+        int clients = 32, seconds = 20, lines = 50;
+        for (int i = 0; i < args.length; i++) {
+            String a = args[i];
+            if (a.equals("--embedded")) embedded = true;
+            else if (a.equals("--url") && i + 1 < args.length) url = args[++i];
+            else if (a.equals("--clients") && i + 1 < args.length) clients = Integer.parseInt(args[++i]);
+            else if (a.equals("--seconds") && i + 1 < args.length) seconds = Integer.parseInt(args[++i]);
+            else if (a.equals("--lines") && i + 1 < args.length) lines = Integer.parseInt(args[++i]);
+            else {
+                System.err.println("Usage: java -cp smartbill.jar smartbill.BillingLoadGenerator [--url URL | --embedded] [--clients N] [--seconds S] [--lines L]");
+                System.exit(2);
+            }
+        }
+        System.setProperty("http.maxConnections", String.valueOf(clients)); // Keep one live connection per counter
+
+        BillingServer server = null;
+        InvoiceJournal journal = null;
+        Path journalDir = null;
+        if (embedded) {
+            journalDir = Files.createTempDirectory("smartbill-load");
+            journal = InvoiceJournal.open(journalDir);
+            BillingEngine engine = new BillingEngine(e -> Metrics.error("journal write", e));
+            engine.attachJournal(journal);
+            server = BillingServer.start(engine, new InetSocketAddress("127.0.0.1", 0));
+            url = "http://127.0.0.1:" + server.port();
+        }
+
+        System.out.printf("Load: %d clients x %d s against %s, %d lines per bill%n", clients, seconds, url, lines);
+        long start = System.nanoTime();
+        BillingLoadGenerator load = new BillingLoadGenerator(url, lines, start + seconds * 1_000_000_000L);
+        List<Thread> threads = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            int counter = c;
+            Thread t = new Thread(() -> load.runCounter(counter), "counter-" + c);
+            threads.add(t);
+            t.start();
+        }
+        for (Thread t : threads) t.join();
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf(Locale.ROOT, "Line adds: %d (%.0f/s), bills committed: %d (%.1f/s), errors: %d%n",
+            load.adds.get(), load.adds.get() / elapsed, load.bills.get(), load.bills.get() / elapsed, load.errors.get());
+        LatencyHistogram h = load.addLatency;
+        System.out.printf(Locale.ROOT, "Add latency: mean %.2f ms, p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+            h.meanMicros() / 1e3, h.percentileMicros(0.50) / 1e3, h.percentileMicros(0.99) / 1e3, h.maxMicros() / 1e3);
+
+        if (server != null) {
+            LatencyHistogram s = Metrics.timer("http.addLine");
+            System.out.printf(Locale.ROOT, "Server-side add: p50 %.3f ms, p99 %.3f ms (%s)%n",
+                s.percentileMicros(0.50) / 1e3, s.percentileMicros(0.99) / 1e3, server.threading());
+            server.stop();
+            journal.close();
+            deleteTree(journalDir);
+        }
+    }
+
+    /** One simulated counter: open, fill and commit bills until the deadline. */
+    private void runCounter(int counter) {
+        while (System.nanoTime() < deadline) {
+            try {
+                Map<String, Object> bill = call("POST", "/bills", "{\"customer\":\"Load " + counter + "\"}");
+                String id = Json.string(bill, "id", null);
+                for (int i = 0; i < linesPerBill && System.nanoTime() < deadline; i++) {
+                    long t0 = System.nanoTime();
+                    call("POST", "/bills/" + id + "/lines",
+                        "{\"name\":\"Item " + (i % 40) + "\",\"price\":\"" + (10 + i % 40) + ".50\",\"qty\":1}");
+                    addLatency.recordSince(t0);
+                    adds.incrementAndGet();
+                }
+                call("POST", "/bills/" + id + "/commit", "");
+                bills.incrementAndGet();
+            } catch (IOException | RuntimeException e) {
+                if (errors.incrementAndGet() <= 5) System.err.println("counter " + counter + ": " + e);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> call(String method, String path, String body) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) new URL(base + path).openConnection();
+        conn.setRequestMethod(method);
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0) {
+            conn.setDoOutput(true);
+            conn.setRequestProperty("Content-Type", "application/json");
+            conn.setFixedLengthStreamingMode(bytes.length);
+            try (OutputStream out = conn.getOutputStream()) {
+                out.write(bytes);
+            }
+        }
+        int status = conn.getResponseCode();
+        String response = readFully(status >= 400 ? conn.getErrorStream() : conn.getInputStream());
+        if (status >= 400) throw new IOException("HTTP " + status + " " + response);
+        return (Map<String, Object>) Json.parse(response);
+    }
+
+    /** Reads the whole response so the connection goes back to the keep-alive pool. */
+    private static String readFully(InputStream in) throws IOException {
+        if (in == null) return "";
+        ByteArrayOutputStream out = new ByteArrayOutputStream(512);
+        byte[] chunk = new byte[4096];
+        try (InputStream is = in) {
+            for (int n; (n = is.read(chunk)) > 0; ) out.write(chunk, 0, n);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void deleteTree(Path dir) throws IOException {
+        List<Path> paths = new ArrayList<>();
+        Files.walk(dir).forEach(paths::add);
+        for (int i = paths.size() - 1; i >= 0; i--) Files.deleteIfExists(paths.get(i));
+    }
+}
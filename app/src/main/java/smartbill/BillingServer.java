@@ -0,0 +1,386 @@
+package smartbill;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local HTTP/JSON front end to a {@link BillingEngine}, so extra counters and
+ * a self-checkout kiosk can bill against one backend.
+ *
+ * <p>Each request runs on its own virtual thread when the JVM has them (JDK 21+),
+ * otherwise on a fixed pool of platform threads. Requests on different bills
+ * never contend; requests on the same bill are serialised by that bill's lock.
+ *
+ * <pre>
+ * POST   /bills                    {"customer": "Ravi"}               open a bill
+ * GET    /bills                                                       open bill ids and totals
+ * GET    /bills/{id}                                                  the bill with all lines
+ * POST   /bills/{id}/lines         {"name": "Tea", "price": "12.50", "qty": 2}
+ *                                  or {"sku": 8901234567890, "qty": 1}; "merge": true adds repeats to their line
+ * DELETE /bills/{id}/lines/last                                       undo the last addition
+ * PUT    /bills/{id}/rates         {"discount": "5", "tax": "18"}     percentages, 0-100;
+ *                                  "interState": true bills IGST instead of CGST + SGST
+ * PUT    /bills/{id}/customer      {"customer": "Ravi"}
+ * POST   /bills/{id}/commit                                           finish and journal the sale
+ * DELETE /bills/{id}                                                  void the bill
+ * GET    /metrics                                                     plain-text metrics report
+ * </pre>
+ *
+ * Money goes out as plain decimal numbers of rupees; errors as {@code {"error": "..."}}
+ * with status 400 (bad input), 404 (unknown bill) or 409 (bill already closed).
+ *
+ * <p>Run headless with {@code java -cp smartbill.jar smartbill.BillingServer [--port 8085] [--bind 127.0.0.1]}.
+ * It opens the journal under {@link AppPaths#home()}, so it must not share a
+ * home with a running till (use {@code -Dsmartbill.home}).
+ */
+public class BillingServer {
+
+    public static final int DEFAULT_PORT = 8085;
+    private static final int FALLBACK_THREADS = 64;
+    private static final int MAX_BODY = 64 * 1024;
+
+    private final BillingEngine engine;
+    private final HttpServer http;
+    private final ExecutorService executor;
+
+    private BillingServer(BillingEngine engine, HttpServer http, ExecutorService executor) {
+        this.engine = engine;
+        this.http = http;
+        this.executor = executor;
+    }
+
+    /** Starts serving {@code engine} on {@code address} (port 0 picks a free port). */
+    public static BillingServer start(BillingEngine engine, InetSocketAddress address) throws IOException {
+        // Small JSON replies otherwise sit out the 40 ms Nagle / delayed-ACK dance on every request
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) System.setProperty("sun.net.httpserver.nodelay", "true");
+        HttpServer http = HttpServer.create(address, 0);
+        ExecutorService executor = requestExecutor();
+        BillingServer server = new BillingServer(engine, http, executor);
+        http.createContext("/bills", server::handleBills);
+        http.createContext("/metrics", server::handleMetrics);
+        http.setExecutor(executor);
+        http.start();
+        return server;
+    }
+
+    public int port() {
+        return http.getAddress().getPort();
+    }
+
+    /** "virtual threads" or the size of the fallback pool. */
+    public String threading() {
+        return executor instanceof ThreadPoolExecutor ? FALLBACK_THREADS + " platform threads" : "virtual threads";
+    }
+
+    public void stop() {
+        http.stop(1);
+        executor.shutdown();
+    }
+
+    /** One virtual thread per request where available, looked up reflectively so the jar still runs on Java 8. */
+    static ExecutorService requestExecutor() {
+        try {
+            Method virtual = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) virtual.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger n = new AtomicInteger();
+            return Executors.newFixedThreadPool(FALLBACK_THREADS, r -> {
+                Thread t = new Thread(r, "http-" + n.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    // --- ROUTING ---
+
+    /** A request that failed in a way the client can fix; carries the HTTP status. */
+    private static final class HttpError extends RuntimeException {
+        final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private void handleBills(HttpExchange ex) throws IOException {
+        long t0 = System.nanoTime();
+        String op = "unknown";
+        int status;
+        String body;
+        try {
+            String[] parts = ex.getRequestURI().getPath().split("/"); // "", "bills", id, ...
+            String method = ex.getRequestMethod();
+            if (parts.length == 2) {
+                op = method.equals("POST") ? "open" : "list";
+                body = method.equals("POST") ? open(readJson(ex)) : method.equals("GET") ? list() : notAllowed();
+            } else {
+                BillingEngine.Bill bill = bill(parts[2]);
+                String sub = parts.length > 3 ? parts[3] : "";
+                String key = method + " " + sub + (parts.length > 4 ? "/" + parts[4] : "");
+                switch (key) {
+                    case "GET ":            op = "get";      body = billJson(bill, true); break;
+                    case "DELETE ":         op = "void";     engine.voidBill(bill); body = "{\"voided\":" + bill.billId + "}"; break;
+                    case "POST lines":      op = "addLine";  body = addLine(bill, readJson(ex)); break;
+                    case "DELETE lines/last": op = "undo";   body = undo(bill); break;
+                    case "PUT rates":       op = "rates";    body = rates(bill, readJson(ex)); break;
+                    case "PUT customer":    op = "customer"; body = customer(bill, readJson(ex)); break;
+                    case "POST commit":     op = "commit";   body = commit(bill); break;
+                    default: throw new HttpError(404, "No such resource: " + method + " " + ex.getRequestURI().getPath());
+                }
+            }
+            status = 200;
+        } catch (HttpError e) {
+            status = e.status;
+            body = error(e.getMessage());
+        } catch (IllegalStateException e) {
+            status = 409;
+            body = error(e.getMessage());
+        } catch (IllegalArgumentException | ArithmeticException e) { // Includes NumberFormatException
+            status = 400;
+            body = error(e.getMessage());
+        } catch (RuntimeException e) {
+            Metrics.error("http " + op, e);
+            status = 500;
+            body = error(e.toString());
+        }
+        if (status >= 400) Metrics.count("http.errors");
+        send(ex, status, "application/json", body);
+        Metrics.count("http.requests");
+        Metrics.timer("http." + op).recordSince(t0);
+    }
+
+    private void handleMetrics(HttpExchange ex) throws IOException {
+        send(ex, 200, "text/plain", Metrics.report());
+    }
+
+    private BillingEngine.Bill bill(String id) {
+        BillingEngine.Bill bill;
+        try {
+            bill = engine.find(Long.parseLong(id));
+        } catch (NumberFormatException e) {
+            bill = null;
+        }
+        if (bill == null) throw new HttpError(404, "No open bill " + id);
+        return bill;
+    }
+
+    private static String notAllowed() {
+        throw new HttpError(405, "Method not allowed");
+    }
+
+    // --- OPERATIONS ---
+
+    private String open(Map<String, Object> req) {
+        BillingEngine.Bill bill = engine.open(new BillingEngine.Bill());
+        engine.setCustomer(bill, Json.string(req, "customer", ""));
+        engine.saveCustomer(bill);
+        return billJson(bill, false);
+    }
+
+    private String customer(BillingEngine.Bill bill, Map<String, Object> req) {
+        synchronized (bill) {
+            engine.setCustomer(bill, Json.string(req, "customer", ""));
+            engine.saveCustomer(bill); // A request is a finished name, unlike a keystroke
+        }
+        return billJson(bill, false);
+    }
+
+    private String list() {
+        StringBuilder sb = new StringBuilder(256).append("{\"bills\":[");
+        boolean first = true;
+        for (BillingEngine.Bill bill : engine.openBills()) {
+            if (!first) sb.append(',');
+            first = false;
+            synchronized (bill) {
+                appendSummary(sb, bill);
+            }
+            sb.append('}');
+        }
+        return sb.append("]}").toString();
+    }
+
+    private String addLine(BillingEngine.Bill bill, Map<String, Object> req) {
+        int qty = Integer.parseInt(Json.string(req, "qty", "1"));
+        boolean merge = "true".equals(Json.string(req, "merge", "false")); // Opt-in, like the till
+        String sku = Json.string(req, "sku", null);
+        int row = sku != null
+            ? engine.addSku(bill, Long.parseLong(sku), qty, merge)
+            : engine.addLine(bill, Json.string(req, "name", ""), Money.parse(Json.string(req, "price", "")), qty, merge);
+        StringBuilder sb = new StringBuilder(256);
+        synchronized (bill) {
+            appendSummary(sb, bill);
+            sb.append(",\"line\":");
+            appendLine(sb, bill.ledger, row);
+        }
+        return sb.append('}').toString();
+    }
+
+    private String undo(BillingEngine.Bill bill) {
+        StringBuilder sb = new StringBuilder(256);
+        synchronized (bill) {
+            int row = engine.undoAdd(bill);
+            if (row < 0) throw new HttpError(409, "Bill " + bill.billId + " has no lines");
+            appendSummary(sb, bill);
+            sb.append(",\"row\":").append(row);
+        }
+        return sb.append('}').toString();
+    }
+
+    private String rates(BillingEngine.Bill bill, Map<String, Object> req) {
+        synchronized (bill) {
+            int discount = Money.parseRate(Json.string(req, "discount", Money.formatRatePlain(bill.ledger.discountBps())));
+            int tax = Money.parseRate(Json.string(req, "tax", Money.formatRatePlain(bill.ledger.taxBps())));
+            boolean interState = Boolean.parseBoolean(Json.string(req, "interState", String.valueOf(bill.ledger.interState())));
+            engine.setRates(bill, discount, tax);
+            engine.setInterState(bill, interState);
+        }
+        return billJson(bill, false);
+    }
+
+    private String commit(BillingEngine.Bill bill) {
+        StringBuilder sb = new StringBuilder(256);
+        synchronized (bill) {
+            appendSummary(sb, bill);
+            BillSnapshot done = engine.close(bill, System.currentTimeMillis());
+            sb.append(",\"committed\":").append(done != null);
+        }
+        return sb.append('}').toString();
+    }
+
+    // --- JSON ---
+
+    private String billJson(BillingEngine.Bill bill, boolean withLines) {
+        StringBuilder sb = new StringBuilder(withLines ? 256 + bill.ledger.size() * 64 : 256);
+        synchronized (bill) {
+            appendSummary(sb, bill);
+            if (withLines) {
+                sb.append(",\"lines\":[");
+                for (int i = 0; i < bill.ledger.size(); i++) {
+                    if (i > 0) sb.append(',');
+                    appendLine(sb, bill.ledger, i);
+                }
+                sb.append(']');
+            }
+        }
+        return sb.append('}').toString();
+    }
+
+    /** Opens an object with the bill's id, customer and totals; the caller closes it. Caller holds the bill's lock. */
+    private static void appendSummary(StringBuilder sb, BillingEngine.Bill bill) {
+        BillLedger l = bill.ledger;
+        sb.append("{\"id\":").append(bill.billId).append(",\"customer\":");
+        Json.quote(sb, bill.customer);
+        sb.append(",\"lineCount\":").append(l.size())
+          .append(",\"discountRate\":").append(Money.formatRatePlain(l.discountBps()))
+          .append(",\"taxRate\":").append(Money.formatRatePlain(l.taxBps()));
+        Money.appendPlain(sb.append(",\"subtotal\":"), l.subtotal());
+        Money.appendPlain(sb.append(",\"discount\":"), l.discountAmount());
+        Money.appendPlain(sb.append(",\"tax\":"), l.taxAmount());
+        Money.appendPlain(sb.append(",\"grandTotal\":"), l.grandTotal());
+        if (l.taxRules() == null) return;
+        sb.append(",\"interState\":").append(l.interState()).append(",\"slabs\":[");
+        BillSnapshot.Slab[] slabs = l.copySlabs();
+        for (int i = 0; i < slabs.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"rate\":").append(Money.formatRatePlain(slabs[i].rateBps));
+            Money.appendPlain(sb.append(",\"taxable\":"), slabs[i].taxable);
+            Money.appendPlain(sb.append(",\"tax\":"), slabs[i].tax).append('}');
+        }
+        sb.append(']');
+    }
+
+    private static void appendLine(StringBuilder sb, BillLedger l, int row) {
+        sb.append("{\"row\":").append(row).append(",\"name\":");
+        Json.quote(sb, l.name(row));
+        Money.appendPlain(sb.append(",\"price\":"), l.price(row));
+        sb.append(",\"qty\":").append(l.quantity(row));
+        Money.appendPlain(sb.append(",\"total\":"), l.total(row)).append('}');
+    }
+
+    private static String error(String message) {
+        return Json.quote(new StringBuilder(64).append("{\"error\":"), String.valueOf(message)).append('}').toString();
+    }
+
+    // --- I/O ---
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> readJson(HttpExchange ex) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+        byte[] chunk = new byte[4096];
+        try (InputStream in = ex.getRequestBody()) {
+            for (int n; (n = in.read(chunk)) > 0; ) {
+                if (body.size() + n > MAX_BODY) throw new HttpError(413, "Request body too large");
+                body.write(chunk, 0, n);
+            }
+        }
+        if (body.size() == 0) return new LinkedHashMap<>();
+        Object parsed = Json.parse(new String(body.toByteArray(), StandardCharsets.UTF_8));
+        if (!(parsed instanceof Map)) throw new IllegalArgumentException("Expected a JSON object");
+        return (Map<String, Object>) parsed;
+    }
+
+    private static void send(HttpExchange ex, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // --- HEADLESS BACKEND ---
+
+    public static void main(String[] args) throws IOException {
+        int port = DEFAULT_PORT;
+        String bind = "127.0.0.1"; // Local service; pass --bind 0.0.0.0 to serve the shop network
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--port") && i + 1 < args.length) port = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--bind") && i + 1 < args.length) bind = args[++i];
+            else {
+                System.err.println("Usage: java -cp smartbill.jar smartbill.BillingServer [--port N] [--bind ADDRESS]");
+                System.exit(2);
+            }
+        }
+
+        BillingEngine engine = new BillingEngine(e -> Metrics.error("journal write", e));
+        InvoiceJournal journal = InvoiceJournal.open(InvoiceJournal.defaultDirectory());
+        engine.attachJournal(journal);
+        Path catalogPath = ProductCatalog.defaultPath();
+        if (Files.exists(catalogPath)) engine.attachCatalog(ProductCatalog.open(catalogPath));
+        Path rulesPath = TaxRules.defaultPath();
+        if (Files.exists(rulesPath)) engine.attachTaxRules(TaxRules.load(rulesPath, engine.catalog()));
+        for (InvoiceJournal.OpenBill open : journal.openBills()) engine.restore(open, new BillingEngine.Bill());
+
+        BillingServer server = start(engine, new InetSocketAddress(bind, port));
+        Metrics.startPublishing(Metrics.defaultFile());
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            try {
+                journal.close();
+            } catch (IOException e) {
+                Metrics.error("journal close", e);
+            }
+        }, "server-shutdown"));
+        System.out.printf("SmartBill billing service on http://%s:%d (%d open bills restored, %s)%n",
+            bind, server.port(), journal.openBills().size(),
+            server.threading());
+    }
+}
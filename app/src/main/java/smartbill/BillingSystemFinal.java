@@ -0,0 +1,1519 @@
+package smartbill;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.border.*;
+import javax.swing.event.*;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import java.awt.*;
+import java.awt.datatransfer.DataFlavor;
+import java.awt.datatransfer.UnsupportedFlavorException;
+import java.awt.event.*;
+import java.awt.print.*;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class BillingSystemFinal extends JFrame {
+    
+    // --- UI Components ---
+    private JTextField customerField, itemNameField, priceField, qtyField, discountField, taxField;
+    private JCheckBox interStateBox;
+    private Timer rateEditTimer;            // Debounces typing in the rate fields
+    private Color rateFieldBackground;
+    private LedgerTableModel tableModel;   // The current session's model
+    private JLabel subtotalLabel, taxLabel, discountLabel, totalLabel, statusLabel;
+    private JTable billTable;
+    private JTextArea previewArea;
+    private boolean mergeRepeats = false; // "Merge repeated items" setting; off: every entry is its own line
+    private JTextArea reportArea;
+    private JComboBox<String> reportRangeBox;
+    private JButton reportBtn;
+    private static final int RATE_EDIT_DELAY_MS = 250; // Typing pause before the totals follow a rate edit
+    private static final int ROW_EVENTS_MAX = 64; // Undo/redo rows shown one by one; past this the view is redrawn
+    private static final Color INVALID_FIELD = new Color(255, 228, 225);
+    
+    // --- Data Formatting & State ---
+    private BillLedger ledger;       // The current session's lines & totals; the table only displays it
+    private ReceiptPreview preview;
+    private PdfExportService pdfExports; // Created on first export
+    private JButton cancelExportBtn;
+    private JButton importBtn;           // Disabled while an import is being read
+
+    // --- Bill Sessions (open and parked bills) ---
+    private final DefaultComboBoxModel<BillSession> sessions = new DefaultComboBoxModel<>();
+    private BillSession session;     // The bill on screen
+    private JComboBox<BillSession> sessionBox;
+    private boolean switchingSession;
+
+    // --- Billing Rules & Persistence ---
+    private final BillingEngine engine = new BillingEngine(this::journalFailed);
+    private InvoiceJournal journal;  // null when the journal could not be opened
+
+    // --- Product Catalog ---
+    private ProductCatalog catalog;  // null when no catalog file is installed
+    private AutoComplete<Integer> itemSuggest;
+    private ScanInput scanner;
+
+    // --- Invoice Search ---
+    private volatile InvoiceIndex invoiceIndex; // null until opened in the background (or if it could not be)
+    private final ExecutorService indexer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "invoice-index");
+        t.setDaemon(true);
+        return t;
+    });
+    private AutoComplete<String> customerSuggest;
+    private InvoiceSearchDialog searchDialog;
+
+    // --- Receipt Printer ---
+    private ThermalPrinter thermalPrinter;   // null: print through the page-printer dialog
+    private boolean printerConfigRead;
+
+    // --- Action Timings (see Metrics / the Diagnostics tab) ---
+    private static final LatencyHistogram ADD_ITEM = Metrics.timer("action.addItem");
+    private static final LatencyHistogram SCAN_ITEM = Metrics.timer("action.scanItem");
+    private static final LatencyHistogram REMOVE_ITEM = Metrics.timer("action.removeLast");
+    private static final LatencyHistogram REMOVE_LINE = Metrics.timer("action.removeLine");
+    private static final LatencyHistogram EDIT_ITEM = Metrics.timer("action.editItem");
+    private static final LatencyHistogram UNDO = Metrics.timer("action.undo");
+    private static final LatencyHistogram REDO = Metrics.timer("action.redo");
+    private static final LatencyHistogram IMPORT_ITEMS = Metrics.timer("action.importItems");
+    private static final LatencyHistogram UPDATE_TOTALS = Metrics.timer("action.updateTotals");
+    private static final LatencyHistogram NEW_BILL = Metrics.timer("action.newBill");
+    private static final LatencyHistogram SWITCH_BILL = Metrics.timer("action.switchBill");
+    private static final LatencyHistogram EXPORT_PDF = Metrics.timer("action.exportPdf");
+    private static final LatencyHistogram EXPORT_FILE = Metrics.timer("export.file");
+    private static final LatencyHistogram PRINT = Metrics.timer("action.print");
+    private static final LatencyHistogram PRINT_SPOOL = Metrics.timer("print.spool");
+    private static final LatencyHistogram SALES_REPORT = Metrics.timer("report.build");
+    private static final LatencyHistogram INDEX_REFRESH = Metrics.timer("index.refresh");
+
+    /**
+     * Main Constructor - Builds the window (catalog and journal are attached by {@link #main})
+     */
+    public BillingSystemFinal() {
+        initTheme();
+        createUI();
+        setupEventHandlers();
+    }
+
+    /**
+     * Sets the Look and Feel to ensure consistent UI across OS
+     */
+    private static void initTheme() {
+        try {
+            // Use Nimbus for a modern look, fallback to System if unavailable
+            for (UIManager.LookAndFeelInfo info : UIManager.getInstalledLookAndFeels()) {
+                if ("Nimbus".equals(info.getName())) {
+                    UIManager.setLookAndFeel(info.getClassName());
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            try {
+                UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
+            } catch (Exception ex) {
+                Metrics.error("look and feel", ex);
+            }
+        }
+    }
+
+    /**
+     * Builds the Main Window Layout
+     */
+    private void createUI() {
+        bindSession(new BillSession());
+        sessions.addElement(session);
+
+        setTitle("🏪 SmartBill Pro - Professional Invoicing");
+        setSize(1100, 750);
+        setMinimumSize(new Dimension(1000, 650));
+        setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE); // We will handle close event
+        setLayout(new BorderLayout(10, 10));
+
+        // 1. Header Panel
+        add(createHeaderPanel(), BorderLayout.NORTH);
+
+        // 2. Main Content (Tabbed Pane)
+        JTabbedPane mainTabs = new JTabbedPane();
+        mainTabs.setFont(new Font("Segoe UI", Font.BOLD, 14));
+        mainTabs.addTab("📝 Billing", createBillingPanel());
+        mainTabs.addTab("📊 Report & Settings", new JPanel()); // Built on first visit
+        mainTabs.addTab("🩺 Diagnostics", new JPanel());       // Built on first visit
+        mainTabs.addChangeListener(e -> {
+            if (mainTabs.getSelectedIndex() == 1 && discountField == null) mainTabs.setComponentAt(1, createSettingsPanel());
+            if (mainTabs.getSelectedIndex() == 2 && !(mainTabs.getComponentAt(2) instanceof DiagnosticsPanel)) {
+                mainTabs.setComponentAt(2, new DiagnosticsPanel());
+            }
+        });
+        add(mainTabs, BorderLayout.CENTER);
+
+        // 3. Footer Panel (Action Buttons)
+        add(createFooterPanel(), BorderLayout.SOUTH);
+
+        // 4. Status Bar
+        add(createStatusBar(), BorderLayout.PAGE_END);
+        
+        // Handle window closing
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                int confirm = JOptionPane.showConfirmDialog(null, 
+                    "Are you sure you want to exit SmartBill Pro?", 
+                    "Exit Confirmation", JOptionPane.YES_NO_OPTION);
+                if (confirm == JOptionPane.YES_OPTION) {
+                    engine.saveCustomer(session);
+                    closeInvoiceIndex();
+                    closeJournal(); // The open bill stays in the journal and is restored next start
+                    System.exit(0);
+                }
+            }
+        });
+    }
+
+    // --- PANEL CREATION METHODS ---
+
+    private JPanel createHeaderPanel() {
+        JPanel header = new JPanel(new BorderLayout()) {
+            @Override
+            protected void paintComponent(Graphics g) {
+                super.paintComponent(g);
+                Graphics2D g2d = (Graphics2D) g.create();
+                // Gradient background
+                GradientPaint gp = new GradientPaint(0, 0, new Color(41, 128, 185), 0, getHeight(), new Color(44, 62, 80));
+                g2d.setPaint(gp);
+                g2d.fillRect(0, 0, getWidth(), getHeight());
+                g2d.dispose();
+            }
+        };
+        header.setPreferredSize(new Dimension(0, 80));
+        header.setBorder(new EmptyBorder(10, 20, 10, 20));
+
+        // App Title
+        JLabel title = new JLabel("🏪 SmartBill Pro v5.0");
+        title.setForeground(Color.WHITE);
+        title.setFont(new Font("Segoe UI", Font.BOLD, 32));
+        title.setBorder(new EmptyBorder(0, 0, 0, 20));
+        
+        // Customer Input Area
+        JPanel customerPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 10));
+        customerPanel.setOpaque(false);
+        JLabel custLabel = new JLabel("👤 Customer Name:");
+        custLabel.setForeground(Color.WHITE);
+        custLabel.setFont(new Font("Segoe UI", Font.BOLD, 16));
+        customerField = new JTextField(25);
+        customerField.setFont(new Font("Segoe UI", Font.PLAIN, 15));
+        
+        customerPanel.add(custLabel);
+        customerPanel.add(customerField);
+        
+        header.add(title, BorderLayout.WEST);
+        header.add(customerPanel, BorderLayout.EAST);
+        
+        return header;
+    }
+
+    private JPanel createBillingPanel() {
+        JPanel panel = new JPanel(new BorderLayout(10, 10));
+
+        // --- Open Bills Bar ---
+        JPanel sessionBar = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 0));
+        sessionBar.add(new JLabel("🧾 Open Bills:"));
+        sessionBox = new JComboBox<>(sessions);
+        sessionBox.setPreferredSize(new Dimension(340, 30)); // Fixed width; labels change as bills grow
+        sessionBox.setFocusable(false);
+        sessionBox.addActionListener(e -> {
+            BillSession picked = (BillSession) sessions.getSelectedItem();
+            if (!switchingSession && picked != null) switchTo(picked);
+        });
+        JButton parkBtn = createStyledButton("🅿️ Park & Serve Next", new Color(22, 160, 133));
+        parkBtn.addActionListener(e -> parkBill());
+        sessionBar.add(sessionBox);
+        sessionBar.add(parkBtn);
+        
+        // --- Input Section ---
+        JPanel inputPanel = new JPanel(new GridBagLayout());
+        inputPanel.setBorder(BorderFactory.createTitledBorder(
+            BorderFactory.createLineBorder(new Color(200, 200, 200)), 
+            "➕ New Entry"));
+        inputPanel.setBackground(Color.WHITE);
+        
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.insets = new Insets(8, 8, 8, 8);
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+        
+        // Row 0: Item Name
+        gbc.gridx = 0; gbc.gridy = 0;
+        inputPanel.add(new JLabel("Item Name:"), gbc);
+        gbc.gridx = 1; gbc.weightx = 1.0;
+        itemNameField = new JTextField();
+        inputPanel.add(itemNameField, gbc);
+        
+        // Row 1: Price
+        gbc.gridx = 0; gbc.gridy = 1; gbc.weightx = 0;
+        inputPanel.add(new JLabel("Price (₹):"), gbc);
+        gbc.gridx = 1;
+        priceField = new JTextField();
+        inputPanel.add(priceField, gbc);
+
+        // Row 1: Quantity (split column)
+        gbc.gridx = 2; gbc.weightx = 0;
+        inputPanel.add(new JLabel("Qty:"), gbc);
+        gbc.gridx = 3; gbc.weightx = 0.2;
+        qtyField = new JTextField();
+        inputPanel.add(qtyField, gbc);
+
+        // Row 2: Buttons
+        gbc.gridx = 0; gbc.gridy = 2; gbc.gridwidth = 4; gbc.fill = GridBagConstraints.CENTER;
+        JPanel btnRow = new JPanel(new FlowLayout(FlowLayout.CENTER, 15, 5));
+        btnRow.setOpaque(false);
+        
+        JButton addBtn = createStyledButton("➕ Add to Bill", new Color(39, 174, 96));
+        JButton delBtn = createStyledButton("🗑️ Remove Last", new Color(192, 57, 43));
+        JButton removeBtn = createStyledButton("❌ Remove Selected", new Color(192, 57, 43));
+        removeBtn.setToolTipText("Remove the line selected in the table (Delete)");
+        JButton undoBtn = createStyledButton("↩️ Undo", new Color(127, 140, 141));
+        undoBtn.setToolTipText("Take back the last change to the bill (Ctrl+Z)");
+        JButton redoBtn = createStyledButton("↪️ Redo", new Color(127, 140, 141));
+        redoBtn.setToolTipText("Make an undone change again (Ctrl+Y)");
+        JButton clearBtn = createStyledButton("🧹 Clear Inputs", new Color(127, 140, 141));
+        importBtn = createStyledButton("📥 Import Items", new Color(41, 128, 185));
+        importBtn.setToolTipText("Add many lines at once: item,price[,qty] from a CSV file or cells copied from a spreadsheet");
+        JPopupMenu importMenu = new JPopupMenu();
+        importMenu.add("📄 From CSV File...").addActionListener(e -> importItemsFromFile());
+        importMenu.add("📋 Paste from Spreadsheet (Ctrl+V on the table)").addActionListener(e -> pasteItems());
+        JCheckBox scanModeBox = new JCheckBox("📷 Scan Mode");
+        scanModeBox.setOpaque(false);
+        scanModeBox.setFocusable(false); // Toggling it must not pull focus off the item field
+        scanModeBox.setToolTipText("Treat every numeric entry in Item Name as a barcode / SKU");
+        
+        addBtn.addActionListener(e -> addItem());
+        delBtn.addActionListener(e -> deleteLastItem());
+        removeBtn.addActionListener(e -> removeSelectedItem());
+        undoBtn.addActionListener(e -> undo());
+        redoBtn.addActionListener(e -> redo());
+        clearBtn.addActionListener(e -> clearInputFields());
+        importBtn.addActionListener(e -> importMenu.show(importBtn, 0, importBtn.getHeight()));
+        scanModeBox.addActionListener(e -> scanner.setScanMode(scanModeBox.isSelected()));
+        
+        btnRow.add(addBtn); btnRow.add(delBtn); btnRow.add(removeBtn); btnRow.add(clearBtn); btnRow.add(importBtn);
+        btnRow.add(undoBtn); btnRow.add(redoBtn); btnRow.add(scanModeBox);
+        inputPanel.add(btnRow, gbc);
+        
+        JPanel north = new JPanel(new BorderLayout(0, 8));
+        north.add(sessionBar, BorderLayout.NORTH);
+        north.add(inputPanel, BorderLayout.CENTER);
+        panel.add(north, BorderLayout.NORTH);
+
+        // --- Table Section ---
+        tableModel = new LedgerTableModel(ledger); // View over the ledger's columns; edits go through the engine
+        billTable = new JTable(tableModel);
+        billTable.setAutoCreateColumnsFromModel(false); // Keep columns & renderers when a session's model is swapped in
+        billTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        billTable.setRowHeight(28);
+        billTable.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+        billTable.getTableHeader().setFont(new Font("Segoe UI", Font.BOLD, 14));
+        billTable.getTableHeader().setBackground(new Color(230, 230, 230));
+        billTable.getInputMap().put(KeyStroke.getKeyStroke(KeyEvent.VK_V, Toolkit.getDefaultToolkit().getMenuShortcutKeyMask()), "pasteItems");
+        billTable.getActionMap().put("pasteItems", new AbstractAction() {
+            public void actionPerformed(ActionEvent e) { pasteItems(); }
+        });
+        billTable.getInputMap().put(KeyStroke.getKeyStroke(KeyEvent.VK_DELETE, 0), "removeLine");
+        billTable.getActionMap().put("removeLine", new AbstractAction() {
+            public void actionPerformed(ActionEvent e) { removeSelectedItem(); }
+        });
+        
+        // Align numbers to the right
+        DefaultTableCellRenderer rightRenderer = new DefaultTableCellRenderer();
+        rightRenderer.setHorizontalAlignment(JLabel.RIGHT);
+        billTable.getColumnModel().getColumn(1).setCellRenderer(rightRenderer);
+        billTable.getColumnModel().getColumn(2).setCellRenderer(rightRenderer);
+        billTable.getColumnModel().getColumn(3).setCellRenderer(rightRenderer);
+
+        JScrollPane scrollPane = new JScrollPane(billTable);
+        scrollPane.setBorder(new LineBorder(new Color(200, 200, 200)));
+        panel.add(scrollPane, BorderLayout.CENTER);
+        
+        return panel;
+    }
+
+    private JPanel createSettingsPanel() {
+        JPanel panel = new JPanel(new BorderLayout(20, 20));
+        panel.setBorder(new EmptyBorder(20, 20, 20, 20));
+        
+        // Adjustments (Tax/Discount)
+        JPanel adjPanel = new JPanel(new GridLayout(4, 2, 20, 15));
+        adjPanel.setBorder(BorderFactory.createTitledBorder("⚙️ Bill Adjustments"));
+        
+        adjPanel.add(new JLabel("Discount Percentage (%):"));
+        discountField = new JTextField(Money.formatRatePlain(ledger.discountBps()));
+        adjPanel.add(discountField);
+        
+        adjPanel.add(new JLabel("Tax / GST Percentage (%):"));
+        taxField = new JTextField(Money.formatRatePlain(ledger.taxBps()));
+        adjPanel.add(taxField);
+
+        // Live totals: a burst of keystrokes in either field becomes one recalculation
+        rateFieldBackground = taxField.getBackground();
+        rateEditTimer = new Timer(RATE_EDIT_DELAY_MS, e -> updateCalculations());
+        rateEditTimer.setRepeats(false);
+        DocumentListener rateEdited = new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) { rateEditTimer.restart(); }
+            public void removeUpdate(DocumentEvent e) { rateEditTimer.restart(); }
+            public void changedUpdate(DocumentEvent e) { rateEditTimer.restart(); }
+        };
+        discountField.getDocument().addDocumentListener(rateEdited);
+        taxField.getDocument().addDocumentListener(rateEdited);
+
+        // GST slabs (only with a tax rules file; see TaxRules)
+        interStateBox = new JCheckBox("Inter-state supply (IGST)", ledger.interState());
+        interStateBox.setToolTipText("Charge IGST instead of CGST + SGST");
+        interStateBox.addActionListener(e -> {
+            engine.setInterState(session, interStateBox.isSelected());
+            updateCalculations();
+        });
+        adjPanel.add(interStateBox);
+        TaxRules rules = engine.taxRules();
+        adjPanel.add(new JLabel(rules == null ? "GST slabs off - Tax % applies to the whole bill"
+            : "GST slabs on - Tax % applies to items without a rule"));
+        
+        // Live Calculation Trigger
+        JButton calcBtn = createStyledButton("🔄 Recalculate Totals", new Color(41, 128, 185));
+        calcBtn.addActionListener(e -> updateCalculations());
+        JCheckBox mergeRepeatsBox = new JCheckBox("Merge repeated items into one line", mergeRepeats);
+        mergeRepeatsBox.setToolTipText("Adding an item already on the bill (same name and price) raises its quantity");
+        mergeRepeatsBox.addActionListener(e -> mergeRepeats = mergeRepeatsBox.isSelected());
+        adjPanel.add(mergeRepeatsBox);
+        adjPanel.add(calcBtn); // Add to panel layout
+        
+        panel.add(adjPanel, BorderLayout.NORTH);
+
+        // Preview Area
+        JPanel previewContainer = new JPanel(new BorderLayout());
+        previewContainer.setBorder(BorderFactory.createTitledBorder("👁️ Live Receipt Preview"));
+        previewArea = new JTextArea(preview.document());
+        previewArea.setEditable(false);
+        previewArea.setFont(new Font("Monospaced", Font.PLAIN, 13));
+        previewArea.setBackground(new Color(250, 250, 250));
+        previewContainer.add(new JScrollPane(previewArea), BorderLayout.CENTER);
+
+        // Sales Report (across all committed bills in the journal)
+        JPanel reportContainer = new JPanel(new BorderLayout(0, 8));
+        reportContainer.setBorder(BorderFactory.createTitledBorder("📈 Sales Report"));
+        JPanel reportBar = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 0));
+        reportRangeBox = new JComboBox<>(new String[]{"Today", "Last 7 days", "Last 30 days", "This year", "All time"});
+        reportBtn = createStyledButton("📊 Run Report", new Color(41, 128, 185));
+        reportBtn.addActionListener(e -> runSalesReport());
+        reportBar.add(reportRangeBox);
+        reportBar.add(reportBtn);
+        reportArea = new JTextArea("Pick a period and click Run Report.");
+        reportArea.setEditable(false);
+        reportArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        reportArea.setBackground(new Color(250, 250, 250));
+        reportContainer.add(reportBar, BorderLayout.NORTH);
+        reportContainer.add(new JScrollPane(reportArea), BorderLayout.CENTER);
+
+        JPanel center = new JPanel(new GridLayout(1, 2, 20, 0));
+        center.add(previewContainer);
+        center.add(reportContainer);
+        panel.add(center, BorderLayout.CENTER);
+        
+        return panel;
+    }
+
+    private JPanel createFooterPanel() {
+        JPanel panel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 10));
+        panel.setBorder(new MatteBorder(1, 0, 0, 0, Color.LIGHT_GRAY));
+        panel.setBackground(new Color(245, 245, 245));
+
+        // Labels for Totals
+        JPanel totalsPanel = new JPanel(new GridLayout(1, 4, 20, 0));
+        totalsPanel.setBackground(new Color(245, 245, 245));
+        
+        totalsPanel.add(createTotalLabel("Subtotal:", subtotalLabel));
+        totalsPanel.add(createTotalLabel("Discount:", discountLabel));
+        totalsPanel.add(createTotalLabel("Tax:", taxLabel));
+        
+        // Grand Total specific styling
+        JPanel grandPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 0));
+        grandPanel.setBackground(new Color(245, 245, 245));
+        JLabel gLabel = new JLabel("GRAND TOTAL:");
+        gLabel.setFont(new Font("Segoe UI", Font.BOLD, 16));
+        totalLabel = new JLabel("₹0.00");
+        totalLabel.setFont(new Font("Segoe UI", Font.BOLD, 24));
+        totalLabel.setForeground(new Color(39, 174, 96));
+        grandPanel.add(gLabel); grandPanel.add(totalLabel);
+        
+        // Buttons
+        JButton saveBtn = createStyledButton("💾 Save Text", new Color(39, 174, 96));
+        JButton pdfBtn = createStyledButton("📄 Export PDF", new Color(142, 68, 173));
+        JButton printBtn = createStyledButton("🖨️ Print", new Color(52, 152, 219));
+        JButton newBillBtn = createStyledButton("🆕 New Bill", new Color(230, 126, 34));
+        JButton findBtn = createStyledButton("🔎 Find Invoice", new Color(22, 160, 133));
+        JButton aboutBtn = createStyledButton("ℹ️ About", new Color(52, 73, 94));
+
+        cancelExportBtn = createStyledButton("⛔ Cancel Export", new Color(192, 57, 43));
+        cancelExportBtn.setVisible(false); // Only shown while exports are running
+
+        saveBtn.addActionListener(e -> saveBill());
+        pdfBtn.addActionListener(e -> exportToPDF());
+        cancelExportBtn.addActionListener(e -> cancelExports());
+        printBtn.addActionListener(e -> printBill());
+        newBillBtn.addActionListener(e -> resetSystem());
+        findBtn.addActionListener(e -> findInvoice());
+        aboutBtn.addActionListener(e -> showAboutDialog());
+
+        panel.add(totalsPanel);
+        panel.add(grandPanel);
+        panel.add(new JSeparator(SwingConstants.VERTICAL));
+        panel.add(saveBtn);
+        panel.add(pdfBtn);
+        panel.add(cancelExportBtn);
+        panel.add(printBtn);
+        panel.add(newBillBtn);
+        panel.add(findBtn);
+        panel.add(aboutBtn);
+
+        return panel;
+    }
+    
+    private JPanel createTotalLabel(String title, JLabel valueLabel) {
+        JPanel p = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 0));
+        p.setBackground(new Color(245, 245, 245));
+        p.add(new JLabel(title));
+        valueLabel = new JLabel("₹0.00");
+        valueLabel.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+        p.add(valueLabel);
+        if(title.equals("Subtotal:")) subtotalLabel = valueLabel;
+        if(title.equals("Discount:")) discountLabel = valueLabel;
+        if(title.equals("Tax:")) taxLabel = valueLabel;
+        return p;
+    }
+
+    private JLabel createStatusBar() {
+        statusLabel = new JLabel("✅ Ready", SwingConstants.CENTER);
+        statusLabel.setBorder(new EtchedBorder(EtchedBorder.LOWERED));
+        statusLabel.setPreferredSize(new Dimension(0, 25));
+        statusLabel.setFont(new Font("Segoe UI", Font.PLAIN, 11));
+        statusLabel.setBackground(Color.WHITE);
+        statusLabel.setOpaque(true);
+        return statusLabel;
+    }
+
+    // --- LOGIC & EVENT HANDLING ---
+
+    private void setupEventHandlers() {
+        setupKeyboardNav();
+        // Keep the session and preview header in step with the customer name (coalesced per frame)
+        customerField.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) { customerChanged(); }
+            public void removeUpdate(DocumentEvent e) { customerChanged(); }
+            public void changedUpdate(DocumentEvent e) { customerChanged(); }
+        });
+        // A finished name is journaled, so it survives a restart even if no line follows
+        customerField.addFocusListener(new FocusAdapter() {
+            @Override
+            public void focusLost(FocusEvent e) { engine.saveCustomer(session); }
+        });
+    }
+
+    private void setupKeyboardNav() {
+        itemNameField.addActionListener(e -> priceField.requestFocus());
+        priceField.addActionListener(e -> qtyField.requestFocus());
+        qtyField.addActionListener(e -> addItem());
+
+        // Undo/redo work from anywhere in the window
+        int menuKey = Toolkit.getDefaultToolkit().getMenuShortcutKeyMask();
+        InputMap keys = getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW);
+        keys.put(KeyStroke.getKeyStroke(KeyEvent.VK_Z, menuKey), "undo");
+        keys.put(KeyStroke.getKeyStroke(KeyEvent.VK_Y, menuKey), "redo");
+        keys.put(KeyStroke.getKeyStroke(KeyEvent.VK_Z, menuKey | InputEvent.SHIFT_DOWN_MASK), "redo");
+        getRootPane().getActionMap().put("undo", new AbstractAction() {
+            public void actionPerformed(ActionEvent e) { undo(); }
+        });
+        getRootPane().getActionMap().put("redo", new AbstractAction() {
+            public void actionPerformed(ActionEvent e) { redo(); }
+        });
+
+        // Scanner bursts into the item field are intercepted before its Enter action fires
+        scanner = new ScanInput(itemNameField, this::addScannedCode);
+        scanner.install();
+    }
+
+    private void addItem() {
+        long t0 = System.nanoTime();
+        try {
+            String name = itemNameField.getText().trim();
+            if (name.isEmpty()) throw new IllegalArgumentException("Item Name cannot be empty.");
+            
+            long price = Money.parse(priceField.getText()); // Paise
+            int qty = Integer.parseInt(qtyField.getText().trim());
+            
+            showLineChange(ledger.size(), engine.addLine(session, name, price, qty, mergeRepeats));
+            
+            clearInputFields();
+            updateCalculations();
+            itemNameField.requestFocus();
+            statusLabel.setText("✅ Added: " + name);
+            ADD_ITEM.recordSince(t0);
+            
+        } catch (NumberFormatException | ArithmeticException e) {
+            showError("Please enter valid numbers for Price and Quantity.");
+        } catch (IllegalArgumentException e) {
+            showError(e.getMessage());
+        }
+    }
+
+    /** Mirrors an engine change into the table: a new row if the bill grew past {@code rowsBefore}, else a repaint of {@code row}. */
+    private void showLineChange(int rowsBefore, int row) {
+        if (ledger.size() > rowsBefore) tableModel.linesInserted(row, row);
+        else refreshRow(row);
+    }
+
+    /** Repaints a changed line in the table (one row event) and the preview. */
+    private void refreshRow(int row) {
+        tableModel.lineUpdated(row);
+        preview.rowUpdated(row);
+    }
+
+    /**
+     * Handles one scanned barcode / SKU: a repeat of the last item bumps its
+     * quantity, anything else becomes a new line of one. Never opens a dialog or
+     * moves focus, so the next scan can follow straight away.
+     */
+    private void addScannedCode(String code) {
+        long t0 = System.nanoTime();
+        int row;
+        try {
+            int rows = ledger.size();
+            row = engine.addSku(session, Long.parseLong(code), 1, mergeRepeats);
+            showLineChange(rows, row);
+        } catch (ArithmeticException e) {
+            Toolkit.getDefaultToolkit().beep();
+            statusLabel.setText("⚠️ Bill total out of range, scan ignored: " + code);
+            return;
+        } catch (IllegalArgumentException e) { // Not a numeric SKU, or not in the catalog
+            Toolkit.getDefaultToolkit().beep();
+            statusLabel.setText("⚠️ Unknown barcode: " + code);
+            return;
+        }
+        updateCalculations();
+        statusLabel.setText("📷 Scanned: " + ledger.name(row) + " (x" + ledger.quantity(row) + ")");
+        SCAN_ITEM.recordSince(t0);
+    }
+
+    /**
+     * Undoes the most recent addition: a merged quantity is taken back off its
+     * line, a newly added line is removed.
+     */
+    private void deleteLastItem() {
+        long t0 = System.nanoTime();
+        int rows = ledger.size();
+        if (rows > 0) {
+            stopTableEditing();
+            int row = engine.undoAdd(session);
+            if (ledger.size() < rows) {
+                tableModel.linesDeleted(row, row);
+                preview.rowRemoved(row);
+                statusLabel.setText("🗑️ Last item removed");
+            } else {
+                refreshRow(row);
+                statusLabel.setText("🗑️ Last quantity removed: " + ledger.name(row) + " (x" + ledger.quantity(row) + ")");
+            }
+            updateCalculations();
+            REMOVE_ITEM.recordSince(t0);
+        } else {
+            showWarning("Table is already empty.");
+        }
+    }
+    
+    /** Removes the line selected in the table, wherever it is; Undo puts it back. */
+    private void removeSelectedItem() {
+        long t0 = System.nanoTime();
+        stopTableEditing();
+        int row = billTable.getSelectedRow();
+        if (row < 0) {
+            showWarning("Select a line in the table to remove.");
+            return;
+        }
+        String name = ledger.name(row);
+        engine.removeLine(session, row);
+        tableModel.linesDeleted(row, row);
+        preview.rowRemoved(row);
+        if (ledger.size() > 0) {
+            int next = Math.min(row, ledger.size() - 1); // Keep Delete going down the list
+            billTable.setRowSelectionInterval(next, next);
+        }
+        updateCalculations();
+        statusLabel.setText("❌ Removed: " + name);
+        REMOVE_LINE.recordSince(t0);
+    }
+
+    /** Applies a cell typed into the table (item, price or quantity) to its line. */
+    private void editCell(int row, int column, Object value) {
+        long t0 = System.nanoTime();
+        String name = ledger.name(row);
+        long price = ledger.price(row);
+        int qty = ledger.quantity(row);
+        try {
+            switch (column) {
+                case LedgerTableModel.COL_ITEM:
+                    name = value.toString();
+                    break;
+                case LedgerTableModel.COL_PRICE:
+                    String text = value.toString().trim().replace(",", ""); // As shown, e.g. 1,250.00
+                    price = Money.parse(text.startsWith("₹") ? text.substring(1) : text);
+                    break;
+                case LedgerTableModel.COL_QTY:
+                    qty = value instanceof Number ? ((Number) value).intValue() : Integer.parseInt(value.toString().trim());
+                    break;
+                default:
+                    return;
+            }
+            if (!engine.editLine(session, row, name, price, qty)) return;
+        } catch (NumberFormatException | ArithmeticException e) {
+            showError("Please enter valid numbers for Price and Quantity.");
+            return;
+        } catch (IllegalArgumentException e) {
+            showError(e.getMessage());
+            return;
+        }
+        refreshRow(row);
+        updateCalculations();
+        statusLabel.setText("✏️ Changed: " + ledger.name(row) + " (" + Money.format(ledger.price(row)) + " x" + ledger.quantity(row) + ")");
+        EDIT_ITEM.recordSince(t0);
+    }
+
+    private void undo() {
+        long t0 = System.nanoTime();
+        stopTableEditing();
+        RowEvents rows = new RowEvents();
+        if (!engine.undo(session, rows)) {
+            statusLabel.setText("↩️ Nothing to undo");
+            return;
+        }
+        rows.finish();
+        updateCalculations();
+        statusLabel.setText("↩️ Undone (" + rows.count + " line" + (rows.count == 1 ? "" : "s") + ")");
+        UNDO.recordSince(t0);
+    }
+
+    private void redo() {
+        long t0 = System.nanoTime();
+        stopTableEditing();
+        RowEvents rows = new RowEvents();
+        if (!engine.redo(session, rows)) {
+            statusLabel.setText("↪️ Nothing to redo");
+            return;
+        }
+        rows.finish();
+        updateCalculations();
+        statusLabel.setText("↪️ Redone (" + rows.count + " line" + (rows.count == 1 ? "" : "s") + ")");
+        REDO.recordSince(t0);
+    }
+
+    /**
+     * Follows an undo or redo in the table and preview as it happens: the
+     * first {@link #ROW_EVENTS_MAX} rows one by one, anything past that (e.g.
+     * taking back an import) as one redraw once the step is done.
+     */
+    private final class RowEvents implements BillingEngine.RowListener {
+        int count;
+
+        public void rowInserted(int row) {
+            if (++count > ROW_EVENTS_MAX) {
+                preview.rowsChangedFrom(row);
+                return;
+            }
+            tableModel.linesInserted(row, row);
+            preview.rowInserted(row);
+        }
+
+        public void rowRemoved(int row) {
+            if (++count > ROW_EVENTS_MAX) {
+                preview.rowsChangedFrom(row);
+                return;
+            }
+            tableModel.linesDeleted(row, row);
+            preview.rowRemoved(row);
+        }
+
+        public void rowUpdated(int row) {
+            if (++count > ROW_EVENTS_MAX) {
+                preview.rowsChangedFrom(row);
+                return;
+            }
+            refreshRow(row);
+        }
+
+        void finish() {
+            if (count > ROW_EVENTS_MAX) tableModel.linesChanged();
+        }
+    }
+
+    /** Drops a half-typed cell edit, so it cannot land on a row that moved. */
+    private void stopTableEditing() {
+        if (billTable.isEditing()) billTable.getCellEditor().cancelCellEditing();
+    }
+
+    // --- BULK IMPORT ---
+
+    /** Reads the lines of an import (a file or pasted text); runs off the EDT. */
+    private interface ImportSource {
+        LineItemImport read() throws IOException;
+    }
+
+    private void importItemsFromFile() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Import Items");
+        fileChooser.setFileFilter(new FileNameExtensionFilter("CSV / tab-separated text (*.csv, *.tsv, *.txt)", "csv", "tsv", "txt"));
+        if (fileChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        File file = fileChooser.getSelectedFile();
+        importItems(file.getName(), () -> LineItemImport.read(file.toPath()));
+    }
+
+    /** Imports cells copied from a spreadsheet (or any item,price,qty text) on the clipboard. */
+    private void pasteItems() {
+        String text;
+        try {
+            text = (String) Toolkit.getDefaultToolkit().getSystemClipboard().getData(DataFlavor.stringFlavor);
+        } catch (UnsupportedFlavorException | IOException | IllegalStateException e) {
+            showWarning("The clipboard holds no text to import.");
+            return;
+        }
+        importItems("the clipboard", () -> LineItemImport.parse(text));
+    }
+
+    /**
+     * Parses and checks the lines on a worker thread, then adds them to the bill
+     * in one batch: one table insert event, one totals update and one preview
+     * refresh however many lines there are. Bad rows are listed together at the end.
+     */
+    private void importItems(String from, ImportSource source) {
+        if (!importBtn.isEnabled()) return; // One import at a time
+        long t0 = System.nanoTime();
+        BillSession target = session; // Lines go to this bill even if another is shown meanwhile
+        importBtn.setEnabled(false);
+        statusLabel.setText("⏳ Reading items from " + from + "...");
+        new SwingWorker<LineItemImport, Void>() {
+            @Override
+            protected LineItemImport doInBackground() throws Exception {
+                return source.read();
+            }
+
+            @Override
+            protected void done() {
+                importBtn.setEnabled(true);
+                try {
+                    applyImport(target, get(), from, t0);
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    Metrics.error("import items", cause);
+                    showError("Import Failed: " + cause.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    private void applyImport(BillSession target, LineItemImport batch, String from, long t0) {
+        long applyStart = System.nanoTime();
+        int before = target.ledger.size();
+        if (batch.size() > 0) {
+            try {
+                int first = engine.addLines(target, batch, mergeRepeats);
+                int after = target.ledger.size();
+                if (after > before) target.tableModel.linesInserted(before, after - 1);
+                if (first < before) target.tableModel.linesUpdated(first, before - 1); // Merged quantities
+                target.preview.rowsChangedFrom(first);
+            } catch (ArithmeticException e) {
+                showError("Import cancelled: the bill total would be out of range. Nothing was added.");
+                return;
+            } catch (IllegalStateException e) { // Finished with New Bill while the lines were read
+                showWarning("Bill #" + target.number + " was closed before the import finished. Nothing was added.");
+                return;
+            }
+        }
+        if (target == session) updateCalculations();
+        else sessionBox.repaint();
+        IMPORT_ITEMS.recordSince(applyStart);
+
+        String done = batch.size() == 0 ? "⚠️ No lines imported from " + from
+            : String.format("📥 Imported %,d lines from %s in %d ms", batch.size(), from, (System.nanoTime() - t0) / 1_000_000);
+        if (batch.errorCount() == 0) {
+            statusLabel.setText(done);
+            return;
+        }
+        statusLabel.setText(done + " - " + batch.errorCount() + " row(s) skipped");
+        StringBuilder list = new StringBuilder();
+        for (String problem : batch.errors()) list.append(problem).append('\n');
+        if (batch.errorCount() > batch.errors().size()) {
+            list.append("... and ").append(batch.errorCount() - batch.errors().size()).append(" more\n");
+        }
+        JTextArea problems = new JTextArea(list.toString(), Math.min(batch.errors().size() + 1, 15), 60);
+        problems.setEditable(false);
+        problems.setCaretPosition(0);
+        JOptionPane.showMessageDialog(this, new Object[]{
+            String.format("Imported %,d lines; %,d row(s) were skipped:", batch.size(), batch.errorCount()),
+            new JScrollPane(problems)}, "Import Items", JOptionPane.WARNING_MESSAGE);
+    }
+
+    private void clearInputFields() {
+        itemNameField.setText("");
+        priceField.setText("");
+        qtyField.setText("");
+    }
+
+    private void updateCalculations() {
+        long t0 = System.nanoTime();
+        // 1. Parse Rates (basis points); until the settings tab is opened the ledger's rates stand
+        int discountBps = ledger.discountBps(), taxBps = ledger.taxBps();
+        if (discountField != null) {
+            rateEditTimer.stop(); // Any pending edit is applied right here
+            discountBps = readRate(discountField, "Discount %", discountBps);
+            taxBps = readRate(taxField, "Tax %", taxBps);
+        }
+
+        // 2. Only the rate-dependent amounts are redone; the subtotal is the ledger's running sum
+        engine.setRates(session, discountBps, taxBps);
+        long subtotal = ledger.subtotal();
+        long discountAmt = ledger.discountAmount();
+        long taxAmt = ledger.taxAmount();
+        long grandTotal = ledger.grandTotal();
+
+        // 3. Update UI
+        subtotalLabel.setText("₹" + Money.format(subtotal));
+        discountLabel.setText("-₹" + Money.format(discountAmt));
+        taxLabel.setText("₹" + Money.format(taxAmt));
+        totalLabel.setText("₹" + Money.format(grandTotal));
+
+        // 4. Update Preview Text (new rows + footer, merged into the next frame)
+        preview.invalidate();
+        sessionBox.repaint(); // Item count & total in the open-bills label
+        UPDATE_TOTALS.recordSince(t0);
+    }
+    
+    /**
+     * Reads a rate field. Invalid text is flagged on the field and in the status
+     * bar, and the bill keeps its current rate instead of silently dropping to 0.
+     */
+    private int readRate(JTextField field, String what, int currentBps) {
+        String text = field.getText().trim();
+        String problem = null;
+        int bps = 0;
+        if (!text.isEmpty()) { // Blank means no discount / tax
+            try {
+                bps = Money.parseRate(text);
+                if (bps < 0 || bps > Money.BPS_WHOLE) problem = what + " must be between 0 and 100";
+            } catch (NumberFormatException e) {
+                problem = what + " \"" + text + "\" is not a number";
+            }
+        }
+        field.setBackground(problem == null ? rateFieldBackground : INVALID_FIELD);
+        field.setToolTipText(problem);
+        if (problem == null) return bps;
+        statusLabel.setText("⚠️ " + problem + " - the bill keeps " + Money.formatRatePlain(currentBps) + "%");
+        return currentBps;
+    }
+    
+    private void resetSystem() {
+        boolean save;
+        if (ledger.size() == 0) {
+            int confirm = JOptionPane.showConfirmDialog(this,
+                "Start a new customer bill?",
+                "New Bill", JOptionPane.YES_NO_OPTION);
+            if (confirm != JOptionPane.YES_OPTION) return;
+            save = true; // Nothing to save: closing voids it
+        } else {
+            // Saving records a sale, so throwing a mistaken bill away is a separate choice
+            Object[] options = {"Save Sale", "Discard Bill", "Cancel"};
+            int choice = JOptionPane.showOptionDialog(this,
+                "Start a new customer bill?\n" +
+                "Save Sale records this bill in the sales journal; Discard Bill throws it away.",
+                "New Bill", JOptionPane.YES_NO_CANCEL_OPTION, JOptionPane.QUESTION_MESSAGE, null, options, options[0]);
+            if (choice != 0 && choice != 1) return;
+            save = choice == 0;
+        }
+        long t0 = System.nanoTime();
+        // The finished bill goes into the sales journal (or is voided), then a fresh session takes its place
+        BillSession done = session;
+        if (save) {
+            engine.close(done, System.currentTimeMillis());
+            indexInvoices();
+        } else {
+            engine.voidBill(done);
+        }
+        showSession(openSession());
+        sessions.removeElement(done);
+        clearInputFields();
+        statusLabel.setText(save ? "🆕 New Bill Started" : "🗑️ Bill #" + done.number + " discarded - New Bill Started");
+        NEW_BILL.recordSince(t0);
+    }
+
+    // --- BILL SESSIONS ---
+
+    /** Makes {@code s} the bill that the shortcuts {@code ledger}, {@code preview} and {@code tableModel} refer to. */
+    private void bindSession(BillSession s) {
+        session = s;
+        ledger = s.ledger;
+        preview = s.preview;
+        tableModel = s.tableModel;
+        tableModel.setEditor(this::editCell);
+    }
+
+    /** Creates an empty bill, opens it in the journal and lists it. */
+    private BillSession openSession() {
+        BillSession s = engine.open(new BillSession());
+        sessions.addElement(s);
+        return s;
+    }
+
+    /** Swaps a session's model and document into the window (no rows are copied). */
+    private void showSession(BillSession s) {
+        bindSession(s);
+        billTable.setModel(tableModel);
+        if (customerSuggest != null) customerSuggest.setTextQuietly(s.customer);
+        else customerField.setText(s.customer);
+        if (discountField != null) { // Settings tab built
+            previewArea.setDocument(preview.document());
+            discountField.setText(Money.formatRatePlain(ledger.discountBps()));
+            taxField.setText(Money.formatRatePlain(ledger.taxBps()));
+            interStateBox.setSelected(ledger.interState());
+        }
+        switchingSession = true;
+        try {
+            sessions.setSelectedItem(s);
+        } finally {
+            switchingSession = false;
+        }
+        updateCalculations();
+    }
+
+    private void switchTo(BillSession s) {
+        if (s == session) return;
+        long t0 = System.nanoTime();
+        updateCalculations(); // Apply pending rate edits to the bill being left
+        engine.saveCustomer(session);
+        showSession(s);
+        statusLabel.setText("🧾 Switched to bill #" + s.number + " (" + ledger.size() + " items)");
+        SWITCH_BILL.recordSince(t0);
+    }
+
+    /** Parks the bill on screen and starts a new one for the next customer. */
+    private void parkBill() {
+        if (ledger.size() == 0 && customerField.getText().trim().isEmpty()) {
+            showWarning("Nothing to park - the current bill is empty.");
+            return;
+        }
+        BillSession parked = session;
+        updateCalculations();
+        engine.saveCustomer(parked);
+        showSession(openSession());
+        Metrics.count(Metrics.BILLS_PARKED);
+        statusLabel.setText("🅿️ Parked bill #" + parked.number + " - pick it from Open Bills to resume");
+    }
+
+    private void customerChanged() {
+        engine.setCustomer(session, customerField.getText());
+        preview.invalidate();
+        sessionBox.repaint();
+    }
+
+    // --- SALES REPORT ---
+
+    /**
+     * Aggregates the sales journal for the chosen period on a worker thread;
+     * the EDT only receives the finished text.
+     */
+    private void runSalesReport() {
+        if (journal == null) {
+            showWarning("Sales journal unavailable - no history to report on.");
+            return;
+        }
+        LocalDate to = LocalDate.now();
+        LocalDate from;
+        switch (reportRangeBox.getSelectedIndex()) {
+            case 0:  from = to; break;
+            case 1:  from = to.minusDays(6); break;
+            case 2:  from = to.minusDays(29); break;
+            case 3:  from = to.withDayOfYear(1); break;
+            default: from = LocalDate.of(1970, 1, 1); break;
+        }
+        reportBtn.setEnabled(false);
+        statusLabel.setText("⏳ Building sales report...");
+        new SwingWorker<String, Void>() {
+            @Override
+            protected String doInBackground() throws Exception {
+                long t0 = System.nanoTime();
+                try {
+                    return SalesAnalytics.run(InvoiceJournal.defaultDirectory(), SalesAnalytics.defaultCacheDirectory(), from, to)
+                        .toText(10);
+                } finally {
+                    SALES_REPORT.recordSince(t0);
+                }
+            }
+
+            @Override
+            protected void done() {
+                reportBtn.setEnabled(true);
+                try {
+                    reportArea.setText(get());
+                    reportArea.setCaretPosition(0);
+                    statusLabel.setText("📈 Sales report ready");
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    Metrics.error("sales report", cause);
+                    showError("Report failed: " + cause.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    // --- PRODUCT CATALOG ---
+
+    /** Maps the product catalog, or returns null if none is installed. Runs off the EDT at start-up. */
+    private static ProductCatalog readCatalog() {
+        Path path = ProductCatalog.defaultPath();
+        if (!Files.exists(path)) return null;
+        try {
+            return ProductCatalog.open(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Takes the catalog mapped in the background and hooks as-you-type suggestions onto the item name field.
+     */
+    private void loadCatalog(CompletableFuture<ProductCatalog> pending) {
+        try {
+            catalog = pending.join();
+        } catch (CompletionException e) {
+            Metrics.error("catalog", e.getCause());
+            statusLabel.setText("⚠️ Product catalog unavailable: " + e.getCause().getMessage());
+            return;
+        }
+        if (catalog == null) return;
+        engine.attachCatalog(catalog);
+        int[] hits = new int[16];
+        itemSuggest = new AutoComplete<>(itemNameField,
+            (prefix, limit, out) -> {
+                int n = catalog.prefixSearch(prefix, hits);
+                for (int i = 0; i < n && i < limit; i++) out.add(hits[i]);
+            },
+            row -> catalog.name(row) + "   ₹" + Money.format(catalog.price(row)),
+            this::fillFromCatalog);
+        statusLabel.setText("✅ Ready - " + catalog.size() + " products in catalog");
+    }
+
+    /** Fills name and price from a catalog entry and moves on to the quantity. */
+    private void fillFromCatalog(int row) {
+        itemSuggest.setTextQuietly(catalog.name(row));
+        priceField.setText(Money.format(catalog.price(row)));
+        qtyField.requestFocus();
+        qtyField.selectAll();
+    }
+
+    // --- TAX RULES ---
+
+    /** Compiles the GST rules file, if there is one, for every bill opened from now on (needs the catalog first). */
+    private void loadTaxRules() {
+        Path path = TaxRules.defaultPath();
+        if (!Files.exists(path)) return;
+        try {
+            TaxRules rules = TaxRules.load(path, catalog);
+            engine.attachTaxRules(rules); // Before the journal step opens or restores any bill
+        } catch (IOException e) {
+            Metrics.error("tax rules", e);
+            statusLabel.setText("⚠️ Tax rules not loaded (" + path.getFileName() + "): " + e.getMessage());
+        }
+    }
+
+    // --- SALES JOURNAL ---
+
+    /** Opens (and recovers) the sales journal. Runs off the EDT at start-up. */
+    private static InvoiceJournal readJournal() {
+        try {
+            return InvoiceJournal.open(InvoiceJournal.defaultDirectory());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Takes the journal opened in the background and restores every bill (open or parked) left unfinished by the last run.
+     */
+    private void openJournal(CompletableFuture<InvoiceJournal> pending) {
+        try {
+            journal = pending.join();
+        } catch (CompletionException e) {
+            Metrics.error("journal open", e.getCause());
+            statusLabel.setText("⚠️ Sales journal unavailable: " + e.getCause().getMessage());
+            engine.open(session); // Billing carries on unjournaled
+            return;
+        }
+        engine.attachJournal(journal);
+        indexInvoices();
+        List<InvoiceJournal.OpenBill> open = journal.openBills();
+        if (open.isEmpty()) {
+            engine.open(session);
+            return;
+        }
+        BillSession restored = null;
+        int lines = 0;
+        for (InvoiceJournal.OpenBill bill : open) {
+            // The first bill goes into the still-empty startup session
+            restored = engine.restore(bill, (restored == null) ? session : new BillSession());
+            restored.preview.invalidate();
+            if (restored != session) sessions.addElement(restored);
+            lines += restored.ledger.size();
+        }
+        if (restored.ledger.size() > 0 && restored == session) tableModel.linesInserted(0, ledger.size() - 1);
+        showSession(restored); // The most recently opened bill
+        statusLabel.setText("♻️ Restored " + open.size() + " unfinished bill(s) (" + lines + " items)");
+    }
+
+    /** A failed journal append is reported but never blocks billing. */
+    private void journalFailed(IOException e) {
+        Metrics.error("journal write", e);
+        statusLabel.setText("⚠️ Sales journal write failed: " + e.getMessage());
+    }
+
+    private void closeJournal() {
+        if (journal == null) return;
+        try {
+            journal.close();
+        } catch (IOException e) {
+            Metrics.error("journal close", e);
+        }
+    }
+
+    // --- INVOICE SEARCH ---
+
+    /** Brings the invoice index up to date with the journal on its own thread, opening it the first time. */
+    private void indexInvoices() {
+        indexer.execute(() -> {
+            long t0 = System.nanoTime();
+            try {
+                InvoiceIndex index = invoiceIndex;
+                if (index == null) {
+                    index = InvoiceIndex.open(InvoiceIndex.defaultPath(), InvoiceJournal.defaultDirectory());
+                    invoiceIndex = index;
+                    SwingUtilities.invokeLater(this::attachInvoiceIndex);
+                }
+                index.refresh();
+                INDEX_REFRESH.recordSince(t0);
+            } catch (IOException | UncheckedIOException e) {
+                Metrics.error("invoice index", e);
+                SwingUtilities.invokeLater(() -> statusLabel.setText("⚠️ Invoice search unavailable: " + e.getMessage()));
+            }
+        });
+    }
+
+    /** Suggests past customers' names as the customer field is typed in. */
+    private void attachInvoiceIndex() {
+        customerSuggest = new AutoComplete<>(customerField, invoiceIndex::suggestCustomers,
+            name -> "👤 " + name, name -> customerSuggest.setTextQuietly(name));
+    }
+
+    private void findInvoice() {
+        InvoiceIndex index = invoiceIndex;
+        if (index == null) {
+            showWarning("Invoice search unavailable - the sales journal or its index could not be opened.");
+            return;
+        }
+        if (searchDialog == null) searchDialog = new InvoiceSearchDialog(this, index, this::exportToPDF, this::reprint);
+        String customer = customerField.getText().trim();
+        if (!customer.isEmpty()) searchDialog.searchCustomer(customer); // This customer's earlier bills
+        searchDialog.setVisible(true);
+    }
+
+    /** Writes out buffered index entries; whatever is not written is re-read from the journal next start. */
+    private void closeInvoiceIndex() {
+        try {
+            indexer.submit(() -> {
+                if (invoiceIndex != null) invoiceIndex.close();
+                return null;
+            }).get(2, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            Metrics.error("invoice index close", e);
+        }
+    }
+
+    // --- TEXT / DATA EXPORT ---
+
+    /** Saves the bill on screen as a text receipt, CSV, JSON or binary archive, picked by file type. */
+    private void saveBill() {
+        if (ledger.size() == 0) {
+            showWarning("No items to save!");
+            return;
+        }
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Save Bill");
+        fileChooser.setAcceptAllFileFilterUsed(false);
+        for (BillExporter format : BillExporters.all()) {
+            fileChooser.addChoosableFileFilter(new FileNameExtensionFilter(format.description(), format.extension()));
+        }
+        fileChooser.setFileFilter(fileChooser.getChoosableFileFilters()[0]); // Plain text
+        fileChooser.setSelectedFile(new File("Bill_" + System.currentTimeMillis() + ".txt"));
+        if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+
+        BillExporter format = BillExporters.all().get(
+            Arrays.asList(fileChooser.getChoosableFileFilters()).indexOf(fileChooser.getFileFilter()));
+        File chosen = fileChooser.getSelectedFile();
+        BillExporter named = BillExporters.forFile(chosen.toPath());
+        if (named != null) format = named; // A typed extension wins over the filter
+        else chosen = new File(chosen.getParentFile(), chosen.getName() + "." + format.extension());
+
+        // Capture the bill now; the file is written in the background
+        long billId = session.billId;
+        BillSnapshot bill = engine.snapshot(session, System.currentTimeMillis());
+        BillExporter exporter = format;
+        File file = chosen;
+        statusLabel.setText("⏳ Saving " + file.getName() + "...");
+        new SwingWorker<Long, Void>() {
+            @Override
+            protected Long doInBackground() throws Exception {
+                long t0 = System.nanoTime();
+                try {
+                    return BillExporters.writeFile(exporter, file.toPath(), billId, bill);
+                } finally {
+                    EXPORT_FILE.recordSince(t0);
+                }
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    statusLabel.setText("💾 Saved " + file.getAbsolutePath() + " (" + get() + " bytes)");
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    Metrics.error("save bill", cause);
+                    showError("Save Failed: " + cause.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    // --- PDF EXPORT (The Professional Version) ---
+    private void exportToPDF() {
+        if (ledger.size() == 0) {
+            showWarning("No items to export!");
+            return;
+        }
+        File file = choosePdfFile("Invoice_" + System.currentTimeMillis() + ".pdf");
+        if (file == null) return;
+        // Capture the bill now; the PDF is written in the background
+        long t0 = System.nanoTime();
+        exportToPDF(engine.snapshot(session, System.currentTimeMillis()), file, t0);
+    }
+
+    /** Exports a bill found with Find Invoice. */
+    private void exportToPDF(BillSnapshot bill) {
+        File file = choosePdfFile("Invoice_" + bill.timestamp + ".pdf");
+        if (file != null) exportToPDF(bill, file, System.nanoTime());
+    }
+
+    private void exportToPDF(BillSnapshot bill, File file, long t0) {
+        if (pdfExports == null) pdfExports = new PdfExportService();
+        try {
+            pdfExports.submit(bill, file, pdfExportListener);
+            cancelExportBtn.setVisible(true);
+            statusLabel.setText("⏳ Exporting " + file.getName() + "...");
+            EXPORT_PDF.recordSince(t0);
+        } catch (RejectedExecutionException ex) {
+            showWarning("Too many exports pending (" + PdfExportService.MAX_PENDING + " max). Please wait for one to finish.");
+        }
+    }
+
+    /** @return the chosen file (with a .pdf extension), or null if the user cancelled */
+    private File choosePdfFile(String suggested) {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Save Invoice as PDF");
+        fileChooser.setSelectedFile(new File(suggested));
+        if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return null;
+        File file = fileChooser.getSelectedFile();
+        // Ensure .pdf extension
+        if (!file.getName().toLowerCase().endsWith(".pdf")) {
+            file = new File(file.getParentFile(), file.getName() + ".pdf");
+        }
+        return file;
+    }
+
+    private void cancelExports() {
+        if (pdfExports != null) pdfExports.cancelAll();
+    }
+
+    /** Reports background export progress in the status bar. */
+    private final PdfExportService.Listener pdfExportListener = new PdfExportService.Listener() {
+        public void progress(File target, int percent) {
+            statusLabel.setText("⏳ Exporting " + target.getName() + "... " + percent + "%");
+        }
+        public void finished(File target) {
+            statusLabel.setText("💾 PDF Exported to: " + target.getAbsolutePath());
+            Metrics.count(Metrics.EXPORTS_PDF);
+            exportEnded();
+        }
+        public void cancelled(File target) {
+            statusLabel.setText("⛔ Export cancelled: " + target.getName());
+            exportEnded();
+        }
+        public void failed(File target, Exception error) {
+            Metrics.error("PDF export " + target.getName(), error);
+            Metrics.count(Metrics.EXPORTS_FAILED);
+            exportEnded();
+            showError("PDF Export Failed: " + error.getMessage());
+        }
+    };
+
+    private void exportEnded() {
+        cancelExportBtn.setVisible(pdfExports.activeCount() > 0);
+    }
+
+    // --- PRINTING ---
+    private void printBill() {
+        if (ledger.size() == 0) { showWarning("Nothing to print!"); return; }
+        ThermalPrinter printer = receiptPrinter();
+        long t0 = System.nanoTime();
+        if (printer != null) {
+            BillSnapshot bill = engine.snapshot(session, System.currentTimeMillis());
+            PRINT.recordSince(t0);
+            printReceipt(printer, bill);
+        } else {
+            // Pages are laid out from a fixed copy of the receipt, so spooling can run off the EDT
+            printPages(preview.lines(), t0);
+        }
+    }
+
+    /** Reprints a bill found with Find Invoice, the same way as a fresh one. */
+    private void reprint(BillSnapshot bill) {
+        ThermalPrinter printer = receiptPrinter();
+        if (printer != null) printReceipt(printer, bill);
+        else printPages(ReceiptPreview.render(bill), System.nanoTime());
+    }
+
+    /** The ESC/POS printer from printer.properties (read once), or null to use the page printer. */
+    private ThermalPrinter receiptPrinter() {
+        if (!printerConfigRead) {
+            printerConfigRead = true;
+            try {
+                thermalPrinter = ThermalPrinter.load(ThermalPrinter.defaultConfig());
+            } catch (IOException e) {
+                Metrics.error("printer config", e);
+                showWarning("Receipt printer settings ignored: " + e.getMessage());
+            }
+        }
+        return thermalPrinter;
+    }
+
+    private void printPages(String[] lines, long t0) {
+        PrinterJob job = PrinterJob.getPrinterJob();
+        job.setPrintable(new ReceiptPrinter(lines, ReceiptPreview.HEADER_LINES));
+        PRINT.recordSince(t0); // The dialog below waits on the user, so it is not timed
+        if (job.printDialog()) {
+            statusLabel.setText("🖨️ Printing...");
+            Thread spool = new Thread(() -> {
+                long spoolStart = System.nanoTime();
+                try {
+                    job.print();
+                    PRINT_SPOOL.recordSince(spoolStart);
+                    Metrics.count(Metrics.PRINTS);
+                    SwingUtilities.invokeLater(() -> statusLabel.setText("🖨️ Sent to printer"));
+                } catch (PrinterException ex) {
+                    Metrics.error("print", ex);
+                    SwingUtilities.invokeLater(() -> showError("Print Error: " + ex.getMessage()));
+                }
+            }, "print-spool");
+            spool.start();
+        }
+    }
+
+    /** Sends the bill to the ESC/POS receipt printer: no dialog, no rasterising. */
+    private void printReceipt(ThermalPrinter printer, BillSnapshot bill) {
+        statusLabel.setText("🖨️ Printing receipt...");
+        Thread spool = new Thread(() -> {
+            long spoolStart = System.nanoTime();
+            try {
+                int bytes = printer.print(bill);
+                PRINT_SPOOL.recordSince(spoolStart);
+                Metrics.count(Metrics.PRINTS);
+                SwingUtilities.invokeLater(() -> statusLabel.setText("🖨️ Receipt sent to " + printer.destination() + " (" + bytes + " bytes)"));
+            } catch (IOException | javax.print.PrintException ex) {
+                Metrics.error("print", ex);
+                SwingUtilities.invokeLater(() -> showError("Print Error: " + ex.getMessage()));
+            }
+        }, "print-spool");
+        spool.start();
+    }
+
+    // --- UTILS ---
+    private JButton createStyledButton(String text, Color color) {
+        JButton btn = new JButton(text);
+        btn.setBackground(color);
+        btn.setForeground(Color.WHITE);
+        btn.setFocusPainted(false);
+        btn.setFont(new Font("Segoe UI", Font.BOLD, 13));
+        btn.setBorder(new EmptyBorder(8, 15, 8, 15));
+        btn.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        btn.addMouseListener(new MouseAdapter() {
+            public void mouseEntered(MouseEvent e) { btn.setBackground(color.brighter()); }
+            public void mouseExited(MouseEvent e) { btn.setBackground(color); }
+        });
+        return btn;
+    }
+
+    private void showAboutDialog() {
+        JOptionPane.showMessageDialog(this, 
+            "SmartBill Pro v5.0\nDeveloped by: [Your Name Here]\nA Professional Java Swing Application", 
+            "About", JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    private void showError(String msg) {
+        Metrics.event("ERROR dialog: " + msg); // User-facing errors land in the diagnostics log too
+        JOptionPane.showMessageDialog(this, msg, "Error", JOptionPane.ERROR_MESSAGE);
+        statusLabel.setText("❌ " + msg);
+    }
+
+    private void showWarning(String msg) {
+        JOptionPane.showMessageDialog(this, msg, "Warning", JOptionPane.WARNING_MESSAGE);
+        statusLabel.setText("⚠️ " + msg);
+    }
+
+    // --- SPLASH SCREEN ---
+    public static void main(String[] args) {
+        long start = System.nanoTime();
+        EdtMonitor.install();
+        // Disk work (catalog mapping, journal recovery) overlaps with building the window
+        CompletableFuture<ProductCatalog> catalog = CompletableFuture.supplyAsync(BillingSystemFinal::readCatalog);
+        CompletableFuture<InvoiceJournal> journal = CompletableFuture.supplyAsync(BillingSystemFinal::readJournal);
+
+        BillingSystemFinal[] app = new BillingSystemFinal[1];
+        StartupSplash splash = new StartupSplash(start)
+            .step("Building window", () -> app[0] = new BillingSystemFinal())
+            .step("Loading product catalog", () -> app[0].loadCatalog(catalog))
+            .step("Loading tax rules", () -> app[0].loadTaxRules())
+            .step("Restoring open bills", () -> app[0].openJournal(journal))
+            .step("Showing window", () -> {
+                app[0].setLocationRelativeTo(null);
+                app[0].setVisible(true);
+            });
+        SwingUtilities.invokeLater(() -> splash.start(() -> {
+            // JMX and the metrics file are not needed to serve the first customer
+            CompletableFuture.runAsync(() -> Metrics.startPublishing(Metrics.defaultFile()));
+            // Training run for the AppCDS archive (see smartbill.sh --cds-dump): stop once started
+            if (Boolean.getBoolean("smartbill.exitAfterStartup")) {
+                app[0].closeInvoiceIndex();
+                app[0].closeJournal();
+                System.exit(0);
+            }
+        }, () -> System.exit(1))); // No window to bill in; open bills stay in the journal for the next start
+    }
+}
\ No newline at end of file
@@ -0,0 +1,187 @@
+package smartbill;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Compact binary bill archives ({@code .sbx}): length-prefixed records that
+ * are read back in place from a memory-mapped file.
+ *
+ * <pre>
+ * file    : magic:int version:int record*
+ * record  : length:int (bytes after it)
+ *           billId:long timestamp:long subtotal:long discountAmount:long taxAmount:long grandTotal:long
+ *           discountBps:int taxBps:int lineCount:int slabCount:short flags:byte (1 = inter-state)
+ *           customerLength:short customer:utf8
+ *           price:long[lineCount] quantity:int[lineCount] total:long[lineCount] nameEnd:int[lineCount]
+ *           slab:(rateBps:int taxable:long tax:long)[slabCount]
+ *           names:utf8 (each ends at its nameEnd, counted from the start of the names)
+ * </pre>
+ *
+ * Lines are columns, so a reader can sum totals or pick one line without
+ * touching the names. {@link #read} walks a file with one reusable
+ * {@link Record} view; nothing is copied until a name or customer is asked for.
+ * Files are mapped whole, so one archive holds up to 2 GB.
+ */
+public final class BinaryBills implements BillExporter {
+
+    private static final int MAGIC = 0x53425831; // "SBX1"
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER = 8;
+    private static final int FIXED = 69;         // Record bytes up to the customer, length included
+    private static final int LINE_BYTES = 8 + 4 + 8 + 4, SLAB_BYTES = 4 + 8 + 8;
+
+    public String name() { return "binary"; }
+    public String description() { return "SmartBill binary archive (*.sbx)"; }
+    public String extension() { return "sbx"; }
+
+    // --- WRITING ---
+
+    public Sink open(WritableByteChannel channel) throws IOException {
+        ExportChannel out = new ExportChannel(channel);
+        out.putInt(MAGIC).putInt(VERSION);
+        return new Sink() {
+            public void write(long billId, BillSnapshot bill) throws IOException {
+                int n = bill.size(), slabs = bill.slabCount();
+                int customerBytes = ExportChannel.utf8Length(bill.customer);
+                if (customerBytes > 0xFFFF) throw new IOException("Customer name too long for the archive");
+                long nameBytes = 0;
+                for (int i = 0; i < n; i++) nameBytes += ExportChannel.utf8Length(bill.name(i));
+                long length = FIXED - 4 + customerBytes + (long) n * LINE_BYTES + (long) slabs * SLAB_BYTES + nameBytes;
+                if (length > Integer.MAX_VALUE) throw new IOException("Bill too large for the archive");
+
+                out.putInt((int) length);
+                out.putLong(billId).putLong(bill.timestamp);
+                out.putLong(bill.subtotal).putLong(bill.discountAmount).putLong(bill.taxAmount).putLong(bill.grandTotal);
+                out.putInt(bill.discountBps).putInt(bill.taxBps).putInt(n).putShort(slabs).putByte(bill.interState ? 1 : 0);
+                out.putShort(customerBytes).text(bill.customer);
+                for (int i = 0; i < n; i++) out.putLong(bill.price(i));
+                for (int i = 0; i < n; i++) out.putInt(bill.quantity(i));
+                for (int i = 0; i < n; i++) out.putLong(bill.total(i));
+                int end = 0;
+                for (int i = 0; i < n; i++) out.putInt(end += ExportChannel.utf8Length(bill.name(i)));
+                for (int i = 0; i < slabs; i++) {
+                    BillSnapshot.Slab s = bill.slab(i);
+                    out.putInt(s.rateBps).putLong(s.taxable).putLong(s.tax);
+                }
+                for (int i = 0; i < n; i++) out.text(bill.name(i));
+            }
+
+            public void close() throws IOException {
+                out.flush();
+            }
+        };
+    }
+
+    // --- READING ---
+
+    /**
+     * Visits every record of an archive through one {@link Record} view,
+     * valid only during the call.
+     * @return the number of bills
+     */
+    public static int read(Path file, Consumer<Record> visitor) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (ch.size() > Integer.MAX_VALUE) throw new IOException("Archive larger than 2 GB: " + file);
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if (map.limit() < FILE_HEADER || map.getInt(0) != MAGIC || map.getInt(4) != VERSION) {
+                throw new IOException("Not a SmartBill archive: " + file);
+            }
+            Record record = new Record(map);
+            int count = 0;
+            for (int pos = FILE_HEADER; pos < map.limit(); pos += 4 + map.getInt(pos)) {
+                if (pos + FIXED > map.limit() || pos + 4 + map.getInt(pos) > map.limit()) {
+                    throw new IOException("Truncated archive after " + count + " bills: " + file);
+                }
+                record.at(pos);
+                visitor.accept(record);
+                count++;
+            }
+            return count;
+        }
+    }
+
+    /** One bill of an archive, read in place. */
+    public static final class Record {
+        private final ByteBuffer map;
+        private int pos, lines, slabs, prices, quantities, totals, nameEnds, slabStart, names;
+
+        private Record(ByteBuffer map) {
+            this.map = map;
+        }
+
+        private void at(int pos) {
+            this.pos = pos;
+            lines = map.getInt(pos + 60);
+            slabs = map.getShort(pos + 64) & 0xFFFF;
+            prices = pos + FIXED + (map.getShort(pos + 67) & 0xFFFF);
+            quantities = prices + lines * 8;
+            totals = quantities + lines * 4;
+            nameEnds = totals + lines * 8;
+            slabStart = nameEnds + lines * 4;
+            names = slabStart + slabs * SLAB_BYTES;
+        }
+
+        public long billId() { return map.getLong(pos + 4); }
+        public long timestamp() { return map.getLong(pos + 12); }
+        public long subtotal() { return map.getLong(pos + 20); }
+        public long discountAmount() { return map.getLong(pos + 28); }
+        public long taxAmount() { return map.getLong(pos + 36); }
+        public long grandTotal() { return map.getLong(pos + 44); }
+        public int discountBps() { return map.getInt(pos + 52); }
+        public int taxBps() { return map.getInt(pos + 56); }
+        public boolean interState() { return (map.get(pos + 66) & 1) != 0; }
+        public int lineCount() { return lines; }
+        public int slabCount() { return slabs; }
+
+        public String customer() {
+            return string(pos + FIXED, prices);
+        }
+
+        public long price(int line) { return map.getLong(prices + line * 8); }
+        public int quantity(int line) { return map.getInt(quantities + line * 4); }
+        public long total(int line) { return map.getLong(totals + line * 8); }
+
+        public String name(int line) {
+            int start = line == 0 ? 0 : map.getInt(nameEnds + (line - 1) * 4);
+            return string(names + start, names + map.getInt(nameEnds + line * 4));
+        }
+
+        public BillSnapshot.Slab slab(int i) {
+            int at = slabStart + i * SLAB_BYTES;
+            return new BillSnapshot.Slab(map.getInt(at), map.getLong(at + 4), map.getLong(at + 12));
+        }
+
+        /** A copy of the bill that outlives the visit. */
+        public BillSnapshot toSnapshot() {
+            String[] n = new String[lines];
+            long[] p = new long[lines], t = new long[lines];
+            int[] q = new int[lines];
+            for (int i = 0; i < lines; i++) {
+                n[i] = name(i);
+                p[i] = price(i);
+                q[i] = quantity(i);
+                t[i] = total(i);
+            }
+            BillSnapshot.Slab[] s = new BillSnapshot.Slab[slabs];
+            for (int i = 0; i < slabs; i++) s[i] = slab(i);
+            return new BillSnapshot(customer(), timestamp(), n, p, q, t, subtotal(),
+                discountBps(), discountAmount(), taxBps(), taxAmount(), interState(), s);
+        }
+
+        private String string(int from, int to) {
+            byte[] b = new byte[to - from];
+            ByteBuffer v = map.duplicate();
+            v.position(from);
+            v.get(b);
+            return new String(b, StandardCharsets.UTF_8);
+        }
+    }
+}
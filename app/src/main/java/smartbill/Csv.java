@@ -0,0 +1,63 @@
+package smartbill;
+
+import java.util.List;
+
+/**
+ * Minimal RFC 4180 style CSV helpers (single-line records).
+ */
+public final class Csv {
+
+    private Csv() {}
+
+    /**
+     * Splits one CSV line into {@code out} (cleared first). Quoted fields may
+     * contain commas and doubled quotes; embedded line breaks are not supported.
+     * @return the number of fields
+     */
+    public static int split(String line, List<String> out) {
+        out.clear();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                out.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        out.add(field.toString());
+        return out.size();
+    }
+
+    /** Appends {@code value} as a CSV field, quoting only when needed. */
+    public static StringBuilder appendField(StringBuilder sb, String value) {
+        boolean needsQuotes = false;
+        for (int i = 0; i < value.length() && !needsQuotes; i++) {
+            char c = value.charAt(i);
+            needsQuotes = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!needsQuotes) return sb.append(value);
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') sb.append('"');
+            sb.append(c);
+        }
+        return sb.append('"');
+    }
+}
@@ -0,0 +1,64 @@
+package smartbill;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import java.awt.*;
+
+/**
+ * The Diagnostics tab: live action latencies, counters and recent EDT
+ * stalls / errors from {@link Metrics}. Refreshes once a second while visible.
+ */
+public class DiagnosticsPanel extends JPanel {
+
+    private static final int REFRESH_MILLIS = 1000;
+
+    private final JTextArea text = new JTextArea();
+    private final JLabel fileLabel = new JLabel();
+
+    public DiagnosticsPanel() {
+        super(new BorderLayout(0, 10));
+        setBorder(new EmptyBorder(20, 20, 20, 20));
+
+        text.setEditable(false);
+        text.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        text.setBackground(new Color(250, 250, 250));
+
+        JButton writeBtn = new JButton("💾 Write Metrics File");
+        writeBtn.addActionListener(e -> writeFile());
+        fileLabel.setText("Also written every minute to " + Metrics.defaultFile() + " and exposed over JMX as smartbill:type=Metrics");
+
+        JPanel bar = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 0));
+        bar.add(writeBtn);
+        bar.add(fileLabel);
+
+        add(bar, BorderLayout.NORTH);
+        add(new JScrollPane(text), BorderLayout.CENTER);
+
+        Timer refresh = new Timer(REFRESH_MILLIS, e -> {
+            if (isShowing()) refresh();
+        });
+        refresh.start();
+        refresh();
+    }
+
+    private void refresh() {
+        Point view = ((JViewport) text.getParent()).getViewPosition();
+        text.setText(Metrics.report());
+        ((JViewport) text.getParent()).setViewPosition(view); // Keep the scroll position across refreshes
+    }
+
+    private void writeFile() {
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() {
+                Metrics.writeReport(Metrics.defaultFile());
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                fileLabel.setText("💾 Written to " + Metrics.defaultFile());
+            }
+        }.execute();
+    }
+}
@@ -0,0 +1,99 @@
+package smartbill;
+
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the event dispatch thread.
+ *
+ * <p>Pushed in front of the system event queue, it times every event the EDT
+ * dispatches ({@code edt.dispatch}). A watchdog thread looks at the event in
+ * flight every {@value #POLL_MILLIS} ms; once one has run longer than
+ * {@value #STALL_MILLIS} ms it takes a single stack snapshot of the EDT, so the
+ * recent-events log shows what the till was busy with while it froze.
+ *
+ * <p>Events that open a modal dialog pump the queue themselves; their own
+ * time is not counted as a stall, only the nested events are.
+ */
+public final class EdtMonitor extends EventQueue {
+
+    static final long STALL_MILLIS = 100;
+    private static final long POLL_MILLIS = 20;
+    private static final int STACK_DEPTH = 25;
+
+    private static final LatencyHistogram DISPATCH = Metrics.timer("edt.dispatch");
+    private static final LatencyHistogram STALL = Metrics.timer("edt.stall");
+
+    // Written on the EDT, read by the watchdog
+    private volatile long dispatchStart;   // nanoTime of the event in flight; 0 when idle
+    private volatile Thread edt;
+    private long reportedStart;            // Watchdog only: the stall already snapshotted
+    private int depth;                     // EDT only: nesting of dispatchEvent (modal loops)
+    private boolean nested;
+
+    private EdtMonitor() {}
+
+    /** Installs the monitor on the system event queue and starts the watchdog. */
+    public static void install() {
+        EdtMonitor monitor = new EdtMonitor();
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(monitor);
+        Thread watchdog = new Thread(monitor::watch, "edt-watchdog");
+        watchdog.setDaemon(true);
+        watchdog.start();
+    }
+
+    @Override
+    protected void dispatchEvent(AWTEvent event) {
+        if (depth > 0) nested = true;
+        long start = System.nanoTime();
+        edt = Thread.currentThread();
+        dispatchStart = start;
+        depth++;
+        boolean wasNested = nested;
+        nested = false;
+        try {
+            super.dispatchEvent(event);
+        } finally {
+            depth--;
+            if (!nested) {
+                long micros = (System.nanoTime() - start) / 1_000;
+                DISPATCH.record(micros);
+                if (micros >= STALL_MILLIS * 1_000) STALL.record(micros);
+            }
+            nested = wasNested;
+            // Back in an outer event's modal loop, which mostly waits for input: not watched
+            dispatchStart = 0;
+        }
+    }
+
+    private void watch() {
+        long stallNanos = TimeUnit.MILLISECONDS.toNanos(STALL_MILLIS);
+        while (true) {
+            try {
+                Thread.sleep(POLL_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            long start = dispatchStart;
+            if (start == 0 || start == reportedStart) continue;
+            long blocked = System.nanoTime() - start;
+            if (blocked < stallNanos) continue;
+            reportedStart = start;
+            Thread thread = edt;
+            if (thread != null) snapshot(thread, blocked);
+        }
+    }
+
+    private static void snapshot(Thread thread, long blockedNanos) {
+        StackTraceElement[] stack = thread.getStackTrace();
+        StringBuilder sb = new StringBuilder(1024);
+        sb.append("EDT STALL ").append(blockedNanos / 1_000_000).append(" ms so far in:");
+        int n = Math.min(stack.length, STACK_DEPTH);
+        for (int i = 0; i < n; i++) sb.append("\n        at ").append(stack[i]);
+        if (stack.length > n) sb.append("\n        ... ").append(stack.length - n).append(" more");
+        Metrics.count(Metrics.EDT_STALLS);
+        Metrics.event(sb.toString());
+    }
+}
@@ -0,0 +1,215 @@
+package smartbill;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * A reusable byte buffer that receipts are rendered into as ESC/POS commands.
+ *
+ * <p>Text is written as single bytes: printable ASCII goes through unchanged
+ * and anything else becomes {@code '?'}, since thermal printers only know their
+ * own code page. Amounts are written digit by digit without building strings.
+ * {@link #reset()} keeps the array, so rendering one receipt after another
+ * settles at zero allocation.
+ */
+public final class EscPos {
+
+    public static final int LEFT = 0, CENTER = 1, RIGHT = 2;
+
+    private static final byte ESC = 0x1B, GS = 0x1D, LF = 0x0A;
+
+    private byte[] buf;
+    private int size;
+    private final StringBuilder line = new StringBuilder(96); // Scratch for composing one row
+
+    // --- Printer State (only changes are emitted) ---
+    private int align = -1;
+    private boolean bold, large;
+
+    public EscPos() {
+        this(4096);
+    }
+
+    public EscPos(int capacity) {
+        buf = new byte[capacity];
+    }
+
+    /** Empties the buffer and starts it with ESC @ (printer reset). */
+    public EscPos reset() {
+        size = 0;
+        align = LEFT;
+        bold = large = false;
+        return raw(ESC, '@');
+    }
+
+    // --- COMMANDS ---
+
+    public EscPos align(int mode) {
+        if (mode != align) {
+            raw(ESC, 'a', mode);
+            align = mode;
+        }
+        return this;
+    }
+
+    public EscPos bold(boolean on) {
+        if (on != bold) {
+            raw(ESC, 'E', on ? 1 : 0);
+            bold = on;
+        }
+        return this;
+    }
+
+    /** Double width and height (GS !), which halves the characters per line. */
+    public EscPos large(boolean on) {
+        if (on != large) {
+            raw(GS, '!', on ? 0x11 : 0);
+            large = on;
+        }
+        return this;
+    }
+
+    public EscPos newline() {
+        return raw(LF);
+    }
+
+    /** Prints the buffer and feeds {@code lines} blank lines (ESC d). */
+    public EscPos feed(int lines) {
+        return raw(ESC, 'd', Math.max(0, Math.min(255, lines)));
+    }
+
+    /** Feeds to the cutter and makes a partial cut (GS V 66). */
+    public EscPos cut() {
+        return raw(GS, 'V', 66, 0);
+    }
+
+    /** Pulses drawer kick pin 2 (ESC p 0), which opens a cash drawer wired to the printer. */
+    public EscPos openDrawer() {
+        return raw(ESC, 'p', 0, 25, 250);
+    }
+
+    // --- TEXT ---
+
+    public EscPos text(CharSequence s) {
+        return text(s, 0, s.length());
+    }
+
+    public EscPos text(CharSequence s, int from, int to) {
+        ensure(to - from);
+        for (int i = from; i < to; i++) buf[size++] = ascii(s.charAt(i));
+        return this;
+    }
+
+    public EscPos repeat(char c, int count) {
+        if (count <= 0) return this;
+        ensure(count);
+        Arrays.fill(buf, size, size + count, ascii(c));
+        size += count;
+        return this;
+    }
+
+    /** Bytes copied as they are (pre-encoded template text). */
+    public EscPos bytes(byte[] b, int from, int to) {
+        ensure(to - from);
+        System.arraycopy(b, from, buf, size, to - from);
+        size += to - from;
+        return this;
+    }
+
+    /** An amount as {@link Money#format} would write it ("1,234.50"). */
+    public EscPos amount(long paise) {
+        int len = Money.formattedLength(paise);
+        ensure(len);
+        int pos = size + len;
+        long neg = paise < 0 ? paise : -paise; // Same digit walk as Money, safe for Long.MIN_VALUE
+        int fraction = (int) -(neg % Money.PAISE_PER_RUPEE);
+        long rupees = neg / Money.PAISE_PER_RUPEE;
+        buf[--pos] = (byte) ('0' + fraction % 10);
+        buf[--pos] = (byte) ('0' + fraction / 10);
+        buf[--pos] = '.';
+        int digits = 0;
+        do {
+            if (digits > 0 && digits % 3 == 0) buf[--pos] = ',';
+            buf[--pos] = (byte) ('0' - rupees % 10);
+            rupees /= 10;
+            digits++;
+        } while (rupees != 0);
+        if (paise < 0) buf[--pos] = '-';
+        size += len;
+        return this;
+    }
+
+    public EscPos number(int n) {
+        if (n < 0) {
+            raw('-');
+            n = -n; // Quantities and counts; never Integer.MIN_VALUE
+        }
+        int len = digits(n);
+        ensure(len);
+        for (int pos = size + len - 1; pos >= size; pos--, n /= 10) buf[pos] = (byte) ('0' + n % 10);
+        size += len;
+        return this;
+    }
+
+    static int digits(int n) {
+        int len = 1;
+        while (n >= 10) {
+            n /= 10;
+            len++;
+        }
+        return len;
+    }
+
+    static byte ascii(char c) {
+        return (c >= 0x20 && c < 0x7F) ? (byte) c : (byte) '?';
+    }
+
+    /** A scratch builder that renderers compose rows in before writing them. */
+    StringBuilder line() { return line; }
+
+    // --- OUTPUT ---
+
+    public int size() { return size; }
+
+    /** The rendered bytes, exactly {@link #size()} long (a copy, e.g. for a print job). */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buf, size);
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buf, 0, size);
+    }
+
+    private EscPos raw(int a, int b) {
+        ensure(2);
+        buf[size++] = (byte) a;
+        buf[size++] = (byte) b;
+        return this;
+    }
+
+    private EscPos raw(int a, int b, int c) {
+        raw(a, b);
+        return raw(c);
+    }
+
+    private EscPos raw(int a, int b, int c, int d) {
+        raw(a, b);
+        return raw(c, d);
+    }
+
+    private EscPos raw(int a, int b, int c, int d, int e) {
+        raw(a, b, c);
+        return raw(d, e);
+    }
+
+    private EscPos raw(int a) {
+        ensure(1);
+        buf[size++] = (byte) a;
+        return this;
+    }
+
+    private void ensure(int more) {
+        if (size + more > buf.length) buf = Arrays.copyOf(buf, Math.max(size + more, buf.length * 2));
+    }
+}
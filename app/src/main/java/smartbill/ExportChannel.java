@@ -0,0 +1,113 @@
+package smartbill;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The bounded write buffer behind the exporters. Text is encoded to UTF-8
+ * straight into one direct buffer and numbers are put in place; the buffer is
+ * drained to the channel whenever it fills, so an export of any size needs
+ * this one buffer and nothing else.
+ */
+final class ExportChannel {
+
+    static final int DEFAULT_CAPACITY = 64 * 1024;
+
+    private final WritableByteChannel out;
+    private final ByteBuffer buf;
+    private final CharsetEncoder utf8 = StandardCharsets.UTF_8.newEncoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)       // A lone surrogate becomes '?'
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private long drained;
+
+    ExportChannel(WritableByteChannel out) {
+        this(out, DEFAULT_CAPACITY);
+    }
+
+    ExportChannel(WritableByteChannel out, int capacity) {
+        this.out = out;
+        buf = ByteBuffer.allocateDirect(capacity);
+    }
+
+    // --- TEXT ---
+
+    ExportChannel text(CharSequence s) throws IOException {
+        CharBuffer in = CharBuffer.wrap(s);
+        utf8.reset();
+        CoderResult r;
+        while ((r = utf8.encode(in, buf, true)).isOverflow()) drain();
+        while (utf8.flush(buf).isOverflow()) drain();
+        if (r.isError()) r.throwException();
+        return this;
+    }
+
+    /** Bytes {@link #text} writes for {@code s}, counted without encoding it. */
+    static int utf8Length(String s) {
+        int n = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) n++;
+            else if (c < 0x800) n += 2;
+            else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                n += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) n++; // Replaced by '?'
+            else n += 3;
+        }
+        return n;
+    }
+
+    // --- BINARY ---
+
+    ExportChannel putByte(int v) throws IOException {
+        ensure(1);
+        buf.put((byte) v);
+        return this;
+    }
+
+    ExportChannel putShort(int v) throws IOException {
+        ensure(2);
+        buf.putShort((short) v);
+        return this;
+    }
+
+    ExportChannel putInt(int v) throws IOException {
+        ensure(4);
+        buf.putInt(v);
+        return this;
+    }
+
+    ExportChannel putLong(long v) throws IOException {
+        ensure(8);
+        buf.putLong(v);
+        return this;
+    }
+
+    // --- OUTPUT ---
+
+    /** Bytes written so far, including those still buffered. */
+    long size() {
+        return drained + buf.position();
+    }
+
+    /** Writes out what is buffered. */
+    void flush() throws IOException {
+        drain();
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buf.remaining() < bytes) drain();
+    }
+
+    private void drain() throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) drained += out.write(buf);
+        buf.clear();
+    }
+}
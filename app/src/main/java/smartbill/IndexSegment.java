@@ -0,0 +1,322 @@
+package smartbill;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * One immutable run of an {@link InvoiceIndex}: a sorted term dictionary with
+ * compressed postings for a contiguous range of documents, served from a
+ * memory-mapped file.
+ *
+ * <pre>
+ * header   : magic:int version:int firstDoc:int docCount:int termCount:int termBytes:int postingBytes:int reserved:int
+ * columns  : termOffset:int[termCount + 1] postingOffset:int[termCount + 1] docFreq:int[termCount]
+ * blobs    : terms:byte[termBytes] postings:byte[postingBytes]
+ * </pre>
+ *
+ * Terms are UTF-8 compared as unsigned bytes, so all terms sharing a prefix
+ * are one contiguous run. A posting list is its ascending doc ids written as
+ * gaps of 7 bits a byte, the first relative to {@code firstDoc}; a busy
+ * customer's or item's bills lie close together, so most gaps take one byte.
+ */
+final class IndexSegment {
+
+    private static final int MAGIC = 0x53424931; // "SBI1"
+    private static final int VERSION = 1;
+    private static final int HEADER = 32;
+
+    final Path file;
+    final int firstDoc, docCount;
+    private final int termCount;
+    private final IntBuffer termOffsets, postingOffsets, docFreqs;
+    private final ByteBuffer terms, postings;
+
+    private IndexSegment(Path file, ByteBuffer map) throws IOException {
+        if (map.limit() < HEADER || map.getInt(0) != MAGIC || map.getInt(4) != VERSION) {
+            throw new IOException("Not a SmartBill index segment: " + file);
+        }
+        this.file = file;
+        firstDoc = map.getInt(8);
+        docCount = map.getInt(12);
+        termCount = map.getInt(16);
+        int termBytes = map.getInt(20), postingBytes = map.getInt(24);
+
+        int pos = HEADER;
+        termOffsets = view(map, pos, (termCount + 1) * 4).asIntBuffer();    pos += (termCount + 1) * 4;
+        postingOffsets = view(map, pos, (termCount + 1) * 4).asIntBuffer(); pos += (termCount + 1) * 4;
+        docFreqs = view(map, pos, termCount * 4).asIntBuffer();             pos += termCount * 4;
+        terms = view(map, pos, termBytes);                                  pos += termBytes;
+        postings = view(map, pos, postingBytes);
+    }
+
+    private static ByteBuffer view(ByteBuffer map, int pos, int len) {
+        ByteBuffer b = map.duplicate();
+        b.limit(pos + len).position(pos);
+        return b.slice();
+    }
+
+    static IndexSegment open(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            return new IndexSegment(file, map);
+        }
+    }
+
+    /** Whether any of this segment's documents lie in {@code [lo, hi)}. */
+    boolean overlaps(int lo, int hi) {
+        return firstDoc < hi && firstDoc + docCount > lo;
+    }
+
+    // --- TERMS ---
+
+    int termCount() { return termCount; }
+    int docFreq(int t) { return docFreqs.get(t); }
+
+    byte[] term(int t) {
+        int start = termOffsets.get(t);
+        byte[] b = new byte[termOffsets.get(t + 1) - start];
+        ByteBuffer v = terms.duplicate();
+        v.position(start);
+        v.get(b);
+        return b;
+    }
+
+    /** @return the term's number, or -1 if the segment does not contain it */
+    int find(byte[] key) {
+        int t = lowerBound(key);
+        return t < termCount && compare(t, key, false) == 0 ? t : -1;
+    }
+
+    /** The first term that is not less than {@code key} ({@link #termCount()} if none). */
+    int lowerBound(byte[] key) {
+        int lo = 0, hi = termCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(mid, key, false) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    boolean startsWith(int t, byte[] prefix) {
+        return compare(t, prefix, true) == 0;
+    }
+
+    /** Compares a term with {@code key}; with {@code prefixOnly} a term that starts with key counts as equal. */
+    private int compare(int t, byte[] key, boolean prefixOnly) {
+        int start = termOffsets.get(t), len = termOffsets.get(t + 1) - start;
+        int n = Math.min(len, key.length);
+        for (int i = 0; i < n; i++) {
+            int a = terms.get(start + i) & 0xFF, b = key[i] & 0xFF;
+            if (a != b) return a - b;
+        }
+        if (len < key.length) return -1;
+        return prefixOnly ? 0 : len - key.length;
+    }
+
+    static int compareBytes(byte[] x, byte[] y) {
+        int n = Math.min(x.length, y.length);
+        for (int i = 0; i < n; i++) {
+            int a = x[i] & 0xFF, b = y[i] & 0xFF;
+            if (a != b) return a - b;
+        }
+        return x.length - y.length;
+    }
+
+    // --- POSTINGS ---
+
+    /** Visits the documents of term {@code t} in ascending order. */
+    void forEach(int t, IntConsumer docs) {
+        int pos = postingOffsets.get(t), end = postingOffsets.get(t + 1);
+        int doc = firstDoc;
+        while (pos < end) {
+            int gap = 0, shift = 0, b;
+            do {
+                b = postings.get(pos++);
+                gap |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            doc += gap;
+            docs.accept(doc);
+        }
+    }
+
+    /** Sets bit {@code doc - lo} for each document of term {@code t} in {@code [lo, hi)}. */
+    void mark(int t, BitSet bits, int lo, int hi) {
+        int pos = postingOffsets.get(t), end = postingOffsets.get(t + 1);
+        int doc = firstDoc;
+        while (pos < end) {
+            int gap = 0, shift = 0, b;
+            do {
+                b = postings.get(pos++);
+                gap |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            doc += gap;
+            if (doc >= hi) return;
+            if (doc >= lo) bits.set(doc - lo);
+        }
+    }
+
+    /** The first (oldest) document of term {@code t}, without decoding the rest. */
+    int firstDoc(int t) {
+        int pos = postingOffsets.get(t), gap = 0, shift = 0, b;
+        do {
+            b = postings.get(pos++);
+            gap |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return firstDoc + gap;
+    }
+
+    // --- WRITING ---
+
+    /**
+     * Builds a segment file from terms added in ascending byte order. Postings
+     * are spooled to a scratch file, so only the term dictionary is held in memory.
+     */
+    static final class Writer implements AutoCloseable {
+        private final Path file, spool;
+        private final int firstDoc, docCount;
+        private final DataOutputStream postingOut;
+        private final List<byte[]> termList = new ArrayList<>();
+        private int[] postingEnds = new int[1024], freqs = new int[1024];
+        private int postingBytes, termBytes;
+        private byte[] previous;
+        private final byte[] gapBuf = new byte[5];
+        private boolean spoolClosed;
+
+        Writer(Path file, int firstDoc, int docCount) throws IOException {
+            this.file = file;
+            this.firstDoc = firstDoc;
+            this.docCount = docCount;
+            spool = file.resolveSibling(file.getFileName() + ".postings.tmp");
+            postingOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(spool), 1 << 16));
+        }
+
+        /** Adds a term with {@code count} ascending documents from {@code docs}. */
+        void add(byte[] term, int[] docs, int count) throws IOException {
+            if (previous != null && compareBytes(previous, term) >= 0) throw new IllegalArgumentException("Terms out of order");
+            int n = termList.size();
+            if (n == postingEnds.length) {
+                postingEnds = Arrays.copyOf(postingEnds, n * 2);
+                freqs = Arrays.copyOf(freqs, n * 2);
+            }
+            int prev = firstDoc;
+            for (int i = 0; i < count; i++) {
+                int gap = docs[i] - prev, len = 0;
+                prev = docs[i];
+                while ((gap & ~0x7F) != 0) {
+                    gapBuf[len++] = (byte) (gap | 0x80);
+                    gap >>>= 7;
+                }
+                gapBuf[len++] = (byte) gap;
+                postingOut.write(gapBuf, 0, len);
+                postingBytes += len;
+            }
+            if (postingBytes < 0) throw new IOException("Index segment too large");
+            termList.add(term);
+            termBytes += term.length;
+            postingEnds[n] = postingBytes;
+            freqs[n] = count;
+            previous = term;
+        }
+
+        /** Writes the segment and opens it. */
+        IndexSegment finish() throws IOException {
+            closeSpool();
+            int n = termList.size();
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (OutputStream os = Files.newOutputStream(tmp);
+                 DataOutputStream data = new DataOutputStream(new BufferedOutputStream(os, 1 << 16))) {
+                data.writeInt(MAGIC);
+                data.writeInt(VERSION);
+                data.writeInt(firstDoc);
+                data.writeInt(docCount);
+                data.writeInt(n);
+                data.writeInt(termBytes);
+                data.writeInt(postingBytes);
+                data.writeInt(0);
+                int offset = 0;
+                for (byte[] t : termList) {
+                    data.writeInt(offset);
+                    offset += t.length;
+                }
+                data.writeInt(offset);
+                data.writeInt(0);
+                for (int i = 0; i < n; i++) data.writeInt(postingEnds[i]);
+                for (int i = 0; i < n; i++) data.writeInt(freqs[i]);
+                for (byte[] t : termList) data.write(t);
+                Files.copy(spool, data);
+            }
+            Files.delete(spool);
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                ch.force(true); // Durable before the index metadata refers to it
+            }
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+            return open(file);
+        }
+
+        @Override
+        public void close() throws IOException {
+            closeSpool();
+            Files.deleteIfExists(spool);
+        }
+
+        private void closeSpool() throws IOException {
+            if (!spoolClosed) postingOut.close();
+            spoolClosed = true;
+        }
+    }
+
+    /**
+     * Merges adjacent segments (ascending, contiguous documents) into one:
+     * a k-way walk over the sorted dictionaries, concatenating each term's postings.
+     */
+    static IndexSegment merge(List<IndexSegment> parts, Path file) throws IOException {
+        int k = parts.size();
+        IndexSegment first = parts.get(0), last = parts.get(k - 1);
+        int[] cursor = new int[k];
+        byte[][] current = new byte[k][];
+        for (int i = 0; i < k; i++) current[i] = parts.get(i).termCount > 0 ? parts.get(i).term(0) : null;
+        int[][] docs = {new int[256]};
+        int[] count = {0};
+        IntConsumer collect = doc -> {
+            if (count[0] == docs[0].length) docs[0] = Arrays.copyOf(docs[0], count[0] * 2);
+            docs[0][count[0]++] = doc;
+        };
+        try (Writer w = new Writer(file, first.firstDoc, last.firstDoc + last.docCount - first.firstDoc)) {
+            while (true) {
+                byte[] min = null;
+                for (int i = 0; i < k; i++) {
+                    if (current[i] != null && (min == null || compareBytes(current[i], min) < 0)) min = current[i];
+                }
+                if (min == null) return w.finish();
+                count[0] = 0;
+                for (int i = 0; i < k; i++) { // In segment order, so documents stay ascending
+                    if (current[i] == null || compareBytes(current[i], min) != 0) continue;
+                    IndexSegment s = parts.get(i);
+                    s.forEach(cursor[i], collect);
+                    cursor[i]++;
+                    current[i] = cursor[i] < s.termCount ? s.term(cursor[i]) : null;
+                }
+                w.add(min, docs[0], count[0]);
+            }
+        }
+    }
+}
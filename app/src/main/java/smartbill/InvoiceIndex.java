@@ -0,0 +1,574 @@
+package smartbill;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * On-disk search index over committed invoices, by customer name, item and date.
+ *
+ * <p>Every bill committed to the {@link InvoiceJournal} becomes a document,
+ * numbered in commit order. Its fixed-size entry in {@code docs.bin} (bill id,
+ * dates, grand total and where the bill lies in the journal) is written as
+ * soon as it is indexed; its terms go to an in-memory buffer that is written
+ * out as an immutable {@link IndexSegment} every {@value #FLUSH_DOCS} bills.
+ * Trailing segments of similar size are merged {@value #MERGE_FACTOR} at a
+ * time, so a store with millions of bills is searched through a handful of
+ * files. Dates need no postings: documents are in commit order, so a date
+ * range is a binary search over {@code docs.bin}.
+ *
+ * <p>{@link #refresh()} indexes whatever the journal gained since the last
+ * call and is cheap enough to run after every bill. Only {@code index.meta}
+ * (replaced atomically) says which segments and documents are complete; a
+ * crash loses at most the buffered bills, which the next refresh re-reads from
+ * the journal. The index holds no bill contents of its own: customers and
+ * lines are read back from the journal when a result is shown.
+ */
+public final class InvoiceIndex implements Closeable {
+
+    private static final int FLUSH_DOCS = 1000;                // Buffered bills per new segment
+    private static final int MAX_BUFFERED_POSTINGS = 2_000_000; // Flush early when catching up
+    private static final int MERGE_FACTOR = 8;
+    private static final int MAX_SEGMENT_DOCS = 1 << 22;
+    private static final int META_MAGIC = 0x53424D31;          // "SBM1"
+    private static final int DOC_BYTES = 40; // billId, timestamp, orderTs, grandTotal, journal location
+    private static final int INITIAL_DOC_CAPACITY = 1 << 16;
+    private static final int MAX_MAPPED_SEGMENTS = 16;         // Journal segments kept mapped for reading
+
+    private static final char CUSTOMER = 'c', ITEM = 'i', NAME = 'n';
+
+    private final Path dir, journalDir;
+    private final Object writer = new Object(); // Serialises refresh, flush and merge
+
+    // --- Guarded by this ---
+    private final List<IndexSegment> segments = new ArrayList<>();
+    private Buffer buffer;          // Bills indexed since the last flush
+    private Buffer flushing;        // Being written out; still searched meanwhile
+    private final FileChannel docsChannel;
+    private MappedByteBuffer docs;
+    private int docCount;
+
+    // --- Guarded by writer ---
+    private long mark;              // Journal location just past the last indexed record
+    private long lastOrderTs;
+    private int nextSegment;
+
+    private final Map<Long, ByteBuffer> journalMaps = new LinkedHashMap<Long, ByteBuffer>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, ByteBuffer> eldest) {
+            return size() > MAX_MAPPED_SEGMENTS;
+        }
+    };
+
+    /** Terms of the bills not yet in a segment, searched like one. */
+    private static final class Buffer {
+        final int firstDoc;
+        int docCount, postings;
+        final TreeMap<String, Ints> terms = new TreeMap<>();
+
+        Buffer(int firstDoc) {
+            this.firstDoc = firstDoc;
+        }
+    }
+
+    /** A growable list of ascending doc ids. */
+    private static final class Ints {
+        int[] a = new int[4];
+        int size;
+
+        void add(int v) {
+            if (size > 0 && a[size - 1] == v) return; // A term repeated within one bill
+            if (size == a.length) a = Arrays.copyOf(a, size * 2);
+            a[size++] = v;
+        }
+    }
+
+    private InvoiceIndex(Path dir, Path journalDir) throws IOException {
+        this.dir = dir;
+        this.journalDir = journalDir;
+        Files.createDirectories(dir);
+        Set<String> live = new HashSet<>();
+        if (!readMeta(live)) {
+            // No index yet, or one we cannot trust: it is all derived, so start over
+            live.clear();
+            segments.clear();
+            docCount = 0;
+            mark = 0;
+        }
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir)) {
+            for (Path p : ds) {
+                String name = p.getFileName().toString();
+                if ((name.endsWith(".idx") || name.endsWith(".tmp")) && !live.contains(name)) Files.delete(p);
+            }
+        }
+        docsChannel = FileChannel.open(dir.resolve("docs.bin"),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        docs = docsChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+            (long) Math.max(INITIAL_DOC_CAPACITY, Integer.highestOneBit(Math.max(1, docCount)) * 2) * DOC_BYTES);
+        lastOrderTs = docCount > 0 ? orderTs(docCount - 1) : Long.MIN_VALUE;
+        buffer = new Buffer(docCount);
+    }
+
+    /** Opens (or creates) the index in {@code dir} over the journal in {@code journalDir}. */
+    public static InvoiceIndex open(Path dir, Path journalDir) throws IOException {
+        return new InvoiceIndex(dir, journalDir);
+    }
+
+    /** Default location: {@code index/} under {@link AppPaths#home()}. */
+    public static Path defaultPath() {
+        return AppPaths.resolve("index");
+    }
+
+    // --- METADATA ---
+
+    /** Loads {@code index.meta} and its segments; false if there is nothing usable. */
+    private boolean readMeta(Set<String> live) {
+        Path meta = dir.resolve("index.meta");
+        if (!Files.exists(meta)) return false;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(meta)))) {
+            if (in.readInt() != META_MAGIC) return false;
+            docCount = in.readInt();
+            mark = in.readLong();
+            nextSegment = in.readInt();
+            int n = in.readInt();
+            int expect = 0;
+            for (int i = 0; i < n; i++) {
+                String name = in.readUTF();
+                live.add(name);
+                IndexSegment s = IndexSegment.open(dir.resolve(name));
+                if (s.firstDoc != expect) return false;
+                expect += s.docCount;
+                segments.add(s);
+            }
+            return expect == docCount;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /** Records the segments as the complete index, up to journal location {@code upTo}. */
+    private void writeMeta(long upTo) throws IOException {
+        Path meta = dir.resolve("index.meta");
+        Path tmp = dir.resolve("index.meta.tmp");
+        docs.force(); // The entries the metadata vouches for must be on disk first
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            synchronized (this) {
+                IndexSegment last = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+                out.writeInt(META_MAGIC);
+                out.writeInt(last == null ? 0 : last.firstDoc + last.docCount);
+                out.writeLong(upTo);
+                out.writeInt(nextSegment);
+                out.writeInt(segments.size());
+                for (IndexSegment s : segments) out.writeUTF(s.file.getFileName().toString());
+            }
+        }
+        Files.move(tmp, meta, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // --- INDEXING ---
+
+    /**
+     * Indexes the bills committed to the journal since the last refresh.
+     * Call from one background thread; searches carry on meanwhile.
+     * @return the number of bills added
+     */
+    public int refresh() throws IOException {
+        synchronized (writer) {
+            int[] added = {0};
+            long[] scanned = {mark};
+            try {
+                mark = InvoiceJournal.scanFrom(journalDir, mark, (location, type, billId, timestamp, payload) -> {
+                    scanned[0] = InvoiceJournal.nextLocation(location, payload);
+                    if (type != InvoiceJournal.BILL_COMMITTED) return;
+                    add(billId, location, payload);
+                    added[0]++;
+                    if (buffer.postings >= MAX_BUFFERED_POSTINGS) {
+                        try {
+                            flush(scanned[0]);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            if (buffer.docCount >= FLUSH_DOCS) flush(mark);
+            return added[0];
+        }
+    }
+
+    private void add(long billId, long location, ByteBuffer payload) {
+        String customer = InvoiceJournal.readCustomer(payload);
+        BillSnapshot bill = InvoiceJournal.readCommittedBill(payload.duplicate());
+        long orderTs = Math.max(lastOrderTs, bill.timestamp); // Keeps dates searchable by bisection
+        lastOrderTs = orderTs;
+
+        List<String> tokens = new ArrayList<>();
+        synchronized (this) {
+            int doc = docCount;
+            if ((long) (doc + 1) * DOC_BYTES > docs.capacity()) growDocs();
+            int at = doc * DOC_BYTES;
+            docs.putLong(at, billId);
+            docs.putLong(at + 8, bill.timestamp);
+            docs.putLong(at + 16, orderTs);
+            docs.putLong(at + 24, bill.grandTotal);
+            docs.putLong(at + 32, location);
+
+            tokenize(customer, tokens);
+            for (String t : tokens) post(CUSTOMER + t, doc);
+            if (!tokens.isEmpty()) post(NAME + String.join(" ", tokens), doc);
+            for (int i = 0; i < bill.size(); i++) {
+                tokenize(bill.name(i), tokens);
+                for (String t : tokens) post(ITEM + t, doc);
+            }
+            buffer.docCount++;
+            docCount++;
+        }
+    }
+
+    private void post(String term, int doc) {
+        Ints list = buffer.terms.get(term);
+        if (list == null) buffer.terms.put(term, list = new Ints());
+        int before = list.size;
+        list.add(doc);
+        buffer.postings += list.size - before;
+    }
+
+    private void growDocs() {
+        try {
+            docs.force();
+            docs = docsChannel.map(FileChannel.MapMode.READ_WRITE, 0, (long) docs.capacity() * 2);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Writes the buffered bills out as a segment, recording the journal as indexed up to {@code upTo}. */
+    private void flush(long upTo) throws IOException {
+        Buffer b;
+        synchronized (this) {
+            b = buffer;
+            if (b.docCount == 0) return;
+            flushing = b;
+            buffer = new Buffer(b.firstDoc + b.docCount);
+        }
+        List<byte[]> keys = new ArrayList<>(b.terms.size());
+        List<Ints> values = new ArrayList<>(b.terms.size());
+        for (Map.Entry<String, Ints> e : b.terms.entrySet()) {
+            keys.add(e.getKey().getBytes(StandardCharsets.UTF_8));
+            values.add(e.getValue());
+        }
+        Integer[] order = new Integer[keys.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (x, y) -> IndexSegment.compareBytes(keys.get(x), keys.get(y))); // UTF-8, not UTF-16, order
+
+        IndexSegment segment;
+        try (IndexSegment.Writer w = new IndexSegment.Writer(segmentFile(nextSegment++), b.firstDoc, b.docCount)) {
+            for (Integer i : order) w.add(keys.get(i), values.get(i).a, values.get(i).size);
+            segment = w.finish();
+        }
+        synchronized (this) {
+            segments.add(segment);
+            flushing = null;
+        }
+        writeMeta(upTo);
+        merge(upTo);
+    }
+
+    /** Merges trailing segments of one size tier while there are {@value #MERGE_FACTOR} of them. */
+    private void merge(long upTo) throws IOException {
+        while (true) {
+            List<IndexSegment> parts;
+            synchronized (this) {
+                int n = segments.size();
+                if (n < MERGE_FACTOR) return;
+                parts = new ArrayList<>(segments.subList(n - MERGE_FACTOR, n));
+            }
+            int tier = tier(parts.get(0).docCount), docsTotal = 0;
+            for (IndexSegment s : parts) {
+                if (tier(s.docCount) != tier) return;
+                docsTotal += s.docCount;
+            }
+            if (docsTotal > MAX_SEGMENT_DOCS) return;
+
+            IndexSegment merged = IndexSegment.merge(parts, segmentFile(nextSegment++));
+            synchronized (this) {
+                segments.subList(segments.size() - MERGE_FACTOR, segments.size()).clear();
+                segments.add(merged);
+            }
+            writeMeta(upTo);
+            for (IndexSegment s : parts) {
+                try {
+                    Files.delete(s.file);
+                } catch (IOException e) {
+                    // Still mapped on some platforms; removed as a stray on the next open
+                }
+            }
+        }
+    }
+
+    private static int tier(int docs) {
+        int tier = 0;
+        for (int d = docs / FLUSH_DOCS; d >= MERGE_FACTOR; d /= MERGE_FACTOR) tier++;
+        return tier;
+    }
+
+    private Path segmentFile(int n) {
+        return dir.resolve(String.format("postings-%08d.idx", n));
+    }
+
+    /** Lower-cased letter/digit runs of {@code text}, the unit both indexing and queries work in. */
+    static void tokenize(String text, List<String> out) {
+        out.clear();
+        if (text == null) return;
+        String s = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= s.length(); i++) {
+            boolean word = i < s.length() && Character.isLetterOrDigit(s.charAt(i));
+            if (word && start < 0) start = i;
+            else if (!word && start >= 0) {
+                out.add(s.substring(start, i));
+                start = -1;
+            }
+        }
+    }
+
+    // --- SEARCH ---
+
+    /** Number of bills indexed so far. */
+    public synchronized int size() {
+        return docCount;
+    }
+
+    /**
+     * Finds bills whose customer and items contain the given words and whose
+     * date is within {@code [from, to]}; blank criteria match every bill. The
+     * last word of each criterion may be partly typed.
+     * @return the number of documents written to {@code out}, newest first
+     */
+    public synchronized int search(String customer, String item, long from, long to, int[] out) {
+        int lo = firstOrderedAtOrAfter(from);
+        int hi = to == Long.MAX_VALUE ? docCount : firstOrderedAtOrAfter(to + 1);
+        if (lo >= hi || out.length == 0) return 0;
+
+        List<String> clauses = new ArrayList<>(), words = new ArrayList<>();
+        int prefixes = 0; // Bit i: clause i may be partly typed
+        for (int field = 0; field < 2; field++) {
+            tokenize(field == 0 ? customer : item, words);
+            for (int i = 0; i < words.size(); i++) {
+                if (i == words.size() - 1 && clauses.size() < 32) prefixes |= 1 << clauses.size();
+                clauses.add((field == 0 ? CUSTOMER : ITEM) + words.get(i));
+            }
+        }
+
+        // Segments (and buffers) partition the documents, so each is matched on its own,
+        // newest first, until enough hits are found
+        int n = 0;
+        for (int end = hi; end > lo && n < out.length; ) {
+            int start = Math.max(lo, windowStart(end - 1));
+            BitSet hits = null;
+            for (int c = 0; c < clauses.size(); c++) {
+                BitSet bits = new BitSet(end - start);
+                match(clauses.get(c), (prefixes & 1 << c) != 0, bits, start, end);
+                if (hits == null) hits = bits;
+                else hits.and(bits);
+                if (hits.isEmpty()) break;
+            }
+            if (hits == null) {
+                hits = new BitSet(end - start);
+                hits.set(0, end - start);
+            }
+            for (int i = hits.previousSetBit(end - start - 1); i >= 0 && n < out.length; i = hits.previousSetBit(i - 1)) {
+                long ts = timestamp(start + i);
+                if (ts >= from && ts <= to) out[n++] = start + i; // Exact, should the clock have stepped back
+            }
+            end = start;
+        }
+        return n;
+    }
+
+    /** The first document of the segment or buffer holding {@code doc}. */
+    private int windowStart(int doc) {
+        for (Buffer b : buffers()) {
+            if (doc >= b.firstDoc) return b.firstDoc;
+        }
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            if (doc >= segments.get(i).firstDoc) return segments.get(i).firstDoc;
+        }
+        return 0;
+    }
+
+    /** Marks the documents in {@code [lo, hi)} carrying {@code term} (or any term it begins). */
+    private void match(String term, boolean prefix, BitSet bits, int lo, int hi) {
+        byte[] key = term.getBytes(StandardCharsets.UTF_8);
+        for (IndexSegment s : segments) {
+            if (!s.overlaps(lo, hi)) continue;
+            if (!prefix) {
+                int t = s.find(key);
+                if (t >= 0) s.mark(t, bits, lo, hi);
+            } else {
+                for (int t = s.lowerBound(key); t < s.termCount() && s.startsWith(t, key); t++) s.mark(t, bits, lo, hi);
+            }
+        }
+        for (Buffer b : buffers()) {
+            for (Map.Entry<String, Ints> e : b.terms.tailMap(term).entrySet()) {
+                if (prefix ? !e.getKey().startsWith(term) : !e.getKey().equals(term)) break;
+                Ints list = e.getValue();
+                for (int i = 0; i < list.size; i++) {
+                    if (list.a[i] >= lo && list.a[i] < hi) bits.set(list.a[i] - lo);
+                }
+            }
+        }
+    }
+
+    /** The buffered bills, newest first. */
+    private List<Buffer> buffers() {
+        return flushing == null ? Arrays.asList(buffer) : Arrays.asList(buffer, flushing);
+    }
+
+    private int firstOrderedAtOrAfter(long ts) {
+        int lo = 0, hi = docCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (orderTs(mid) < ts) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Customer names starting with {@code prefix} (whole words, any case), in
+     * name order, each spelt as on one of its recent bills; for autocompletion.
+     */
+    public void suggestCustomers(String prefix, int limit, List<String> out) {
+        out.clear();
+        List<String> words = new ArrayList<>();
+        tokenize(prefix, words);
+        if (words.isEmpty() || limit <= 0) return;
+        String term = NAME + String.join(" ", words);
+        byte[] key = term.getBytes(StandardCharsets.UTF_8);
+
+        // Each source lists its matches in order, so the first `limit` of each cover the overall first `limit`
+        TreeMap<String, Integer> names = new TreeMap<>(); // term -> a doc, from the newest source that has it
+        synchronized (this) {
+            for (Buffer b : buffers()) {
+                int taken = 0;
+                for (Map.Entry<String, Ints> e : b.terms.tailMap(term).entrySet()) {
+                    if (!e.getKey().startsWith(term) || taken++ >= limit) break;
+                    names.putIfAbsent(e.getKey(), e.getValue().a[e.getValue().size - 1]);
+                }
+            }
+            for (int i = segments.size() - 1; i >= 0; i--) {
+                IndexSegment s = segments.get(i);
+                int taken = 0;
+                for (int t = s.lowerBound(key); t < s.termCount() && s.startsWith(t, key) && taken < limit; t++, taken++) {
+                    names.putIfAbsent(new String(s.term(t), StandardCharsets.UTF_8), s.firstDoc(t));
+                }
+            }
+        }
+        for (Map.Entry<String, Integer> e : names.entrySet()) {
+            if (out.size() >= limit) break;
+            out.add(customer(e.getValue()));
+        }
+    }
+
+    // --- DOCUMENTS ---
+
+    public synchronized long billId(int doc) { return docs.getLong(doc * DOC_BYTES); }
+    public synchronized long timestamp(int doc) { return docs.getLong(doc * DOC_BYTES + 8); }
+    public synchronized long grandTotal(int doc) { return docs.getLong(doc * DOC_BYTES + 24); }
+    private long orderTs(int doc) { return docs.getLong(doc * DOC_BYTES + 16); }
+    private synchronized long location(int doc) { return docs.getLong(doc * DOC_BYTES + 32); }
+
+    /** The customer as entered on the bill (blank for walk-ins), read from the journal. */
+    public String customer(int doc) {
+        return InvoiceJournal.readCustomer(payload(doc));
+    }
+
+    /** The whole bill, read back from the journal. */
+    public BillSnapshot bill(int doc) {
+        return InvoiceJournal.readCommittedBill(payload(doc));
+    }
+
+    private ByteBuffer payload(int doc) {
+        long location = location(doc);
+        long seq = location >>> 32;
+        synchronized (journalMaps) {
+            ByteBuffer segment = journalMaps.get(seq);
+            if (segment == null) {
+                try (FileChannel ch = FileChannel.open(InvoiceJournal.segmentPath(journalDir, seq), StandardOpenOption.READ)) {
+                    segment = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                journalMaps.put(seq, segment);
+            }
+            return InvoiceJournal.payloadAt(segment, (int) location);
+        }
+    }
+
+    /** Writes out buffered bills and closes the files. */
+    @Override
+    public void close() throws IOException {
+        synchronized (writer) {
+            flush(mark);
+            writeMeta(mark);
+            synchronized (this) {
+                docs.force();
+                docsChannel.close();
+            }
+        }
+    }
+
+    /**
+     * Builds or updates an index from a journal and runs sample queries, for
+     * checking sizes and timings: {@code InvoiceIndex <journalDir> <indexDir> [customer] [item]}.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: java -cp smartbill.jar smartbill.InvoiceIndex <journalDir> <indexDir> [customer] [item]");
+            System.exit(2);
+        }
+        long t0 = System.nanoTime();
+        try (InvoiceIndex index = open(Paths.get(args[1]), Paths.get(args[0]))) {
+            int added = index.refresh();
+            System.out.printf("Indexed %d new bills (%d in all) in %d ms%n", added, index.size(), (System.nanoTime() - t0) / 1_000_000);
+            String customer = args.length > 2 ? args[2] : "", item = args.length > 3 ? args[3] : "";
+            int[] hits = new int[50];
+            int n = 0;
+            for (int i = 0; i < 100; i++) n = index.search(customer, item, Long.MIN_VALUE, Long.MAX_VALUE, hits); // Warm up
+            t0 = System.nanoTime();
+            n = index.search(customer, item, Long.MIN_VALUE, Long.MAX_VALUE, hits);
+            System.out.printf("Search '%s' / '%s': %d hits in %.2f ms%n", customer, item, n, (System.nanoTime() - t0) / 1e6);
+            for (int i = 0; i < Math.min(n, 5); i++) {
+                System.out.printf("  #%d %tF %s %s%n", index.billId(hits[i]), index.timestamp(hits[i]),
+                    BillSnapshot.displayCustomer(index.customer(hits[i])), Money.format(index.grandTotal(hits[i])));
+            }
+        }
+    }
+}
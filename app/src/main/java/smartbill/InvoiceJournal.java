@@ -0,0 +1,718 @@
+package smartbill;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Crash-safe, append-only journal of bill events and committed bills.
+ *
+ * <p>Records are written straight into a pre-allocated, memory-mapped segment
+ * file, so an append costs no system call and survives a process crash as soon
+ * as it returns. A background thread group-commits the dirty pages to disk
+ * every {@link #SYNC_INTERVAL_MS} ms. Each record carries a CRC32; at startup
+ * the segments are scanned once, a torn tail is cut off, and any bill that was
+ * never committed or voided is handed back for restoring.
+ *
+ * <pre>
+ * segment : header[magic:int, version:int, sequence:long] record* (end: length 0, rolled: length -1)
+ * record  : length:int crc:int | type:byte billId:long timestamp:long payload   (crc covers | ... )
+ * </pre>
+ */
+public class InvoiceJournal implements Closeable {
+
+    public static final long DEFAULT_SEGMENT_SIZE = 64L * 1024 * 1024;
+    static final int SYNC_INTERVAL_MS = 10;
+
+    private static final int MAGIC = 0x534A4231; // "SJB1"
+    private static final int VERSION = 1;
+    private static final int SEGMENT_HEADER = 16;
+    private static final int RECORD_HEADER = 8;  // length + crc
+    private static final int BODY_HEADER = 17;   // type + billId + timestamp
+    private static final int ROLLED = -1;
+    private static final String SEGMENT_PREFIX = "journal-", SEGMENT_SUFFIX = ".seg";
+
+    // --- Record Types ---
+    public static final byte BILL_OPENED = 1;
+    public static final byte LINE_ADDED = 2;
+    public static final byte LAST_LINE_REMOVED = 3;
+    public static final byte RATES_CHANGED = 4;
+    public static final byte CUSTOMER_CHANGED = 5;
+    public static final byte BILL_COMMITTED = 6;
+    public static final byte BILL_VOIDED = 7;
+    public static final byte QUANTITY_CHANGED = 8;
+    public static final byte SUPPLY_CHANGED = 9;
+    /** Payload {@code line:int}: the line numbered in the order lines were added (removed ones counted). */
+    public static final byte LINE_REMOVED = 10;
+    public static final byte LINE_RESTORED = 11;
+    /** Payload {@code line:int name:utf8 price:long qty:int}. */
+    public static final byte LINE_CHANGED = 12;
+
+    /** Marks the optional GST section that follows the lines of a {@link #BILL_COMMITTED} payload. */
+    private static final byte GST_SECTION = 1;
+
+    /** Receives every valid record during a scan; {@code payload} is positioned at the payload start. */
+    public interface Visitor {
+        void record(byte type, long billId, long timestamp, ByteBuffer payload);
+    }
+
+    /** A {@link Visitor} that is also told where each record lies (see {@link #location}). */
+    public interface LocatedVisitor {
+        void record(long location, byte type, long billId, long timestamp, ByteBuffer payload);
+    }
+
+    /** A bill that was still open when the journal was last closed (or the process died). */
+    public static final class OpenBill {
+        public final long billId;
+        public final BillLedger ledger = new BillLedger();
+        public String customer = "";
+        OpenBill(long billId) { this.billId = billId; }
+    }
+
+    private final Path dir;
+    private final long segmentSize;
+    private final CRC32 crc = new CRC32();
+    private final List<OpenBill> recovered = new ArrayList<>();
+    private final Thread syncThread;
+
+    // --- Active Segment (guarded by this) ---
+    private long sequence;
+    private FileChannel channel;
+    private MappedByteBuffer buf;
+    private long lastBillId;
+    private int recordStart;
+    private boolean dirty, closed;
+    private FileChannel nextChannel;     // Pre-allocated successor, prepared by the sync thread
+    private MappedByteBuffer nextBuf;
+    private long preparing;              // Sequence the sync thread is creating right now, 0 if none
+
+    private InvoiceJournal(Path dir, long segmentSize) {
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        syncThread = new Thread(this::syncLoop, "journal-sync");
+        syncThread.setDaemon(true);
+    }
+
+    /** Opens (or creates) the journal in {@code dir}, recovering state from existing segments. */
+    public static InvoiceJournal open(Path dir) throws IOException {
+        return open(dir, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public static InvoiceJournal open(Path dir, long segmentSize) throws IOException {
+        Files.createDirectories(dir);
+        InvoiceJournal journal = new InvoiceJournal(dir, segmentSize);
+        journal.recover();
+        journal.syncThread.start();
+        return journal;
+    }
+
+    /** Default location: {@code journal} under {@link AppPaths#home()}. */
+    public static Path defaultDirectory() {
+        return AppPaths.resolve("journal");
+    }
+
+    // --- APPENDING ---
+
+    /** A fresh, strictly increasing bill id (millisecond based, so it doubles as an invoice number). */
+    public synchronized long newBillId() {
+        lastBillId = Math.max(lastBillId + 1, System.currentTimeMillis());
+        return lastBillId;
+    }
+
+    public synchronized void billOpened(long billId) throws IOException {
+        begin(BILL_OPENED, billId, 0);
+        end();
+    }
+
+    public synchronized void lineAdded(long billId, String name, long price, int qty) throws IOException {
+        byte[] nameBytes = utf8(name);
+        begin(LINE_ADDED, billId, 2 + nameBytes.length + 12);
+        putString(nameBytes);
+        buf.putLong(price).putInt(qty);
+        end();
+    }
+
+    public synchronized void lastLineRemoved(long billId) throws IOException {
+        begin(LAST_LINE_REMOVED, billId, 0);
+        end();
+    }
+
+    public synchronized void quantityChanged(long billId, int row, int qty) throws IOException {
+        begin(QUANTITY_CHANGED, billId, 8);
+        buf.putInt(row).putInt(qty);
+        end();
+    }
+
+    public synchronized void lineRemoved(long billId, int line) throws IOException {
+        begin(LINE_REMOVED, billId, 4);
+        buf.putInt(line);
+        end();
+    }
+
+    public synchronized void lineRestored(long billId, int line) throws IOException {
+        begin(LINE_RESTORED, billId, 4);
+        buf.putInt(line);
+        end();
+    }
+
+    public synchronized void lineChanged(long billId, int line, String name, long price, int qty) throws IOException {
+        byte[] nameBytes = utf8(name);
+        begin(LINE_CHANGED, billId, 4 + 2 + nameBytes.length + 12);
+        buf.putInt(line);
+        putString(nameBytes);
+        buf.putLong(price).putInt(qty);
+        end();
+    }
+
+    public synchronized void ratesChanged(long billId, int discountBps, int taxBps) throws IOException {
+        begin(RATES_CHANGED, billId, 8);
+        buf.putInt(discountBps).putInt(taxBps);
+        end();
+    }
+
+    public synchronized void supplyChanged(long billId, boolean interState) throws IOException {
+        begin(SUPPLY_CHANGED, billId, 1);
+        buf.put((byte) (interState ? 1 : 0));
+        end();
+    }
+
+    public synchronized void customerChanged(long billId, String customer) throws IOException {
+        byte[] bytes = utf8(customer);
+        begin(CUSTOMER_CHANGED, billId, 2 + bytes.length);
+        putString(bytes);
+        end();
+    }
+
+    /** Records a completed sale with its full content, so history never depends on the event trail. */
+    public synchronized void billCommitted(long billId, BillSnapshot bill) throws IOException {
+        byte[] customer = utf8(bill.customer);
+        byte[][] names = new byte[bill.size()][];
+        int size = 2 + customer.length + 8 + 8 + 4;
+        for (int i = 0; i < names.length; i++) {
+            names[i] = utf8(bill.name(i));
+            size += 2 + names[i].length + 8 + 4 + 8;
+        }
+        if (bill.hasSlabs()) size += 1 + 1 + 8 + 8 + 4 + bill.slabCount() * (4 + 8 + 8);
+        begin(BILL_COMMITTED, billId, size);
+        putString(customer);
+        buf.putLong(bill.timestamp);
+        buf.putInt(bill.discountBps).putInt(bill.taxBps);
+        buf.putInt(names.length);
+        for (int i = 0; i < names.length; i++) {
+            putString(names[i]);
+            buf.putLong(bill.price(i)).putInt(bill.quantity(i)).putLong(bill.total(i));
+        }
+        if (bill.hasSlabs()) {
+            // Appended after the lines, so readers that predate it simply stop early
+            buf.put(GST_SECTION).put((byte) (bill.interState ? 1 : 0));
+            buf.putLong(bill.discountAmount).putLong(bill.taxAmount);
+            buf.putInt(bill.slabCount());
+            for (int i = 0; i < bill.slabCount(); i++) {
+                BillSnapshot.Slab slab = bill.slab(i);
+                buf.putInt(slab.rateBps).putLong(slab.taxable).putLong(slab.tax);
+            }
+        }
+        end();
+    }
+
+    public synchronized void billVoided(long billId) throws IOException {
+        begin(BILL_VOIDED, billId, 0);
+        end();
+    }
+
+    /** Bills found open during recovery, oldest first. */
+    public List<OpenBill> openBills() {
+        return Collections.unmodifiableList(recovered);
+    }
+
+    // --- Record Framing ---
+
+    private void begin(byte type, long billId, int payloadSize) throws IOException {
+        if (closed) throw new IOException("Journal is closed");
+        int bodySize = BODY_HEADER + payloadSize;
+        if (RECORD_HEADER + bodySize + 4 > segmentSize - SEGMENT_HEADER) throw new IOException("Record too large for segment: " + bodySize);
+        if (buf.remaining() < RECORD_HEADER + bodySize + 4) roll(); // Keep room for the end marker
+        recordStart = buf.position();
+        buf.position(recordStart + RECORD_HEADER);
+        buf.put(type).putLong(billId).putLong(System.currentTimeMillis());
+    }
+
+    private void end() {
+        int bodyEnd = buf.position();
+        int bodySize = bodyEnd - recordStart - RECORD_HEADER;
+        ByteBuffer body = buf.duplicate();
+        body.limit(bodyEnd).position(recordStart + RECORD_HEADER);
+        crc.reset();
+        crc.update(body);
+        // Length goes in last: until then a reader sees the end marker, never half a record
+        buf.putInt(recordStart + 4, (int) crc.getValue());
+        buf.putInt(bodyEnd, 0);
+        buf.putInt(recordStart, bodySize);
+        dirty = true;
+    }
+
+    private void putString(byte[] bytes) {
+        buf.putShort((short) bytes.length).put(bytes);
+    }
+
+    private static byte[] utf8(String s) {
+        byte[] bytes = (s == null ? "" : s).getBytes(StandardCharsets.UTF_8);
+        return bytes.length <= 0xFFFF ? bytes : Arrays.copyOf(bytes, 0xFFFF);
+    }
+
+    // --- SEGMENTS ---
+
+    private void roll() throws IOException {
+        buf.putInt(buf.position(), ROLLED);
+        buf.force();
+        channel.close();
+        sequence++;
+        awaitPreparing();
+        if (nextChannel != null) {
+            channel = nextChannel;
+            buf = nextBuf;
+            nextChannel = null;
+            nextBuf = null;
+        } else {
+            FileChannel ch = createSegment(sequence);
+            channel = ch;
+            buf = ch.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+        writeSegmentHeader(buf, sequence);
+    }
+
+    /** Waits (caller holds the lock) until the sync thread is done with the segment about to be used. */
+    private void awaitPreparing() throws IOException {
+        boolean interrupted = false;
+        while (preparing == sequence) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true; // The append must still finish
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        if (closed) throw new IOException("Journal closed");
+    }
+
+    private FileChannel createSegment(long seq) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(segmentPath(seq).toFile(), "rw");
+        raf.setLength(segmentSize); // Pre-allocate the whole segment up front
+        return raf.getChannel();
+    }
+
+    private static void writeSegmentHeader(MappedByteBuffer b, long seq) {
+        b.clear();
+        b.putInt(MAGIC).putInt(VERSION).putLong(seq);
+        b.putInt(b.position(), 0);
+    }
+
+    private Path segmentPath(long seq) {
+        return segmentPath(dir, seq);
+    }
+
+    static Path segmentPath(Path dir, long seq) {
+        return dir.resolve(String.format("%s%010d%s", SEGMENT_PREFIX, seq, SEGMENT_SUFFIX));
+    }
+
+    private static long parseSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /** Segment files of a journal directory in sequence order. */
+    public static List<Path> segments(Path dir) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(dir)) return files;
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path p : ds) files.add(p);
+        }
+        Collections.sort(files);
+        return files;
+    }
+
+    // --- RECOVERY & SCANNING ---
+
+    private void recover() throws IOException {
+        final Map<Long, OpenBill> open = new LinkedHashMap<>();
+        List<Path> files = segments(dir);
+        int endOffset = SEGMENT_HEADER;
+        for (int i = 0; i < files.size(); i++) {
+            endOffset = scanSegment(files.get(i), (type, billId, ts, payload) -> {
+                lastBillId = Math.max(lastBillId, billId);
+                replay(open, type, billId, payload);
+            });
+            if (i == files.size() - 1) break;
+            if (endOffset < 0) throw new IOException("Corrupt journal segment: " + files.get(i));
+            // The process stopped after the next segment was prepared: this one is finished
+            if (!isSealed(files.get(i), endOffset)) seal(files.get(i), endOffset);
+        }
+        recovered.addAll(open.values());
+
+        if (files.isEmpty()) {
+            sequence = 1;
+            channel = createSegment(sequence);
+            buf = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            writeSegmentHeader(buf, sequence);
+        } else {
+            Path last = files.get(files.size() - 1);
+            sequence = parseSequence(last);
+            if (endOffset < 0) {
+                // Died while creating the segment: start it over
+                RandomAccessFile raf = new RandomAccessFile(last.toFile(), "rw");
+                raf.setLength(segmentSize);
+                channel = raf.getChannel();
+                buf = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+                writeSegmentHeader(buf, sequence);
+                return;
+            }
+            channel = FileChannel.open(last, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            buf = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            buf.position(endOffset);
+            if (buf.remaining() >= 4) buf.putInt(endOffset, 0); // Cut off any torn tail
+            else roll();
+        }
+    }
+
+    private static void replay(Map<Long, OpenBill> open, byte type, long billId, ByteBuffer p) {
+        OpenBill bill = open.get(billId);
+        switch (type) {
+            case BILL_OPENED:
+                open.put(billId, new OpenBill(billId));
+                break;
+            case LINE_ADDED:
+                if (bill != null) bill.ledger.add(getString(p), p.getLong(), p.getInt());
+                break;
+            case LAST_LINE_REMOVED:
+                if (bill != null && bill.ledger.size() > 0) bill.ledger.removeLast();
+                break;
+            case QUANTITY_CHANGED:
+                if (bill != null) {
+                    int row = p.getInt(), qty = p.getInt();
+                    if (row < bill.ledger.size()) bill.ledger.setQuantity(row, qty);
+                }
+                break;
+            case LINE_REMOVED:
+                if (bill != null) {
+                    int line = p.getInt();
+                    if (line >= 0 && line < bill.ledger.lineCount() && !bill.ledger.isRemoved(line)) {
+                        bill.ledger.removeLine(line);
+                    }
+                }
+                break;
+            case LINE_RESTORED:
+                if (bill != null) {
+                    int line = p.getInt();
+                    if (bill.ledger.canRestore(line)) bill.ledger.restoreLine(line);
+                }
+                break;
+            case LINE_CHANGED:
+                if (bill != null) {
+                    int line = p.getInt();
+                    String name = getString(p);
+                    long price = p.getLong();
+                    int qty = p.getInt();
+                    if (line >= 0 && line < bill.ledger.lineCount() && !bill.ledger.isRemoved(line)) {
+                        bill.ledger.setLine(line, name, price, qty);
+                    }
+                }
+                break;
+            case RATES_CHANGED:
+                if (bill != null) bill.ledger.setRates(p.getInt(), p.getInt());
+                break;
+            case CUSTOMER_CHANGED:
+                if (bill != null) bill.customer = getString(p);
+                break;
+            case SUPPLY_CHANGED:
+                if (bill != null) bill.ledger.setInterState(p.get() != 0);
+                break;
+            case BILL_COMMITTED:
+            case BILL_VOIDED:
+                open.remove(billId);
+                break;
+            default:
+                break; // Unknown types from newer versions are skipped
+        }
+    }
+
+    /** Reads every valid record in a journal directory (e.g. for reporting). */
+    public static void scan(Path dir, Visitor visitor) throws IOException {
+        for (Path p : segments(dir)) scanSegment(p, visitor);
+    }
+
+    // --- LOCATIONS ---
+
+    /** A record's position in the journal: segment sequence and offset packed into one long. */
+    public static long location(long sequence, int offset) {
+        return sequence << 32 | offset;
+    }
+
+    /**
+     * Visits every valid record at or after {@code from} (0 for the whole journal),
+     * e.g. to pick up where an earlier scan stopped while the journal is in use.
+     * @return the location just past the last valid record, to resume from
+     */
+    public static long scanFrom(Path dir, long from, LocatedVisitor visitor) throws IOException {
+        long next = from;
+        List<Path> files = segments(dir);
+        for (int i = 0; i < files.size(); i++) {
+            Path p = files.get(i);
+            long seq = parseSequence(p);
+            if (seq < from >>> 32) continue;
+            int start = seq == from >>> 32 ? Math.max(SEGMENT_HEADER, (int) from) : SEGMENT_HEADER;
+            int end = scanSegment(p, start, visitor);
+            if (end < 0) break; // Still being created
+            next = location(seq, end);
+            // Unsealed: still being written if the next one is only prepared, finished (by
+            // a journal that never sealed it) if records went on in the next one
+            if (!isSealed(p, end) && (i == files.size() - 1 || !hasRecords(files.get(i + 1)))) break;
+        }
+        return next;
+    }
+
+    /** Whether anything was ever appended to a segment (a prepared one holds only its header). */
+    private static boolean hasRecords(Path segment) throws IOException {
+        try (FileChannel ch = FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer b = ByteBuffer.allocate(4);
+            return ch.read(b, SEGMENT_HEADER) == 4 && b.getInt(0) != 0;
+        }
+    }
+
+    /** The location just past a record that a scan delivered at {@code location} with {@code payload}. */
+    public static long nextLocation(long location, ByteBuffer payload) {
+        return location + RECORD_HEADER + BODY_HEADER + payload.limit();
+    }
+
+    /**
+     * The payload of the record at {@code offset} in a mapped segment, without
+     * checking its CRC (for records a scan has already validated).
+     */
+    static ByteBuffer payloadAt(ByteBuffer segment, int offset) {
+        ByteBuffer body = segment.duplicate();
+        body.limit(offset + RECORD_HEADER + segment.getInt(offset)).position(offset + RECORD_HEADER + BODY_HEADER);
+        return body.slice();
+    }
+
+    /** The customer of a {@link #BILL_COMMITTED} payload, without decoding the rest. */
+    public static String readCustomer(ByteBuffer p) {
+        return getString(p.duplicate());
+    }
+
+    /**
+     * Visits the valid records of one segment.
+     * @return the offset just past the last valid record, or -1 if the file is not a segment
+     */
+    static int scanSegment(Path file, Visitor visitor) throws IOException {
+        return scanSegment(file, SEGMENT_HEADER, (location, type, billId, timestamp, payload) ->
+            visitor.record(type, billId, timestamp, payload));
+    }
+
+    /** Visits the valid records of one segment from offset {@code from}, which must be a record boundary. */
+    static int scanSegment(Path file, int from, LocatedVisitor visitor) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer b = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if (b.limit() < SEGMENT_HEADER || b.getInt(0) != MAGIC) return -1;
+            long sequence = b.getLong(8);
+            CRC32 crc = new CRC32();
+            int pos = from;
+            while (pos + RECORD_HEADER <= b.limit()) {
+                int length = b.getInt(pos);
+                if (length <= 0 || pos + RECORD_HEADER + length > b.limit()) break; // End, rolled or torn
+                ByteBuffer body = b.duplicate();
+                body.limit(pos + RECORD_HEADER + length).position(pos + RECORD_HEADER);
+                crc.reset();
+                crc.update(body);
+                if ((int) crc.getValue() != b.getInt(pos + 4)) break; // Torn or corrupt: stop here
+                body.position(pos + RECORD_HEADER);
+                byte type = body.get();
+                long billId = body.getLong();
+                long timestamp = body.getLong();
+                visitor.record(location(sequence, pos), type, billId, timestamp, body.slice());
+                pos += RECORD_HEADER + length;
+            }
+            return pos;
+        }
+    }
+
+    /**
+     * Whether a segment ends in a roll-over marker at {@code endOffset} (as returned
+     * by a scan), i.e. it is complete and will never be written again.
+     */
+    static boolean isSealed(Path segment, int endOffset) throws IOException {
+        try (FileChannel ch = FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer b = ByteBuffer.allocate(4);
+            return endOffset + 4 <= ch.size() && ch.read(b, endOffset) == 4 && b.getInt(0) == ROLLED;
+        }
+    }
+
+    /** Writes the roll-over marker a finished segment should end in (at the end of its last valid record). */
+    private static void seal(Path segment, int endOffset) throws IOException {
+        try (FileChannel ch = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(4).putInt(0, ROLLED);
+            if (endOffset + 4 > ch.size() || ch.write(b, endOffset) != 4) throw new IOException("Cannot seal journal segment: " + segment);
+            ch.force(false);
+        }
+    }
+
+    /**
+     * Receives the content of a committed bill, header first, then each line,
+     * then (for bills taxed per GST slab) the stored totals and each slab.
+     */
+    public interface CommittedBillReader {
+        void header(long timestamp, int discountBps, int taxBps, int lineCount);
+        void line(String name, long price, int qty, long total);
+        default void gst(boolean interState, long discountAmount, long taxAmount, int slabCount) {}
+        default void slab(int rateBps, long taxable, long tax) {}
+    }
+
+    /** Streams the payload of a {@link #BILL_COMMITTED} record without building a ledger (for reporting). */
+    public static void readCommittedBill(ByteBuffer p, CommittedBillReader reader) {
+        int customerLen = p.getShort() & 0xFFFF;
+        p.position(p.position() + customerLen); // Customer, not needed here
+        long timestamp = p.getLong();
+        int discountBps = p.getInt(), taxBps = p.getInt();
+        int n = p.getInt();
+        reader.header(timestamp, discountBps, taxBps, n);
+        for (int i = 0; i < n; i++) {
+            String name = getString(p);
+            reader.line(name, p.getLong(), p.getInt(), p.getLong());
+        }
+        if (p.remaining() > 0 && p.get() == GST_SECTION) {
+            boolean interState = p.get() != 0;
+            long discount = p.getLong(), tax = p.getLong();
+            int slabs = p.getInt();
+            reader.gst(interState, discount, tax, slabs);
+            for (int i = 0; i < slabs; i++) reader.slab(p.getInt(), p.getLong(), p.getLong());
+        }
+    }
+
+    /** Decodes the payload of a {@link #BILL_COMMITTED} record. */
+    public static BillSnapshot readCommittedBill(ByteBuffer p) {
+        String customer = getString(p);
+        long timestamp = p.getLong();
+        int discountBps = p.getInt(), taxBps = p.getInt();
+        int n = p.getInt();
+        BillLedger ledger = new BillLedger();
+        for (int i = 0; i < n; i++) {
+            String name = getString(p);
+            long price = p.getLong();
+            int qty = p.getInt();
+            p.getLong(); // Stored line total; recomputed by the ledger
+            ledger.add(name, price, qty);
+        }
+        ledger.setRates(discountBps, taxBps);
+        BillSnapshot bill = BillSnapshot.of(ledger, customer, timestamp);
+        if (p.remaining() == 0 || p.get() != GST_SECTION) return bill;
+
+        // Taxed per slab under the rules of the day: take the stored figures as they were billed
+        boolean interState = p.get() != 0;
+        long discountAmount = p.getLong(), taxAmount = p.getLong();
+        BillSnapshot.Slab[] slabs = new BillSnapshot.Slab[p.getInt()];
+        for (int i = 0; i < slabs.length; i++) slabs[i] = new BillSnapshot.Slab(p.getInt(), p.getLong(), p.getLong());
+        String[] names = new String[n];
+        long[] prices = new long[n], totals = new long[n];
+        int[] quantities = new int[n];
+        ledger.copyLines(names, prices, quantities, totals);
+        return new BillSnapshot(customer, timestamp, names, prices, quantities, totals, ledger.subtotal(),
+            discountBps, discountAmount, taxBps, taxAmount, interState, slabs);
+    }
+
+    private static String getString(ByteBuffer p) {
+        int len = p.getShort() & 0xFFFF;
+        byte[] bytes = new byte[len];
+        p.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // --- GROUP COMMIT ---
+
+    private void syncLoop() {
+        while (true) {
+            try {
+                Thread.sleep(SYNC_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            MappedByteBuffer toForce = null;
+            boolean prepareNext;
+            synchronized (this) {
+                if (closed) return;
+                if (dirty) {
+                    toForce = buf;
+                    dirty = false;
+                }
+                prepareNext = nextChannel == null && preparing == 0 && buf.position() > segmentSize * 3 / 4;
+                if (prepareNext) preparing = sequence + 1; // Reserved: roll() waits for it rather than racing
+            }
+            if (toForce != null) toForce.force(); // Outside the lock so appends never wait on the disk
+            if (prepareNext) prepareNextSegment();
+        }
+    }
+
+    /**
+     * Creates the segment reserved in {@link #preparing}. Only a file this
+     * thread created itself (CREATE_NEW) is ever handed over or deleted.
+     */
+    private void prepareNextSegment() {
+        long seq;
+        synchronized (this) { seq = preparing; }
+        Path path = segmentPath(seq);
+        FileChannel ch = null;
+        MappedByteBuffer b = null;
+        try {
+            ch = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            b = ch.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize); // Grows the file to the full segment
+            writeSegmentHeader(b, seq); // A crash before it is used leaves a valid, empty segment
+        } catch (IOException e) {
+            b = null; // roll() will create the segment itself
+        }
+        boolean handedOver = false;
+        synchronized (this) {
+            if (b != null && !closed) {
+                nextChannel = ch;
+                nextBuf = b;
+                handedOver = true;
+            }
+            preparing = 0;
+            notifyAll();
+        }
+        if (handedOver || ch == null) return;
+        try {
+            ch.close();
+            Files.deleteIfExists(path); // Ours, and never used
+        } catch (IOException e) {
+            // Left as an empty segment; recovery accepts it
+        }
+    }
+
+    /** Forces everything appended so far to disk and stops the sync thread. */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            buf.force();
+            channel.close();
+            if (nextChannel != null) {
+                nextChannel.close();
+                Files.deleteIfExists(segmentPath(sequence + 1)); // Prepared but never used
+            }
+        }
+        syncThread.interrupt();
+    }
+}
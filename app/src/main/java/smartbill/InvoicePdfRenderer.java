@@ -0,0 +1,176 @@
+package smartbill;
+
+import com.itextpdf.text.BaseColor;
+import com.itextpdf.text.Chunk;
+import com.itextpdf.text.Document;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.Element;
+import com.itextpdf.text.Font;
+import com.itextpdf.text.FontFactory;
+import com.itextpdf.text.Paragraph;
+import com.itextpdf.text.Phrase;
+import com.itextpdf.text.pdf.PdfPCell;
+import com.itextpdf.text.pdf.PdfPTable;
+import com.itextpdf.text.pdf.PdfWriter;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CancellationException;
+import java.util.function.IntConsumer;
+
+/**
+ * The professional invoice layout, rendered from a {@link BillSnapshot}.
+ * Has no Swing dependencies so the GUI export and headless tools share it.
+ * Fonts and colours are built once; each render only allocates the document itself.
+ */
+public final class InvoicePdfRenderer {
+
+    // --- Colours & Fonts (looked up once, read-only afterwards) ---
+    private static final BaseColor BRAND_BLUE = new BaseColor(41, 128, 185);
+    private static final BaseColor HEADER_BG = new BaseColor(44, 62, 80);
+    private static final BaseColor GRAND_GREEN = new BaseColor(39, 174, 96);
+
+    private static final Font HEADER_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18, BRAND_BLUE);
+    private static final Font NORMAL_FONT = FontFactory.getFont(FontFactory.HELVETICA, 12);
+    private static final Font TABLE_HEADER_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 12, BaseColor.WHITE);
+    private static final Font BOLD_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD);
+    private static final Font GRAND_LABEL_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 14);
+    private static final Font GRAND_VALUE_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 14, GRAND_GREEN);
+
+    /** Rows added to the table before it is flushed to the writer (keeps memory flat on huge bills). */
+    private static final int ROW_CHUNK = 500;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private InvoicePdfRenderer() {}
+
+    /**
+     * Writes the invoice for {@code bill} to {@code out}.
+     * Progress (0-100) is reported through {@code progress}; the render stops with a
+     * {@link CancellationException} if the calling thread is interrupted. The stream is not closed.
+     */
+    public static void render(BillSnapshot bill, OutputStream out, IntConsumer progress) throws DocumentException {
+        Document document = new Document();
+        PdfWriter writer = PdfWriter.getInstance(document, out);
+        writer.setCloseStream(false);
+        document.open();
+
+        // 1. Title & Info
+        Paragraph title = new Paragraph("SMARTBILL PRO - INVOICE", HEADER_FONT);
+        title.setAlignment(Element.ALIGN_CENTER);
+        title.setSpacingAfter(10f);
+        document.add(title);
+
+        document.add(new Paragraph("Customer: " + bill.customer, NORMAL_FONT));
+        document.add(new Paragraph("Date: " + Timestamps.dateTime(bill.timestamp), NORMAL_FONT));
+
+        // 2. Items Table, streamed to the writer in chunks
+        PdfPTable table = new PdfPTable(4);
+        table.setWidthPercentage(100);
+        table.setWidths(new float[]{3, 1.5f, 1, 1.5f}); // Column ratios
+        table.setSpacingBefore(20f);
+        table.setSpacingAfter(20f);
+        table.setHeaderRows(1); // Repeat the header on every page
+        table.setComplete(false);
+
+        addHeaderCell(table, "Item Name", Element.ALIGN_LEFT);
+        addHeaderCell(table, "Price", Element.ALIGN_RIGHT);
+        addHeaderCell(table, "Qty", Element.ALIGN_CENTER);
+        addHeaderCell(table, "Total", Element.ALIGN_RIGHT);
+
+        int rows = bill.size();
+        for (int i = 0; i < rows; i++) {
+            table.addCell(bill.name(i));
+            addCell(table, Money.format(bill.price(i)), Element.ALIGN_RIGHT);
+            addCell(table, String.valueOf(bill.quantity(i)), Element.ALIGN_CENTER);
+            addCell(table, Money.format(bill.total(i)), Element.ALIGN_RIGHT);
+
+            if ((i + 1) % ROW_CHUNK == 0) {
+                if (Thread.currentThread().isInterrupted()) throw new CancellationException("PDF export cancelled");
+                document.add(table);
+                progress.accept((int) (90L * (i + 1) / rows));
+            }
+        }
+        table.setComplete(true);
+        document.add(table);
+
+        // 3. Summary Section
+        Paragraph summary = new Paragraph();
+        summary.add(new Chunk("Subtotal: ", NORMAL_FONT));
+        summary.add(new Chunk(Money.format(bill.subtotal) + "\n", BOLD_FONT));
+        summary.add(new Chunk("Discount: ", NORMAL_FONT));
+        summary.add(new Chunk("-" + Money.format(bill.discountAmount) + "\n", BOLD_FONT));
+        if (bill.hasSlabs()) {
+            for (int i = 0; i < bill.slabCount(); i++) addSlab(summary, bill.slab(i), bill.interState);
+            summary.add(new Chunk("Total GST: ", NORMAL_FONT));
+        } else {
+            summary.add(new Chunk("Tax: ", NORMAL_FONT));
+        }
+        summary.add(new Chunk(Money.format(bill.taxAmount) + "\n", BOLD_FONT));
+        summary.add(new Chunk("GRAND TOTAL: ", GRAND_LABEL_FONT));
+        summary.add(new Chunk(Money.format(bill.grandTotal), GRAND_VALUE_FONT));
+        document.add(summary);
+
+        // 4. Footer
+        document.add(new Paragraph("\nThank you for your business!", NORMAL_FONT));
+
+        document.close();
+        progress.accept(100);
+    }
+
+    /**
+     * Renders {@code bill} into {@code target} through a buffered {@link FileChannel}.
+     * Output goes to a ".part" sibling that replaces {@code target} only on success.
+     * @return the size of the written file in bytes
+     */
+    public static long writeFile(BillSnapshot bill, Path target, IntConsumer progress) throws IOException, DocumentException {
+        Path part = target.resolveSibling(target.getFileName() + ".part");
+        boolean ok = false;
+        try {
+            long size;
+            try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                 OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE)) {
+                render(bill, out, progress);
+                out.flush();
+                size = channel.size();
+            }
+            Files.move(part, target, StandardCopyOption.REPLACE_EXISTING);
+            ok = true;
+            return size;
+        } finally {
+            if (!ok) Files.deleteIfExists(part);
+        }
+    }
+
+    /** One GST rate: taxable value, then CGST + SGST or IGST. */
+    private static void addSlab(Paragraph summary, BillSnapshot.Slab slab, boolean interState) {
+        String rate = Money.formatRatePlain(slab.rateBps) + "%";
+        summary.add(new Chunk("GST " + rate + " on " + Money.format(slab.taxable) + ": ", NORMAL_FONT));
+        if (interState) {
+            summary.add(new Chunk("IGST " + Money.format(slab.tax) + "\n", BOLD_FONT));
+        } else {
+            String half = Money.formatRatePlain(slab.rateBps / 2) + "%";
+            summary.add(new Chunk("CGST " + half + " " + Money.format(slab.half())
+                + " + SGST " + half + " " + Money.format(slab.half()) + "\n", BOLD_FONT));
+        }
+    }
+
+    private static void addHeaderCell(PdfPTable table, String text, int align) {
+        PdfPCell cell = new PdfPCell(new Phrase(text, TABLE_HEADER_FONT));
+        cell.setBackgroundColor(HEADER_BG);
+        cell.setHorizontalAlignment(align);
+        table.addCell(cell);
+    }
+
+    private static void addCell(PdfPTable table, String text, int align) {
+        PdfPCell cell = new PdfPCell(new Phrase(text));
+        cell.setHorizontalAlignment(align);
+        table.addCell(cell);
+    }
+}
@@ -0,0 +1,200 @@
+package smartbill;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * "Find Invoice": searches past bills in the {@link InvoiceIndex} as you type
+ * (customer words, item words, a date range) and shows the one picked, ready
+ * to export or reprint. Lookups run on the EDT; they take milliseconds even
+ * over millions of bills, and only the rows on screen are read back from the journal.
+ */
+public class InvoiceSearchDialog extends JDialog {
+
+    private static final int MAX_RESULTS = 500;
+    private static final int TYPING_DELAY_MS = 150;
+    private static final Color INVALID_FIELD = new Color(255, 228, 225);
+    private static final LatencyHistogram SEARCH = Metrics.timer("index.search");
+
+    private final InvoiceIndex index;
+    private final JTextField customerField = new JTextField(16), itemField = new JTextField(16);
+    private final JTextField fromField = new JTextField(9), toField = new JTextField(9);
+    private final JLabel summary = new JLabel(" ");
+    private final JTextArea detail = new JTextArea();
+    private final ResultModel results = new ResultModel();
+    private final JTable table = new JTable(results);
+    private final Timer typingTimer;
+    private final Color fieldBackground;
+    private BillSnapshot selected;
+
+    /**
+     * @param exportPdf asks where to save, then exports the chosen bill
+     * @param reprint   prints the chosen bill like a fresh receipt
+     */
+    public InvoiceSearchDialog(Frame owner, InvoiceIndex index, Consumer<BillSnapshot> exportPdf, Consumer<BillSnapshot> reprint) {
+        super(owner, "🔎 Find Invoice", false);
+        this.index = index;
+        fieldBackground = fromField.getBackground();
+
+        JPanel criteria = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 0));
+        criteria.add(new JLabel("Customer:"));
+        criteria.add(customerField);
+        criteria.add(new JLabel("Item:"));
+        criteria.add(itemField);
+        criteria.add(new JLabel("From:"));
+        criteria.add(fromField);
+        criteria.add(new JLabel("To:"));
+        criteria.add(toField);
+        fromField.setToolTipText("yyyy-mm-dd, blank for no limit");
+        toField.setToolTipText("yyyy-mm-dd, blank for no limit");
+
+        typingTimer = new Timer(TYPING_DELAY_MS, e -> search());
+        typingTimer.setRepeats(false);
+        DocumentListener typing = new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) { typingTimer.restart(); }
+            public void removeUpdate(DocumentEvent e) { typingTimer.restart(); }
+            public void changedUpdate(DocumentEvent e) {}
+        };
+        for (JTextField f : new JTextField[]{customerField, itemField, fromField, toField}) {
+            f.getDocument().addDocumentListener(typing);
+        }
+
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        table.setRowHeight(24);
+        table.getColumnModel().getColumn(0).setPreferredWidth(140);
+        table.getColumnModel().getColumn(1).setPreferredWidth(60);
+        table.getColumnModel().getColumn(2).setPreferredWidth(200);
+        table.getColumnModel().getColumn(3).setPreferredWidth(90);
+        table.getSelectionModel().addListSelectionListener(e -> {
+            if (!e.getValueIsAdjusting()) showSelected();
+        });
+
+        detail.setEditable(false);
+        detail.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        detail.setBackground(new Color(250, 250, 250));
+
+        JButton pdfBtn = new JButton("📄 Export PDF");
+        JButton printBtn = new JButton("🖨️ Reprint");
+        pdfBtn.addActionListener(e -> { if (selected != null) exportPdf.accept(selected); });
+        printBtn.addActionListener(e -> { if (selected != null) reprint.accept(selected); });
+        JPanel actions = new JPanel(new FlowLayout(FlowLayout.RIGHT, 8, 0));
+        actions.add(pdfBtn);
+        actions.add(printBtn);
+
+        JSplitPane split = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, new JScrollPane(table), new JScrollPane(detail));
+        split.setResizeWeight(0.55);
+
+        JPanel bottom = new JPanel(new BorderLayout());
+        bottom.add(summary, BorderLayout.WEST);
+        bottom.add(actions, BorderLayout.EAST);
+
+        JPanel content = new JPanel(new BorderLayout(0, 10));
+        content.setBorder(new EmptyBorder(12, 12, 12, 12));
+        content.add(criteria, BorderLayout.NORTH);
+        content.add(split, BorderLayout.CENTER);
+        content.add(bottom, BorderLayout.SOUTH);
+        setContentPane(content);
+        setSize(980, 560);
+        setLocationRelativeTo(owner);
+        search(); // The latest bills, until something is typed
+    }
+
+    /** Starts a search for a customer's bills (e.g. the one being billed). */
+    public void searchCustomer(String customer) {
+        customerField.setText(customer);
+        typingTimer.stop();
+        search();
+    }
+
+    private void search() {
+        Long from = readDate(fromField, false), to = readDate(toField, true);
+        if (from == null || to == null) return; // Unreadable date, already flagged
+        long t0 = System.nanoTime();
+        int n = index.search(customerField.getText(), itemField.getText(), from, to, results.docs);
+        SEARCH.recordSince(t0);
+        results.show(n);
+        summary.setText(String.format("%s%d invoice(s) of %d in %.1f ms", n == MAX_RESULTS ? "Latest " : "",
+            n, index.size(), (System.nanoTime() - t0) / 1e6));
+        if (n > 0) table.setRowSelectionInterval(0, 0);
+        else showSelected();
+    }
+
+    /**
+     * The start of the date's day (or the end, for {@code endOfDay}); no limit
+     * when blank, and null if the text is not a date.
+     */
+    private Long readDate(JTextField field, boolean endOfDay) {
+        String text = field.getText().trim();
+        field.setBackground(fieldBackground);
+        if (text.isEmpty()) return endOfDay ? Long.MAX_VALUE : Long.MIN_VALUE;
+        try {
+            LocalDate day = LocalDate.parse(text);
+            if (endOfDay) day = day.plusDays(1);
+            long millis = day.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            return endOfDay ? millis - 1 : millis;
+        } catch (DateTimeParseException e) {
+            field.setBackground(INVALID_FIELD);
+            summary.setText("⚠️ \"" + text + "\" is not a date (yyyy-mm-dd)");
+            return null;
+        }
+    }
+
+    private void showSelected() {
+        int row = table.getSelectedRow();
+        if (row < 0) {
+            selected = null;
+            detail.setText("");
+            return;
+        }
+        selected = index.bill(results.docs[row]);
+        detail.setText(String.join("\n", ReceiptPreview.render(selected)));
+        detail.setCaretPosition(0);
+    }
+
+    /** Result rows; customers are read from the journal only for rows that get painted. */
+    private final class ResultModel extends AbstractTableModel {
+        final int[] docs = new int[MAX_RESULTS];
+        private final String[] customers = new String[MAX_RESULTS];
+        private int count;
+
+        void show(int n) {
+            count = n;
+            Arrays.fill(customers, null);
+            fireTableDataChanged();
+        }
+
+        public int getRowCount() { return count; }
+        public int getColumnCount() { return 4; }
+
+        @Override
+        public String getColumnName(int col) {
+            switch (col) {
+                case 0:  return "Date";
+                case 1:  return "Bill";
+                case 2:  return "Customer";
+                default: return "Total (₹)";
+            }
+        }
+
+        public Object getValueAt(int row, int col) {
+            int doc = docs[row];
+            switch (col) {
+                case 0:  return Timestamps.dateTime(index.timestamp(doc));
+                case 1:  return "#" + index.billId(doc);
+                case 2:
+                    if (customers[row] == null) customers[row] = BillSnapshot.displayCustomer(index.customer(doc));
+                    return customers[row];
+                default: return Money.format(index.grandTotal(doc));
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package smartbill;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size, lock-free latency histogram in microseconds.
+ *
+ * <p>Buckets are log-linear: every power of two is split into 8 equal
+ * sub-buckets, so any recorded value lands in a bucket at most 12.5% wide.
+ * Recording is a couple of shifts and one atomic increment, with no allocation,
+ * so it is cheap enough to wrap every user action and every EDT event.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 3, SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sumMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String name() { return name; }
+
+    /** Records the time elapsed since {@code startNanos} (a {@link System#nanoTime()} reading). */
+    public void recordSince(long startNanos) {
+        record((System.nanoTime() - startNanos) / 1_000);
+    }
+
+    public void record(long micros) {
+        if (micros < 0) micros = 0;
+        counts.incrementAndGet(bucket(micros));
+        count.incrementAndGet();
+        sumMicros.addAndGet(micros);
+        long max;
+        while (micros > (max = maxMicros.get()) && !maxMicros.compareAndSet(max, micros)) { }
+    }
+
+    /** Runs {@code action} and records how long it took, even if it throws. */
+    public void time(Runnable action) {
+        long t0 = System.nanoTime();
+        try {
+            action.run();
+        } finally {
+            recordSince(t0);
+        }
+    }
+
+    public long count() { return count.get(); }
+    public long maxMicros() { return maxMicros.get(); }
+
+    public long meanMicros() {
+        long n = count.get();
+        return n == 0 ? 0 : sumMicros.get() / n;
+    }
+
+    /** Upper bound of the bucket holding the {@code q}-quantile (0..1), capped at the maximum seen. */
+    public long percentileMicros(double q) {
+        long n = count.get();
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(q * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(lowerBound(i + 1) - 1, maxMicros.get());
+        }
+        return maxMicros.get();
+    }
+
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exp = 63 - Long.numberOfLeadingZeros(value);
+        return (exp - SUB_BITS + 1) * SUB_BUCKETS + (int) ((value >>> (exp - SUB_BITS)) & (SUB_BUCKETS - 1));
+    }
+
+    static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int exp = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        if (exp >= 63) return Long.MAX_VALUE;
+        return (SUB_BUCKETS + sub) << (exp - SUB_BITS);
+    }
+}
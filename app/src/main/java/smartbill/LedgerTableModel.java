@@ -0,0 +1,103 @@
+package smartbill;
+
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Bill table model that reads straight from a {@link BillLedger}.
+ *
+ * <p>No row objects are kept: the ledger's columns are the storage and a cell
+ * is formatted only when the table asks for it, which is just for the rows
+ * currently on screen. Callers report changes row-precisely through the
+ * {@code lines*} methods so the table repaints only what moved. With a
+ * {@link LineEditor} set, the item, price and quantity cells are editable.
+ */
+public class LedgerTableModel extends AbstractTableModel {
+
+    public static final int COL_ITEM = 0, COL_PRICE = 1, COL_QTY = 2, COL_TOTAL = 3;
+    private static final String[] COLUMNS = {"Item", "Price", "Qty", "Total"};
+
+    private final BillLedger ledger;
+    private LineEditor editor; // null: read-only
+
+    /** Applies a cell edit (the text or number typed) to the bill and reports the change. */
+    public interface LineEditor {
+        void edit(int row, int column, Object value);
+    }
+
+    public LedgerTableModel(BillLedger ledger) {
+        this.ledger = ledger;
+    }
+
+    public void setEditor(LineEditor editor) {
+        this.editor = editor;
+    }
+
+    // --- Change Notification ---
+
+    /** Rows {@code first..last} were appended or inserted. */
+    public void linesInserted(int first, int last) {
+        fireTableRowsInserted(first, last);
+    }
+
+    /** Rows {@code first..last} (in the numbering before removal) are gone. */
+    public void linesDeleted(int first, int last) {
+        fireTableRowsDeleted(first, last);
+    }
+
+    public void lineUpdated(int row) {
+        fireTableRowsUpdated(row, row);
+    }
+
+    /** Rows {@code first..last} changed in place (e.g. quantities merged by an import). */
+    public void linesUpdated(int first, int last) {
+        fireTableRowsUpdated(first, last);
+    }
+
+    /** Anything may have changed (e.g. an undo that moved many rows). */
+    public void linesChanged() {
+        fireTableDataChanged();
+    }
+
+    // --- TableModel ---
+
+    @Override
+    public int getRowCount() {
+        return ledger.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == COL_QTY ? Integer.class : String.class;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        switch (column) {
+            case COL_ITEM:  return ledger.name(row);
+            case COL_PRICE: return Money.format(ledger.price(row));
+            case COL_QTY:   return ledger.quantity(row);
+            case COL_TOTAL: return Money.format(ledger.total(row));
+            default: throw new IndexOutOfBoundsException("Column " + column);
+        }
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return editor != null && column != COL_TOTAL;
+    }
+
+    @Override
+    public void setValueAt(Object value, int row, int column) {
+        if (editor != null) editor.edit(row, column, value);
+    }
+}
@@ -0,0 +1,185 @@
+package smartbill;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Line items read in bulk from a CSV file or a spreadsheet paste, parsed and
+ * checked off the EDT and then added to a bill in one batch
+ * ({@link BillingEngine#addLines}).
+ *
+ * <p>Rows are {@code item,price[,qty]} (quantity 1 when left out), separated by
+ * commas or, as spreadsheets copy them, by tabs. A header row may name the
+ * columns in any order ({@code item}/{@code name}, {@code price}/{@code rate},
+ * {@code qty}/{@code quantity}), so the CSV written by {@link BillExporters}
+ * imports too. Bad rows are skipped and listed; they never stop the rest.
+ */
+public final class LineItemImport {
+
+    /** Problems listed one by one; past this only the count goes up. */
+    public static final int MAX_LISTED_ERRORS = 200;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private String[] names = new String[INITIAL_CAPACITY];
+    private long[] prices = new long[INITIAL_CAPACITY];
+    private int[] quantities = new int[INITIAL_CAPACITY];
+    private int size;
+    private final List<String> errors = new ArrayList<>();
+    private int errorCount;
+
+    // Column positions; the defaults hold until a header says otherwise
+    private int itemCol = 0, priceCol = 1, qtyCol = 2;
+
+    private LineItemImport() {}
+
+    public static LineItemImport read(Path file) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return read(in);
+        }
+    }
+
+    /** Parses pasted text (e.g. cells copied from a spreadsheet). */
+    public static LineItemImport parse(String text) {
+        try {
+            return read(new StringReader(text));
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // A StringReader does not fail
+        }
+    }
+
+    public static LineItemImport read(Reader reader) throws IOException {
+        BufferedReader in = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        LineItemImport batch = new LineItemImport();
+        List<String> fields = new ArrayList<>(8);
+        String line;
+        int lineNo = 0;
+        boolean first = true;
+        while ((line = in.readLine()) != null) {
+            lineNo++;
+            if (first && line.startsWith("\uFEFF")) line = line.substring(1); // Excel's UTF-8 byte order mark
+            if (line.trim().isEmpty()) continue;
+            split(line, fields);
+            if (first) {
+                first = false;
+                if (batch.readHeader(lineNo, fields)) continue;
+            }
+            batch.readRow(lineNo, fields);
+        }
+        return batch;
+    }
+
+    // --- PARSING ---
+
+    /** Tab-separated when the line has a tab (a spreadsheet paste), CSV otherwise. */
+    private static void split(String line, List<String> out) {
+        if (line.indexOf('\t') < 0) {
+            Csv.split(line, out);
+            return;
+        }
+        out.clear();
+        int start = 0;
+        for (int tab; (tab = line.indexOf('\t', start)) >= 0; start = tab + 1) out.add(line.substring(start, tab));
+        out.add(line.substring(start));
+    }
+
+    /** Takes the column layout from a header row; false if the row is data. */
+    private boolean readHeader(int lineNo, List<String> fields) {
+        int item = -1, price = -1, qty = -1;
+        for (int i = 0; i < fields.size(); i++) {
+            switch (fields.get(i).trim().toLowerCase(Locale.ROOT)) {
+                case "item": case "name": case "item name": case "product": case "description":
+                    if (item < 0) item = i;
+                    break;
+                case "price": case "rate": case "unit price": case "mrp":
+                    if (price < 0) price = i;
+                    break;
+                case "qty": case "quantity":
+                    if (qty < 0) qty = i;
+                    break;
+                default:
+            }
+        }
+        if (item < 0 && price < 0) return false;
+        if (item < 0 || price < 0) {
+            error(lineNo, "header names " + (item < 0 ? "no item column" : "no price column"));
+            itemCol = priceCol = -1; // Every row would be misread
+            return true;
+        }
+        itemCol = item;
+        priceCol = price;
+        qtyCol = qty; // -1: every line is one unit
+        return true;
+    }
+
+    private void readRow(int lineNo, List<String> fields) {
+        if (itemCol < 0) return;
+        if (fields.size() <= Math.max(itemCol, priceCol)) {
+            error(lineNo, "expected item and price, found " + fields.size() + " column(s)");
+            return;
+        }
+        String name = fields.get(itemCol).trim();
+        if (name.isEmpty()) {
+            error(lineNo, "item name is empty");
+            return;
+        }
+        String priceText = fields.get(priceCol).trim();
+        if (priceText.startsWith("₹")) priceText = priceText.substring(1);
+        long price;
+        try {
+            price = Money.parse(priceText);
+        } catch (NumberFormatException | ArithmeticException e) {
+            error(lineNo, "price \"" + fields.get(priceCol).trim() + "\" is not an amount");
+            return;
+        }
+        String qtyText = qtyCol >= 0 && qtyCol < fields.size() ? fields.get(qtyCol).trim() : "";
+        int qty;
+        try {
+            qty = qtyText.isEmpty() ? 1 : Integer.parseInt(qtyText);
+        } catch (NumberFormatException e) {
+            error(lineNo, "quantity \"" + qtyText + "\" is not a whole number");
+            return;
+        }
+        if (price <= 0 || qty <= 0) {
+            error(lineNo, "price and quantity must be positive");
+            return;
+        }
+        add(name, price, qty);
+    }
+
+    private void add(String name, long price, int qty) {
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            prices = Arrays.copyOf(prices, size * 2);
+            quantities = Arrays.copyOf(quantities, size * 2);
+        }
+        names[size] = name;
+        prices[size] = price;
+        quantities[size++] = qty;
+    }
+
+    private void error(int lineNo, String problem) {
+        if (errorCount++ < MAX_LISTED_ERRORS) errors.add("Line " + lineNo + ": " + problem);
+    }
+
+    // --- Accessors ---
+
+    /** Lines that passed the checks. */
+    public int size() { return size; }
+    public String name(int i) { return names[i]; }
+    public long price(int i) { return prices[i]; }
+    public int quantity(int i) { return quantities[i]; }
+
+    /** Rows skipped, including those not listed in {@link #errors}. */
+    public int errorCount() { return errorCount; }
+    /** The first {@link #MAX_LISTED_ERRORS} problems, e.g. "Line 12: price "abc" is not an amount". */
+    public List<String> errors() { return errors; }
+}
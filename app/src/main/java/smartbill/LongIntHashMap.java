@@ -0,0 +1,106 @@
+package smartbill;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from {@code long} keys to non-negative {@code int}
+ * values, with linear probing over two flat primitive arrays (no boxing, no
+ * per-entry objects). Used for SKU/barcode and line-identity lookups.
+ */
+public final class LongIntHashMap {
+
+    public static final int MISSING = -1;
+
+    private long[] keys;
+    private int[] values;   // value + 1, so 0 marks a free slot
+    private int mask, size, resizeAt;
+
+    public LongIntHashMap(int expected) {
+        int cap = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+        allocate(cap);
+    }
+
+    private void allocate(int cap) {
+        keys = new long[cap];
+        values = new int[cap];
+        mask = cap - 1;
+        resizeAt = cap / 2; // Load factor 0.5 keeps probe chains short
+    }
+
+    /** @return the value for {@code key}, or {@link #MISSING} */
+    public int get(long key) {
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            int v = values[i];
+            if (v == 0) return MISSING;
+            if (keys[i] == key) return v - 1;
+        }
+    }
+
+    /** Maps {@code key} to {@code value} (which must be >= 0), replacing any previous value. */
+    public void put(long key, int value) {
+        if (value < 0) throw new IllegalArgumentException("Negative value: " + value);
+        int i = slot(key);
+        for (; values[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                values[i] = value + 1;
+                return;
+            }
+        }
+        keys[i] = key;
+        values[i] = value + 1;
+        if (++size >= resizeAt) rehash(keys.length * 2);
+    }
+
+    /** Removes {@code key}, shifting back later entries of its probe chain (no tombstones). */
+    public void remove(long key) {
+        int i = slot(key);
+        while (true) {
+            if (values[i] == 0) return;
+            if (keys[i] == key) break;
+            i = (i + 1) & mask;
+        }
+        size--;
+        int gap = i;
+        for (int j = (gap + 1) & mask; values[j] != 0; j = (j + 1) & mask) {
+            int home = slot(keys[j]);
+            // Move j into the gap unless its home lies cyclically in (gap, j]
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        values[gap] = 0;
+    }
+
+    public void clear() {
+        Arrays.fill(values, 0);
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void rehash(int cap) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(cap);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] == 0) continue;
+            int j = slot(oldKeys[i]);
+            while (values[j] != 0) j = (j + 1) & mask;
+            keys[j] = oldKeys[i];
+            values[j] = oldValues[i];
+        }
+    }
+
+    private int slot(long key) {
+        // Stafford variant 13 mix: spreads sequential SKUs across the table
+        long h = key;
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        h = h ^ (h >>> 31);
+        return (int) h & mask;
+    }
+}
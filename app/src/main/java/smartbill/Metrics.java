@@ -0,0 +1,204 @@
+package smartbill;
+
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide metrics: latency histograms per user action, counters, and a
+ * short log of recent EDT stalls and errors.
+ *
+ * <p>Callers keep the {@link LatencyHistogram} or counter name they use in a
+ * constant; recording never blocks and never allocates. The numbers are shown
+ * in the Diagnostics tab, rewritten to {@code ~/.smartbill/metrics.txt} once a
+ * minute and exposed over JMX (see {@link MetricsMXBean}).
+ */
+public final class Metrics {
+
+    // --- Counter names ---
+    public static final String ITEMS_ADDED = "items.added";
+    public static final String ITEMS_SCANNED = "items.scanned";
+    public static final String ITEMS_REMOVED = "items.removed";
+    public static final String BILLS_COMMITTED = "bills.committed";
+    public static final String BILLS_PARKED = "bills.parked";
+    public static final String EXPORTS_PDF = "exports.pdf";
+    public static final String EXPORTS_FAILED = "exports.failed";
+    public static final String PRINTS = "prints";
+    public static final String ERRORS = "errors";
+    public static final String EDT_STALLS = "edt.stalls";
+
+    private static final int MAX_EVENTS = 50;
+    private static final long REPORT_PERIOD_SECONDS = 60;
+
+    private static final ConcurrentMap<String, LatencyHistogram> timers = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private static final ArrayDeque<String> events = new ArrayDeque<>();
+    private static final long startMillis = System.currentTimeMillis();
+    private static ScheduledExecutorService reporter;
+
+    private Metrics() {}
+
+    /** The histogram registered under {@code name}, created on first use. */
+    public static LatencyHistogram timer(String name) {
+        return timers.computeIfAbsent(name, LatencyHistogram::new);
+    }
+
+    public static void count(String name) {
+        count(name, 1);
+    }
+
+    public static void count(String name, long n) {
+        counters.computeIfAbsent(name, k -> new LongAdder()).add(n);
+    }
+
+    public static long counter(String name) {
+        LongAdder c = counters.get(name);
+        return c == null ? 0 : c.sum();
+    }
+
+    /** Counts an error, keeps it in the recent-events log and prints its stack trace to stderr. */
+    public static void error(String where, Throwable error) {
+        error.printStackTrace();
+        count(ERRORS);
+        event("ERROR " + where + ": " + error);
+    }
+
+    /** Adds a line (or block) to the recent-events log, dropping the oldest beyond {@value #MAX_EVENTS}. */
+    public static void event(String text) {
+        String stamped = Timestamps.clock(System.currentTimeMillis()) + "  " + text;
+        synchronized (events) {
+            if (events.size() == MAX_EVENTS) events.removeFirst();
+            events.addLast(stamped);
+        }
+    }
+
+    public static String[] recentEvents() {
+        synchronized (events) {
+            return events.toArray(new String[0]);
+        }
+    }
+
+    // --- Snapshots ---
+
+    /** Latency summary of one timer, in microseconds. Getters make it a JMX composite. */
+    public static final class TimerSummary {
+        private final String name;
+        private final long count, meanMicros, p50Micros, p99Micros, maxMicros;
+
+        TimerSummary(LatencyHistogram h) {
+            name = h.name();
+            count = h.count();
+            meanMicros = h.meanMicros();
+            p50Micros = h.percentileMicros(0.50);
+            p99Micros = h.percentileMicros(0.99);
+            maxMicros = h.maxMicros();
+        }
+
+        public String getName() { return name; }
+        public long getCount() { return count; }
+        public long getMeanMicros() { return meanMicros; }
+        public long getP50Micros() { return p50Micros; }
+        public long getP99Micros() { return p99Micros; }
+        public long getMaxMicros() { return maxMicros; }
+    }
+
+    public static TimerSummary[] timerSummaries() {
+        TreeMap<String, LatencyHistogram> sorted = new TreeMap<>(timers);
+        TimerSummary[] out = new TimerSummary[sorted.size()];
+        int i = 0;
+        for (LatencyHistogram h : sorted.values()) out[i++] = new TimerSummary(h);
+        return out;
+    }
+
+    public static Map<String, Long> counterValues() {
+        TreeMap<String, Long> out = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> e : counters.entrySet()) out.put(e.getKey(), e.getValue().sum());
+        return out;
+    }
+
+    /** Plain-text report of everything recorded so far. */
+    public static String report() {
+        StringWriter text = new StringWriter();
+        PrintWriter out = new PrintWriter(text);
+        out.printf("SmartBill metrics at %s (up since %s)%n%n",
+            Timestamps.dateTime(System.currentTimeMillis()), Timestamps.dateTime(startMillis));
+
+        out.printf("%-26s %8s %9s %9s %9s %9s%n", "Latency (ms)", "count", "mean", "p50", "p99", "max");
+        for (TimerSummary t : timerSummaries()) {
+            out.printf("%-26s %8d %9.2f %9.2f %9.2f %9.2f%n", t.name, t.count,
+                t.meanMicros / 1e3, t.p50Micros / 1e3, t.p99Micros / 1e3, t.maxMicros / 1e3);
+        }
+
+        out.printf("%n%-26s %8s%n", "Counter", "value");
+        for (Map.Entry<String, Long> e : counterValues().entrySet()) {
+            out.printf("%-26s %8d%n", e.getKey(), e.getValue());
+        }
+
+        String[] recent = recentEvents();
+        out.printf("%nRecent events (%d)%n", recent.length);
+        for (int i = recent.length - 1; i >= 0; i--) out.println(recent[i]); // Newest first
+        out.flush();
+        return text.toString();
+    }
+
+    // --- Publishing ---
+
+    /**
+     * Registers the JMX bean and starts rewriting {@code file} every minute
+     * (and once more at shutdown). Safe to call once at start-up.
+     */
+    public static synchronized void startPublishing(Path file) {
+        if (reporter != null) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new Bean(), new ObjectName("smartbill:type=Metrics"));
+        } catch (Exception e) {
+            error("JMX registration", e); // Metrics still go to the tab and the file
+        }
+        reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-writer");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        reporter.scheduleAtFixedRate(() -> writeReport(file), REPORT_PERIOD_SECONDS, REPORT_PERIOD_SECONDS, TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> writeReport(file), "metrics-final"));
+    }
+
+    public static Path defaultFile() {
+        return AppPaths.resolve("metrics.txt");
+    }
+
+    /** Writes the report beside {@code file} and moves it into place, so readers never see half a file. */
+    static void writeReport(Path file) {
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(tmp, report().getBytes(StandardCharsets.UTF_8));
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Metrics file not written: " + e); // Never loops back into error()
+        }
+    }
+
+    private static final class Bean implements MetricsMXBean {
+        public Map<String, Long> getCounters() { return counterValues(); }
+        public TimerSummary[] getTimers() { return timerSummaries(); }
+        public String[] getRecentEvents() { return recentEvents(); }
+        public String getReport() { return report(); }
+    }
+}
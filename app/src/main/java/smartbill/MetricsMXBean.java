@@ -0,0 +1,22 @@
+package smartbill;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link Metrics}, registered as {@code smartbill:type=Metrics}.
+ * Open it in JConsole / VisualVM to watch a running till.
+ */
+public interface MetricsMXBean {
+
+    /** Every counter by name (items, bills, exports, errors, EDT stalls). */
+    Map<String, Long> getCounters();
+
+    /** Latency summary of every timed action. */
+    Metrics.TimerSummary[] getTimers();
+
+    /** Recent EDT stalls (with the stack that was running) and errors, newest last. */
+    String[] getRecentEvents();
+
+    /** The same text the diagnostics tab and the metrics file show. */
+    String getReport();
+}
@@ -0,0 +1,232 @@
+package smartbill;
+
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point money arithmetic.
+ * Amounts are {@code long} paise (1/100 rupee) and rates are basis points
+ * (1/100 of a percent, so 18% = 1800). Every operation works on primitives
+ * and rounds explicitly, so totals are exact no matter how many lines a bill has.
+ */
+public final class Money {
+
+    public static final long PAISE_PER_RUPEE = 100;
+    public static final int BPS_PER_PERCENT = 100;
+    public static final int BPS_WHOLE = 100 * BPS_PER_PERCENT; // 100% in basis points
+
+    /** Rounding used for rate-derived amounts unless a caller asks otherwise. */
+    public static final RoundingMode DEFAULT_ROUNDING = RoundingMode.HALF_UP;
+
+    private Money() {}
+
+    // --- ARITHMETIC ---
+
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    public static long subtract(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    /** Unit price times quantity (exact, overflow-checked). */
+    public static long times(long paise, int qty) {
+        return Math.multiplyExact(paise, (long) qty);
+    }
+
+    /** {@code bps} basis points of {@code amount}, rounded with {@link #DEFAULT_ROUNDING}. */
+    public static long percent(long amount, int bps) {
+        return percent(amount, bps, DEFAULT_ROUNDING);
+    }
+
+    /** {@code bps} basis points of {@code amount}, rounded with the given mode. */
+    public static long percent(long amount, int bps, RoundingMode mode) {
+        return divide(Math.multiplyExact(amount, (long) bps), BPS_WHOLE, mode);
+    }
+
+    /**
+     * Integer division with an explicit rounding mode (same semantics as
+     * {@link java.math.BigDecimal} rounding, without the allocation).
+     */
+    public static long divide(long num, long den, RoundingMode mode) {
+        if (den == 0) throw new ArithmeticException("Division by zero");
+        long q = num / den;
+        long r = num % den;
+        if (r == 0) return q;
+
+        int sign = ((num ^ den) < 0) ? -1 : 1; // Sign of the exact quotient
+        long twiceR = Math.abs(r) * 2;          // |r| < |den| so this cannot overflow for den <= 2^62
+        long absDen = Math.abs(den);
+        boolean awayFromZero;
+        switch (mode) {
+            case UP:        awayFromZero = true; break;
+            case DOWN:      awayFromZero = false; break;
+            case CEILING:   awayFromZero = sign > 0; break;
+            case FLOOR:     awayFromZero = sign < 0; break;
+            case HALF_UP:   awayFromZero = twiceR >= absDen; break;
+            case HALF_DOWN: awayFromZero = twiceR > absDen; break;
+            case HALF_EVEN: awayFromZero = twiceR > absDen || (twiceR == absDen && (q & 1) != 0); break;
+            case UNNECESSARY:
+            default:
+                throw new ArithmeticException("Rounding necessary for " + num + "/" + den);
+        }
+        return awayFromZero ? q + sign : q;
+    }
+
+    // --- PARSING ---
+
+    /** Parses a rupee amount such as "12", "12.5" or "1,234.56" into paise. */
+    public static long parse(String text) {
+        return parseScaled(text, 2);
+    }
+
+    /** Parses a percentage such as "18" or "12.5" into basis points. */
+    public static int parseRate(String text) {
+        long bps = parseScaled(text, 2);
+        if (bps > Integer.MAX_VALUE || bps < Integer.MIN_VALUE) throw new NumberFormatException("Rate out of range: " + text);
+        return (int) bps;
+    }
+
+    /**
+     * Parses a plain decimal into a long scaled by 10^scale.
+     * Extra fraction digits are rounded half-up; anything that is not a number is rejected.
+     */
+    private static long parseScaled(String text, int scale) {
+        if (text == null) throw new NumberFormatException("null");
+        String s = text.trim();
+        int len = s.length();
+        int i = 0;
+        boolean negative = false;
+        if (i < len && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+            negative = s.charAt(i) == '-';
+            i++;
+        }
+        long whole = 0, frac = 0;
+        int fracDigits = 0, digits = 0;
+        boolean inFraction = false, roundUp = false;
+        for (; i < len; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits++;
+                if (!inFraction) {
+                    whole = Math.addExact(Math.multiplyExact(whole, 10), c - '0');
+                } else if (fracDigits < scale) {
+                    frac = frac * 10 + (c - '0');
+                    fracDigits++;
+                } else if (fracDigits == scale) {
+                    roundUp = c >= '5'; // First dropped digit decides half-up
+                    fracDigits++;
+                }
+            } else if (c == '.' && !inFraction) {
+                inFraction = true;
+            } else if (c == ',' && !inFraction && digits > 0) {
+                // Grouping separator, ignore
+            } else {
+                throw new NumberFormatException("Not a number: " + text);
+            }
+        }
+        if (digits == 0) throw new NumberFormatException("Not a number: " + text);
+
+        for (int k = Math.min(fracDigits, scale); k < scale; k++) frac *= 10;
+        long scaled = Math.addExact(Math.multiplyExact(whole, pow10(scale)), frac);
+        if (roundUp) scaled = Math.addExact(scaled, 1);
+        return negative ? -scaled : scaled;
+    }
+
+    private static long pow10(int n) {
+        long p = 1;
+        for (int i = 0; i < n; i++) p *= 10;
+        return p;
+    }
+
+    // --- FORMATTING ---
+
+    /** Formats paise as "#,##0.00" (e.g. 123456 -> "1,234.56"). */
+    public static String format(long paise) {
+        return appendFormatted(new StringBuilder(formattedLength(paise)), paise).toString();
+    }
+
+    /**
+     * Appends {@code paise} as "#,##0.00" without creating any intermediate
+     * object: the digits are written straight into {@code sb} (which only
+     * allocates if it has to grow). Safe from any thread for distinct builders.
+     */
+    public static StringBuilder appendFormatted(StringBuilder sb, long paise) {
+        return fill(sb, paise, true);
+    }
+
+    /** Appends {@code paise} as plain "0.00" without grouping (e.g. 123456 -> "1234.56"), for machine-readable output. */
+    public static StringBuilder appendPlain(StringBuilder sb, long paise) {
+        return fill(sb, paise, false);
+    }
+
+    /** Formats paise without grouping (e.g. 123456 -> "1234.56"), for machine-readable output. */
+    public static String formatPlain(long paise) {
+        return appendPlain(new StringBuilder(plainLength(paise)), paise).toString();
+    }
+
+    /** Length of {@link #format(long)}'s output, for padding columns without formatting twice. */
+    public static int formattedLength(long paise) {
+        int digits = rupeeDigits(paise);
+        return (paise < 0 ? 1 : 0) + digits + (digits - 1) / 3 + 3;
+    }
+
+    private static int plainLength(long paise) {
+        return (paise < 0 ? 1 : 0) + rupeeDigits(paise) + 3;
+    }
+
+    /** Digits in the whole-rupee part (at least 1). */
+    private static int rupeeDigits(long paise) {
+        // Work on the negative value so Long.MIN_VALUE formats correctly
+        long rupees = (paise < 0 ? paise : -paise) / PAISE_PER_RUPEE;
+        int n = 1;
+        while (rupees <= -10) {
+            rupees /= 10;
+            n++;
+        }
+        return n;
+    }
+
+    /** Reserves the exact length, then writes the characters back to front. */
+    private static StringBuilder fill(StringBuilder sb, long paise, boolean grouped) {
+        int len = grouped ? formattedLength(paise) : plainLength(paise);
+        int pos = sb.length() + len;
+        sb.setLength(pos);
+        long neg = paise < 0 ? paise : -paise;
+        int fraction = (int) -(neg % PAISE_PER_RUPEE);
+        long rupees = neg / PAISE_PER_RUPEE; // <= 0
+        sb.setCharAt(--pos, (char) ('0' + fraction % 10));
+        sb.setCharAt(--pos, (char) ('0' + fraction / 10));
+        sb.setCharAt(--pos, '.');
+        int written = 0;
+        do {
+            if (grouped && written > 0 && written % 3 == 0) sb.setCharAt(--pos, ',');
+            sb.setCharAt(--pos, (char) ('0' - (rupees % 10)));
+            rupees /= 10;
+            written++;
+        } while (rupees != 0);
+        if (paise < 0) sb.setCharAt(--pos, '-');
+        return sb;
+    }
+
+    /** Formats basis points as an exact percentage without trailing zeros (e.g. 1800 -> "18", 1225 -> "12.25"). */
+    public static String formatRatePlain(int bps) {
+        long abs = Math.abs((long) bps);
+        StringBuilder sb = new StringBuilder(8);
+        if (bps < 0) sb.append('-');
+        sb.append(abs / BPS_PER_PERCENT);
+        int frac = (int) (abs % BPS_PER_PERCENT);
+        if (frac != 0) {
+            sb.append('.').append((char) ('0' + frac / 10));
+            if (frac % 10 != 0) sb.append((char) ('0' + frac % 10));
+        }
+        return sb.toString();
+    }
+
+    /** Formats basis points as a percentage with one decimal (e.g. 1250 -> "12.5"). */
+    public static String formatRate(int bps) {
+        long tenths = divide(bps, 10, DEFAULT_ROUNDING);
+        long abs = Math.abs(tenths);
+        return (tenths < 0 ? "-" : "") + (abs / 10) + "." + (abs % 10);
+    }
+}
@@ -0,0 +1,133 @@
+package smartbill;
+
+import javax.swing.SwingUtilities;
+import java.io.File;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes invoice PDFs on a background thread.
+ * Jobs work from a {@link BillSnapshot}, are written through
+ * {@link InvoicePdfRenderer#writeFile} (buffered channel, moved into place on
+ * success) and report back on the EDT. At most {@link #MAX_PENDING} jobs may
+ * wait behind the running one.
+ */
+public class PdfExportService {
+
+    public static final int MAX_PENDING = 4;
+    private static final LatencyHistogram RENDER = Metrics.timer("pdf.render");
+
+    /** Callbacks, always delivered on the EDT. */
+    public interface Listener {
+        void progress(File target, int percent);
+        void finished(File target);
+        void cancelled(File target);
+        void failed(File target, Exception error);
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final ConcurrentLinkedQueue<Job> jobs = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger active = new AtomicInteger();
+
+    public PdfExportService() {
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(MAX_PENDING),
+            r -> {
+                Thread t = new Thread(r, "pdf-export");
+                t.setDaemon(true);
+                t.setPriority(Thread.NORM_PRIORITY - 1); // Never compete with the EDT
+                return t;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Queues an export.
+     * @throws RejectedExecutionException if {@link #MAX_PENDING} exports are already waiting
+     */
+    public void submit(BillSnapshot bill, File target, Listener listener) {
+        Job job = new Job(bill, target, listener);
+        active.incrementAndGet();
+        try {
+            executor.execute(job);
+            jobs.add(job);
+        } catch (RejectedExecutionException e) {
+            active.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /** Cancels the running export and everything queued behind it. */
+    public int cancelAll() {
+        int n = 0;
+        for (Job job; (job = jobs.poll()) != null; ) {
+            if (job.cancel(true)) n++;
+        }
+        return n;
+    }
+
+    /** Exports submitted and not yet finished, failed or cancelled. */
+    public int activeCount() {
+        return active.get();
+    }
+
+    private void run(BillSnapshot bill, File target, Listener listener) {
+        try {
+            if (Thread.currentThread().isInterrupted()) throw new CancellationException();
+            long t0 = System.nanoTime();
+            InvoicePdfRenderer.writeFile(bill, target.toPath(),
+                pct -> SwingUtilities.invokeLater(() -> listener.progress(target, pct)));
+            RENDER.recordSince(t0);
+            done(() -> listener.finished(target));
+        } catch (CancellationException e) {
+            done(() -> listener.cancelled(target));
+        } catch (Exception e) {
+            // An interrupt that surfaces as an I/O error is still a cancellation
+            if (Thread.currentThread().isInterrupted()) done(() -> listener.cancelled(target));
+            else done(() -> listener.failed(target, e));
+        } finally {
+            Thread.interrupted(); // Don't leak the interrupt into the next job
+        }
+    }
+
+    private void done(Runnable callback) {
+        active.decrementAndGet();
+        jobs.removeIf(FutureTask::isDone);
+        SwingUtilities.invokeLater(callback);
+    }
+
+    /** One queued export; reports its own cancellation if it was cancelled before it started. */
+    private final class Job extends FutureTask<Void> {
+        private final AtomicBoolean started;
+        private final File target;
+        private final Listener listener;
+
+        Job(BillSnapshot bill, File target, Listener listener) {
+            this(new AtomicBoolean(), bill, target, listener);
+        }
+
+        private Job(AtomicBoolean started, BillSnapshot bill, File target, Listener listener) {
+            super(() -> {
+                if (started.compareAndSet(false, true)) PdfExportService.this.run(bill, target, listener);
+                return null;
+            });
+            this.started = started;
+            this.target = target;
+            this.listener = listener;
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled() && started.compareAndSet(false, true)) {
+                PdfExportService.this.done(() -> listener.cancelled(target));
+            }
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package smartbill;
+
+import java.io.BufferedReader;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only product catalog served straight from a memory-mapped file.
+ *
+ * <p>Entries are stored sorted by name (ASCII case-folded), as parallel
+ * columns: SKU, price in paise, category id and an offset into one UTF-8
+ * name blob. Opening the file maps it and creates typed views, so nothing is
+ * parsed into objects; a prefix lookup is a binary search over the offsets
+ * followed by a short forward scan. Barcode/SKU lookups go through a
+ * primitive hash index built once when the file is opened.
+ *
+ * <pre>
+ * header  : magic:int version:int count:int nameBytes:int categoryCount:int reserved:int
+ * columns : sku:long[count] price:long[count] category:int[count] nameOffset:int[count + 1]
+ * blobs   : names:byte[nameBytes] categories:(len:short utf8)[categoryCount]
+ * </pre>
+ *
+ * Build one from CSV ({@code sku,name,price[,category]}) with
+ * {@code java -cp smartbill.jar smartbill.ProductCatalog compile products.csv catalog.bin}.
+ */
+public final class ProductCatalog {
+
+    private static final int MAGIC = 0x53424331; // "SBC1"
+    private static final int VERSION = 1;
+    private static final int HEADER = 24; // Keeps the long columns 8-byte aligned
+
+    private final int count;
+    private final LongBuffer skus, prices;
+    private final IntBuffer categories, nameOffsets;
+    private final ByteBuffer names;
+    private final String[] categoryNames;
+    private final LongIntHashMap bySku;
+
+    private ProductCatalog(ByteBuffer file) throws IOException {
+        if (file.getInt(0) != MAGIC || file.getInt(4) != VERSION) throw new IOException("Not a SmartBill catalog");
+        count = file.getInt(8);
+        int nameBytes = file.getInt(12);
+        int categoryCount = file.getInt(16);
+
+        int pos = HEADER;
+        skus = view(file, pos, count * 8).asLongBuffer();           pos += count * 8;
+        prices = view(file, pos, count * 8).asLongBuffer();         pos += count * 8;
+        categories = view(file, pos, count * 4).asIntBuffer();      pos += count * 4;
+        nameOffsets = view(file, pos, (count + 1) * 4).asIntBuffer(); pos += (count + 1) * 4;
+        names = view(file, pos, nameBytes);                         pos += nameBytes;
+
+        categoryNames = new String[categoryCount];
+        ByteBuffer cats = file.duplicate();
+        cats.position(pos);
+        for (int i = 0; i < categoryCount; i++) {
+            byte[] b = new byte[cats.getShort() & 0xFFFF];
+            cats.get(b);
+            categoryNames[i] = new String(b, StandardCharsets.UTF_8);
+        }
+
+        bySku = new LongIntHashMap(count);
+        for (int row = 0; row < count; row++) bySku.put(skus.get(row), row);
+    }
+
+    private static ByteBuffer view(ByteBuffer file, int pos, int len) {
+        ByteBuffer b = file.duplicate();
+        b.limit(pos + len).position(pos);
+        return b.slice();
+    }
+
+    /** Maps a compiled catalog file. */
+    public static ProductCatalog open(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            return new ProductCatalog(map);
+        }
+    }
+
+    /** Default location: {@code catalog.bin} under {@link AppPaths#home()}. */
+    public static Path defaultPath() {
+        return AppPaths.resolve("catalog.bin");
+    }
+
+    // --- LOOKUP ---
+
+    public int size() { return count; }
+    public long sku(int row) { return skus.get(row); }
+    public long price(int row) { return prices.get(row); }
+    public int category(int row) { return categories.get(row); }
+    public String categoryName(int id) { return categoryNames[id]; }
+    public int categoryCount() { return categoryNames.length; }
+
+    /** @return the row carrying {@code sku}, or -1 if the catalog has none */
+    public int findSku(long sku) {
+        return bySku.get(sku);
+    }
+
+    public String name(int row) {
+        int start = nameOffsets.get(row), end = nameOffsets.get(row + 1);
+        byte[] b = new byte[end - start];
+        ByteBuffer v = names.duplicate();
+        v.position(start);
+        v.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Finds entries whose name starts with {@code prefix} (ASCII case-insensitive).
+     * @return the number of rows written to {@code out}, in name order
+     */
+    public int prefixSearch(String prefix, int[] out) {
+        if (prefix.isEmpty() || out.length == 0) return 0;
+        byte[] key = prefix.getBytes(StandardCharsets.UTF_8);
+
+        // Lower bound: first row whose name is >= prefix
+        int lo = 0, hi = count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (comparePrefix(mid, key) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        int n = 0;
+        for (int row = lo; row < count && n < out.length && comparePrefix(row, key) == 0; row++) {
+            out[n++] = row;
+        }
+        return n;
+    }
+
+    /**
+     * Finds the entry named exactly {@code name} (ASCII case-insensitive).
+     * @return its row, or -1 if there is none
+     */
+    public int findName(String name) {
+        if (name.isEmpty()) return -1;
+        byte[] key = name.getBytes(StandardCharsets.UTF_8);
+        int lo = 0, hi = count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (comparePrefix(mid, key) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        // Rows sharing the prefix come shortest first, so the first one is the only candidate
+        return (lo < count && comparePrefix(lo, key) == 0
+            && nameOffsets.get(lo + 1) - nameOffsets.get(lo) == key.length) ? lo : -1;
+    }
+
+    /** Compares a row's name against {@code key}, treating a name that starts with key as equal. */
+    private int comparePrefix(int row, byte[] key) {
+        int start = nameOffsets.get(row), end = nameOffsets.get(row + 1);
+        int len = Math.min(end - start, key.length);
+        for (int i = 0; i < len; i++) {
+            int a = fold(names.get(start + i)), b = fold(key[i]);
+            if (a != b) return a - b;
+        }
+        return (end - start) < key.length ? -1 : 0;
+    }
+
+    private static int fold(byte b) {
+        int c = b & 0xFF;
+        return (c >= 'A' && c <= 'Z') ? c + 32 : c;
+    }
+
+    private static int compareNames(byte[] x, byte[] y) {
+        int len = Math.min(x.length, y.length);
+        for (int i = 0; i < len; i++) {
+            int a = fold(x[i]), b = fold(y[i]);
+            if (a != b) return a - b;
+        }
+        return x.length - y.length;
+    }
+
+    // --- COMPILING ---
+
+    /**
+     * Compiles a {@code sku,name,price[,category]} CSV (optional header row) into catalog format.
+     * @return the number of products written
+     */
+    public static int compile(Path csv, Path out) throws IOException {
+        List<long[]> numbers = new ArrayList<>();   // {sku, price, category}
+        List<byte[]> nameList = new ArrayList<>();
+        Map<String, Integer> categoryIds = new HashMap<>();
+        List<String> categoryList = new ArrayList<>();
+        categoryList.add("");
+        categoryIds.put("", 0);
+
+        List<String> fields = new ArrayList<>(4);
+        try (BufferedReader in = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNo = 0;
+            while ((line = in.readLine()) != null) {
+                lineNo++;
+                if (line.trim().isEmpty()) continue;
+                Csv.split(line, fields);
+                if (lineNo == 1 && "sku".equalsIgnoreCase(fields.get(0).trim())) continue;
+                if (fields.size() < 3) throw new IOException("Line " + lineNo + ": expected sku,name,price[,category]");
+                String category = fields.size() > 3 ? fields.get(3).trim() : "";
+                Integer cat = categoryIds.get(category);
+                if (cat == null) {
+                    cat = categoryList.size();
+                    categoryIds.put(category, cat);
+                    categoryList.add(category);
+                }
+                try {
+                    numbers.add(new long[]{Long.parseLong(fields.get(0).trim()), Money.parse(fields.get(2)), cat});
+                } catch (NumberFormatException e) {
+                    throw new IOException("Line " + lineNo + ": " + e.getMessage());
+                }
+                nameList.add(fields.get(1).trim().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        int n = nameList.size();
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> compareNames(nameList.get(a), nameList.get(b)));
+
+        int nameBytes = 0;
+        for (byte[] b : nameList) nameBytes += b.length;
+
+        Path tmp = out.resolveSibling(out.getFileName() + ".tmp");
+        try (OutputStream os = Files.newOutputStream(tmp);
+             DataOutputStream data = new DataOutputStream(new BufferedOutputStream(os, 1 << 16))) {
+            data.writeInt(MAGIC);
+            data.writeInt(VERSION);
+            data.writeInt(n);
+            data.writeInt(nameBytes);
+            data.writeInt(categoryList.size());
+            data.writeInt(0);
+            for (int i = 0; i < n; i++) data.writeLong(numbers.get(order[i])[0]);
+            for (int i = 0; i < n; i++) data.writeLong(numbers.get(order[i])[1]);
+            for (int i = 0; i < n; i++) data.writeInt((int) numbers.get(order[i])[2]);
+            int offset = 0;
+            for (int i = 0; i < n; i++) {
+                data.writeInt(offset);
+                offset += nameList.get(order[i]).length;
+            }
+            data.writeInt(offset);
+            for (int i = 0; i < n; i++) data.write(nameList.get(order[i]));
+            for (String c : categoryList) {
+                byte[] b = c.getBytes(StandardCharsets.UTF_8);
+                data.writeShort(b.length);
+                data.write(b);
+            }
+        }
+        Files.move(tmp, out, StandardCopyOption.REPLACE_EXISTING);
+        return n;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 3 && "compile".equals(args[0])) {
+            long t0 = System.nanoTime();
+            int n = compile(Paths.get(args[1]), Paths.get(args[2]));
+            System.out.printf("Compiled %d products into %s in %d ms%n", n, args[2], (System.nanoTime() - t0) / 1_000_000);
+        } else {
+            System.err.println("Usage: java -cp smartbill.jar smartbill.ProductCatalog compile <products.csv> <catalog.bin>");
+            System.exit(2);
+        }
+    }
+}
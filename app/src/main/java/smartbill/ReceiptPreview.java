@@ -0,0 +1,348 @@
+package smartbill;
+
+import javax.swing.Timer;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Element;
+import javax.swing.text.PlainDocument;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * Incremental renderer for the live receipt preview.
+ * The receipt lives in its own {@link PlainDocument}: a fixed header, one
+ * line per ledger row and a footer with the totals. Edits only touch the
+ * lines that changed, and any burst of changes inside one frame is merged
+ * into a single document update on the EDT.
+ */
+public class ReceiptPreview {
+
+    private static final int FRAME_MILLIS = 16;   // One flush per ~60Hz frame
+    /** Lines before the first item (title, date, customer); printing repeats them on every page. */
+    public static final int HEADER_LINES = 6;
+    private static final int DATE_LINE = 3, CUSTOMER_LINE = 4;
+    private static final String RULE = "======================================\n";
+    private static final String THIN_RULE = "--------------------------------------\n";
+
+    private final PlainDocument document = new PlainDocument();
+    private final BillLedger ledger;
+    private final Supplier<String> customerSource;
+    private final Timer frameTimer;
+    private final StringBuilder buf = new StringBuilder(256);
+
+    // --- Render State ---
+    private int renderedRows = 0;   // Item lines currently in the document
+    private int validRows = 0;      // Leading item lines known to match the ledger
+    private int[] dirtyRows = new int[16];
+    private int dirtyCount = 0;
+    private String renderedDate = "", renderedCustomer = "", renderedFooter = "";
+
+    public ReceiptPreview(BillLedger ledger, Supplier<String> customerSource) {
+        this.ledger = ledger;
+        this.customerSource = customerSource;
+        frameTimer = new Timer(FRAME_MILLIS, e -> flush());
+        frameTimer.setRepeats(false);
+        renderSkeleton();
+    }
+
+    public PlainDocument document() { return document; }
+
+    // --- CHANGE NOTIFICATIONS (EDT) ---
+
+    /** Rows were appended or totals/header changed; schedules a flush. */
+    public void invalidate() {
+        if (!frameTimer.isRunning()) frameTimer.start();
+    }
+
+    /** Every row from {@code fromRow} on may have changed (e.g. rows removed from the tail). */
+    public void rowsChangedFrom(int fromRow) {
+        validRows = Math.min(validRows, fromRow);
+        invalidate();
+    }
+
+    /** A single row was rewritten in place. */
+    public void rowUpdated(int row) {
+        if (dirtyCount == dirtyRows.length) dirtyRows = Arrays.copyOf(dirtyRows, dirtyCount * 2);
+        dirtyRows[dirtyCount++] = row;
+        invalidate();
+    }
+
+    /**
+     * A row was taken out of the middle (e.g. an undo): its one line is cut
+     * from the document and the lines after it move up unchanged.
+     */
+    public void rowRemoved(int row) {
+        if (row >= validRows) {
+            rowsChangedFrom(row);
+            return;
+        }
+        try {
+            int start = lineStart(HEADER_LINES + row);
+            document.remove(start, lineStart(HEADER_LINES + row + 1) - start);
+        } catch (BadLocationException e) {
+            throw new IllegalStateException("Preview out of sync with ledger", e);
+        }
+        renderedRows--;
+        validRows--;
+        int kept = 0;
+        for (int i = 0; i < dirtyCount; i++) {
+            if (dirtyRows[i] != row) dirtyRows[kept++] = dirtyRows[i] > row ? dirtyRows[i] - 1 : dirtyRows[i];
+        }
+        dirtyCount = kept;
+        invalidate();
+    }
+
+    /** A row was put back in the middle (e.g. an undone removal): only its line is inserted. */
+    public void rowInserted(int row) {
+        if (row > validRows) {
+            rowsChangedFrom(row);
+            return;
+        }
+        buf.setLength(0);
+        appendItemLine(row);
+        try {
+            document.insertString(lineStart(HEADER_LINES + row), buf.toString(), null);
+        } catch (BadLocationException e) {
+            throw new IllegalStateException("Preview out of sync with ledger", e);
+        }
+        renderedRows++;
+        validRows++;
+        for (int i = 0; i < dirtyCount; i++) if (dirtyRows[i] >= row) dirtyRows[i]++;
+        invalidate();
+    }
+
+    /** Applies pending changes immediately (e.g. before the text is printed). */
+    public void flushNow() {
+        frameTimer.stop();
+        flush();
+    }
+
+    /** The receipt as it stands right now, one entry per line (without line breaks). */
+    public String[] lines() {
+        flushNow();
+        Element root = document.getDefaultRootElement();
+        int n = root.getElementCount();
+        if (n > 0 && root.getElement(n - 1).getStartOffset() == document.getLength()) n--; // Empty line after the last break
+        String[] lines = new String[n];
+        try {
+            for (int i = 0; i < n; i++) {
+                Element line = root.getElement(i);
+                int start = line.getStartOffset();
+                int end = Math.min(line.getEndOffset(), document.getLength());
+                String text = document.getText(start, end - start);
+                lines[i] = text.endsWith("\n") ? text.substring(0, text.length() - 1) : text;
+            }
+        } catch (BadLocationException e) {
+            throw new IllegalStateException(e);
+        }
+        return lines;
+    }
+
+    /**
+     * The receipt of a finished bill, laid out like the live preview
+     * (e.g. to show or reprint an invoice found in the journal).
+     */
+    public static String[] render(BillSnapshot bill) {
+        StringBuilder sb = new StringBuilder(512);
+        appendHeader(sb, bill);
+        for (int row = 0; row < bill.size(); row++) appendItemLine(sb, bill, row);
+        appendTotals(sb, bill);
+        return sb.toString().split("\n");
+    }
+
+    // --- RENDERING ---
+
+    /** A finished bill's title, date and customer (see {@link #render}). */
+    static void appendHeader(StringBuilder sb, BillSnapshot bill) {
+        appendTitle(sb, Timestamps.dateTime(bill.timestamp), bill.customer);
+    }
+
+    static void appendItemLine(StringBuilder sb, BillSnapshot bill, int row) {
+        appendItemLine(sb, bill.name(row), bill.price(row), bill.quantity(row), bill.total(row));
+    }
+
+    /** A finished bill's totals and closing lines (see {@link #render}). */
+    static void appendTotals(StringBuilder sb, BillSnapshot bill) {
+        sb.append(THIN_RULE);
+        appendLabelled(sb, "Subtotal:           ", "", bill.subtotal);
+        if (bill.hasSlabs()) {
+            appendLabelled(sb, "Discount:           ", "-", bill.discountAmount);
+            for (int i = 0; i < bill.slabCount(); i++) appendSlab(sb, bill.slab(i), bill.interState);
+            appendLabelled(sb, "Total GST:          ", "", bill.taxAmount);
+        } else {
+            appendLabelled(sb, "Discount (" + Money.formatRate(bill.discountBps) + "%):   ", "-", bill.discountAmount);
+            appendLabelled(sb, "Tax (" + Money.formatRate(bill.taxBps) + "%):        ", "", bill.taxAmount);
+        }
+        appendClosing(sb, bill.grandTotal);
+    }
+
+    private static void appendTitle(StringBuilder sb, String date, String customer) {
+        sb.append(RULE);
+        sb.append("       SMARTBILL PRO INVOICE         \n");
+        sb.append(RULE);
+        sb.append("Date: ").append(date).append('\n');
+        sb.append("Customer: ").append(customer).append('\n');
+        sb.append(THIN_RULE);
+    }
+
+    private static void appendClosing(StringBuilder sb, long grandTotal) {
+        sb.append(RULE);
+        appendLabelled(sb, "GRAND TOTAL:         ", "", grandTotal);
+        sb.append(RULE);
+        sb.append("      Thank you for your business!    \n");
+    }
+
+    private void renderSkeleton() {
+        buf.setLength(0);
+        appendTitle(buf, "", "");
+        try {
+            document.insertString(0, buf.toString(), null);
+        } catch (BadLocationException e) {
+            throw new IllegalStateException(e);
+        }
+        flush();
+    }
+
+    private void flush() {
+        try {
+            syncHeader();
+            syncRows();
+            syncFooter();
+        } catch (BadLocationException e) {
+            throw new IllegalStateException("Preview out of sync with ledger", e);
+        }
+    }
+
+    private void syncHeader() throws BadLocationException {
+        String date = Timestamps.dateTime(System.currentTimeMillis());
+        if (!date.equals(renderedDate)) {
+            replaceLine(DATE_LINE, "Date: " + date + "\n");
+            renderedDate = date;
+        }
+        String customer = customerSource.get();
+        customer = (customer == null || customer.trim().isEmpty()) ? "Walk-in Customer" : customer;
+        if (!customer.equals(renderedCustomer)) {
+            replaceLine(CUSTOMER_LINE, "Customer: " + customer + "\n");
+            renderedCustomer = customer;
+        }
+    }
+
+    private void syncRows() throws BadLocationException {
+        int size = ledger.size();
+        int keep = Math.min(validRows, size);
+
+        // 1. In-place rewrites of individual rows that are otherwise still valid
+        for (int i = 0; i < dirtyCount; i++) {
+            int row = dirtyRows[i];
+            if (row < keep) {
+                buf.setLength(0);
+                appendItemLine(row);
+                replaceLine(HEADER_LINES + row, buf.toString());
+            }
+        }
+        dirtyCount = 0;
+
+        // 2. Drop stale tail lines, then append the missing rows in one insert
+        if (renderedRows > keep) {
+            int start = lineStart(HEADER_LINES + keep);
+            document.remove(start, lineStart(HEADER_LINES + renderedRows) - start);
+            renderedRows = keep;
+        }
+        if (size > renderedRows) {
+            buf.setLength(0);
+            for (int row = renderedRows; row < size; row++) appendItemLine(row);
+            document.insertString(lineStart(HEADER_LINES + renderedRows), buf.toString(), null);
+            renderedRows = size;
+        }
+        validRows = size;
+    }
+
+    private void syncFooter() throws BadLocationException {
+        buf.setLength(0);
+        buf.append(THIN_RULE);
+        appendLabelled("Subtotal:           ", "", ledger.subtotal());
+        if (ledger.taxRules() != null) {
+            appendLabelled("Discount:           ", "-", ledger.discountAmount());
+            for (BillSnapshot.Slab slab : ledger.copySlabs()) appendSlab(buf, slab, ledger.interState());
+            appendLabelled("Total GST:          ", "", ledger.taxAmount());
+        } else {
+            appendLabelled("Discount (" + Money.formatRate(ledger.discountBps()) + "%):   ", "-", ledger.discountAmount());
+            appendLabelled("Tax (" + Money.formatRate(ledger.taxBps()) + "%):        ", "", ledger.taxAmount());
+        }
+        appendClosing(buf, ledger.grandTotal());
+        String footer = buf.toString();
+        if (footer.equals(renderedFooter)) return;
+
+        int start = lineStart(HEADER_LINES + renderedRows);
+        document.replace(start, document.getLength() - start, footer, null);
+        renderedFooter = footer;
+    }
+
+    /** One block per GST rate on the bill: the taxable value, then CGST + SGST (or IGST). */
+    private static void appendSlab(StringBuilder sb, BillSnapshot.Slab slab, boolean interState) {
+        String rate = Money.formatRatePlain(slab.rateBps) + "%";
+        appendLabelled(sb, padLabel("GST " + rate + " on:"), "", slab.taxable);
+        if (interState) {
+            appendLabelled(sb, padLabel("  IGST " + rate + ":"), "", slab.tax);
+        } else {
+            String half = Money.formatRatePlain(slab.rateBps / 2) + "%";
+            appendLabelled(sb, padLabel("  CGST " + half + ":"), "", slab.half());
+            appendLabelled(sb, padLabel("  SGST " + half + ":"), "", slab.half());
+        }
+    }
+
+    /** Labels line up with the fixed ones above (20 characters and a space). */
+    private static String padLabel(String label) {
+        StringBuilder sb = new StringBuilder(21).append(label);
+        while (sb.length() < 21) sb.append(' ');
+        return sb.toString();
+    }
+
+    private void appendItemLine(int row) {
+        appendItemLine(buf, ledger.name(row), ledger.price(row), ledger.quantity(row), ledger.total(row));
+    }
+
+    /** Same layout as the old "%-20s %5s x%2s = %8s" row; amounts are written straight into the buffer. */
+    private static void appendItemLine(StringBuilder sb, String name, long price, int qty, long total) {
+        padRight(sb, name, 20);
+        sb.append(' ');
+        padAmount(sb, price, 5);
+        sb.append(" x");
+        if (qty >= 0 && qty < 10) sb.append(' ');
+        sb.append(qty);
+        sb.append(" = ");
+        padAmount(sb, total, 8);
+        sb.append('\n');
+    }
+
+    private void appendLabelled(String label, String sign, long paise) {
+        appendLabelled(buf, label, sign, paise);
+    }
+
+    private static void appendLabelled(StringBuilder sb, String label, String sign, long paise) {
+        sb.append(label);
+        for (int i = sign.length() + Money.formattedLength(paise); i < 12; i++) sb.append(' ');
+        Money.appendFormatted(sb.append(sign), paise);
+        sb.append('\n');
+    }
+
+    private static void padRight(StringBuilder sb, String s, int width) {
+        sb.append(s);
+        for (int i = s.length(); i < width; i++) sb.append(' ');
+    }
+
+    private static void padAmount(StringBuilder sb, long paise, int width) {
+        for (int i = Money.formattedLength(paise); i < width; i++) sb.append(' ');
+        Money.appendFormatted(sb, paise);
+    }
+
+    private void replaceLine(int line, String text) throws BadLocationException {
+        int start = lineStart(line);
+        document.replace(start, lineStart(line + 1) - start, text, null);
+    }
+
+    private int lineStart(int line) {
+        Element root = document.getDefaultRootElement();
+        if (line >= root.getElementCount()) return document.getLength();
+        return root.getElement(line).getStartOffset();
+    }
+}
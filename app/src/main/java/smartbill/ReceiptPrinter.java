@@ -0,0 +1,88 @@
+package smartbill;
+
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.print.PageFormat;
+import java.awt.print.Printable;
+
+/**
+ * Multi-page receipt printing.
+ *
+ * <p>Takes a fixed copy of the receipt lines and splits it into pages once,
+ * using the printer's real font metrics and the page's imageable area. The
+ * print system asks for each page several times; every call after the first
+ * only draws the cached slice. The receipt header is repeated at the top of
+ * every page and multi-page receipts are numbered.
+ */
+public class ReceiptPrinter implements Printable {
+
+    private static final Font FONT = new Font("Monospaced", Font.PLAIN, 12);
+    private static final int LEFT = 20, TOP = 50; // Offsets inside the imageable area
+
+    private final String[] header, body;
+
+    // --- Layout Cache (valid for one imageable size) ---
+    private double layoutWidth = -1, layoutHeight = -1;
+    private int lineHeight, descent, linesPerPage, pageCount;
+
+    /**
+     * @param lines       the receipt, one entry per line
+     * @param headerLines how many leading lines to repeat on every page
+     */
+    public ReceiptPrinter(String[] lines, int headerLines) {
+        int h = Math.min(headerLines, lines.length);
+        header = new String[h];
+        body = new String[lines.length - h];
+        System.arraycopy(lines, 0, header, 0, h);
+        System.arraycopy(lines, h, body, 0, body.length);
+    }
+
+    @Override
+    public int print(Graphics g, PageFormat pf, int pageIndex) {
+        layout(g, pf);
+        if (pageIndex >= pageCount) return NO_SUCH_PAGE;
+
+        Graphics2D g2d = (Graphics2D) g;
+        g2d.translate(pf.getImageableX(), pf.getImageableY());
+        g2d.setFont(FONT);
+
+        int y = TOP;
+        for (String line : header) {
+            g2d.drawString(line, LEFT, y);
+            y += lineHeight;
+        }
+        int from = pageIndex * linesPerPage;
+        int to = Math.min(body.length, from + linesPerPage);
+        for (int i = from; i < to; i++) {
+            g2d.drawString(body[i], LEFT, y);
+            y += lineHeight;
+        }
+        if (pageCount > 1) {
+            g2d.drawString("Page " + (pageIndex + 1) + " of " + pageCount, LEFT, (int) pf.getImageableHeight() - descent);
+        }
+        return PAGE_EXISTS;
+    }
+
+    public int pageCount(Graphics g, PageFormat pf) {
+        layout(g, pf);
+        return pageCount;
+    }
+
+    private void layout(Graphics g, PageFormat pf) {
+        if (pf.getImageableWidth() == layoutWidth && pf.getImageableHeight() == layoutHeight) return;
+        FontMetrics fm = g.getFontMetrics(FONT);
+        lineHeight = fm.getHeight();
+        descent = fm.getDescent();
+
+        // Baselines sit at TOP + k * lineHeight; the last line is kept clear for the page number
+        int usable = (int) pf.getImageableHeight() - TOP - descent - lineHeight;
+        int linesOnPage = usable < 0 ? 1 : usable / lineHeight + 1;
+        linesPerPage = Math.max(1, linesOnPage - header.length);
+        pageCount = Math.max(1, (body.length + linesPerPage - 1) / linesPerPage);
+
+        layoutWidth = pf.getImageableWidth();
+        layoutHeight = pf.getImageableHeight();
+    }
+}
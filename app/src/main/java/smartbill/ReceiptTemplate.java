@@ -0,0 +1,420 @@
+package smartbill;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A receipt layout for thermal printers, compiled once per paper width into a
+ * small segment program and rendered straight into an {@link EscPos} buffer.
+ *
+ * <p>Templates have one directive per line ({@code #} starts a comment):
+ * <pre>
+ * text[.center|.right][.bold][.large][.nonzero] content   one line; "left|right" pins the right part to the edge
+ * rule c                                                  a full-width line of c
+ * items                                                   the item rows
+ * taxes                                                   tax line, or the GST breakdown per slab
+ * feed n / cut / drawer                                   paper feed, cutter, cash drawer kick
+ * </pre>
+ * Content may use {customer}, {date}, {subtotal}, {discount}, {discountRate},
+ * {tax}, {taxRate}, {grand}, {lines} and {units}; a {@code .nonzero} line is
+ * skipped when all its amounts are zero. Text that does not fit wraps at spaces;
+ * {@code .large} (double size) halves the characters per line.
+ *
+ * <p>Item rows adapt to the width: at 42 columns or more each item is one row of
+ * name, quantity, price and amount (long names continue below), at 32 the name
+ * gets its own line above the quantity, price and amount. Columns widen for
+ * large amounts at the expense of the name; a row whose amounts leave too
+ * little room for it falls back to the two-line form, and an amount that
+ * still does not fit goes on a line of its own. No row is ever wider than the paper.
+ */
+public final class ReceiptTemplate {
+
+    /** Characters per line of common paper: 58 mm, 80 mm (font B), 80 mm (font A at 48). */
+    public static final int NARROW = 32, WIDE = 42, WIDEST = 48;
+    private static final int MIN_NAME_WIDTH = 12; // Below this a wide row is printed in the two-line form
+
+    public static final String DEFAULT =
+        "text.center.large.bold SMARTBILL PRO\n"
+        + "text.center Tax Invoice\n"
+        + "rule =\n"
+        + "text Date: {date}\n"
+        + "text Customer: {customer}\n"
+        + "rule -\n"
+        + "items\n"
+        + "rule -\n"
+        + "text Subtotal|{subtotal}\n"
+        + "text.nonzero Discount|-{discount}\n"
+        + "taxes\n"
+        + "rule =\n"
+        + "text.bold GRAND TOTAL|Rs. {grand}\n"
+        + "rule =\n"
+        + "text.center Thank you for your business!\n"
+        + "feed 3\n"
+        + "cut\n"
+        + "drawer\n";
+
+    // --- Segment Program ---
+    private static final int TEXT = 0, RULE = 1, ITEMS = 2, TAXES = 3, FEED = 4, CUT = 5, DRAWER = 6;
+
+    private static final String[] FIELDS = {
+        "customer", "date", "subtotal", "discount", "discountRate", "tax", "taxRate", "grand", "lines", "units"};
+    private static final int CUSTOMER = 0, DATE = 1, SUBTOTAL = 2, DISCOUNT = 3, DISCOUNT_RATE = 4,
+        TAX = 5, TAX_RATE = 6, GRAND = 7, LINES = 8, UNITS = 9;
+    private static final int LITERAL = -1;
+
+    /** One compiled directive. Content pieces are literals or field ids (LITERAL marks a literal). */
+    private static final class Segment {
+        final int op, align, arg;
+        final boolean bold, large, nonZero;
+        final String[] texts;   // Literal pieces (null where a field goes)
+        final int[] fields;     // Field id per piece, or LITERAL
+        final int split;        // Pieces before this index are left-aligned, the rest pinned right; -1: no right part
+
+        Segment(int op, int align, int arg, boolean bold, boolean large, boolean nonZero,
+                String[] texts, int[] fields, int split) {
+            this.op = op;
+            this.align = align;
+            this.arg = arg;
+            this.bold = bold;
+            this.large = large;
+            this.nonZero = nonZero;
+            this.texts = texts;
+            this.fields = fields;
+            this.split = split;
+        }
+    }
+
+    private final int columns;
+    private final int nameWidth, qtyWidth, priceWidth, totalWidth; // nameWidth 0: two-line item rows
+    private final Segment[] program;
+
+    private ReceiptTemplate(int columns, Segment[] program) {
+        this.columns = columns;
+        this.program = program;
+        if (columns >= WIDE) {
+            totalWidth = 11;
+            priceWidth = 10;
+            qtyWidth = 5;
+            nameWidth = columns - totalWidth - priceWidth - qtyWidth;
+        } else {
+            nameWidth = 0;
+            qtyWidth = priceWidth = 0;
+            totalWidth = 11;
+        }
+    }
+
+    public static ReceiptTemplate standard(int columns) {
+        return compile(DEFAULT, columns);
+    }
+
+    public static ReceiptTemplate load(Path file, int columns) throws IOException {
+        try {
+            return compile(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), columns);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(file.getFileName() + ": " + e.getMessage());
+        }
+    }
+
+    // --- COMPILING ---
+
+    /**
+     * Compiles template source for paper {@code columns} characters wide.
+     * @throws IllegalArgumentException on an unknown directive or field
+     */
+    public static ReceiptTemplate compile(String source, int columns) {
+        if (columns < 24 || columns > 80) throw new IllegalArgumentException("Unsupported paper width: " + columns + " columns");
+        List<Segment> program = new ArrayList<>();
+        String[] lines = source.split("\r?\n");
+        for (int n = 0; n < lines.length; n++) {
+            String line = lines[n];
+            if (line.trim().isEmpty() || line.trim().startsWith("#")) continue;
+            int space = line.indexOf(' ');
+            String directive = space < 0 ? line.trim() : line.substring(0, space);
+            String rest = space < 0 ? "" : line.substring(space + 1);
+            try {
+                program.add(directive(directive, rest));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Line " + (n + 1) + ": " + e.getMessage());
+            }
+        }
+        return new ReceiptTemplate(columns, program.toArray(new Segment[0]));
+    }
+
+    private static Segment directive(String directive, String rest) {
+        String[] parts = directive.split("\\.");
+        switch (parts[0]) {
+            case "text":   return text(parts, rest);
+            case "rule":   return op(RULE, rest.trim().isEmpty() ? '-' : rest.trim().charAt(0));
+            case "items":  return op(ITEMS, 0);
+            case "taxes":  return op(TAXES, 0);
+            case "feed":   return op(FEED, rest.trim().isEmpty() ? 1 : Integer.parseInt(rest.trim()));
+            case "cut":    return op(CUT, 0);
+            case "drawer": return op(DRAWER, 0);
+            default:       throw new IllegalArgumentException("Unknown directive '" + directive + "'");
+        }
+    }
+
+    private static Segment op(int op, int arg) {
+        return new Segment(op, EscPos.LEFT, arg, false, false, false, null, null, -1);
+    }
+
+    private static Segment text(String[] flags, String content) {
+        int align = EscPos.LEFT;
+        boolean bold = false, large = false, nonZero = false;
+        for (int i = 1; i < flags.length; i++) {
+            switch (flags[i]) {
+                case "center":  align = EscPos.CENTER; break;
+                case "right":   align = EscPos.RIGHT; break;
+                case "bold":    bold = true; break;
+                case "large":   large = true; break;
+                case "nonzero": nonZero = true; break;
+                default: throw new IllegalArgumentException("Unknown text option '" + flags[i] + "'");
+            }
+        }
+        List<String> texts = new ArrayList<>();
+        List<Integer> fields = new ArrayList<>();
+        int split = -1;
+        StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (c == '|' && split < 0) {
+                flushLiteral(literal, texts, fields);
+                split = texts.size();
+            } else if (c == '{') {
+                int end = content.indexOf('}', i);
+                if (end < 0) throw new IllegalArgumentException("Unclosed '{'");
+                flushLiteral(literal, texts, fields);
+                texts.add(null);
+                fields.add(field(content.substring(i + 1, end)));
+                i = end;
+            } else {
+                literal.append(c);
+            }
+        }
+        flushLiteral(literal, texts, fields);
+        int[] ids = new int[fields.size()];
+        for (int i = 0; i < ids.length; i++) ids[i] = fields.get(i);
+        if (split >= 0) align = EscPos.LEFT; // Two-part lines are padded here, not aligned by the printer
+        return new Segment(TEXT, align, 0, bold, large, nonZero, texts.toArray(new String[0]), ids, split);
+    }
+
+    private static void flushLiteral(StringBuilder literal, List<String> texts, List<Integer> fields) {
+        if (literal.length() == 0) return;
+        texts.add(literal.toString());
+        fields.add(LITERAL);
+        literal.setLength(0);
+    }
+
+    private static int field(String name) {
+        for (int i = 0; i < FIELDS.length; i++) if (FIELDS[i].equals(name)) return i;
+        throw new IllegalArgumentException("Unknown field {" + name + "}");
+    }
+
+    // --- RENDERING ---
+
+    public int columns() { return columns; }
+
+    /**
+     * Renders {@code bill} into {@code out} (reset first). {@code openDrawer}
+     * decides whether a {@code drawer} directive fires.
+     */
+    public void render(BillSnapshot bill, EscPos out, boolean openDrawer) {
+        out.reset();
+        StringBuilder line = out.line();
+        for (Segment seg : program) {
+            switch (seg.op) {
+                case TEXT:
+                    if (seg.nonZero && allZero(seg, bill)) break;
+                    out.align(seg.align).bold(seg.bold).large(seg.large);
+                    line.setLength(0);
+                    int split = seg.split < 0 ? seg.texts.length : seg.split;
+                    appendPieces(line, seg, 0, split, bill);
+                    int leftEnd = line.length();
+                    appendPieces(line, seg, split, seg.texts.length, bill);
+                    int width = seg.large ? columns / 2 : columns;
+                    if (seg.split < 0) wrap(out, line, 0, leftEnd, width);
+                    else pinRight(out, line, leftEnd, width);
+                    out.bold(false).large(false);
+                    break;
+                case RULE:
+                    out.align(EscPos.LEFT).repeat((char) seg.arg, columns).newline();
+                    break;
+                case ITEMS:
+                    out.align(EscPos.LEFT);
+                    if (nameWidth > 0) {
+                        out.text("Item").repeat(' ', nameWidth - 4 + qtyWidth - 3).text("Qty");
+                        out.repeat(' ', priceWidth - 5).text("Price").repeat(' ', totalWidth - 6).text("Amount").newline();
+                    }
+                    for (int i = 0; i < bill.size(); i++) itemRow(out, bill, i);
+                    break;
+                case TAXES:
+                    out.align(EscPos.LEFT);
+                    taxes(out, bill);
+                    break;
+                case FEED:
+                    out.feed(seg.arg);
+                    break;
+                case CUT:
+                    out.cut();
+                    break;
+                case DRAWER:
+                    if (openDrawer) out.openDrawer();
+                    break;
+                default:
+                    throw new IllegalStateException("Bad segment " + seg.op);
+            }
+        }
+    }
+
+    private void itemRow(EscPos out, BillSnapshot bill, int row) {
+        String name = bill.name(row);
+        int qty = bill.quantity(row);
+        long price = bill.price(row), total = bill.total(row);
+        int qtyLength = EscPos.digits(qty), priceLength = Money.formattedLength(price), totalLength = Money.formattedLength(total);
+        if (nameWidth > 0) {
+            // Each number keeps at least one space before it; the name column gives way
+            int qw = Math.max(qtyWidth, qtyLength + 1), pw = Math.max(priceWidth, priceLength + 1);
+            int tw = Math.max(totalWidth, totalLength + 1), nw = columns - qw - pw - tw;
+            if (nw >= MIN_NAME_WIDTH) {
+                int first = breakAt(name, 0, name.length(), nw);
+                out.text(name, 0, first).repeat(' ', nw - first);
+                out.repeat(' ', qw - qtyLength).number(qty);
+                out.repeat(' ', pw - priceLength).amount(price);
+                out.repeat(' ', tw - totalLength).amount(total).newline();
+                int rest = skipSpaces(name, first);
+                if (rest < name.length()) wrap(out, name, rest, name.length(), nw);
+                return;
+            }
+        }
+        // Two-line form: name line(s), then "  qty x price" and the amount at the right edge
+        wrap(out, name, 0, name.length(), columns);
+        int used = 2 + qtyLength + 3 + priceLength;
+        out.repeat(' ', 2).number(qty).text(" x ").amount(price);
+        if (used + 1 + totalLength > columns) out.newline().repeat(' ', columns - totalLength); // Amount on its own line
+        else out.repeat(' ', columns - used - totalLength);
+        out.amount(total).newline();
+    }
+
+    private void taxes(EscPos out, BillSnapshot bill) {
+        StringBuilder line = out.line();
+        if (!bill.hasSlabs()) {
+            line.setLength(0);
+            line.append("Tax (").append(Money.formatRatePlain(bill.taxBps)).append("%)");
+            int leftEnd = line.length();
+            Money.appendFormatted(line, bill.taxAmount);
+            pinRight(out, line, leftEnd, columns);
+            return;
+        }
+        for (int i = 0; i < bill.slabCount(); i++) {
+            BillSnapshot.Slab slab = bill.slab(i);
+            String rate = Money.formatRatePlain(slab.rateBps);
+            labelled(out, line, "GST " + rate + "% on", slab.taxable);
+            if (bill.interState) {
+                labelled(out, line, "  IGST " + rate + "%", slab.tax);
+            } else {
+                String half = Money.formatRatePlain(slab.rateBps / 2);
+                labelled(out, line, "  CGST " + half + "%", slab.half());
+                labelled(out, line, "  SGST " + half + "%", slab.half());
+            }
+        }
+        labelled(out, line, "Total GST", bill.taxAmount);
+    }
+
+    private void labelled(EscPos out, StringBuilder line, String label, long amount) {
+        line.setLength(0);
+        line.append(label);
+        int leftEnd = line.length();
+        Money.appendFormatted(line, amount);
+        pinRight(out, line, leftEnd, columns);
+    }
+
+    /** Writes line[0, leftEnd) left and the rest against the right edge, on one row if they fit. */
+    private static void pinRight(EscPos out, CharSequence line, int leftEnd, int width) {
+        int right = line.length() - leftEnd;
+        if (leftEnd + 1 + right <= width) {
+            out.text(line, 0, leftEnd).repeat(' ', width - leftEnd - right);
+        } else {
+            wrap(out, line, 0, leftEnd, width);
+            out.repeat(' ', width - right);
+        }
+        out.text(line, leftEnd, line.length()).newline();
+    }
+
+    /** Writes s[from, to) in rows of at most {@code width}, breaking at spaces where possible. */
+    private static void wrap(EscPos out, CharSequence s, int from, int to, int width) {
+        if (from == to) {
+            out.newline();
+            return;
+        }
+        while (from < to) {
+            int end = from + breakAt(s, from, to, width);
+            out.text(s, from, end).newline();
+            from = skipSpaces(s, end);
+        }
+    }
+
+    /** How many characters of s[from, to) go on a row of {@code width}. */
+    private static int breakAt(CharSequence s, int from, int to, int width) {
+        if (to - from <= width) return to - from;
+        for (int i = from + width; i > from; i--) {
+            if (s.charAt(i) == ' ') return i - from;
+        }
+        return width; // One long word: cut it
+    }
+
+    private static int skipSpaces(CharSequence s, int i) {
+        while (i < s.length() && s.charAt(i) == ' ') i++;
+        return i;
+    }
+
+    private static void appendPieces(StringBuilder line, Segment seg, int from, int to, BillSnapshot bill) {
+        for (int i = from; i < to; i++) {
+            if (seg.fields[i] == LITERAL) line.append(seg.texts[i]);
+            else appendField(line, seg.fields[i], bill);
+        }
+    }
+
+    private static void appendField(StringBuilder line, int field, BillSnapshot bill) {
+        switch (field) {
+            case CUSTOMER:      line.append(bill.customer); break;
+            case DATE:          line.append(Timestamps.dateTime(bill.timestamp)); break;
+            case SUBTOTAL:      Money.appendFormatted(line, bill.subtotal); break;
+            case DISCOUNT:      Money.appendFormatted(line, bill.discountAmount); break;
+            case DISCOUNT_RATE: line.append(Money.formatRatePlain(bill.discountBps)); break;
+            case TAX:           Money.appendFormatted(line, bill.taxAmount); break;
+            case TAX_RATE:      line.append(Money.formatRatePlain(bill.taxBps)); break;
+            case GRAND:         Money.appendFormatted(line, bill.grandTotal); break;
+            case LINES:         line.append(bill.size()); break;
+            case UNITS:         line.append(units(bill)); break;
+            default:            throw new IllegalStateException("Bad field " + field);
+        }
+    }
+
+    private static long units(BillSnapshot bill) {
+        long units = 0;
+        for (int i = 0; i < bill.size(); i++) units += bill.quantity(i);
+        return units;
+    }
+
+    /** Whether every amount on a {@code .nonzero} line is zero (lines without amounts always print). */
+    private static boolean allZero(Segment seg, BillSnapshot bill) {
+        boolean any = false;
+        for (int f : seg.fields) {
+            long v;
+            switch (f) {
+                case SUBTOTAL: v = bill.subtotal; break;
+                case DISCOUNT: v = bill.discountAmount; break;
+                case TAX:      v = bill.taxAmount; break;
+                case GRAND:    v = bill.grandTotal; break;
+                default:       continue;
+            }
+            if (v != 0) return false;
+            any = true;
+        }
+        return any;
+    }
+}
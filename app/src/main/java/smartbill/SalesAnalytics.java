@@ -0,0 +1,335 @@
+package smartbill;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Sales reporting over the committed bills in the sales journal.
+ *
+ * <p>Each journal segment is reduced to per-day {@link SalesRollup}s, in
+ * parallel (fork/join over the segment list). Segments that have rolled over
+ * never change again, so their daily rollups are cached next to the journal
+ * and only the active segment is scanned on every report. A report then only
+ * merges the days inside the requested range.
+ */
+public final class SalesAnalytics {
+
+    private static final int CACHE_MAGIC = 0x53525531; // "SRU1"
+    private static final String CACHE_SUFFIX = ".rollup";
+
+    private SalesAnalytics() {}
+
+    /** The outcome of one report run. */
+    public static final class Report {
+        public final LocalDate from, to;
+        public final SalesRollup total = new SalesRollup();
+        public final TreeMap<LocalDate, SalesRollup> days = new TreeMap<>();
+        public long elapsedMillis;
+        public int segments, cachedSegments;
+
+        Report(LocalDate from, LocalDate to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        /** Plain-text rendering for the Report tab. */
+        public String toText(int topN) {
+            StringBuilder sb = new StringBuilder(4096);
+            sb.append("SALES REPORT  ").append(from).append(" .. ").append(to).append('\n');
+            sb.append("======================================================\n");
+            line(sb, "Bills", Long.toString(total.bills));
+            line(sb, "Lines / units", total.lines + " / " + total.units);
+            line(sb, "Revenue", "₹" + Money.format(total.revenue));
+            line(sb, "Subtotal", "₹" + Money.format(total.subtotal));
+            line(sb, "Tax collected", "₹" + Money.format(total.tax));
+            if (total.bills > 0) line(sb, "Average bill", "₹" + Money.format(Money.divide(total.revenue, total.bills, RoundingMode.HALF_UP)));
+
+            sb.append("\nDISCOUNT IMPACT\n");
+            line(sb, "Discount given", "₹" + Money.format(total.discount));
+            line(sb, "Bills discounted", total.discountedBills + " of " + total.bills);
+            if (total.subtotal != 0) {
+                long bps = Money.divide(total.discount * Money.BPS_WHOLE, total.subtotal, RoundingMode.HALF_UP);
+                line(sb, "Share of subtotal", Money.formatRate((int) bps) + "%");
+            }
+
+            sb.append("\nTAX BY RATE           taxable          tax   bills\n");
+            for (Map.Entry<Integer, long[]> e : total.taxByRate().entrySet()) {
+                long[] t = e.getValue();
+                sb.append(String.format("  %6s%%  %14s  %11s  %6d%n",
+                    Money.formatRate(e.getKey()), Money.format(t[0]), Money.format(t[1]), t[2]));
+            }
+
+            sb.append("\nTOP ").append(topN).append(" ITEMS                      units        revenue\n");
+            int rank = 1;
+            for (Map.Entry<String, long[]> e : total.topItems(topN)) {
+                sb.append(String.format("  %2d. %-28s %8d %14s%n",
+                    rank++, clip(e.getKey(), 28), e.getValue()[0], Money.format(e.getValue()[1])));
+            }
+
+            sb.append("\nREVENUE BY HOUR\n");
+            long peak = 1;
+            for (long v : total.hourlyRevenue) peak = Math.max(peak, v);
+            for (int h = 0; h < 24; h++) {
+                long v = total.hourlyRevenue[h];
+                if (v == 0) continue;
+                sb.append(String.format("  %02d:00  %14s  ", h, Money.format(v)));
+                for (int i = 0, bar = (int) (30 * v / peak); i < bar; i++) sb.append('#');
+                sb.append('\n');
+            }
+
+            sb.append("\nREVENUE BY DAY                    bills        revenue\n");
+            for (Map.Entry<LocalDate, SalesRollup> e : days.entrySet()) {
+                sb.append(String.format("  %s %-16s %8d %14s%n", e.getKey(), e.getKey().getDayOfWeek().toString().substring(0, 3),
+                    e.getValue().bills, Money.format(e.getValue().revenue)));
+            }
+            sb.append(String.format("%n(%d segments, %d from cache, %d ms)%n", segments, cachedSegments, elapsedMillis));
+            return sb.toString();
+        }
+
+        private static void line(StringBuilder sb, String label, String value) {
+            sb.append(String.format("  %-20s %s%n", label + ":", value));
+        }
+
+        private static String clip(String s, int width) {
+            return s.length() <= width ? s : s.substring(0, width - 1) + "…";
+        }
+    }
+
+    /**
+     * Aggregates every bill committed between {@code from} and {@code to} (inclusive, local dates).
+     * @param cacheDir where daily rollups of sealed segments are kept (created if missing)
+     */
+    public static Report run(Path journalDir, Path cacheDir, LocalDate from, LocalDate to) throws IOException {
+        long t0 = System.nanoTime();
+        List<Path> segments = InvoiceJournal.segments(journalDir);
+        Files.createDirectories(cacheDir);
+        Report report = new Report(from, to);
+        report.segments = segments.size();
+
+        SegmentTask root = new SegmentTask(segments, 0, segments.size(), cacheDir, from.toEpochDay(), to.toEpochDay());
+        Partial result;
+        try {
+            result = ForkJoinPool.commonPool().invoke(root);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        for (Map.Entry<Long, SalesRollup> e : result.days.entrySet()) {
+            report.days.put(LocalDate.ofEpochDay(e.getKey()), e.getValue());
+            report.total.merge(e.getValue());
+        }
+        report.cachedSegments = result.cached;
+        report.elapsedMillis = (System.nanoTime() - t0) / 1_000_000;
+        return report;
+    }
+
+    /** Default rollup cache: {@code rollups} under {@link AppPaths#home()}. */
+    public static Path defaultCacheDirectory() {
+        return AppPaths.resolve("rollups");
+    }
+
+    // --- FORK/JOIN OVER SEGMENTS ---
+
+    /** Days in range from a group of segments, keyed by epoch day. */
+    private static final class Partial {
+        final TreeMap<Long, SalesRollup> days = new TreeMap<>();
+        int cached;
+
+        Partial merge(Partial o) {
+            for (Map.Entry<Long, SalesRollup> e : o.days.entrySet()) {
+                SalesRollup mine = days.get(e.getKey());
+                if (mine == null) days.put(e.getKey(), e.getValue());
+                else mine.merge(e.getValue());
+            }
+            cached += o.cached;
+            return this;
+        }
+    }
+
+    private static final class SegmentTask extends RecursiveTask<Partial> {
+        private final List<Path> segments;
+        private final int lo, hi;
+        private final Path cacheDir;
+        private final long fromDay, toDay;
+
+        SegmentTask(List<Path> segments, int lo, int hi, Path cacheDir, long fromDay, long toDay) {
+            this.segments = segments;
+            this.lo = lo;
+            this.hi = hi;
+            this.cacheDir = cacheDir;
+            this.fromDay = fromDay;
+            this.toDay = toDay;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (hi - lo > 1) {
+                int mid = (lo + hi) >>> 1;
+                SegmentTask left = new SegmentTask(segments, lo, mid, cacheDir, fromDay, toDay);
+                left.fork();
+                Partial right = new SegmentTask(segments, mid, hi, cacheDir, fromDay, toDay).compute();
+                return left.join().merge(right);
+            }
+            Partial p = new Partial();
+            if (lo == hi) return p;
+            try {
+                Path segment = segments.get(lo);
+                TreeMap<Long, SalesRollup> daily = loadCached(segment);
+                if (daily != null) p.cached = 1;
+                else daily = rollUp(segment);
+                p.days.putAll(daily.subMap(fromDay, true, toDay, true));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return p;
+        }
+
+        private Path cacheFile(Path segment) {
+            return cacheDir.resolve(segment.getFileName() + CACHE_SUFFIX);
+        }
+
+        /** Scans one segment into daily rollups, caching the result if the segment is sealed. */
+        private TreeMap<Long, SalesRollup> rollUp(Path segment) throws IOException {
+            TreeMap<Long, SalesRollup> daily = new TreeMap<>();
+            ZoneId zone = ZoneId.systemDefault();
+            BillAccumulator acc = new BillAccumulator();
+            int end = InvoiceJournal.scanSegment(segment, (type, billId, timestamp, payload) -> {
+                if (type != InvoiceJournal.BILL_COMMITTED) return;
+                acc.reset();
+                InvoiceJournal.readCommittedBill(payload, acc);
+                LocalDateTime when = LocalDateTime.ofInstant(Instant.ofEpochMilli(acc.timestamp), zone);
+                SalesRollup day = daily.computeIfAbsent(when.toLocalDate().toEpochDay(), k -> new SalesRollup());
+                acc.drainInto(day, when.getHour());
+            });
+            if (end >= 0 && InvoiceJournal.isSealed(segment, end)) writeCache(segment, daily);
+            return daily;
+        }
+
+        private TreeMap<Long, SalesRollup> loadCached(Path segment) {
+            Path file = cacheFile(segment);
+            if (!Files.exists(file)) return null;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+                if (in.readInt() != CACHE_MAGIC) return null;
+                if (in.readLong() != Files.getLastModifiedTime(segment).toMillis()) return null;
+                if (!ZoneId.systemDefault().getId().equals(in.readUTF())) return null; // Days are zone-relative
+                TreeMap<Long, SalesRollup> daily = new TreeMap<>();
+                int n = in.readInt();
+                for (int i = 0; i < n; i++) daily.put(in.readLong(), SalesRollup.read(in));
+                return daily;
+            } catch (IOException e) {
+                return null; // Unreadable cache: rebuild from the segment
+            }
+        }
+
+        private void writeCache(Path segment, TreeMap<Long, SalesRollup> daily) throws IOException {
+            Path file = cacheFile(segment);
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+                out.writeInt(CACHE_MAGIC);
+                out.writeLong(Files.getLastModifiedTime(segment).toMillis());
+                out.writeUTF(ZoneId.systemDefault().getId());
+                out.writeInt(daily.size());
+                for (Map.Entry<Long, SalesRollup> e : daily.entrySet()) {
+                    out.writeLong(e.getKey());
+                    e.getValue().write(out);
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /** Collects one committed bill's lines, then folds them into a day once the subtotal is known. */
+    private static final class BillAccumulator implements InvoiceJournal.CommittedBillReader {
+        long timestamp;
+        int discountBps, taxBps, n;
+        long subtotal;
+        boolean gst;                  // Stored GST figures replace the rate arithmetic
+        long discountAmount, taxAmount;
+        int slabs;
+        int[] slabRates = new int[8];
+        long[] slabTaxable = new long[8], slabTax = new long[8];
+        String[] names = new String[16];
+        int[] qtys = new int[16];
+        long[] totals = new long[16];
+
+        void reset() {
+            n = 0;
+            subtotal = 0;
+            gst = false;
+            slabs = 0;
+        }
+
+        @Override
+        public void header(long timestamp, int discountBps, int taxBps, int lineCount) {
+            this.timestamp = timestamp;
+            this.discountBps = discountBps;
+            this.taxBps = taxBps;
+            if (lineCount > names.length) {
+                names = new String[lineCount];
+                qtys = new int[lineCount];
+                totals = new long[lineCount];
+            }
+        }
+
+        @Override
+        public void line(String name, long price, int qty, long total) {
+            names[n] = name;
+            qtys[n] = qty;
+            totals[n++] = total;
+            subtotal += total;
+        }
+
+        @Override
+        public void gst(boolean interState, long discountAmount, long taxAmount, int slabCount) {
+            gst = true;
+            this.discountAmount = discountAmount;
+            this.taxAmount = taxAmount;
+            if (slabCount > slabRates.length) {
+                slabRates = new int[slabCount];
+                slabTaxable = new long[slabCount];
+                slabTax = new long[slabCount];
+            }
+        }
+
+        @Override
+        public void slab(int rateBps, long taxable, long tax) {
+            slabRates[slabs] = rateBps;
+            slabTaxable[slabs] = taxable;
+            slabTax[slabs++] = tax;
+        }
+
+        void drainInto(SalesRollup day, int hour) {
+            if (gst) {
+                // Taxed per slab: the bill carries its own figures
+                day.addBill(hour, subtotal, discountAmount, taxAmount);
+                for (int i = 0; i < slabs; i++) day.addTax(slabRates[i], slabTaxable[i], slabTax[i]);
+            } else {
+                // Same arithmetic as BillLedger, so report totals match the printed bills
+                long discount = Money.percent(subtotal, discountBps);
+                long tax = Money.percent(subtotal, taxBps);
+                day.addBill(hour, subtotal, discount, taxBps, tax);
+            }
+            for (int i = 0; i < n; i++) {
+                day.addLine(names[i], qtys[i], totals[i]);
+                names[i] = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package smartbill;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Sales totals for one stretch of time (a day, or several merged together).
+ * Rollups only ever add up, so per-segment and per-day results can be
+ * combined in any order. All amounts are paise and rates basis points.
+ */
+public final class SalesRollup {
+
+    public long bills, lines, units;
+    public long subtotal, discount, tax, revenue;
+    public long discountedBills;
+    public final long[] hourlyRevenue = new long[24];
+
+    /** Item name -> {units, revenue}. */
+    final Map<String, long[]> items = new HashMap<>();
+    /** Tax rate (bps) -> {taxable amount, tax, bills}. */
+    final Map<Integer, long[]> taxByRate = new TreeMap<>();
+
+    // --- Accumulating ---
+
+    /** Adds one committed bill's header figures; lines are added with {@link #addLine}. */
+    void addBill(int hour, long subtotal, long discount, int taxBps, long tax) {
+        addBill(hour, subtotal, discount, tax);
+        addTax(taxBps, subtotal - discount, tax);
+    }
+
+    /** Adds a bill's figures without its tax split; each rate it was taxed at follows with {@link #addTax}. */
+    void addBill(int hour, long subtotal, long discount, long tax) {
+        long grand = subtotal - discount + tax;
+        bills++;
+        this.subtotal += subtotal;
+        this.discount += discount;
+        this.tax += tax;
+        revenue += grand;
+        if (discount != 0) discountedBills++;
+        hourlyRevenue[hour] += grand;
+    }
+
+    void addTax(int taxBps, long taxable, long tax) {
+        long[] t = taxByRate.computeIfAbsent(taxBps, k -> new long[3]);
+        t[0] += taxable;
+        t[1] += tax;
+        t[2]++;
+    }
+
+    void addLine(String name, int qty, long total) {
+        lines++;
+        units += qty;
+        long[] item = items.computeIfAbsent(name, k -> new long[2]);
+        item[0] += qty;
+        item[1] += total;
+    }
+
+    public void merge(SalesRollup o) {
+        bills += o.bills;
+        lines += o.lines;
+        units += o.units;
+        subtotal += o.subtotal;
+        discount += o.discount;
+        tax += o.tax;
+        revenue += o.revenue;
+        discountedBills += o.discountedBills;
+        for (int h = 0; h < 24; h++) hourlyRevenue[h] += o.hourlyRevenue[h];
+        for (Map.Entry<String, long[]> e : o.items.entrySet()) {
+            long[] mine = items.computeIfAbsent(e.getKey(), k -> new long[2]);
+            mine[0] += e.getValue()[0];
+            mine[1] += e.getValue()[1];
+        }
+        for (Map.Entry<Integer, long[]> e : o.taxByRate.entrySet()) {
+            long[] mine = taxByRate.computeIfAbsent(e.getKey(), k -> new long[3]);
+            for (int i = 0; i < 3; i++) mine[i] += e.getValue()[i];
+        }
+    }
+
+    // --- Queries ---
+
+    /** The {@code n} items with the highest revenue, best first. */
+    public List<Map.Entry<String, long[]>> topItems(int n) {
+        List<Map.Entry<String, long[]>> all = new ArrayList<>(items.entrySet());
+        all.sort((a, b) -> Long.compare(b.getValue()[1], a.getValue()[1]));
+        return all.subList(0, Math.min(n, all.size()));
+    }
+
+    public Map<Integer, long[]> taxByRate() {
+        return taxByRate;
+    }
+
+    // --- Serialization (rollup cache) ---
+
+    void write(DataOutput out) throws IOException {
+        out.writeLong(bills);
+        out.writeLong(lines);
+        out.writeLong(units);
+        out.writeLong(subtotal);
+        out.writeLong(discount);
+        out.writeLong(tax);
+        out.writeLong(revenue);
+        out.writeLong(discountedBills);
+        for (long v : hourlyRevenue) out.writeLong(v);
+        out.writeInt(items.size());
+        for (Map.Entry<String, long[]> e : items.entrySet()) {
+            out.writeUTF(e.getKey());
+            out.writeLong(e.getValue()[0]);
+            out.writeLong(e.getValue()[1]);
+        }
+        out.writeInt(taxByRate.size());
+        for (Map.Entry<Integer, long[]> e : taxByRate.entrySet()) {
+            out.writeInt(e.getKey());
+            for (long v : e.getValue()) out.writeLong(v);
+        }
+    }
+
+    static SalesRollup read(DataInput in) throws IOException {
+        SalesRollup r = new SalesRollup();
+        r.bills = in.readLong();
+        r.lines = in.readLong();
+        r.units = in.readLong();
+        r.subtotal = in.readLong();
+        r.discount = in.readLong();
+        r.tax = in.readLong();
+        r.revenue = in.readLong();
+        r.discountedBills = in.readLong();
+        for (int h = 0; h < 24; h++) r.hourlyRevenue[h] = in.readLong();
+        int n = in.readInt();
+        for (int i = 0; i < n; i++) {
+            r.items.put(in.readUTF(), new long[]{in.readLong(), in.readLong()});
+        }
+        n = in.readInt();
+        for (int i = 0; i < n; i++) {
+            r.taxByRate.put(in.readInt(), new long[]{in.readLong(), in.readLong(), in.readLong()});
+        }
+        return r;
+    }
+}
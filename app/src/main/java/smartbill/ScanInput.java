@@ -0,0 +1,96 @@
+package smartbill;
+
+import javax.swing.JTextField;
+import javax.swing.SwingUtilities;
+import java.awt.KeyEventDispatcher;
+import java.awt.KeyboardFocusManager;
+import java.awt.event.KeyEvent;
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+
+/**
+ * Recognises barcode scanners (keyboard wedges) typing into a text field.
+ *
+ * <p>A scanner types a whole code within a few milliseconds and ends it with
+ * Enter. This dispatcher sees key events before the field does; when an Enter
+ * closes a run of fast keystrokes that makes up the field's entire text (or
+ * any all-digit entry while scan mode is on), it swallows the Enter, clears
+ * the field and queues the code. Queued codes are handed over in one batch per
+ * event-queue pass, so a burst of scans never bounces focus or blocks typing.
+ */
+public class ScanInput implements KeyEventDispatcher {
+
+    /** Longest gap between keystrokes of one scan. */
+    public static final long MAX_GAP_MS = 40;
+    /** Shortest run of fast keystrokes taken as a scan. */
+    public static final int MIN_LENGTH = 6;
+
+    private final JTextField field;
+    private final Consumer<String> onScan;
+    private final ArrayDeque<String> pending = new ArrayDeque<>();
+    private boolean scanMode, drainQueued;
+
+    // --- Current Keystroke Run ---
+    private int runLength;
+    private long lastTyped;
+
+    public ScanInput(JTextField field, Consumer<String> onScan) {
+        this.field = field;
+        this.onScan = onScan;
+    }
+
+    public void install() {
+        KeyboardFocusManager.getCurrentKeyboardFocusManager().addKeyEventDispatcher(this);
+    }
+
+    /** In scan mode any all-digit entry confirmed with Enter is a code, however fast it was typed. */
+    public void setScanMode(boolean on) {
+        scanMode = on;
+    }
+
+    public boolean isScanMode() {
+        return scanMode;
+    }
+
+    @Override
+    public boolean dispatchKeyEvent(KeyEvent e) {
+        if (e.getComponent() != field) return false;
+
+        if (e.getID() == KeyEvent.KEY_TYPED && e.getKeyChar() != '\n' && !Character.isISOControl(e.getKeyChar())) {
+            long when = e.getWhen();
+            runLength = (runLength > 0 && when - lastTyped <= MAX_GAP_MS) ? runLength + 1 : 1;
+            lastTyped = when;
+            return false; // The field still receives the character
+        }
+        if (e.getID() != KeyEvent.KEY_PRESSED || e.getKeyCode() != KeyEvent.VK_ENTER) return false;
+
+        String text = field.getText().trim();
+        boolean burst = runLength >= MIN_LENGTH
+            && runLength == field.getDocument().getLength()
+            && e.getWhen() - lastTyped <= MAX_GAP_MS;
+        runLength = 0;
+        if (text.isEmpty() || !(burst || (scanMode && isDigits(text)))) return false;
+
+        field.setText("");
+        pending.add(text);
+        if (!drainQueued) {
+            drainQueued = true;
+            SwingUtilities.invokeLater(this::drain);
+        }
+        e.consume();
+        return true;
+    }
+
+    private void drain() {
+        drainQueued = false;
+        for (String code; (code = pending.poll()) != null; ) onScan.accept(code);
+    }
+
+    private static boolean isDigits(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,135 @@
+package smartbill;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import java.awt.*;
+import java.util.ArrayDeque;
+
+/**
+ * Splash window driven by the real start-up steps.
+ *
+ * <p>Each step runs in its own event-queue pass on the EDT, so the splash
+ * repaints its progress in between; it closes as soon as the last step (the
+ * main window becoming visible) is done. With {@code -Dsmartbill.startupTrace=true}
+ * the time spent in every step is printed to stderr. A step that throws ends
+ * the start-up: the error is logged, the splash closes and the user is told
+ * which step failed.
+ */
+public class StartupSplash {
+
+    public static final boolean TRACE = Boolean.getBoolean("smartbill.startupTrace");
+
+    private final long startNanos;
+    private final ArrayDeque<String> names = new ArrayDeque<>();
+    private final ArrayDeque<Runnable> steps = new ArrayDeque<>();
+    private int total, done;
+    private long phaseStart;
+    private Runnable onReady, onFailed;
+
+    private JWindow window;
+    private JLabel status;
+    private JProgressBar bar;
+
+    /** @param startNanos {@link System#nanoTime()} at the top of {@code main} */
+    public StartupSplash(long startNanos) {
+        this.startNanos = startNanos;
+    }
+
+    public StartupSplash step(String name, Runnable step) {
+        names.add(name);
+        steps.add(step);
+        total++;
+        return this;
+    }
+
+    /** Shows the splash and runs the steps; {@code onReady} runs after the last one. Call on the EDT. */
+    public void start(Runnable onReady) {
+        start(onReady, () -> {});
+    }
+
+    /** As {@link #start(Runnable)}; {@code onFailed} runs instead of {@code onReady} once a failed step has been reported. */
+    public void start(Runnable onReady, Runnable onFailed) {
+        this.onReady = onReady;
+        this.onFailed = onFailed;
+        trace("splash", System.nanoTime());
+        show();
+        next();
+    }
+
+    private void next() {
+        if (steps.isEmpty()) {
+            window.dispose();
+            trace("window ready (time to first usable frame)", startNanos);
+            Metrics.timer("startup.firstFrame").recordSince(startNanos);
+            onReady.run();
+            return;
+        }
+        String name = names.poll();
+        Runnable step = steps.poll();
+        status.setText(name + "...");
+        bar.setValue(100 * done / total);
+        SwingUtilities.invokeLater(() -> { // Let the splash paint first
+            phaseStart = System.nanoTime();
+            try {
+                step.run();
+            } catch (RuntimeException | LinkageError e) {
+                fail(name, e);
+                return;
+            }
+            done++;
+            trace(name, phaseStart);
+            next();
+        });
+    }
+
+    private void fail(String name, Throwable e) {
+        Metrics.error("startup: " + name, e);
+        trace(name + " FAILED", phaseStart);
+        window.dispose();
+        steps.clear();
+        names.clear();
+        JOptionPane.showMessageDialog(null, "SmartBill Pro could not start.\n" + name + " failed: " + e
+            + "\n\nThe details are in the error log.", "Start-up Failed", JOptionPane.ERROR_MESSAGE);
+        onFailed.run();
+    }
+
+    private void trace(String what, long since) {
+        if (!TRACE) return;
+        long now = System.nanoTime();
+        System.err.printf("[startup] %6d ms  %-40s %5d ms%n",
+            (now - startNanos) / 1_000_000, what, (now - since) / 1_000_000);
+    }
+
+    private void show() {
+        window = new JWindow();
+        window.setBackground(new Color(41, 128, 185));
+
+        JPanel content = new JPanel(new BorderLayout(0, 10));
+        content.setBackground(new Color(41, 128, 185));
+
+        JLabel title = new JLabel("🏪 SmartBill Pro", JLabel.CENTER);
+        title.setForeground(Color.WHITE);
+        title.setFont(new Font("Segoe UI", Font.BOLD, 36));
+
+        status = new JLabel("Starting...", JLabel.CENTER);
+        status.setForeground(new Color(200, 200, 200));
+        status.setFont(new Font("Segoe UI", Font.PLAIN, 16));
+
+        bar = new JProgressBar(0, 100);
+        bar.setBorderPainted(false);
+
+        JPanel south = new JPanel(new BorderLayout(0, 8));
+        south.setOpaque(false);
+        south.add(status, BorderLayout.NORTH);
+        south.add(bar, BorderLayout.SOUTH);
+
+        content.add(title, BorderLayout.CENTER);
+        content.add(south, BorderLayout.SOUTH);
+        content.setBorder(new EmptyBorder(40, 40, 40, 40));
+
+        window.add(content);
+        window.setSize(400, 250);
+        window.setLocationRelativeTo(null);
+        window.setVisible(true);
+    }
+}
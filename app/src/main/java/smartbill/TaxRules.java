@@ -0,0 +1,186 @@
+package smartbill;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * GST slabs and item/category discounts, compiled from a small CSV into lookup tables.
+ *
+ * <pre>
+ * scope,    name,        gst_pct, discount_pct (optional)
+ * category, Dairy,       5
+ * category, Electronics, 18,      10
+ * item,     Gold Coin,   3
+ * default,  ,            12
+ * </pre>
+ *
+ * <p>Every rule is a small integer with its slab and discount in parallel arrays,
+ * and category rules are bound to the catalog's category ids when the rules are
+ * loaded. Finding an item's rule is a hash lookup (item overrides, then a memo of
+ * names already seen) plus an array read; a {@link BillLedger} resolves each
+ * distinct item once per bill, so adding a line only does arithmetic.
+ *
+ * <p>Items no rule matches use rule {@link #BILL_RATE}: slab 0, taxed at the bill's
+ * Tax % and discounted by its Discount %. A rules file therefore only has to list
+ * what differs; a {@code default} row changes that fallback.
+ */
+public final class TaxRules {
+
+    /** Rule and slab of items that follow the bill's own Tax % and Discount %. */
+    public static final int BILL_RATE = 0;
+    /** Discount of a rule that takes the bill's Discount %. */
+    public static final int BILL_DISCOUNT = -1;
+
+    private static final int MAX_MEMO = 100_000; // Distinct item names remembered
+
+    private final int[] slabBps;         // slab -> GST rate; slab 0 follows the bill
+    private final int[] ruleSlab;        // rule -> slab
+    private final int[] ruleDiscountBps; // rule -> discount, or BILL_DISCOUNT
+    private final Map<String, Integer> itemRules;     // case-folded item name -> rule
+    private final Map<String, Integer> categoryRules; // case-folded category -> rule
+    private final int defaultRule;
+    private final ProductCatalog catalog;             // null: only item rules and the default apply
+    private final int[] categoryRule;                 // catalog category id -> rule
+    private final ConcurrentHashMap<String, Integer> memo = new ConcurrentHashMap<>();
+
+    private TaxRules(int[] slabBps, int[] ruleSlab, int[] ruleDiscountBps, Map<String, Integer> itemRules,
+                     Map<String, Integer> categoryRules, int defaultRule, ProductCatalog catalog) {
+        this.slabBps = slabBps;
+        this.ruleSlab = ruleSlab;
+        this.ruleDiscountBps = ruleDiscountBps;
+        this.itemRules = itemRules;
+        this.categoryRules = categoryRules;
+        this.defaultRule = defaultRule;
+        this.catalog = catalog;
+        categoryRule = new int[catalog != null ? catalog.categoryCount() : 0];
+        for (int id = 0; id < categoryRule.length; id++) categoryRule[id] = ruleOfCategory(catalog.categoryName(id));
+    }
+
+    /** Default location: {@code tax-rules.csv} under {@link AppPaths#home()}. */
+    public static Path defaultPath() {
+        return AppPaths.resolve("tax-rules.csv");
+    }
+
+    /**
+     * Reads and compiles a rules file; {@code catalog} (may be null) supplies item categories.
+     * @throws IOException if the file cannot be read or a row is malformed
+     */
+    public static TaxRules load(Path csv, ProductCatalog catalog) throws IOException {
+        List<String> scopes = new ArrayList<>(), names = new ArrayList<>();
+        List<int[]> rates = new ArrayList<>(); // {gst bps, discount bps}
+        List<String> fields = new ArrayList<>(4);
+        try (BufferedReader in = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNo = 0;
+            while ((line = in.readLine()) != null) {
+                lineNo++;
+                if (line.trim().isEmpty() || line.trim().startsWith("#")) continue;
+                Csv.split(line, fields);
+                String scope = fields.get(0).trim().toLowerCase(Locale.ROOT);
+                if (lineNo == 1 && scope.equals("scope")) continue;
+                if (fields.size() < 3) throw new IOException("Line " + lineNo + ": expected scope,name,gst_pct[,discount_pct]");
+                if (!scope.equals("item") && !scope.equals("category") && !scope.equals("default")) {
+                    throw new IOException("Line " + lineNo + ": scope must be item, category or default");
+                }
+                try {
+                    int gst = checkRate(Money.parseRate(fields.get(2)));
+                    String discount = fields.size() > 3 ? fields.get(3).trim() : "";
+                    int discountBps = discount.isEmpty() ? BILL_DISCOUNT : checkRate(Money.parseRate(discount));
+                    scopes.add(scope);
+                    names.add(fields.get(1).trim());
+                    rates.add(new int[]{gst, discountBps});
+                } catch (NumberFormatException e) {
+                    throw new IOException("Line " + lineNo + ": " + e.getMessage());
+                }
+            }
+        }
+        return compile(scopes, names, rates, catalog);
+    }
+
+    private static int checkRate(int bps) {
+        if (bps < 0 || bps > Money.BPS_WHOLE) throw new NumberFormatException("Rate must be between 0 and 100: " + Money.formatRatePlain(bps));
+        return bps;
+    }
+
+    private static TaxRules compile(List<String> scopes, List<String> names, List<int[]> rates, ProductCatalog catalog) {
+        // Slabs: one per distinct rate, in rate order, after the bill-rate slab
+        TreeSet<Integer> distinct = new TreeSet<>();
+        for (int[] r : rates) distinct.add(r[0]);
+        int[] slabBps = new int[distinct.size() + 1];
+        Map<Integer, Integer> slabOf = new HashMap<>();
+        int s = 1;
+        for (int bps : distinct) {
+            slabBps[s] = bps;
+            slabOf.put(bps, s++);
+        }
+
+        // Rules: rule 0 is the bill rate, then one per row (later rows win)
+        int n = rates.size();
+        int[] ruleSlab = new int[n + 1];
+        int[] ruleDiscount = new int[n + 1];
+        ruleSlab[BILL_RATE] = 0;
+        ruleDiscount[BILL_RATE] = BILL_DISCOUNT;
+        Map<String, Integer> items = new HashMap<>(), categories = new HashMap<>();
+        int defaultRule = BILL_RATE;
+        for (int i = 0; i < n; i++) {
+            int rule = i + 1;
+            ruleSlab[rule] = slabOf.get(rates.get(i)[0]);
+            ruleDiscount[rule] = rates.get(i)[1];
+            String key = fold(names.get(i));
+            switch (scopes.get(i)) {
+                case "item":     items.put(key, rule); break;
+                case "category": categories.put(key, rule); break;
+                default:         defaultRule = rule; break;
+            }
+        }
+        return new TaxRules(slabBps, ruleSlab, ruleDiscount, items, categories, defaultRule, catalog);
+    }
+
+    // --- LOOKUP ---
+
+    /** The rule for an item: its own override, else its catalog category's, else the default. */
+    public int ruleOf(String itemName) {
+        String key = fold(itemName);
+        Integer rule = itemRules.get(key);
+        if (rule != null) return rule;
+        rule = memo.get(key);
+        if (rule == null) {
+            int row = catalog != null ? catalog.findName(itemName) : -1;
+            rule = row >= 0 ? categoryRule[catalog.category(row)] : defaultRule;
+            if (memo.size() < MAX_MEMO) memo.put(key, rule);
+        }
+        return rule;
+    }
+
+    /** The rule for a category name (e.g. from an import without a catalog). */
+    public int ruleOfCategory(String category) {
+        Integer rule = categoryRules.get(fold(category));
+        return rule != null ? rule : defaultRule;
+    }
+
+    public int slab(int rule) { return ruleSlab[rule]; }
+    /** The rule's own discount in basis points, or {@link #BILL_DISCOUNT}. */
+    public int discountBps(int rule) { return ruleDiscountBps[rule]; }
+    public int slabCount() { return slabBps.length; }
+    /** GST rate of a slab; slab 0 has none of its own (it takes the bill's Tax %). */
+    public int slabBps(int slab) { return slabBps[slab]; }
+
+    private static String fold(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public String toString() {
+        return "TaxRules[" + (ruleSlab.length - 1) + " rules, " + (slabBps.length - 1) + " slabs]";
+    }
+}
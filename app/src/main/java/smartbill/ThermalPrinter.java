@@ -0,0 +1,154 @@
+package smartbill;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Properties;
+import javax.print.DocFlavor;
+import javax.print.DocPrintJob;
+import javax.print.PrintException;
+import javax.print.PrintService;
+import javax.print.PrintServiceLookup;
+import javax.print.SimpleDoc;
+
+/**
+ * Sends receipts to an ESC/POS thermal printer as raw bytes.
+ *
+ * <p>Configured by {@code printer.properties} under {@link AppPaths#home()}:
+ * <pre>
+ * printer  = TM-T82          print service name (or part of it); "default" for the system default
+ * columns  = 42              32 (58 mm) / 42 / 48 (80 mm)
+ * template = receipt.tpl     optional, see {@link ReceiptTemplate}; relative to the SmartBill home
+ * drawer   = true            kick the cash drawer after the receipt
+ * file     = receipt.bin     write the bytes to this file instead of printing (for testing)
+ * </pre>
+ * Without the file the till prints through the page-printer dialog as before.
+ * The template is compiled once; every receipt renders into the same buffer
+ * and goes to the printer as one {@link DocFlavor.BYTE_ARRAY} job, so nothing
+ * is rasterised.
+ */
+public final class ThermalPrinter {
+
+    private final ReceiptTemplate template;
+    private final String printerName;   // null when writing to a file
+    private final Path file;            // null when printing
+    private final boolean drawer;
+    private final EscPos buffer = new EscPos(16 * 1024); // Guarded by this
+
+    ThermalPrinter(ReceiptTemplate template, String printerName, Path file, boolean drawer) {
+        this.template = template;
+        this.printerName = printerName;
+        this.file = file;
+        this.drawer = drawer;
+    }
+
+    /** Default location: {@code printer.properties} under {@link AppPaths#home()}. */
+    public static Path defaultConfig() {
+        return AppPaths.resolve("printer.properties");
+    }
+
+    /**
+     * Reads a printer configuration and compiles its template.
+     * @return the printer, or null if {@code config} does not exist
+     */
+    public static ThermalPrinter load(Path config) throws IOException {
+        if (!Files.exists(config)) return null;
+        Properties p = new Properties();
+        try (Reader in = Files.newBufferedReader(config, StandardCharsets.UTF_8)) {
+            p.load(in);
+        }
+        int columns;
+        try {
+            columns = Integer.parseInt(p.getProperty("columns", String.valueOf(ReceiptTemplate.WIDE)).trim());
+        } catch (NumberFormatException e) {
+            throw new IOException(config.getFileName() + ": columns must be a number");
+        }
+        String tpl = p.getProperty("template", "").trim();
+        ReceiptTemplate template;
+        try {
+            template = tpl.isEmpty() ? ReceiptTemplate.standard(columns) : ReceiptTemplate.load(AppPaths.home().resolve(tpl), columns);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(config.getFileName() + ": " + e.getMessage());
+        }
+        String out = p.getProperty("file", "").trim();
+        String printer = p.getProperty("printer", "default").trim();
+        return new ThermalPrinter(template, out.isEmpty() ? printer : null,
+            out.isEmpty() ? null : AppPaths.home().resolve(out), Boolean.parseBoolean(p.getProperty("drawer", "false").trim()));
+    }
+
+    /** Where receipts go, for status messages. */
+    public String destination() {
+        return file != null ? file.toString() : printerName;
+    }
+
+    /**
+     * Renders and spools one receipt. Safe to call off the EDT.
+     * @return the number of bytes sent
+     */
+    public synchronized int print(BillSnapshot bill) throws IOException, PrintException {
+        template.render(bill, buffer, drawer);
+        if (file != null) {
+            try (OutputStream out = Files.newOutputStream(file)) {
+                buffer.writeTo(out);
+            }
+        } else {
+            DocPrintJob job = service(printerName).createPrintJob();
+            job.print(new SimpleDoc(buffer.toByteArray(), DocFlavor.BYTE_ARRAY.AUTOSENSE, null), null);
+        }
+        return buffer.size();
+    }
+
+    /** A print service that accepts raw bytes, by (partial) name or "default". */
+    static PrintService service(String name) throws PrintException {
+        DocFlavor flavor = DocFlavor.BYTE_ARRAY.AUTOSENSE;
+        if (name.equalsIgnoreCase("default")) {
+            PrintService s = PrintServiceLookup.lookupDefaultPrintService();
+            if (s != null && s.isDocFlavorSupported(flavor)) return s;
+            throw new PrintException("No default printer accepting raw ESC/POS data");
+        }
+        PrintService partial = null;
+        for (PrintService s : PrintServiceLookup.lookupPrintServices(flavor, null)) {
+            if (s.getName().equalsIgnoreCase(name)) return s;
+            if (partial == null && s.getName().toLowerCase(Locale.ROOT).contains(name.toLowerCase(Locale.ROOT))) partial = s;
+        }
+        if (partial != null) return partial;
+        throw new PrintException("No printer named '" + name + "' accepting raw ESC/POS data");
+    }
+
+    /**
+     * Renders a sample bill to a file, a stand-in for the printer when checking
+     * layouts and timings: {@code ThermalPrinter <out.bin> [--columns N] [--lines N] [--template file]}.
+     */
+    public static void main(String[] args) throws Exception {
+        Path out = null, tpl = null;
+        int columns = ReceiptTemplate.WIDE, lines = 25;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--columns") && i + 1 < args.length) columns = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--lines") && i + 1 < args.length) lines = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--template") && i + 1 < args.length) tpl = Paths.get(args[++i]);
+            else if (out == null && !args[i].startsWith("--")) out = Paths.get(args[i]);
+            else out = null;
+        }
+        if (out == null) {
+            System.err.println("Usage: java -cp smartbill.jar smartbill.ThermalPrinter <out.bin> [--columns 32|42|48] [--lines N] [--template file]");
+            System.exit(2);
+        }
+        ReceiptTemplate template = tpl != null ? ReceiptTemplate.load(tpl, columns) : ReceiptTemplate.standard(columns);
+        BillLedger ledger = new BillLedger();
+        for (int i = 0; i < lines; i++) ledger.add("Sample item " + (i + 1) + (i % 7 == 0 ? " with a longer description" : ""), 1999 + i * 250L, 1 + i % 4);
+        ledger.setRates(500, 1800);
+        BillSnapshot bill = BillSnapshot.of(ledger, "Sample Customer", System.currentTimeMillis());
+
+        ThermalPrinter printer = new ThermalPrinter(template, null, out, true);
+        for (int i = 0; i < 200; i++) printer.print(bill); // Warm up
+        long t0 = System.nanoTime();
+        int bytes = printer.print(bill);
+        System.out.printf("%d lines, %d columns: %d bytes in %.2f ms -> %s%n",
+            lines, columns, bytes, (System.nanoTime() - t0) / 1e6, out);
+    }
+}
@@ -0,0 +1,53 @@
+package smartbill;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * Shared, thread-safe timestamp formatting for receipts, invoices and logs.
+ * Replaces per-object {@code SimpleDateFormat}s (not thread-safe, and one
+ * {@code Date} per call) with immutable {@code java.time} formatters; the
+ * most recent second is cached, so the preview's per-frame date refresh
+ * normally returns the same string without formatting anything.
+ */
+public final class Timestamps {
+
+    /** "yyyy-MM-dd HH:mm:ss", the format receipts and invoices have always used. */
+    public static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss", Locale.ROOT);
+    /** "HH:mm:ss.SSS" for log lines. */
+    public static final DateTimeFormatter CLOCK = DateTimeFormatter.ofPattern("HH:mm:ss.SSS", Locale.ROOT);
+
+    private static final ZoneId ZONE = ZoneId.systemDefault(); // Like SimpleDateFormat, fixed when first used
+
+    /** One formatted second; replaced as a whole, so readers never see a torn pair. */
+    private static final class Second {
+        final long epochSecond;
+        final String text;
+
+        Second(long epochSecond, String text) {
+            this.epochSecond = epochSecond;
+            this.text = text;
+        }
+    }
+
+    private static volatile Second last = new Second(Long.MIN_VALUE, "");
+
+    private Timestamps() {}
+
+    /** {@code epochMillis} as "yyyy-MM-dd HH:mm:ss" in the local zone. */
+    public static String dateTime(long epochMillis) {
+        long second = Math.floorDiv(epochMillis, 1000L);
+        Second cached = last;
+        if (cached.epochSecond == second) return cached.text;
+        String text = DATE_TIME.format(Instant.ofEpochSecond(second).atZone(ZONE));
+        last = new Second(second, text);
+        return text;
+    }
+
+    /** {@code epochMillis} as "HH:mm:ss.SSS" in the local zone. */
+    public static String clock(long epochMillis) {
+        return CLOCK.format(Instant.ofEpochMilli(epochMillis).atZone(ZONE));
+    }
+}
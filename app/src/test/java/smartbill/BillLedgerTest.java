@@ -0,0 +1,152 @@
+package smartbill;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Line numbers, rows and undo/redo across removals, restores and edits. */
+class BillLedgerTest {
+
+    @Test
+    void removingTheLastLineGivesItsNumberBack() {
+        BillLedger ledger = new BillLedger();
+        ledger.add("Tea", 1250, 2);
+        ledger.add("Rice", 6000, 1);
+        ledger.add("Milk", 3000, 1);
+        ledger.undoAdd();
+        ledger.removeLast();
+        assertEquals(1, ledger.lineCount());
+        assertEquals(2500, ledger.subtotal());
+
+        assertEquals(1, ledger.add("Soap", 4000, 1));
+        assertEquals(2, ledger.lineCount());
+        assertEquals(1, ledger.lineOf(1));
+        assertEquals("Tea Soap", names(ledger));
+
+        ledger.undoAdd(); // The Rice/Milk adds in the log belong to the old numbers
+        ledger.undoAdd();
+        assertEquals(0, ledger.lineCount());
+        assertEquals(0, ledger.subtotal());
+    }
+
+    @Test
+    void lastRemovedLineCanBePutBackUntilItsNumberIsReused() {
+        BillLedger ledger = new BillLedger();
+        ledger.add("Tea", 1250, 2);
+        ledger.add("Rice", 6000, 1);
+        ledger.removeLine(1);
+        assertTrue(ledger.canRestore(1));
+        ledger.restoreLine(1);
+        assertEquals("Tea Rice", names(ledger));
+
+        ledger.removeLine(1);
+        ledger.add("Milk", 3000, 1);
+        assertFalse(ledger.canRestore(1));
+        assertFalse(ledger.canRestore(2));
+    }
+
+    @Test
+    void rowsAndLinesStayInStepWithAModel() {
+        Random rnd = new Random(7);
+        BillLedger ledger = new BillLedger();
+        List<Integer> live = new ArrayList<>(); // Line numbers in row order
+        List<Long> totals = new ArrayList<>();  // Last total written to each line number
+        for (int op = 0; op < 5000; op++) {
+            int kind = rnd.nextInt(4);
+            if (kind == 0 || live.isEmpty()) {
+                int qty = 1 + rnd.nextInt(5);
+                ledger.add("item" + rnd.nextInt(6), 100, qty);
+                int line = ledger.lineCount() - 1;
+                live.add(line);
+                if (line == totals.size()) totals.add(0L);
+                totals.set(line, 100L * qty);
+            } else if (kind == 1) {
+                // Mostly the last row, so numbers are handed back and reused
+                int row = rnd.nextBoolean() ? live.size() - 1 : rnd.nextInt(live.size());
+                ledger.removeLine(live.remove(row));
+            } else if (kind == 2) {
+                int line = rnd.nextInt(ledger.lineCount() + 1);
+                if (!ledger.canRestore(line)) continue;
+                ledger.restoreLine(line);
+                int row = 0;
+                while (row < live.size() && live.get(row) < line) row++;
+                live.add(row, line);
+                assertEquals(row, ledger.rowOf(line));
+            } else {
+                int row = rnd.nextInt(live.size()), qty = 1 + rnd.nextInt(5);
+                ledger.setLine(live.get(row), "edited", 200, qty);
+                totals.set(live.get(row), 200L * qty);
+            }
+
+            assertEquals(live.size(), ledger.size());
+            long subtotal = 0;
+            for (int row = 0; row < live.size(); row++) {
+                int line = live.get(row);
+                assertEquals(line, ledger.lineOf(row), "op " + op);
+                assertEquals(row, ledger.rowOf(line), "op " + op);
+                assertEquals((long) totals.get(line), ledger.total(row), "op " + op);
+                subtotal += totals.get(line);
+            }
+            assertEquals(subtotal, ledger.subtotal(), "op " + op);
+        }
+    }
+
+    @Test
+    void undoPutsBackALineWhoseNumberWasReused() {
+        BillingEngine engine = new BillingEngine(e -> { throw new AssertionError(e); });
+        BillingEngine.Bill bill = engine.open(new BillingEngine.Bill());
+        engine.addLine(bill, "Tea", 1250, 2, false);
+        engine.addLine(bill, "Rice", 6000, 1, false);
+        engine.addLine(bill, "Milk", 3000, 1, false);
+        engine.removeLine(bill, 2);
+        engine.addLine(bill, "Soap", 4000, 1, false); // Reuses Milk's number
+        assertEquals(3, bill.ledger.lineCount());
+
+        engine.undo(bill, null);
+        engine.undo(bill, null);
+        assertEquals("Tea Rice Milk", names(bill.ledger));
+        assertEquals(1250 * 2 + 6000 + 3000, bill.ledger.subtotal());
+
+        engine.redo(bill, null);
+        engine.redo(bill, null);
+        assertEquals("Tea Rice Soap", names(bill.ledger));
+        assertEquals(1250 * 2 + 6000 + 4000, bill.ledger.subtotal());
+    }
+
+    @Test
+    void undoAndRedoReportTheRowsTheyTouch() {
+        BillingEngine engine = new BillingEngine(e -> { throw new AssertionError(e); });
+        BillingEngine.Bill bill = engine.open(new BillingEngine.Bill());
+        for (String name : new String[]{"Tea", "Rice", "Milk", "Soap", "Salt"}) engine.addLine(bill, name, 1000, 1, false);
+        engine.removeLine(bill, 1);                 // Rice, in the middle
+        engine.editLine(bill, 1, "Curd", 1500, 2);  // Milk -> Curd
+        engine.removeLine(bill, 3);                 // Salt, the last line
+        engine.undoAdd(bill);                       // Soap, now the last line
+        assertEquals("Tea Curd", names(bill.ledger));
+
+        List<String> table = new ArrayList<>();
+        for (int row = 0; row < bill.ledger.size(); row++) table.add(bill.ledger.name(row));
+        BillingEngine.RowListener rows = new BillingEngine.RowListener() {
+            @Override public void rowInserted(int row) { table.add(row, bill.ledger.name(row)); }
+            @Override public void rowRemoved(int row) { table.remove(row); }
+            @Override public void rowUpdated(int row) { table.set(row, bill.ledger.name(row)); }
+        };
+        while (engine.undo(bill, rows)) assertEquals(names(bill.ledger), String.join(" ", table));
+        assertEquals("", names(bill.ledger));
+        while (engine.redo(bill, rows)) assertEquals(names(bill.ledger), String.join(" ", table));
+        assertEquals("Tea Curd", names(bill.ledger));
+        assertEquals(1000 + 3000, bill.ledger.subtotal());
+    }
+
+    private static String names(BillLedger ledger) {
+        StringBuilder sb = new StringBuilder();
+        for (int row = 0; row < ledger.size(); row++) sb.append(row == 0 ? "" : " ").append(ledger.name(row));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,78 @@
+package smartbill;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** Find Invoice keeps up with the journal across restarts and segment roll-over. */
+class InvoiceIndexTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void billsCommittedAfterARestartOnAPreparedSegmentAreFound() throws IOException {
+        Path journal = crashWithAPreparedSegment();
+        try (InvoiceJournal j = InvoiceJournal.open(journal, 4096)) {
+            InvoiceJournalTest.commitBills(j, 5);
+        }
+        assertIndexed(journal, 5);
+    }
+
+    @Test
+    void unsealedSegmentFollowedByRecordsIsScannedPast() throws IOException {
+        Path journal = crashWithAPreparedSegment();
+        try (InvoiceJournal j = InvoiceJournal.open(journal, 4096)) {
+            InvoiceJournalTest.commitBills(j, 5);
+        }
+        // As an older journal left it: finished, but without its roll-over marker
+        Path first = InvoiceJournal.segments(journal).get(0);
+        int end = InvoiceJournal.scanSegment(first, (type, billId, timestamp, payload) -> {});
+        try (FileChannel ch = FileChannel.open(first, StandardOpenOption.WRITE)) {
+            ch.write(ByteBuffer.allocate(4), end);
+        }
+        assertIndexed(journal, 5);
+    }
+
+    @Test
+    void segmentBeingWrittenIsFollowedWhileTheNextIsOnlyPrepared() throws IOException {
+        Path journal = dir.resolve("journal");
+        try (InvoiceJournal j = InvoiceJournal.open(journal, 4096);
+             InvoiceIndex index = InvoiceIndex.open(dir.resolve("index"), journal)) {
+            InvoiceJournalTest.fillUntilNextSegmentIsPrepared(j, journal);
+            InvoiceJournalTest.commitBills(j, 2);
+            assertEquals(2, index.refresh());
+            InvoiceJournalTest.commitBills(j, 2);
+            assertEquals(2, index.refresh());
+            assertEquals(4, index.size());
+        }
+    }
+
+    /** A journal copied while its next segment was prepared, as a power cut would leave it. */
+    private Path crashWithAPreparedSegment() throws IOException {
+        Path running = dir.resolve("running"), crashed = dir.resolve("journal");
+        try (InvoiceJournal j = InvoiceJournal.open(running, 4096)) {
+            InvoiceJournalTest.fillUntilNextSegmentIsPrepared(j, running);
+            InvoiceJournalTest.copySegments(running, crashed);
+        }
+        return crashed;
+    }
+
+    private void assertIndexed(Path journal, int bills) throws IOException {
+        try (InvoiceIndex index = InvoiceIndex.open(dir.resolve("index"), journal)) {
+            assertEquals(bills, index.refresh());
+            int[] found = new int[bills];
+            for (int n = 0; n < bills; n++) {
+                assertEquals(1, index.search("Customer " + n, "", Long.MIN_VALUE, Long.MAX_VALUE, found), "Customer " + n);
+                assertEquals("Customer " + n, index.customer(found[0]));
+            }
+        }
+    }
+}
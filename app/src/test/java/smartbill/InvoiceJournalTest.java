@@ -0,0 +1,359 @@
+package smartbill;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Crash recovery of the sales journal: damaged tails, CRC mismatches,
+ * segment roll-over (also with a prepared segment) and the replay of line
+ * edits into an open bill.
+ */
+class InvoiceJournalTest {
+
+    @TempDir
+    Path dir;
+
+    // --- DAMAGED TAILS ---
+
+    @Test
+    void tornTailRecordIsCutOff() throws IOException {
+        long billId = writeBill(3);
+        List<Integer> offsets = recordOffsets();
+        putInt(lastOffset(offsets), Integer.MAX_VALUE / 2); // Length runs past the segment, as if cut mid-write
+
+        assertRecovered(billId, 2);
+        assertAppendAfterRecovery(billId, 3);
+    }
+
+    @Test
+    void zeroedTailRecordIsCutOff() throws IOException {
+        long billId = writeBill(3);
+        List<Integer> offsets = recordOffsets();
+        int last = lastOffset(offsets);
+        zero(last, end(offsets) - last); // Pages never written back before the crash
+
+        assertRecovered(billId, 2);
+        assertAppendAfterRecovery(billId, 3);
+    }
+
+    @Test
+    void crcMismatchStopsRecoveryAtThatRecord() throws IOException {
+        long billId = writeBill(4);
+        List<Integer> offsets = recordOffsets();
+        int third = offsets.get(3); // Opened, line 1, line 2, line 3 (damaged), line 4
+        flipByte(third + 8 + 20);
+
+        assertRecovered(billId, 2); // Nothing after the bad record is trusted
+        assertAppendAfterRecovery(billId, 3);
+    }
+
+    // --- SEGMENTS ---
+
+    @Test
+    void billSpanningSegmentsIsRecovered() throws IOException {
+        long billId;
+        try (InvoiceJournal j = InvoiceJournal.open(dir, 4096)) {
+            billId = j.newBillId();
+            j.billOpened(billId);
+            for (int i = 0; i < 500; i++) j.lineAdded(billId, "Item " + i, 100 + i, 1);
+        }
+        assertTrue(InvoiceJournal.segments(dir).size() > 1, "expected the journal to roll over");
+
+        try (InvoiceJournal j = InvoiceJournal.open(dir, 4096)) {
+            InvoiceJournal.OpenBill bill = single(j);
+            assertEquals(billId, bill.billId);
+            assertEquals(500, bill.ledger.size());
+            assertEquals("Item 499", bill.ledger.name(499));
+            long subtotal = 0;
+            for (int i = 0; i < 500; i++) subtotal += 100 + i;
+            assertEquals(subtotal, bill.ledger.subtotal());
+        }
+    }
+
+    @Test
+    void committedBillsAreNotReopened() throws IOException {
+        try (InvoiceJournal j = InvoiceJournal.open(dir, 4096)) {
+            for (int n = 0; n < 50; n++) {
+                long id = j.newBillId();
+                j.billOpened(id);
+                BillLedger ledger = new BillLedger();
+                for (int i = 0; i < 10; i++) {
+                    j.lineAdded(id, "Item " + i, 250, 2);
+                    ledger.add("Item " + i, 250, 2);
+                }
+                j.billCommitted(id, BillSnapshot.of(ledger, "Customer " + n, 0));
+            }
+        }
+        int[] committed = {0};
+        InvoiceJournal.scan(dir, (type, billId, timestamp, payload) -> {
+            if (type == InvoiceJournal.BILL_COMMITTED) committed[0]++;
+        });
+        assertEquals(50, committed[0]);
+        try (InvoiceJournal j = InvoiceJournal.open(dir, 4096)) {
+            assertEquals(0, j.openBills().size());
+        }
+    }
+
+    @Test
+    void restartWithAPreparedSegmentSealsThePreviousOne() throws IOException {
+        Path crashed = dir.resolve("crashed");
+        try (InvoiceJournal j = InvoiceJournal.open(dir, 4096)) {
+            fillUntilNextSegmentIsPrepared(j, dir);
+            copySegments(dir, crashed); // As left by a power cut at this point
+        }
+        assertEquals(1, InvoiceJournal.segments(dir).size(), "close() leaves no unused prepared segment");
+
+        try (InvoiceJournal j = InvoiceJournal.open(crashed, 4096)) {
+            commitBills(j, 5);
+        }
+        Path first = InvoiceJournal.segments(crashed).get(0);
+        assertTrue(InvoiceJournal.isSealed(first, InvoiceJournal.scanSegment(first, (type, billId, timestamp, payload) -> {})));
+        int[] committed = {0};
+        InvoiceJournal.scanFrom(crashed, 0, (location, type, billId, timestamp, payload) -> {
+            if (type == InvoiceJournal.BILL_COMMITTED) committed[0]++;
+        });
+        assertEquals(5, committed[0]);
+    }
+
+    // --- LINE EDITS ---
+
+    @Test
+    void lineRemovalsAndChangesReplayLikeTheLedger() throws IOException {
+        BillLedger expected = new BillLedger();
+        long billId;
+        try (InvoiceJournal j = InvoiceJournal.open(dir)) {
+            billId = j.newBillId();
+            j.billOpened(billId);
+            String[] names = {"Tea", "Rice", "Soap", "Milk", "Salt"};
+            for (String name : names) {
+                j.lineAdded(billId, name, 1000, 1);
+                expected.add(name, 1000, 1);
+            }
+            j.lineRemoved(billId, 1);                   // From the middle
+            expected.removeLine(1);
+            j.lineChanged(billId, 2, "Soap Bar", 1250, 3);
+            expected.setLine(2, "Soap Bar", 1250, 3);
+            j.lineRemoved(billId, 4);                   // The last line
+            expected.removeLine(4);
+            j.quantityChanged(billId, 2, 5);            // Row 2 is now line 3 (Milk)
+            expected.setQuantity(2, 5);
+            j.lineRestored(billId, 1);
+            expected.restoreLine(1);
+            j.lineRemoved(billId, 99);                  // Unknown lines are ignored
+        }
+
+        try (InvoiceJournal j = InvoiceJournal.open(dir)) {
+            BillLedger replayed = single(j).ledger;
+            assertEquals(rows(expected), rows(replayed));
+            assertEquals("Tea Rice Soap Bar Milk", names(replayed));
+            assertEquals(expected.subtotal(), replayed.subtotal());
+        }
+    }
+
+    @Test
+    void engineEditsAndUndoSurviveRestart() throws IOException {
+        String before;
+        long subtotal;
+        try (InvoiceJournal j = InvoiceJournal.open(dir)) {
+            BillingEngine engine = new BillingEngine(e -> { throw new AssertionError(e); });
+            engine.attachJournal(j);
+            BillingEngine.Bill bill = engine.open(new BillingEngine.Bill());
+            for (int i = 0; i < 6; i++) engine.addLine(bill, "Item " + i, 500, 1, true);
+            engine.removeLine(bill, 2);
+            engine.editLine(bill, 0, "Item 0", 700, 4);
+            engine.removeLine(bill, 4);
+            engine.undo(bill, null);
+            engine.undo(bill, null);
+            engine.redo(bill, null);
+            engine.addLine(bill, "Item 1", 500, 2, true); // Merges into a line after a removed one
+            before = rows(bill.ledger);
+            subtotal = bill.ledger.subtotal();
+        }
+
+        try (InvoiceJournal j = InvoiceJournal.open(dir)) {
+            InvoiceJournal.OpenBill recovered = single(j);
+            assertEquals(before, rows(recovered.ledger));
+            assertEquals(subtotal, recovered.ledger.subtotal());
+
+            BillingEngine engine = new BillingEngine(e -> { throw new AssertionError(e); });
+            BillingEngine.Bill bill = engine.restore(recovered, new BillingEngine.Bill());
+            assertEquals(before, rows(bill.ledger));
+        }
+    }
+
+    @Test
+    void customerNamedAfterTheLastLineSurvivesRestart() throws IOException {
+        try (InvoiceJournal j = InvoiceJournal.open(dir)) {
+            BillingEngine engine = new BillingEngine(e -> { throw new AssertionError(e); });
+            engine.attachJournal(j);
+            BillingEngine.Bill bill = engine.open(new BillingEngine.Bill());
+            engine.addLine(bill, "Tea", 1250, 2, false);
+            engine.setCustomer(bill, "Ravi");
+            engine.saveCustomer(bill); // E.g. the bill is parked
+            engine.saveCustomer(bill);
+
+            BillingEngine.Bill closed = engine.open(new BillingEngine.Bill());
+            engine.close(closed, 0);
+            assertThrows(IllegalStateException.class, () -> engine.setCustomer(closed, "Late"));
+        }
+        try (InvoiceJournal j = InvoiceJournal.open(dir)) {
+            assertEquals("Ravi", single(j).customer);
+        }
+    }
+
+    // --- Helpers ---
+
+    /** Writes an open bill with {@code lines} lines of "Item n" at ₹10.00. */
+    private long writeBill(int lines) throws IOException {
+        try (InvoiceJournal j = InvoiceJournal.open(dir)) {
+            long billId = j.newBillId();
+            j.billOpened(billId);
+            for (int i = 1; i <= lines; i++) j.lineAdded(billId, "Item " + i, 1000, 1);
+            return billId;
+        }
+    }
+
+    /**
+     * Opens and voids bills until the first segment is three quarters full,
+     * then waits for the sync thread to prepare the second one.
+     */
+    static void fillUntilNextSegmentIsPrepared(InvoiceJournal j, Path dir) throws IOException {
+        Path first = InvoiceJournal.segmentPath(dir, 1), second = InvoiceJournal.segmentPath(dir, 2);
+        while (InvoiceJournal.scanSegment(first, (type, billId, timestamp, payload) -> {}) < 3200) {
+            long id = j.newBillId();
+            j.billOpened(id);
+            j.billVoided(id);
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!Files.exists(second) || InvoiceJournal.scanSegment(second, (type, billId, timestamp, payload) -> {}) < 0) {
+            assertTrue(System.currentTimeMillis() < deadline, "next segment was never prepared");
+            sleep(InvoiceJournal.SYNC_INTERVAL_MS);
+        }
+        assertEquals(2, InvoiceJournal.segments(dir).size());
+    }
+
+    static void copySegments(Path from, Path to) throws IOException {
+        Files.createDirectories(to);
+        for (Path p : InvoiceJournal.segments(from)) Files.copy(p, to.resolve(p.getFileName()));
+    }
+
+    static void commitBills(InvoiceJournal j, int count) throws IOException {
+        for (int n = 0; n < count; n++) {
+            long id = j.newBillId();
+            j.billOpened(id);
+            j.lineAdded(id, "Item " + n, 250, 2);
+            BillLedger ledger = new BillLedger();
+            ledger.add("Item " + n, 250, 2);
+            j.billCommitted(id, BillSnapshot.of(ledger, "Customer " + n, 0));
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void assertRecovered(long billId, int lines) throws IOException {
+        try (InvoiceJournal j = InvoiceJournal.open(dir)) {
+            InvoiceJournal.OpenBill bill = single(j);
+            assertEquals(billId, bill.billId);
+            assertEquals(lines, bill.ledger.size());
+            assertEquals(lines * 1000L, bill.ledger.subtotal());
+        }
+    }
+
+    /** New records go where the damage was cut off and are found on the next start. */
+    private void assertAppendAfterRecovery(long billId, int lines) throws IOException {
+        try (InvoiceJournal j = InvoiceJournal.open(dir)) {
+            j.lineAdded(billId, "After restart", 1000, 1);
+        }
+        try (InvoiceJournal j = InvoiceJournal.open(dir)) {
+            BillLedger ledger = single(j).ledger;
+            assertEquals(lines, ledger.size());
+            assertEquals("After restart", ledger.name(lines - 1));
+        }
+    }
+
+    private static InvoiceJournal.OpenBill single(InvoiceJournal j) {
+        assertEquals(1, j.openBills().size());
+        return j.openBills().get(0);
+    }
+
+    private Path segment() throws IOException {
+        List<Path> segments = InvoiceJournal.segments(dir);
+        assertEquals(1, segments.size());
+        return segments.get(0);
+    }
+
+    /** Offsets of the records in the only segment, then the offset just past the last one. */
+    private List<Integer> recordOffsets() throws IOException {
+        List<Integer> offsets = new ArrayList<>();
+        int end = InvoiceJournal.scanSegment(segment(), 16, (location, type, billId, timestamp, payload) ->
+            offsets.add((int) location));
+        offsets.add(end);
+        return offsets;
+    }
+
+    private static int lastOffset(List<Integer> offsets) {
+        return offsets.get(offsets.size() - 2);
+    }
+
+    private static int end(List<Integer> offsets) {
+        return offsets.get(offsets.size() - 1);
+    }
+
+    private void putInt(int offset, int value) throws IOException {
+        write(offset, (ByteBuffer) ByteBuffer.allocate(4).putInt(value).flip());
+    }
+
+    private void zero(int offset, int length) throws IOException {
+        write(offset, ByteBuffer.allocate(length));
+    }
+
+    private void flipByte(int offset) throws IOException {
+        try (FileChannel ch = FileChannel.open(segment(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            ch.read(b, offset);
+            b.put(0, (byte) ~b.get(0));
+            b.rewind();
+            ch.write(b, offset);
+        }
+    }
+
+    private void write(int offset, ByteBuffer bytes) throws IOException {
+        try (FileChannel ch = FileChannel.open(segment(), StandardOpenOption.WRITE)) {
+            ch.write(bytes, offset);
+        }
+    }
+
+    /** Rows as "name price x qty" joined by ';'. */
+    static String rows(BillLedger ledger) {
+        StringBuilder sb = new StringBuilder();
+        for (int row = 0; row < ledger.size(); row++) {
+            sb.append(ledger.name(row)).append(' ').append(ledger.price(row)).append(" x").append(ledger.quantity(row)).append(';');
+        }
+        return sb.toString();
+    }
+
+    private static String names(BillLedger ledger) {
+        StringBuilder sb = new StringBuilder();
+        for (int row = 0; row < ledger.size(); row++) sb.append(row == 0 ? "" : " ").append(ledger.name(row));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,43 @@
+package smartbill;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Item rows never run past the paper, however large the amounts. */
+class ReceiptTemplateTest {
+
+    @Test
+    void largeAmountsStayWithinThePaper() {
+        BillLedger ledger = new BillLedger();
+        ledger.add("Tea", 1250, 2);
+        ledger.add("Industrial generator set 500 kVA", 12_500_000_00L, 1);
+        ledger.add("Steel beams", 150_000_00L, 9);
+        ledger.add("Cement bags premium grade", 450_00L, 2500);
+        ledger.add("Bulk", 999_999_999_00L, 99);
+        BillSnapshot bill = BillSnapshot.of(ledger, "ACME Traders", 0);
+
+        for (int columns : new int[]{ReceiptTemplate.NARROW, ReceiptTemplate.WIDE, ReceiptTemplate.WIDEST}) {
+            EscPos out = new EscPos();
+            ReceiptTemplate.standard(columns).render(bill, out, false);
+            for (String line : printedLines(out.toByteArray())) {
+                assertTrue(line.length() <= columns, columns + " columns: \"" + line + "\"");
+                assertTrue(!line.matches(".*\\d\\d+\\.\\d\\d\\d.*"), "amounts run together: \"" + line + "\"");
+            }
+        }
+    }
+
+    /** The text the printer would show, with the ESC/POS commands the template uses taken out. */
+    private static String[] printedLines(byte[] b) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < b.length; i++) {
+            if (b[i] == 0x1B || b[i] == 0x1D) {
+                char command = (char) b[i + 1];
+                i += command == '@' ? 1 : command == 'V' ? 3 : command == 'p' ? 4 : 2;
+                continue;
+            }
+            sb.append((char) b[i]);
+        }
+        return sb.toString().split("\n");
+    }
+}
@@ -0,0 +1,43 @@
+package smartbill.bench;
+
+import smartbill.BillLedger;
+import smartbill.BillSnapshot;
+
+/**
+ * Deterministic bill fixtures shared by the benchmarks.
+ * Item names repeat every 500 lines, like a real catalog, so interning and
+ * the line index see realistic hit rates.
+ */
+final class Bills {
+
+    static final String CUSTOMER = "Benchmark Customer";
+    static final long TIMESTAMP = 1700000000000L;
+
+    private Bills() {}
+
+    static BillLedger ledger(int lines) {
+        BillLedger ledger = new BillLedger();
+        fill(ledger, lines);
+        ledger.setRates(500, 1800);
+        return ledger;
+    }
+
+    static void fill(BillLedger ledger, int lines) {
+        for (int i = 0; i < lines; i++) {
+            ledger.add(itemName(i), price(i), 1 + i % 7);
+        }
+    }
+
+    static BillSnapshot snapshot(int lines) {
+        return BillSnapshot.of(ledger(lines), CUSTOMER, TIMESTAMP);
+    }
+
+    static String itemName(int i) {
+        return "Item " + (i % 500);
+    }
+
+    /** Distinct price per line so {@code add} never merges rows. */
+    static long price(int i) {
+        return 1000 + i;
+    }
+}
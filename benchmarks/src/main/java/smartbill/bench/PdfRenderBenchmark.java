@@ -0,0 +1,54 @@
+package smartbill.bench;
+
+import com.itextpdf.text.DocumentException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import smartbill.BillSnapshot;
+import smartbill.InvoicePdfRenderer;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PDF invoice layout (what {@code exportToPDF} produces), written to a
+ * counting sink so disk speed stays out of the numbers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PdfRenderBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int lines;
+
+    private BillSnapshot bill;
+
+    @Setup
+    public void setup() {
+        bill = Bills.snapshot(lines);
+    }
+
+    @Benchmark
+    public long render() throws DocumentException {
+        CountingSink sink = new CountingSink();
+        InvoicePdfRenderer.render(bill, sink, null);
+        return sink.bytes;
+    }
+
+    /** Discards everything written to it, keeping only the byte count. */
+    static final class CountingSink extends OutputStream {
+        long bytes;
+
+        @Override
+        public void write(int b) { bytes++; }
+
+        @Override
+        public void write(byte[] b, int off, int len) { bytes += len; }
+    }
+}
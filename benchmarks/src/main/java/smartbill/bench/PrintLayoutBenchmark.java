@@ -0,0 +1,80 @@
+package smartbill.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import smartbill.ReceiptPreview;
+import smartbill.ReceiptPrinter;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.print.PageFormat;
+import java.awt.print.Paper;
+import java.awt.print.Printable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Print page layout: paginating a receipt for a page format, and drawing
+ * every page of it onto an offscreen image in place of a printer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PrintLayoutBenchmark {
+
+    static {
+        System.setProperty("java.awt.headless", "true");
+    }
+
+    @Param({"10", "1000", "100000"})
+    public int lines;
+
+    private String[] receipt;
+    private PageFormat format;
+    private BufferedImage image;
+    private Graphics2D g;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        receipt = new ReceiptPreview(Bills.ledger(lines), () -> Bills.CUSTOMER).lines();
+        Paper a4 = new Paper();
+        a4.setSize(595, 842);
+        a4.setImageableArea(36, 36, 523, 770);
+        format = new PageFormat();
+        format.setPaper(a4);
+        image = new BufferedImage(595, 842, BufferedImage.TYPE_BYTE_GRAY);
+        g = image.createGraphics();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        g.dispose();
+    }
+
+    @Benchmark
+    public int paginate() {
+        return new ReceiptPrinter(receipt, ReceiptPreview.HEADER_LINES).pageCount(g, format);
+    }
+
+    @Benchmark
+    public int printAllPages() {
+        ReceiptPrinter printer = new ReceiptPrinter(receipt, ReceiptPreview.HEADER_LINES);
+        int page = 0;
+        while (true) {
+            Graphics2D pageGraphics = (Graphics2D) g.create();
+            try {
+                if (printer.print(pageGraphics, format, page) == Printable.NO_SUCH_PAGE) return page;
+            } finally {
+                pageGraphics.dispose();
+            }
+            page++;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package smartbill.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import smartbill.BillLedger;
+import smartbill.ReceiptPreview;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Receipt text rendering (what used to be {@code updateTextPreview}):
+ * a full render of a bill into a fresh document, and the incremental path
+ * taken when one more line is scanned onto an already rendered bill.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReceiptPreviewBenchmark {
+
+    static {
+        System.setProperty("java.awt.headless", "true");
+    }
+
+    @Param({"10", "1000", "100000"})
+    public int lines;
+
+    private BillLedger ledger;
+    private BillLedger appendLedger;
+    private ReceiptPreview rendered;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setupLedger() {
+        ledger = Bills.ledger(lines);
+    }
+
+    /** Rendered copy of the bill for the append benchmark; reset so it does not grow unbounded. */
+    @Setup(Level.Iteration)
+    public void setupRendered() {
+        BillLedger copy = Bills.ledger(lines);
+        rendered = new ReceiptPreview(copy, () -> Bills.CUSTOMER);
+        rendered.invalidate();
+        rendered.flushNow();
+        next = lines;
+        appendLedger = copy;
+    }
+
+    @Benchmark
+    public String[] fullRender() {
+        ReceiptPreview preview = new ReceiptPreview(ledger, () -> Bills.CUSTOMER);
+        return preview.lines();
+    }
+
+    @Benchmark
+    public int appendLine() {
+        int row = appendLedger.add(Bills.itemName(next), Bills.price(next), 1);
+        next++;
+        rendered.invalidate();
+        rendered.flushNow();
+        return row;
+    }
+}
@@ -0,0 +1,53 @@
+package smartbill.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import smartbill.BillLedger;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Totals recalculation (what used to be {@code updateCalculations}):
+ * re-applying discount/tax to an existing bill, and building a bill line by line.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TotalsBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int lines;
+
+    private BillLedger ledger;
+    private BillLedger scratch;
+    private int flip;
+
+    @Setup
+    public void setup() {
+        ledger = Bills.ledger(lines);
+        scratch = new BillLedger();
+    }
+
+    /** Rate change on a full bill; alternates rates so nothing can be cached away. */
+    @Benchmark
+    public long recalculate() {
+        flip ^= 1;
+        ledger.setRates(500 + flip, 1800 - flip);
+        return ledger.grandTotal();
+    }
+
+    /** Adds every line of a bill and reads the grand total. */
+    @Benchmark
+    public long buildBill() {
+        scratch.clear();
+        Bills.fill(scratch, lines);
+        scratch.setRates(500, 1800);
+        return scratch.grandTotal();
+    }
+}
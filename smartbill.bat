@@ -0,0 +1,22 @@
+@echo off
+rem Launches SmartBill Pro.
+rem   smartbill.bat              start the till (uses smartbill.jsa if present)
+rem   smartbill.bat --trace      also print start-up phase timings
+rem   smartbill.bat --cds-dump   training run: start once, exit, and write the AppCDS archive (JDK 13+)
+rem Build first with: mvn -B package
+
+if "%SMARTBILL_JAR%"=="" set SMARTBILL_JAR=app\target\smartbill.jar
+if "%SMARTBILL_CDS%"=="" set SMARTBILL_CDS=smartbill.jsa
+
+if "%1"=="--cds-dump" (
+  if exist "%SMARTBILL_CDS%" del "%SMARTBILL_CDS%"
+  java -XX:ArchiveClassesAtExit="%SMARTBILL_CDS%" -Dsmartbill.exitAfterStartup=true -Dsmartbill.startupTrace=true -jar "%SMARTBILL_JAR%"
+  goto :eof
+)
+
+set TRACE=
+if "%1"=="--trace" set TRACE=-Dsmartbill.startupTrace=true
+set CDS=
+if exist "%SMARTBILL_CDS%" set CDS=-XX:SharedArchiveFile="%SMARTBILL_CDS%"
+
+java %CDS% %TRACE% -jar "%SMARTBILL_JAR%"
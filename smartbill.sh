@@ -0,0 +1,29 @@
+#!/bin/sh
+# Launches SmartBill Pro.
+#
+#   ./smartbill.sh              start the till (uses smartbill.jsa if present)
+#   ./smartbill.sh --trace      also print start-up phase timings to stderr
+#   ./smartbill.sh --cds-dump   training run: start once, exit, and write the
+#                               AppCDS archive smartbill.jsa (JDK 13 or newer)
+#
+# Build first with: mvn -B package
+# SMARTBILL_JAR overrides the application jar, SMARTBILL_CDS the archive location.
+
+JAR="${SMARTBILL_JAR:-app/target/smartbill.jar}"
+JSA="${SMARTBILL_CDS:-smartbill.jsa}"
+
+case "$1" in
+  --cds-dump)
+    rm -f "$JSA"
+    exec java -XX:ArchiveClassesAtExit="$JSA" -Dsmartbill.exitAfterStartup=true \
+      -Dsmartbill.startupTrace=true -jar "$JAR"
+    ;;
+  --trace)
+    TRACE="-Dsmartbill.startupTrace=true"
+    ;;
+esac
+
+CDS=""
+[ -f "$JSA" ] && CDS="-XX:SharedArchiveFile=$JSA"
+
+exec java $CDS $TRACE -jar "$JAR"